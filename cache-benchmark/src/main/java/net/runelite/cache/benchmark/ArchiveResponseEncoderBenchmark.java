@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.concurrent.TimeUnit;
+import net.runelite.protocol.api.update.ArchiveResponsePacket;
+import net.runelite.protocol.update.encoders.ArchiveResponseEncoder;
+import net.runelite.protocol.update.encoders.XorEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of framing archive responses, with and without xor
+ * encryption, compared to copying each chunk and xoring byte by byte
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArchiveResponseEncoderBenchmark
+{
+	private static final int CHUNK_SIZE = 512;
+
+	@Param({"2048", "262144"})
+	public int size;
+
+	@Param({"0", "113"})
+	public int key;
+
+	private ArchiveResponsePacket archiveResponse;
+	private EmbeddedChannel channel;
+
+	@Setup
+	public void setup()
+	{
+		archiveResponse = new ArchiveResponsePacket();
+		archiveResponse.setIndex(7);
+		archiveResponse.setArchive(1234);
+		// the encoder doesn't look at the contents
+		archiveResponse.setData(new SyntheticCache().data(size));
+
+		XorEncoder xorEncoder = new XorEncoder();
+		xorEncoder.setKey((byte) key);
+		channel = new EmbeddedChannel(xorEncoder, new ArchiveResponseEncoder());
+	}
+
+	@Benchmark
+	public int encode()
+	{
+		channel.writeOutbound(archiveResponse);
+		ByteBuf out = channel.readOutbound();
+		int length = out.readableBytes();
+		out.release();
+		return length;
+	}
+
+	@Benchmark
+	public int encodeByteAtATime()
+	{
+		ByteBuf out = Unpooled.buffer();
+		out.writeByte(archiveResponse.getIndex());
+		out.writeShort(archiveResponse.getArchive());
+
+		ByteBuf file = Unpooled.wrappedBuffer(archiveResponse.getData());
+		int chunkSize = Math.min(file.readableBytes(), CHUNK_SIZE - 3);
+		writeChunk(file.readBytes(chunkSize), out);
+
+		while (file.isReadable())
+		{
+			out.writeByte(0xff);
+
+			chunkSize = Math.min(file.readableBytes(), CHUNK_SIZE - 1);
+			writeChunk(file.readBytes(chunkSize), out);
+		}
+
+		ByteBuf xored = Unpooled.buffer();
+		if (key == 0)
+		{
+			xored.writeBytes(out);
+		}
+		else
+		{
+			while (out.isReadable())
+			{
+				xored.writeByte(out.readByte() ^ key);
+			}
+		}
+		out.release();
+
+		int length = xored.readableBytes();
+		xored.release();
+		return length;
+	}
+
+	private static void writeChunk(ByteBuf chunk, ByteBuf out)
+	{
+		out.writeBytes(chunk);
+		chunk.release();
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import net.runelite.cache.fs.jagex.DataFile;
+import net.runelite.cache.fs.jagex.DataFileWriteResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataFileBenchmark
+{
+	private static final int ARCHIVES = 256;
+
+	@Param({"false", "true"})
+	public boolean mapped;
+
+	private File file;
+	private DataFile dataFile;
+	private DataFileWriteResult[] archives;
+	private int next;
+
+	@Setup
+	public void setup() throws IOException
+	{
+		SyntheticCache cache = new SyntheticCache();
+
+		int[] sizes = new int[ARCHIVES];
+		for (int i = 0; i < ARCHIVES; ++i)
+		{
+			// mostly small archives with the occasional large one, like a config index
+			sizes[i] = i % 16 == 0 ? 64 * 1024 : 512 + i * 8;
+		}
+
+		file = Files.createTempFile("benchmark", ".dat2").toFile();
+		archives = cache.dataFile(file, sizes);
+		dataFile = new DataFile(file, mapped);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException
+	{
+		dataFile.close();
+		file.delete();
+	}
+
+	@Benchmark
+	public byte[] read() throws IOException
+	{
+		int archiveId = next++ & (ARCHIVES - 1);
+		DataFileWriteResult archive = archives[archiveId];
+		return dataFile.read(2, archiveId, archive.sector, archive.compressedLength);
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import net.runelite.cache.definitions.ItemDefinition;
+import net.runelite.cache.definitions.ModelDefinition;
+import net.runelite.cache.definitions.ObjectDefinition;
+import net.runelite.cache.definitions.loaders.ItemLoader;
+import net.runelite.cache.definitions.loaders.ModelLoader;
+import net.runelite.cache.definitions.loaders.ObjectLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DefinitionLoaderBenchmark
+{
+	private static final int DEFINITIONS = 1024;
+
+	private final ItemLoader itemLoader = new ItemLoader();
+	private final ObjectLoader objectLoader = new ObjectLoader();
+	private final ModelLoader modelLoader = new ModelLoader();
+
+	private byte[][] items;
+	private byte[][] objects;
+	private byte[] model;
+	private int next;
+
+	@Setup
+	public void setup()
+	{
+		SyntheticCache cache = new SyntheticCache();
+
+		items = new byte[DEFINITIONS][];
+		objects = new byte[DEFINITIONS][];
+		for (int i = 0; i < DEFINITIONS; ++i)
+		{
+			items[i] = cache.item(i);
+			objects[i] = cache.object(i);
+		}
+
+		// roughly the size of a player equipment model
+		model = cache.model(24);
+	}
+
+	@Benchmark
+	public ItemDefinition loadItem()
+	{
+		int id = next++ & (DEFINITIONS - 1);
+		return itemLoader.load(id, items[id]);
+	}
+
+	@Benchmark
+	public ObjectDefinition loadObject()
+	{
+		int id = next++ & (DEFINITIONS - 1);
+		return objectLoader.load(id, objects[id]);
+	}
+
+	@Benchmark
+	public ModelDefinition loadModel()
+	{
+		return modelLoader.load(0, model);
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.runelite.cache.io.InputStream;
+import net.runelite.cache.io.OutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InputStreamBenchmark
+{
+	private static final int COUNT = 4096;
+
+	private byte[] bigSmarts;
+	private byte[] shortSmarts;
+	private byte[] unsignedShortSmarts;
+
+	@Setup
+	public void setup()
+	{
+		Random random = new Random(42L);
+
+		OutputStream bigSmart = new OutputStream();
+		OutputStream shortSmart = new OutputStream();
+		OutputStream unsignedShortSmart = new OutputStream();
+		for (int i = 0; i < COUNT; ++i)
+		{
+			// a mix of the one and two byte (or two and four byte) encodings
+			boolean small = random.nextBoolean();
+			bigSmart.writeBigSmart(small ? random.nextInt(32768) : 32768 + random.nextInt(1 << 20));
+			unsignedShortSmart.writeShortSmart(small ? random.nextInt(128) : 128 + random.nextInt(32640));
+
+			int value = small ? random.nextInt(128) - 64 : random.nextInt(32768) - 16384;
+			if (value >= -64 && value < 64)
+			{
+				shortSmart.writeByte(value + 64);
+			}
+			else
+			{
+				shortSmart.writeShort(value + 0xc000);
+			}
+		}
+
+		bigSmarts = bigSmart.flip();
+		shortSmarts = shortSmart.flip();
+		unsignedShortSmarts = unsignedShortSmart.flip();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public int readBigSmart()
+	{
+		InputStream in = new InputStream(bigSmarts);
+		int sum = 0;
+		for (int i = 0; i < COUNT; ++i)
+		{
+			sum += in.readBigSmart();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public int readShortSmart()
+	{
+		InputStream in = new InputStream(shortSmarts);
+		int sum = 0;
+		for (int i = 0; i < COUNT; ++i)
+		{
+			sum += in.readShortSmart();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public int readUnsignedShortSmart()
+	{
+		InputStream in = new InputStream(unsignedShortSmarts);
+		int sum = 0;
+		for (int i = 0; i < COUNT; ++i)
+		{
+			sum += in.readUnsignedShortSmart();
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import net.runelite.cache.definitions.ModelDefinition;
+import net.runelite.cache.definitions.loaders.ModelLoader;
+import net.runelite.cache.models.ObjExporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Load and dump a cache's worth of models. Run with -prof gc to compare the
+ * allocation rate of each pass.
+ * <p>
+ * This only measures the current model code. To compare against another
+ * layout, run it on a build of that version.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark
+{
+	private static final Writer NULL_WRITER = new Writer()
+	{
+		@Override
+		public void write(char[] cbuf, int off, int len)
+		{
+		}
+
+		@Override
+		public Writer append(CharSequence csq)
+		{
+			return this;
+		}
+
+		@Override
+		public void flush()
+		{
+		}
+
+		@Override
+		public void close()
+		{
+		}
+	};
+
+	@Param({"1024"})
+	private int models;
+
+	private final ModelLoader modelLoader = new ModelLoader();
+
+	private byte[][] data;
+
+	@Setup
+	public void setup()
+	{
+		SyntheticCache cache = new SyntheticCache();
+
+		data = new byte[models][];
+		for (int i = 0; i < models; ++i)
+		{
+			// a mix of small scenery pieces and larger equipment models
+			data[i] = cache.model(4 + (i % 24));
+		}
+	}
+
+	@Benchmark
+	public void load(Blackhole blackhole)
+	{
+		for (int i = 0; i < models; ++i)
+		{
+			blackhole.consume(modelLoader.load(i, data[i]));
+		}
+	}
+
+	@Benchmark
+	public void loadWithNormals(Blackhole blackhole)
+	{
+		for (int i = 0; i < models; ++i)
+		{
+			ModelDefinition model = modelLoader.load(i, data[i]);
+			model.computeNormals();
+			blackhole.consume(model);
+		}
+	}
+
+	@Benchmark
+	public void exportObj() throws IOException
+	{
+		for (int i = 0; i < models; ++i)
+		{
+			ModelDefinition model = modelLoader.load(i, data[i]);
+			// synthetic models are untextured, so no texture manager is needed
+			new ObjExporter(null, model).export(NULL_WRITER, NULL_WRITER);
+		}
+	}
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import net.runelite.cache.definitions.ItemDefinition;
+import net.runelite.cache.definitions.ObjectDefinition;
+import net.runelite.cache.definitions.savers.ItemSaver;
+import net.runelite.cache.definitions.savers.ObjectSaver;
+import net.runelite.cache.fs.Container;
+import net.runelite.cache.fs.jagex.CompressionType;
+import net.runelite.cache.fs.jagex.DataFile;
+import net.runelite.cache.fs.jagex.DataFileWriteResult;
+import net.runelite.cache.index.ArchiveData;
+import net.runelite.cache.index.FileData;
+import net.runelite.cache.index.IndexData;
+import net.runelite.cache.io.OutputStream;
+
+/**
+ * Generates cache data for the benchmarks, so they can run without a copy
+ * of the game cache. Everything is generated from a fixed seed so runs are
+ * comparable.
+ */
+public class SyntheticCache
+{
+	private final Random random = new Random(42L);
+
+	/**
+	 * Generate data which compresses roughly as well as typical archive
+	 * contents: runs of small values mixed with noise
+	 *
+	 * @param size
+	 * @return
+	 */
+	public byte[] data(int size)
+	{
+		byte[] data = new byte[size];
+		for (int i = 0; i < size; ++i)
+		{
+			data[i] = (byte) (random.nextInt(4) == 0 ? random.nextInt(256) : (i >> 4) & 0xf);
+		}
+		return data;
+	}
+
+	/**
+	 * Compress data into a container
+	 *
+	 * @param data
+	 * @param compression one of {@link CompressionType}
+	 * @param keys xtea keys, or null
+	 * @return
+	 * @throws IOException
+	 */
+	public byte[] container(byte[] data, int compression, int[] keys) throws IOException
+	{
+		Container container = new Container(compression, 1);
+		container.compress(data, keys);
+		return container.data;
+	}
+
+	public int[] keys()
+	{
+		return new int[]
+		{
+			random.nextInt(), random.nextInt(), random.nextInt(), random.nextInt()
+		};
+	}
+
+	/**
+	 * Write archives of the given sizes to a new data file
+	 *
+	 * @param file
+	 * @param sizes
+	 * @return the write result of each archive
+	 * @throws IOException
+	 */
+	public DataFileWriteResult[] dataFile(File file, int[] sizes) throws IOException
+	{
+		DataFileWriteResult[] results = new DataFileWriteResult[sizes.length];
+		try (DataFile dataFile = new DataFile(file))
+		{
+			for (int i = 0; i < sizes.length; ++i)
+			{
+				results[i] = dataFile.write(2, i, container(data(sizes[i]), CompressionType.GZ, null));
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Generate an encoded index
+	 *
+	 * @param archiveCount
+	 * @param filesPerArchive
+	 * @return
+	 */
+	public byte[] indexData(int archiveCount, int filesPerArchive)
+	{
+		ArchiveData[] archives = new ArchiveData[archiveCount];
+		int archiveId = -1;
+		for (int i = 0; i < archiveCount; ++i)
+		{
+			FileData[] files = new FileData[filesPerArchive];
+			for (int j = 0; j < filesPerArchive; ++j)
+			{
+				FileData file = new FileData();
+				file.setId(j * 2);
+				file.setNameHash(random.nextInt());
+				files[j] = file;
+			}
+
+			ArchiveData archive = new ArchiveData();
+			// leave the odd gap between archive ids
+			archiveId += 1 + random.nextInt(2);
+			archive.setId(archiveId);
+			archive.setNameHash(random.nextInt());
+			archive.setCrc(random.nextInt());
+			archive.setRevision(random.nextInt(1000));
+			archive.setFiles(files);
+			archives[i] = archive;
+		}
+
+		IndexData indexData = new IndexData();
+		indexData.setProtocol(7);
+		indexData.setRevision(1);
+		indexData.setNamed(true);
+		indexData.setArchives(archives);
+		return indexData.writeIndexData();
+	}
+
+	public byte[] item(int id)
+	{
+		ItemDefinition item = new ItemDefinition(id);
+		item.name = "Item " + id;
+		item.inventoryModel = random.nextInt(30000);
+		item.cost = random.nextInt(100000);
+		item.members = random.nextBoolean();
+		item.maleModel0 = random.nextInt(30000);
+		item.femaleModel0 = random.nextInt(30000);
+		item.options[0] = "Wield";
+		item.interfaceOptions[1] = "Wear";
+		item.colorFind = new short[]
+		{
+			(short) random.nextInt(65536), (short) random.nextInt(65536)
+		};
+		item.colorReplace = new short[]
+		{
+			(short) random.nextInt(65536), (short) random.nextInt(65536)
+		};
+		return new ItemSaver().save(item);
+	}
+
+	public byte[] object(int id)
+	{
+		ObjectDefinition object = new ObjectDefinition();
+		object.setId(id);
+		object.setName("Object " + id);
+		object.setObjectModels(new int[]
+		{
+			random.nextInt(30000), random.nextInt(30000)
+		});
+		object.setObjectTypes(new int[]
+		{
+			10, 11
+		});
+		object.setSizeX(1 + random.nextInt(3));
+		object.setSizeY(1 + random.nextInt(3));
+		object.setActions(new String[]
+		{
+			"Open", null, "Search", null, null
+		});
+		object.setRecolorToFind(new short[]
+		{
+			(short) random.nextInt(65536)
+		});
+		object.setRecolorToReplace(new short[]
+		{
+			(short) random.nextInt(65536)
+		});
+		return new ObjectSaver().save(object);
+	}
+
+	/**
+	 * Generate a model in the older model format: a size by size grid of
+	 * vertices with two triangles per cell
+	 *
+	 * @param size
+	 * @return
+	 */
+	public byte[] model(int size)
+	{
+		int vertexCount = size * size;
+		int faceCount = (size - 1) * (size - 1) * 2;
+
+		OutputStream vertexFlags = new OutputStream();
+		OutputStream vertexX = new OutputStream();
+		OutputStream vertexY = new OutputStream();
+		OutputStream vertexZ = new OutputStream();
+
+		int lastX = 0, lastY = 0, lastZ = 0;
+		for (int i = 0; i < vertexCount; ++i)
+		{
+			int x = (i % size) * 32;
+			int y = -random.nextInt(64);
+			int z = (i / size) * 32;
+
+			vertexFlags.writeByte(7);
+			writeSignedSmart(vertexX, x - lastX);
+			writeSignedSmart(vertexY, y - lastY);
+			writeSignedSmart(vertexZ, z - lastZ);
+
+			lastX = x;
+			lastY = y;
+			lastZ = z;
+		}
+
+		OutputStream faceTypes = new OutputStream();
+		OutputStream faceIndices = new OutputStream();
+		OutputStream faceColors = new OutputStream();
+
+		int last = 0;
+		for (int row = 0; row < size - 1; ++row)
+		{
+			for (int col = 0; col < size - 1; ++col)
+			{
+				int v = row * size + col;
+				int[][] triangles =
+				{
+					{
+						v, v + 1, v + size
+					},
+					{
+						v + 1, v + size + 1, v + size
+					}
+				};
+
+				for (int[] triangle : triangles)
+				{
+					// type 1 stores all three indices, each relative to the previous
+					faceTypes.writeByte(1);
+					writeSignedSmart(faceIndices, triangle[0] - last);
+					writeSignedSmart(faceIndices, triangle[1] - triangle[0]);
+					writeSignedSmart(faceIndices, triangle[2] - triangle[1]);
+					last = triangle[2];
+
+					faceColors.writeShort(random.nextInt(65536));
+				}
+			}
+		}
+
+		byte[] faceIndexData = faceIndices.flip();
+		byte[] xData = vertexX.flip();
+		byte[] yData = vertexY.flip();
+		byte[] zData = vertexZ.flip();
+
+		OutputStream out = new OutputStream();
+		out.writeBytes(vertexFlags.flip());
+		out.writeBytes(faceTypes.flip());
+		out.writeBytes(faceIndexData);
+		out.writeBytes(faceColors.flip());
+		out.writeBytes(xData);
+		out.writeBytes(yData);
+		out.writeBytes(zData);
+
+		out.writeShort(vertexCount);
+		out.writeShort(faceCount);
+		out.writeByte(0); // texture triangles
+		out.writeByte(0); // face render types
+		out.writeByte(0); // priority
+		out.writeByte(0); // face alphas
+		out.writeByte(0); // face skins
+		out.writeByte(0); // vertex skins
+		out.writeShort(xData.length);
+		out.writeShort(yData.length);
+		out.writeShort(zData.length);
+		out.writeShort(faceIndexData.length);
+		return out.flip();
+	}
+
+	private static void writeSignedSmart(OutputStream out, int value)
+	{
+		if (value >= -64 && value < 64)
+		{
+			out.writeByte(value + 64);
+		}
+		else
+		{
+			out.writeShort(value + 0xc000);
+		}
+	}
+}
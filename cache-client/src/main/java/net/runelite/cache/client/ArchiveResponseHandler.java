@@ -30,9 +30,9 @@ import net.runelite.protocol.api.update.ArchiveResponsePacket;
 
 public class ArchiveResponseHandler extends SimpleChannelInboundHandler<ArchiveResponsePacket>
 {
-	private final CacheClient client;
+	private final CacheConnection client;
 
-	public ArchiveResponseHandler(CacheClient client)
+	public ArchiveResponseHandler(CacheConnection client)
 	{
 		this.client = client;
 	}
@@ -25,38 +25,29 @@
 package net.runelite.cache.client;
 
 import com.google.common.base.Stopwatch;
-import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
-import io.netty.channel.Channel;
-import io.netty.channel.ChannelFuture;
-import io.netty.channel.ChannelInitializer;
-import io.netty.channel.ChannelOption;
-import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import java.io.IOException;
-import java.util.ArrayDeque;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.index.ArchiveData;
 import net.runelite.cache.index.IndexData;
-import net.runelite.protocol.update.decoders.HandshakeResponseDecoder;
-import net.runelite.protocol.update.encoders.ArchiveRequestEncoder;
-import net.runelite.protocol.update.encoders.EncryptionEncoder;
-import net.runelite.protocol.api.update.ArchiveRequestPacket;
 import net.runelite.protocol.api.login.HandshakeResponseType;
 import net.runelite.cache.util.Crc32;
-import net.runelite.protocol.api.handshake.UpdateHandshakePacket;
-import net.runelite.protocol.handshake.UpdateHandshakeEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -71,16 +62,21 @@ public class CacheClient implements AutoCloseable
 
 	private final Store store; // store cache will be written to
 	private final String host;
+	private final int port;
 	private final int clientRevision;
 	private DownloadWatcher watcher;
+	private DownloadJournal journal;
+	private Semaphore pendingArchives; // limits archives requested but not yet processed
 
-	private ClientState state;
+	private final EventLoopGroup group;
+	private final CacheConnection[] connections;
+	private final DownloadStats stats = new DownloadStats();
 
-	private final EventLoopGroup group = new NioEventLoopGroup(1);
-	private Channel channel;
-
-	private CompletableFuture<HandshakeResponseType> handshakeFuture;
-	private final Queue<PendingFileRequest> requests = new ArrayDeque<>();
+	/**
+	 * downloaded archives are verified and saved from this thread, since
+	 * storages are not thread safe
+	 */
+	private final ExecutorService completionExecutor = Executors.newSingleThreadExecutor();
 
 	public CacheClient(Store store, int clientRevision)
 	{
@@ -89,9 +85,37 @@ public class CacheClient implements AutoCloseable
 
 	public CacheClient(Store store, String host, int clientRevision)
 	{
+		this(store, host, PORT, clientRevision, 1);
+	}
+
+	/**
+	 * Create a client which downloads over several connections at once,
+	 * each keeping its own window of requests in flight.
+	 *
+	 * @param store
+	 * @param host
+	 * @param port
+	 * @param clientRevision
+	 * @param connections number of connections to open to the server
+	 */
+	public CacheClient(Store store, String host, int port, int clientRevision, int connections)
+	{
+		if (connections < 1)
+		{
+			throw new IllegalArgumentException("connections must be at least 1");
+		}
+
 		this.store = store;
 		this.host = host;
+		this.port = port;
 		this.clientRevision = clientRevision;
+		this.group = new NioEventLoopGroup(connections);
+		this.connections = new CacheConnection[connections];
+
+		for (int i = 0; i < connections; ++i)
+		{
+			this.connections[i] = new CacheConnection(i, MAX_REQUESTS, clientRevision, stats);
+		}
 	}
 
 	public CacheClient(Store store, int clientRevision, DownloadWatcher watcher)
@@ -100,63 +124,90 @@ public class CacheClient implements AutoCloseable
 		this.watcher = watcher;
 	}
 
-	public void connect()
+	/**
+	 * Set the watcher downloaded archives are passed to, instead of being
+	 * saved to the store.
+	 *
+	 * @param watcher
+	 */
+	public void setWatcher(DownloadWatcher watcher)
 	{
-		Bootstrap b = new Bootstrap();
-		b.group(group)
-			.channel(NioSocketChannel.class)
-			.option(ChannelOption.TCP_NODELAY, true)
-			.handler(new ChannelInitializer<SocketChannel>()
-			{
-				@Override
-				public void initChannel(SocketChannel ch) throws Exception
-				{
-					ChannelPipeline p = ch.pipeline();
-
-					//p.addFirst(new HttpProxyHandler(new InetSocketAddress("runelite.net", 3128)));
-					p.addLast("decoder", new HandshakeResponseDecoder());
-
-					p.addLast(
-						new CacheClientHandler(),
-						new HandshakeResponseHandler(CacheClient.this),
-						new ArchiveResponseHandler(CacheClient.this)
-					);
-
-					p.addLast(
-						new UpdateHandshakeEncoder(),
-						new EncryptionEncoder(),
-						new ArchiveRequestEncoder()
-					);
-				}
-			});
-
-		// Start the client.
-		ChannelFuture f = b.connect(host, PORT).syncUninterruptibly();
-		channel = f.channel();
+		this.watcher = watcher;
 	}
 
-	public CompletableFuture<HandshakeResponseType> handshake()
+	/**
+	 * Set the journal used to resume interrupted downloads. Archives in the
+	 * journal are not downloaded again, and archives are added to it once
+	 * they have been saved.
+	 *
+	 * @param journal
+	 */
+	public void setJournal(DownloadJournal journal)
 	{
-		UpdateHandshakePacket handshakePacket = new UpdateHandshakePacket();
-		handshakePacket.setRevision(getClientRevision());
+		this.journal = journal;
+	}
 
-		state = ClientState.HANDSHAKING;
+	/**
+	 * Limit the number of archives which have been requested but not yet
+	 * saved or passed to the watcher. Once the limit is reached no more
+	 * archives are requested until one completes, so a slow watcher slows
+	 * the download instead of buffering the rest of the cache in memory.
+	 *
+	 * @param maxPendingArchives
+	 */
+	public void setMaxPendingArchives(int maxPendingArchives)
+	{
+		this.pendingArchives = new Semaphore(maxPendingArchives);
+	}
 
-		assert handshakeFuture == null;
-		handshakeFuture = new CompletableFuture<>();
+	public void connect()
+	{
+		for (CacheConnection connection : connections)
+		{
+			connection.connect(group, host, port);
+		}
+	}
 
-		channel.writeAndFlush(handshakePacket);
+	/**
+	 * Handshake on every connection. The result is the first non-ok
+	 * response, or ok if every connection was accepted.
+	 *
+	 * @return
+	 */
+	public CompletableFuture<HandshakeResponseType> handshake()
+	{
+		logger.info("Sending handshake with revision {} on {} connection(s)", clientRevision, connections.length);
 
-		logger.info("Sent handshake with revision {}", handshakePacket.getRevision());
+		List<CompletableFuture<HandshakeResponseType>> futures = new ArrayList<>(connections.length);
+		for (CacheConnection connection : connections)
+		{
+			futures.add(connection.handshake());
+		}
 
-		return handshakeFuture;
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+			.thenApply(v ->
+			{
+				for (CompletableFuture<HandshakeResponseType> future : futures)
+				{
+					HandshakeResponseType response = future.join();
+					if (response != HandshakeResponseType.RESPONSE_OK)
+					{
+						return response;
+					}
+				}
+				return HandshakeResponseType.RESPONSE_OK;
+			});
 	}
 
 	@Override
 	public void close()
 	{
-		channel.close().syncUninterruptibly();
+		for (CacheConnection connection : connections)
+		{
+			connection.close();
+		}
 		group.shutdownGracefully();
+		completionExecutor.shutdown();
 	}
 
 	public int getClientRevision()
@@ -164,19 +215,21 @@ public class CacheClient implements AutoCloseable
 		return clientRevision;
 	}
 
-	public ClientState getState()
-	{
-		return state;
-	}
-
-	void setState(ClientState state)
+	public DownloadStats getStats()
 	{
-		this.state = state;
+		return stats;
 	}
 
-	CompletableFuture<HandshakeResponseType> getHandshakeFuture()
+	public ClientState getState()
 	{
-		return handshakeFuture;
+		for (CacheConnection connection : connections)
+		{
+			if (connection.getState() != ClientState.CONNECTED)
+			{
+				return connection.getState();
+			}
+		}
+		return ClientState.CONNECTED;
 	}
 
 	public List<IndexInfo> requestIndexes() throws IOException
@@ -205,8 +258,21 @@ public class CacheClient implements AutoCloseable
 		Stopwatch stopwatch = Stopwatch.createStarted();
 
 		List<IndexInfo> indexes = requestIndexes();
+
+		// request every index up front, they are small and skip the window
+		List<CompletableFuture<FileResult>> indexFutures = new ArrayList<>(indexes.size());
 		for (IndexInfo indexInfo : indexes)
 		{
+			indexFutures.add(requestFile(255, indexInfo.getId(), true));
+		}
+
+		List<CompletableFuture<Void>> archiveFutures = new ArrayList<>();
+		AtomicInteger failed = new AtomicInteger();
+		int resumed = 0;
+
+		for (int idx = 0; idx < indexes.size(); ++idx)
+		{
+			IndexInfo indexInfo = indexes.get(idx);
 			int i = indexInfo.getId();
 			int crc = indexInfo.getCrc();
 			int revision = indexInfo.getRevision();
@@ -242,7 +308,17 @@ public class CacheClient implements AutoCloseable
 
 			logger.info("Downloading index {}", i);
 
-			FileResult indexFileResult = requestFile(255, i, true).join();
+			FileResult indexFileResult;
+			try
+			{
+				indexFileResult = indexFutures.get(idx).join();
+			}
+			catch (CompletionException ex)
+			{
+				// keep going so archives already requested are waited for
+				logger.warn("Unable to download index {}", i, ex.getCause());
+				continue;
+			}
 			indexFileResult.decompress(null);
 
 			logger.info("Downloaded index {}", i);
@@ -314,146 +390,140 @@ public class CacheClient implements AutoCloseable
 				// Add files
 				archive.setFileData(ad.getFiles());
 
-				CompletableFuture<FileResult> future = requestFile(index.getId(), ad.getId(), false);
-				future.handle((fr, ex) ->
+				if (journal != null && journal.isComplete(index.getId(), ad.getId(), ad.getRevision(), ad.getCrc()))
 				{
-					byte[] data = fr.getCompressedData();
-
-					Crc32 crc32 = new Crc32();
-					crc32.update(data, 0, data.length);
-					int hash = crc32.getHash();
+					logger.debug("Archive {} in index {} was already downloaded", ad.getId(), index.getId());
+					++resumed;
+					continue;
+				}
 
-					if (hash != archive.getCrc())
-					{
-						logger.warn("crc mismatch on downloaded archive {}/{}: {} != {}",
-							archive.getIndex().getId(), archive.getArchiveId(),
-							hash, archive.getCrc());
-						throw new RuntimeException("crc mismatch");
-					}
+				if (pendingArchives != null)
+				{
+					pendingArchives.acquireUninterruptibly();
+				}
 
-					if (watcher != null)
-					{
-						watcher.downloadComplete(archive, data);
-					}
-					else
+				CompletableFuture<Void> future = requestFile(index.getId(), ad.getId(), false)
+					.thenAcceptAsync(fr -> archiveDownloaded(archive, fr), completionExecutor)
+					.exceptionally(ex ->
 					{
-						try
-						{
-							Storage storage = store.getStorage();
-							storage.saveArchive(archive, data);
-						}
-						catch (IOException ex1)
-						{
-							logger.warn("unable to save archive data", ex1);
-						}
-					}
-					return null;
-				});
-			}
-		}
+						logger.warn("unable to download archive {}/{}",
+							archive.getIndex().getId(), archive.getArchiveId(), ex);
+						failed.incrementAndGet();
+						return null;
+					});
 
-		// flush any pending requests
-		channel.flush();
-
-		while (!requests.isEmpty())
-		{
-			// wait for pending requests
-			synchronized (this)
-			{
-				try
+				if (pendingArchives != null)
 				{
-					wait();
-				}
-				catch (InterruptedException ex)
-				{
-					logger.warn(null, ex);
+					future = future.thenRun(pendingArchives::release);
 				}
+				archiveFutures.add(future);
 			}
 		}
 
+		// wait for pending requests
+		CompletableFuture.allOf(archiveFutures.toArray(new CompletableFuture[0])).join();
+
 		stopwatch.stop();
-		logger.info("Download completed in {}", stopwatch);
+		logger.info("Download of {} archives completed in {} ({} failed, {} resumed from journal)",
+			archiveFutures.size(), stopwatch, failed.get(), resumed);
+		logger.info("Download stats: {}", stats);
 	}
 
-	private synchronized CompletableFuture<FileResult> requestFile(int index, int fileId, boolean flush)
+	private void archiveDownloaded(Archive archive, FileResult fr)
 	{
-		if (state != ClientState.CONNECTED)
-		{
-			throw new IllegalStateException("Can't request files until connected!");
-		}
+		byte[] data = fr.getCompressedData();
 
-		if (!flush)
-		{
-			while (requests.size() >= MAX_REQUESTS)
-			{
-				channel.flush();
+		Crc32 crc32 = new Crc32();
+		crc32.update(data, 0, data.length);
+		int hash = crc32.getHash();
 
-				try
-				{
-					wait();
-				}
-				catch (InterruptedException ex)
-				{
-					logger.warn("interrupted while waiting for requests", ex);
-				}
-			}
+		if (hash != archive.getCrc())
+		{
+			logger.warn("crc mismatch on downloaded archive {}/{}: {} != {}",
+				archive.getIndex().getId(), archive.getArchiveId(),
+				hash, archive.getCrc());
+			throw new RuntimeException("crc mismatch");
 		}
 
-		ArchiveRequestPacket archiveRequest = new ArchiveRequestPacket();
-		archiveRequest.setPriority(false);
-		archiveRequest.setIndex(index);
-		archiveRequest.setArchive(fileId);
-
-		CompletableFuture<FileResult> future = new CompletableFuture<>();
-		PendingFileRequest pf = new PendingFileRequest(index,
-			fileId, future);
-
-		logger.trace("Sending request for {}/{}", index, fileId);
-
-		requests.add(pf);
-
-		if (!flush)
+		if (watcher != null)
 		{
-			channel.write(archiveRequest);
+			watcher.downloadComplete(archive, data);
 		}
 		else
 		{
-			channel.writeAndFlush(archiveRequest);
+			try
+			{
+				Storage storage = store.getStorage();
+				storage.saveArchive(archive, data);
+			}
+			catch (IOException ex)
+			{
+				throw new UncheckedIOException("unable to save archive data", ex);
+			}
 		}
 
-		return future;
-	}
-
-	private PendingFileRequest findRequest(int index, int file)
-	{
-		for (PendingFileRequest pr : requests)
+		if (journal != null)
 		{
-			if (pr.getIndex() == index && pr.getArchive() == file)
+			try
 			{
-				return pr;
+				journal.record(archive.getIndex().getId(), archive.getArchiveId(), archive.getRevision(), archive.getCrc());
+			}
+			catch (IOException ex)
+			{
+				logger.warn("unable to journal archive {}/{}", archive.getIndex().getId(), archive.getArchiveId(), ex);
 			}
 		}
-		return null;
 	}
 
-	protected synchronized void onFileFinish(int index, int file, byte[] compressedData)
+	/**
+	 * Request a file from the least loaded open connection. This does not
+	 * block; requests beyond a connection's window are queued until
+	 * earlier requests complete. If the connection closes before the file
+	 * arrives, it is requested again from another connection, and only
+	 * fails once every connection is closed.
+	 *
+	 * @param index
+	 * @param fileId
+	 * @param urgent whether the request should skip the window
+	 * @return
+	 */
+	private CompletableFuture<FileResult> requestFile(int index, int fileId, boolean urgent)
 	{
-		PendingFileRequest pr = findRequest(index, file);
-
-		if (pr == null)
+		CacheConnection best = null;
+		for (CacheConnection connection : connections)
 		{
-			logger.warn("File download {}/{} with no pending request", index, file);
-			return;
+			if (connection.isActive() && (best == null || connection.getOutstanding() < best.getOutstanding()))
+			{
+				best = connection;
+			}
 		}
 
-		requests.remove(pr);
-
-		notify();
+		if (best == null)
+		{
+			CompletableFuture<FileResult> future = new CompletableFuture<>();
+			future.completeExceptionally(new IOException("All connections are closed"));
+			return future;
+		}
 
-		FileResult result = new FileResult(index, file, compressedData);
+		CacheConnection connection = best;
+		return connection.request(index, fileId, urgent)
+			.handle((fr, ex) ->
+			{
+				if (ex == null)
+				{
+					return CompletableFuture.completedFuture(fr);
+				}
 
-		logger.debug("File download finished for index {} file {}, length {}", index, file, compressedData.length);
+				if (!connection.isActive())
+				{
+					logger.debug("Connection closed before {}/{} arrived, requesting it again", index, fileId);
+					return requestFile(index, fileId, urgent);
+				}
 
-		pr.getFuture().complete(result);
+				CompletableFuture<FileResult> future = new CompletableFuture<>();
+				future.completeExceptionally(ex);
+				return future;
+			})
+			.thenCompose(Function.identity());
 	}
 }
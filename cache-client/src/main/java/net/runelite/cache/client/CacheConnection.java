@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.client;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.runelite.protocol.api.handshake.UpdateHandshakePacket;
+import net.runelite.protocol.api.login.HandshakeResponseType;
+import net.runelite.protocol.api.update.ArchiveRequestPacket;
+import net.runelite.protocol.handshake.UpdateHandshakeEncoder;
+import net.runelite.protocol.update.decoders.HandshakeResponseDecoder;
+import net.runelite.protocol.update.encoders.ArchiveRequestEncoder;
+import net.runelite.protocol.update.encoders.EncryptionEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A single connection to the update server. Requests are queued without
+ * blocking and sent from the channel's event loop, keeping at most
+ * {@code window} non-urgent requests in flight at a time.
+ */
+class CacheConnection
+{
+	private static final Logger logger = LoggerFactory.getLogger(CacheConnection.class);
+
+	private final int id;
+	private final int window;
+	private final int clientRevision;
+	private final DownloadStats stats;
+
+	private Channel channel;
+	private volatile ClientState state;
+	private volatile CompletableFuture<HandshakeResponseType> handshakeFuture;
+
+	/**
+	 * requests waiting to be sent. Urgent requests skip the in flight window.
+	 */
+	private final Queue<PendingFileRequest> waiting = new ConcurrentLinkedQueue<>();
+	private final Queue<PendingFileRequest> urgent = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+	/**
+	 * requests made and not yet completed, keyed by index and archive
+	 */
+	private final Map<Integer, PendingFileRequest> pending = new ConcurrentHashMap<>();
+
+	/**
+	 * number of non-urgent requests in flight. Only used from the event loop.
+	 */
+	private int inFlightWindowed;
+
+	/**
+	 * requests made and not yet completed, for balancing between connections
+	 */
+	private final AtomicInteger outstanding = new AtomicInteger();
+
+	CacheConnection(int id, int window, int clientRevision, DownloadStats stats)
+	{
+		this.id = id;
+		this.window = window;
+		this.clientRevision = clientRevision;
+		this.stats = stats;
+	}
+
+	void connect(EventLoopGroup group, String host, int port)
+	{
+		Bootstrap b = new Bootstrap();
+		b.group(group)
+			.channel(NioSocketChannel.class)
+			.option(ChannelOption.TCP_NODELAY, true)
+			.handler(new ChannelInitializer<SocketChannel>()
+			{
+				@Override
+				public void initChannel(SocketChannel ch) throws Exception
+				{
+					ChannelPipeline p = ch.pipeline();
+
+					p.addLast("decoder", new HandshakeResponseDecoder());
+
+					p.addLast(
+						new CacheClientHandler(),
+						new HandshakeResponseHandler(CacheConnection.this),
+						new ArchiveResponseHandler(CacheConnection.this)
+					);
+
+					p.addLast(
+						new UpdateHandshakeEncoder(),
+						new EncryptionEncoder(),
+						new ArchiveRequestEncoder()
+					);
+				}
+			});
+
+		channel = b.connect(host, port).syncUninterruptibly().channel();
+		channel.closeFuture().addListener(f -> failOutstanding());
+	}
+
+	CompletableFuture<HandshakeResponseType> handshake()
+	{
+		UpdateHandshakePacket handshakePacket = new UpdateHandshakePacket();
+		handshakePacket.setRevision(clientRevision);
+
+		state = ClientState.HANDSHAKING;
+
+		assert handshakeFuture == null;
+		handshakeFuture = new CompletableFuture<>();
+
+		channel.writeAndFlush(handshakePacket);
+
+		logger.debug("Connection {} sent handshake with revision {}", id, handshakePacket.getRevision());
+
+		if (!channel.isActive())
+		{
+			// the connection may have closed before the handshake future was set
+			failOutstanding();
+		}
+
+		return handshakeFuture;
+	}
+
+	void close()
+	{
+		if (channel != null)
+		{
+			channel.close().syncUninterruptibly();
+		}
+	}
+
+	ClientState getState()
+	{
+		return state;
+	}
+
+	void setState(ClientState state)
+	{
+		this.state = state;
+	}
+
+	CompletableFuture<HandshakeResponseType> getHandshakeFuture()
+	{
+		return handshakeFuture;
+	}
+
+	int getOutstanding()
+	{
+		return outstanding.get();
+	}
+
+	boolean isActive()
+	{
+		return channel != null && channel.isActive();
+	}
+
+	/**
+	 * Queue a request for an archive. This never blocks; the request is sent
+	 * from the event loop once there is room in the window. Requesting an
+	 * archive which is already pending returns the pending future.
+	 *
+	 * @param index
+	 * @param archive
+	 * @param urgent whether to send the request immediately, ignoring the
+	 * window
+	 * @return
+	 */
+	CompletableFuture<FileResult> request(int index, int archive, boolean urgent)
+	{
+		if (state != ClientState.CONNECTED)
+		{
+			throw new IllegalStateException("Can't request files until connected!");
+		}
+
+		PendingFileRequest pr = new PendingFileRequest(index, archive, urgent, new CompletableFuture<>());
+		PendingFileRequest existing = pending.putIfAbsent(key(index, archive), pr);
+		if (existing != null)
+		{
+			return existing.getFuture();
+		}
+
+		outstanding.incrementAndGet();
+		(urgent ? this.urgent : waiting).add(pr);
+
+		if (drainScheduled.compareAndSet(false, true))
+		{
+			channel.eventLoop().execute(this::drain);
+		}
+
+		if (!channel.isActive())
+		{
+			// the connection may have closed before the request was queued
+			failOutstanding();
+		}
+
+		return pr.getFuture();
+	}
+
+	private void drain()
+	{
+		drainScheduled.set(false);
+
+		boolean written = false;
+		PendingFileRequest pr;
+
+		while ((pr = urgent.poll()) != null)
+		{
+			send(pr);
+			written = true;
+		}
+
+		while (inFlightWindowed < window && (pr = waiting.poll()) != null)
+		{
+			send(pr);
+			++inFlightWindowed;
+			written = true;
+		}
+
+		if (written)
+		{
+			channel.flush();
+		}
+	}
+
+	private void send(PendingFileRequest pr)
+	{
+		ArchiveRequestPacket archiveRequest = new ArchiveRequestPacket();
+		archiveRequest.setPriority(pr.isUrgent());
+		archiveRequest.setIndex(pr.getIndex());
+		archiveRequest.setArchive(pr.getArchive());
+
+		logger.trace("Connection {} sending request for {}/{}", id, pr.getIndex(), pr.getArchive());
+
+		long now = System.nanoTime();
+		pr.setSent(now);
+		stats.requestSent(now - pr.getCreated());
+
+		channel.write(archiveRequest);
+	}
+
+	/**
+	 * Called from the event loop when an archive has been received
+	 *
+	 * @param index
+	 * @param file
+	 * @param compressedData
+	 */
+	void onFileFinish(int index, int file, byte[] compressedData)
+	{
+		int key = key(index, file);
+		PendingFileRequest pr = pending.get(key);
+
+		if (pr == null || pr.getSent() == 0L)
+		{
+			logger.warn("File download {}/{} with no pending request", index, file);
+			return;
+		}
+
+		pending.remove(key);
+		if (!pr.isUrgent())
+		{
+			--inFlightWindowed;
+		}
+		outstanding.decrementAndGet();
+
+		long now = System.nanoTime();
+		long latency = now - pr.getSent();
+		stats.requestCompleted(latency, compressedData.length);
+
+		// refill the window before handing the result off
+		drain();
+
+		logger.debug("File download finished for index {} file {}, length {}", index, file, compressedData.length);
+
+		pr.getFuture().complete(new FileResult(index, file, compressedData, pr.getSent() - pr.getCreated(), latency));
+	}
+
+	private static int key(int index, int archive)
+	{
+		return index << 16 | archive;
+	}
+
+	private void failOutstanding()
+	{
+		channel.eventLoop().execute(() ->
+		{
+			IOException ex = new IOException("Connection " + id + " closed");
+
+			CompletableFuture<HandshakeResponseType> handshake = handshakeFuture;
+			if (handshake != null && !handshake.isDone())
+			{
+				handshake.completeExceptionally(ex);
+			}
+
+			urgent.clear();
+			waiting.clear();
+			inFlightWindowed = 0;
+
+			for (Iterator<PendingFileRequest> it = pending.values().iterator(); it.hasNext(); )
+			{
+				PendingFileRequest pr = it.next();
+				it.remove();
+
+				if (pr.getSent() != 0L)
+				{
+					stats.requestFailed();
+				}
+				outstanding.decrementAndGet();
+				pr.getFuture().completeExceptionally(ex);
+			}
+		});
+	}
+}
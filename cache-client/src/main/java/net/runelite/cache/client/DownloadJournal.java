@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.client;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append only record of the archives a download has finished persisting,
+ * kept next to the store so an interrupted download can be resumed without
+ * fetching those archives again.
+ * <p>
+ * An archive is journaled once it has passed its crc check and
+ * {@link net.runelite.cache.fs.Storage#saveArchive} or the
+ * {@link DownloadWatcher} has returned, so this is only as durable as those
+ * are. Storages which buffer archives until the store is saved should not
+ * be used with a journal.
+ */
+public class DownloadJournal implements AutoCloseable
+{
+	private static final Logger logger = LoggerFactory.getLogger(DownloadJournal.class);
+
+	public static final String FILE_NAME = "download.journal";
+
+	// 1 byte index, 2 byte archive, 4 byte revision, 4 byte crc
+	private static final int RECORD_SIZE = 11;
+
+	private final File file;
+	private final Map<Integer, Long> entries = new HashMap<>();
+	private FileOutputStream out;
+
+	public DownloadJournal(File file)
+	{
+		this.file = file;
+	}
+
+	/**
+	 * Open the journal in the given store folder, reading any entries
+	 * left by a previous download
+	 *
+	 * @param folder
+	 * @return
+	 * @throws IOException
+	 */
+	public static DownloadJournal open(File folder) throws IOException
+	{
+		DownloadJournal journal = new DownloadJournal(new File(folder, FILE_NAME));
+		journal.load();
+		return journal;
+	}
+
+	public synchronized void load() throws IOException
+	{
+		entries.clear();
+
+		if (file.exists())
+		{
+			byte[] data = Files.readAllBytes(file.toPath());
+			int records = data.length / RECORD_SIZE;
+
+			ByteBuffer buf = ByteBuffer.wrap(data);
+			for (int i = 0; i < records; ++i)
+			{
+				int index = buf.get() & 0xff;
+				int archive = buf.getShort() & 0xffff;
+				int revision = buf.getInt();
+				int crc = buf.getInt();
+				entries.put(key(index, archive), value(revision, crc));
+			}
+
+			if (data.length % RECORD_SIZE != 0)
+			{
+				// the last record was torn by a crash
+				logger.info("Discarding partial record at the end of {}", file);
+				try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE))
+				{
+					channel.truncate((long) records * RECORD_SIZE);
+				}
+			}
+
+			logger.info("Loaded {} completed archives from {}", entries.size(), file);
+		}
+
+		close();
+		out = new FileOutputStream(file, true);
+	}
+
+	/**
+	 * Check if an archive was already downloaded at the given revision and crc
+	 *
+	 * @param index
+	 * @param archive
+	 * @param revision
+	 * @param crc
+	 * @return
+	 */
+	public synchronized boolean isComplete(int index, int archive, int revision, int crc)
+	{
+		Long value = entries.get(key(index, archive));
+		return value != null && value == value(revision, crc);
+	}
+
+	public synchronized void record(int index, int archive, int revision, int crc) throws IOException
+	{
+		ByteBuffer buf = ByteBuffer.allocate(RECORD_SIZE);
+		buf.put((byte) index);
+		buf.putShort((short) archive);
+		buf.putInt(revision);
+		buf.putInt(crc);
+
+		// a single unbuffered write, so a crash can only tear the last record
+		out.write(buf.array());
+		entries.put(key(index, archive), value(revision, crc));
+	}
+
+	public synchronized int size()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * Remove all entries. This should be called once the store has been
+	 * saved after a completed download.
+	 *
+	 * @throws IOException
+	 */
+	public synchronized void clear() throws IOException
+	{
+		entries.clear();
+		out.getChannel().truncate(0L);
+	}
+
+	@Override
+	public synchronized void close() throws IOException
+	{
+		if (out != null)
+		{
+			out.close();
+			out = null;
+		}
+	}
+
+	private static int key(int index, int archive)
+	{
+		return index << 16 | archive;
+	}
+
+	private static long value(int revision, int crc)
+	{
+		return (long) revision << 32 | (crc & 0xffffffffL);
+	}
+}
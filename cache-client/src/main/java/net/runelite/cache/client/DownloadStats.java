@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.client;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for where download time goes: how deep the request pipeline is,
+ * how long requests wait before being sent, and how long the server takes
+ * to answer them. Shared by all connections of a client.
+ */
+public class DownloadStats
+{
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+
+	private final LongAdder completed = new LongAdder();
+	private final LongAdder bytes = new LongAdder();
+
+	private final LongAdder totalQueueWait = new LongAdder();
+	private final AtomicLong maxQueueWait = new AtomicLong();
+
+	private final LongAdder totalLatency = new LongAdder();
+	private final AtomicLong maxLatency = new AtomicLong();
+
+	void requestSent(long queueWait)
+	{
+		int depth = inFlight.incrementAndGet();
+		maxInFlight.accumulateAndGet(depth, Math::max);
+
+		totalQueueWait.add(queueWait);
+		maxQueueWait.accumulateAndGet(queueWait, Math::max);
+	}
+
+	void requestCompleted(long latency, int length)
+	{
+		inFlight.decrementAndGet();
+		completed.increment();
+		bytes.add(length);
+
+		totalLatency.add(latency);
+		maxLatency.accumulateAndGet(latency, Math::max);
+	}
+
+	void requestFailed()
+	{
+		inFlight.decrementAndGet();
+	}
+
+	/**
+	 * @return number of requests sent and not yet answered
+	 */
+	public int getInFlight()
+	{
+		return inFlight.get();
+	}
+
+	public int getMaxInFlight()
+	{
+		return maxInFlight.get();
+	}
+
+	public long getCompleted()
+	{
+		return completed.sum();
+	}
+
+	public long getBytes()
+	{
+		return bytes.sum();
+	}
+
+	/**
+	 * @return mean time between a request being made and sent, in nanoseconds
+	 */
+	public long getMeanQueueWait()
+	{
+		long c = completed.sum();
+		return c == 0 ? 0 : totalQueueWait.sum() / c;
+	}
+
+	public long getMaxQueueWait()
+	{
+		return maxQueueWait.get();
+	}
+
+	/**
+	 * @return mean time between a request being sent and answered, in nanoseconds
+	 */
+	public long getMeanLatency()
+	{
+		long c = completed.sum();
+		return c == 0 ? 0 : totalLatency.sum() / c;
+	}
+
+	public long getMaxLatency()
+	{
+		return maxLatency.get();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "DownloadStats{" + "completed=" + getCompleted()
+			+ ", bytes=" + getBytes()
+			+ ", inFlight=" + getInFlight()
+			+ ", maxInFlight=" + getMaxInFlight()
+			+ ", meanQueueWait=" + TimeUnit.NANOSECONDS.toMillis(getMeanQueueWait()) + "ms"
+			+ ", maxQueueWait=" + TimeUnit.NANOSECONDS.toMillis(getMaxQueueWait()) + "ms"
+			+ ", meanLatency=" + TimeUnit.NANOSECONDS.toMillis(getMeanLatency()) + "ms"
+			+ ", maxLatency=" + TimeUnit.NANOSECONDS.toMillis(getMaxLatency()) + "ms" + '}';
+	}
+}
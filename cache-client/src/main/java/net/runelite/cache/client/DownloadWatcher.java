@@ -29,5 +29,15 @@ import net.runelite.cache.fs.Archive;
 @FunctionalInterface
 public interface DownloadWatcher
 {
+	/**
+	 * Called from a single thread for each archive which has been
+	 * downloaded and passed its crc check. When a {@link DownloadJournal}
+	 * is used, the archive is journaled once this returns, so it must be
+	 * persisted by then. Blocking here holds up the processing of further
+	 * archives, see {@link CacheClient#setMaxPendingArchives(int)}.
+	 *
+	 * @param archive
+	 * @param data
+	 */
 	void downloadComplete(Archive archive, byte[] data);
 }
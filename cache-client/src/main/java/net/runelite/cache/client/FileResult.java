@@ -32,6 +32,8 @@ public class FileResult
 	private final int index;
 	private final int fileId;
 	private final byte[] compressedData;
+	private final long queueWait;
+	private final long latency;
 
 	private byte[] contents;
 	private int revision;
@@ -39,10 +41,17 @@ public class FileResult
 	private int compression; // compression method used by archive data
 
 	public FileResult(int index, int fileId, byte[] compressedData)
+	{
+		this(index, fileId, compressedData, 0L, 0L);
+	}
+
+	public FileResult(int index, int fileId, byte[] compressedData, long queueWait, long latency)
 	{
 		this.index = index;
 		this.fileId = fileId;
 		this.compressedData = compressedData;
+		this.queueWait = queueWait;
+		this.latency = latency;
 	}
 
 	public int getIndex()
@@ -60,6 +69,23 @@ public class FileResult
 		return compressedData;
 	}
 
+	/**
+	 * @return time the request waited before being sent, in nanoseconds
+	 */
+	public long getQueueWait()
+	{
+		return queueWait;
+	}
+
+	/**
+	 * @return time between the request being sent and the response
+	 * arriving, in nanoseconds
+	 */
+	public long getLatency()
+	{
+		return latency;
+	}
+
 	public void decompress(int[] keys) throws IOException
 	{
 		Container res = Container.decompress(compressedData, keys);
@@ -40,9 +40,9 @@ public class HandshakeResponseHandler extends SimpleChannelInboundHandler<Handsh
 {
 	private static final Logger logger = LoggerFactory.getLogger(HandshakeResponseHandler.class);
 
-	private final CacheClient client;
+	private final CacheConnection client;
 
-	public HandshakeResponseHandler(CacheClient client)
+	public HandshakeResponseHandler(CacheConnection client)
 	{
 		this.client = client;
 	}
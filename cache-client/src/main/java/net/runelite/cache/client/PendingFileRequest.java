@@ -30,12 +30,16 @@ public class PendingFileRequest
 {
 	private final int index;
 	private final int archive;
+	private final boolean urgent;
 	private final CompletableFuture<FileResult> future;
+	private final long created = System.nanoTime();
+	private long sent;
 
-	public PendingFileRequest(int index, int archive, CompletableFuture<FileResult> future)
+	public PendingFileRequest(int index, int archive, boolean urgent, CompletableFuture<FileResult> future)
 	{
 		this.index = index;
 		this.archive = archive;
+		this.urgent = urgent;
 		this.future = future;
 	}
 
@@ -49,8 +53,28 @@ public class PendingFileRequest
 		return archive;
 	}
 
+	public boolean isUrgent()
+	{
+		return urgent;
+	}
+
 	public CompletableFuture<FileResult> getFuture()
 	{
 		return future;
 	}
+
+	public long getCreated()
+	{
+		return created;
+	}
+
+	public long getSent()
+	{
+		return sent;
+	}
+
+	public void setSent(long sent)
+	{
+		this.sent = sent;
+	}
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.client;
+
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.TestStores;
+import net.runelite.protocol.api.login.HandshakeResponseType;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class CacheClientBenchmark
+{
+	private static final Logger logger = LoggerFactory.getLogger(CacheClientBenchmark.class);
+
+	private static final int REVISION = 42;
+	private static final long LATENCY = 20; // ms
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	@Ignore
+	public void benchmarkDownload() throws Exception
+	{
+		try (Store from = new Store(folder.newFolder()))
+		{
+			TestStores.populate(from, 4, 500);
+			from.save();
+
+			try (LocalUpdateServer server = new LocalUpdateServer(from, REVISION, LATENCY))
+			{
+				int port = server.start();
+
+				for (int connections : new int[]{1, 2, 4, 8})
+				{
+					try (Store to = new Store(folder.newFolder());
+						CacheClient c = new CacheClient(to, "127.0.0.1", port, REVISION, connections))
+					{
+						c.connect();
+						Assert.assertEquals(HandshakeResponseType.RESPONSE_OK, c.handshake().get());
+
+						long start = System.nanoTime();
+						c.download();
+						long end = System.nanoTime();
+
+						logger.info("{} connection(s): downloaded in {}ms, {}", connections, (end - start) / 1_000_000L, c.getStats());
+					}
+				}
+			}
+		}
+	}
+}
@@ -25,14 +25,28 @@
 package net.runelite.cache.client;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Random;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import net.runelite.cache.CacheProperties;
+import net.runelite.cache.StoreLocation;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.TestStores;
 import net.runelite.protocol.api.login.HandshakeResponseType;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Ignore;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.impl.SimpleLogger;
@@ -41,6 +55,11 @@ public class CacheClientTest
 {
 	private static final Logger logger = LoggerFactory.getLogger(CacheClientTest.class);
 
+	private static final int REVISION = 42;
+
+	@Rule
+	public TemporaryFolder folder = StoreLocation.getTemporaryFolder();
+
 	@Before
 	public void before()
 	{
@@ -71,4 +90,284 @@ public class CacheClientTest
 			store.save();
 		}
 	}
+
+	@Test
+	public void testDownload() throws Exception
+	{
+		try (Store from = new Store(folder.newFolder());
+			Store to = new Store(folder.newFolder()))
+		{
+			TestStores.populate(from, 3, 50);
+			from.save();
+
+			try (LocalUpdateServer server = new LocalUpdateServer(from, REVISION, 1))
+			{
+				int port = server.start();
+
+				try (CacheClient c = new CacheClient(to, "127.0.0.1", port, REVISION, 3))
+				{
+					c.connect();
+					Assert.assertEquals(HandshakeResponseType.RESPONSE_OK, c.handshake().get());
+
+					c.download();
+
+					// 150 archives, 3 indexes and the index list
+					DownloadStats stats = c.getStats();
+					Assert.assertEquals(154, stats.getCompleted());
+					Assert.assertEquals(0, stats.getInFlight());
+					Assert.assertTrue(stats.getMaxInFlight() > 1);
+				}
+			}
+
+			Assert.assertEquals(from.getIndexes().size(), to.getIndexes().size());
+			for (Index index : from.getIndexes())
+			{
+				Index downloaded = to.findIndex(index.getId());
+				Assert.assertEquals(index.getArchives().size(), downloaded.getArchives().size());
+
+				for (Archive archive : index.getArchives())
+				{
+					Archive other = downloaded.getArchive(archive.getArchiveId());
+					Assert.assertEquals(archive.getCrc(), other.getCrc());
+					Assert.assertArrayEquals(
+						archive.decompress(from.getStorage().loadArchive(archive)),
+						other.decompress(to.getStorage().loadArchive(other)));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testConnectionDropped() throws Exception
+	{
+		try (Store from = new Store(folder.newFolder());
+			Store to = new Store(folder.newFolder()))
+		{
+			TestStores.populate(from, 3, 50);
+			from.save();
+
+			try (LocalUpdateServer server = new LocalUpdateServer(from, REVISION, 1))
+			{
+				// one of the three connections closes part way through the archives
+				server.dropConnectionAfter(60);
+				int port = server.start();
+
+				try (CacheClient c = new CacheClient(to, "127.0.0.1", port, REVISION, 3))
+				{
+					c.connect();
+					Assert.assertEquals(HandshakeResponseType.RESPONSE_OK, c.handshake().get());
+
+					c.download();
+				}
+			}
+
+			// the other connections pick up the requests of the dropped one
+			for (Index index : from.getIndexes())
+			{
+				Index downloaded = to.findIndex(index.getId());
+				for (Archive archive : index.getArchives())
+				{
+					Archive other = downloaded.getArchive(archive.getArchiveId());
+					Assert.assertNotNull(to.getStorage().loadArchive(other));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testMaxPendingArchives() throws Exception
+	{
+		try (Store from = new Store(folder.newFolder());
+			Store to = new Store(folder.newFolder()))
+		{
+			TestStores.populate(from, 3, 50);
+			from.save();
+
+			CountDownLatch entered = new CountDownLatch(1);
+			CountDownLatch release = new CountDownLatch(1);
+			AtomicInteger watched = new AtomicInteger();
+
+			try (LocalUpdateServer server = new LocalUpdateServer(from, REVISION, 0))
+			{
+				int port = server.start();
+
+				try (CacheClient c = new CacheClient(to, "127.0.0.1", port, REVISION, 2))
+				{
+					c.setWatcher((archive, data) ->
+					{
+						entered.countDown();
+						try
+						{
+							release.await();
+						}
+						catch (InterruptedException ex)
+						{
+							throw new RuntimeException(ex);
+						}
+						watched.incrementAndGet();
+					});
+					c.setMaxPendingArchives(5);
+
+					c.connect();
+					Assert.assertEquals(HandshakeResponseType.RESPONSE_OK, c.handshake().get());
+
+					CompletableFuture<Void> download = CompletableFuture.runAsync(() ->
+					{
+						try
+						{
+							c.download();
+						}
+						catch (IOException ex)
+						{
+							throw new UncheckedIOException(ex);
+						}
+					});
+
+					Assert.assertTrue(entered.await(10, TimeUnit.SECONDS));
+					Thread.sleep(500);
+
+					// the index list and 3 indexes, and no more than 5 archives
+					// while the watcher is blocked
+					DownloadStats stats = c.getStats();
+					Assert.assertTrue(stats.getCompleted() + stats.getInFlight() <= 4 + 5);
+					Assert.assertFalse(download.isDone());
+
+					release.countDown();
+					download.get(30, TimeUnit.SECONDS);
+
+					Assert.assertEquals(154, c.getStats().getCompleted());
+				}
+			}
+
+			Assert.assertEquals(150, watched.get());
+		}
+	}
+
+	@Test
+	public void testOutdated() throws Exception
+	{
+		try (Store store = new Store(folder.newFolder());
+			LocalUpdateServer server = new LocalUpdateServer(store, REVISION, 0))
+		{
+			int port = server.start();
+
+			try (CacheClient c = new CacheClient(store, "127.0.0.1", port, REVISION - 1, 2))
+			{
+				c.connect();
+				Assert.assertEquals(HandshakeResponseType.RESPONSE_OUTDATED, c.handshake().get());
+			}
+		}
+	}
+
+	@Test
+	public void testHandshakeDropped() throws Exception
+	{
+		try (Store store = new Store(folder.newFolder());
+			LocalUpdateServer server = new LocalUpdateServer(store, REVISION, 0))
+		{
+			server.dropHandshakes();
+			int port = server.start();
+
+			try (CacheClient c = new CacheClient(store, "127.0.0.1", port, REVISION, 2))
+			{
+				c.connect();
+				c.handshake().get(10, TimeUnit.SECONDS);
+				Assert.fail("handshake completed on a closed connection");
+			}
+			catch (ExecutionException ex)
+			{
+				Assert.assertTrue(ex.getCause() instanceof IOException);
+			}
+		}
+	}
+
+	@Test
+	public void testResume() throws Exception
+	{
+		Random random = new Random(42);
+		for (int i = 0; i < 5; ++i)
+		{
+			resume(random.nextInt(154));
+		}
+	}
+
+	/**
+	 * Interrupt a download after the given number of responses without
+	 * saving the store, then finish it with a new client
+	 */
+	private void resume(int responses) throws Exception
+	{
+		File toFolder = folder.newFolder();
+
+		try (Store from = new Store(folder.newFolder()))
+		{
+			TestStores.populate(from, 3, 50);
+			from.save();
+
+			try (Store to = new Store(toFolder);
+				DownloadJournal journal = DownloadJournal.open(toFolder);
+				LocalUpdateServer server = new LocalUpdateServer(from, REVISION, 0))
+			{
+				server.closeAfter(responses);
+				int port = server.start();
+
+				try (CacheClient c = new CacheClient(to, "127.0.0.1", port, REVISION, 2))
+				{
+					c.setJournal(journal);
+					c.connect();
+					c.handshake().get();
+					c.download();
+				}
+				catch (CompletionException ex)
+				{
+					// killed before the index list arrived
+				}
+
+				// the store is never saved
+			}
+
+			int journaled;
+			try (Store to = new Store(toFolder);
+				DownloadJournal journal = DownloadJournal.open(toFolder);
+				LocalUpdateServer server = new LocalUpdateServer(from, REVISION, 0))
+			{
+				to.load();
+				journaled = journal.size();
+				logger.info("Resuming after {} responses with {} archives journaled", responses, journaled);
+
+				int port = server.start();
+
+				try (CacheClient c = new CacheClient(to, "127.0.0.1", port, REVISION, 2))
+				{
+					c.setJournal(journal);
+					c.connect();
+					c.handshake().get();
+					c.download();
+
+					// only the missing archives are downloaded again
+					Assert.assertEquals(154 - journaled, c.getStats().getCompleted());
+				}
+
+				to.save();
+				journal.clear();
+			}
+
+			try (Store to = new Store(toFolder))
+			{
+				to.load();
+
+				for (Index index : from.getIndexes())
+				{
+					Index downloaded = to.findIndex(index.getId());
+					for (Archive archive : index.getArchives())
+					{
+						Archive other = downloaded.getArchive(archive.getArchiveId());
+						Assert.assertArrayEquals(
+							archive.decompress(from.getStorage().loadArchive(archive)),
+							other.decompress(to.getStorage().loadArchive(other)));
+					}
+				}
+			}
+		}
+	}
 }
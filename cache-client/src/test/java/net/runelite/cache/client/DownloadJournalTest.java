@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.client;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DownloadJournalTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testRecord() throws Exception
+	{
+		File dir = folder.newFolder();
+
+		try (DownloadJournal journal = DownloadJournal.open(dir))
+		{
+			journal.record(2, 300, 5, 0xdeadbeef);
+			journal.record(255, 65535, 1, 42);
+			journal.record(2, 300, 6, 7); // newer revision replaces the older
+		}
+
+		try (DownloadJournal journal = DownloadJournal.open(dir))
+		{
+			assertEquals(2, journal.size());
+			assertTrue(journal.isComplete(2, 300, 6, 7));
+			assertFalse(journal.isComplete(2, 300, 5, 0xdeadbeef));
+			assertTrue(journal.isComplete(255, 65535, 1, 42));
+			assertFalse(journal.isComplete(255, 65535, 1, 43));
+			assertFalse(journal.isComplete(1, 300, 6, 7));
+
+			journal.clear();
+			assertEquals(0, journal.size());
+		}
+
+		try (DownloadJournal journal = DownloadJournal.open(dir))
+		{
+			assertEquals(0, journal.size());
+		}
+	}
+
+	@Test
+	public void testTornRecord() throws Exception
+	{
+		File dir = folder.newFolder();
+
+		try (DownloadJournal journal = DownloadJournal.open(dir))
+		{
+			journal.record(1, 1, 1, 1);
+		}
+
+		// a crash part way through writing the next record
+		try (FileOutputStream out = new FileOutputStream(new File(dir, DownloadJournal.FILE_NAME), true))
+		{
+			out.write(new byte[]{1, 0, 2, 0, 0});
+		}
+
+		try (DownloadJournal journal = DownloadJournal.open(dir))
+		{
+			assertEquals(1, journal.size());
+			assertTrue(journal.isComplete(1, 1, 1, 1));
+
+			journal.record(1, 2, 1, 1);
+		}
+
+		try (DownloadJournal journal = DownloadJournal.open(dir))
+		{
+			assertEquals(2, journal.size());
+			assertTrue(journal.isComplete(1, 2, 1, 1));
+		}
+	}
+}
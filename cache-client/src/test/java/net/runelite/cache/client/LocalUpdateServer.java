@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.client;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Container;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.jagex.CompressionType;
+import net.runelite.cache.util.Crc32;
+import net.runelite.protocol.api.handshake.HandshakeResponsePacket;
+import net.runelite.protocol.api.login.HandshakeResponseType;
+import net.runelite.protocol.api.update.ArchiveRequestPacket;
+import net.runelite.protocol.api.update.ArchiveResponsePacket;
+import net.runelite.protocol.handshake.HandshakeResponseEncoder;
+import net.runelite.protocol.update.encoders.ArchiveResponseEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A minimal update server serving the archives of a store, used to test
+ * and benchmark the client without connecting to the real server.
+ * Responses can be delayed to simulate network latency.
+ */
+class LocalUpdateServer implements AutoCloseable
+{
+	private static final Logger logger = LoggerFactory.getLogger(LocalUpdateServer.class);
+
+	private final int revision;
+	private final long latency;
+	private final Map<Integer, byte[]> archives = new HashMap<>();
+	private final AtomicInteger remaining = new AtomicInteger(Integer.MAX_VALUE);
+	private final AtomicInteger dropAfter = new AtomicInteger(-1);
+	private volatile boolean dropHandshakes;
+
+	private final EventLoopGroup group = new NioEventLoopGroup(1);
+	private Channel channel;
+
+	/**
+	 * @param store store to serve
+	 * @param revision revision clients must handshake with
+	 * @param latency delay before each response is sent, in milliseconds
+	 * @throws IOException
+	 */
+	LocalUpdateServer(Store store, int revision, long latency) throws IOException
+	{
+		this.revision = revision;
+		this.latency = latency;
+
+		List<Index> indexes = store.getIndexes();
+		ByteBuffer indexInfo = ByteBuffer.allocate(indexes.size() * 8);
+
+		for (Index index : indexes)
+		{
+			Container container = new Container(index.getCompression(), -1);
+			container.compress(index.toIndexData().writeIndexData(), null);
+			archives.put(key(255, index.getId()), container.data);
+
+			Crc32 crc = new Crc32();
+			crc.update(container.data, 0, container.data.length);
+			indexInfo.putInt(crc.getHash());
+			indexInfo.putInt(index.getRevision());
+
+			for (Archive archive : index.getArchives())
+			{
+				byte[] data = store.getStorage().loadArchive(archive);
+				if (data != null)
+				{
+					archives.put(key(index.getId(), archive.getArchiveId()), stripRevision(data));
+				}
+			}
+		}
+
+		Container container = new Container(CompressionType.NONE, -1);
+		container.compress(indexInfo.array(), null);
+		archives.put(key(255, 255), container.data);
+	}
+
+	/**
+	 * Start listening on an ephemeral port
+	 *
+	 * @return the port
+	 */
+	int start()
+	{
+		ServerBootstrap b = new ServerBootstrap();
+		b.group(group)
+			.channel(NioServerSocketChannel.class)
+			.childOption(ChannelOption.TCP_NODELAY, true)
+			.childHandler(new ChannelInitializer<SocketChannel>()
+			{
+				@Override
+				protected void initChannel(SocketChannel ch) throws Exception
+				{
+					ch.pipeline().addLast(
+						new RequestDecoder(),
+						new RequestHandler(),
+						new HandshakeResponseEncoder(),
+						new ArchiveResponseEncoder()
+					);
+				}
+			});
+
+		channel = b.bind("127.0.0.1", 0).syncUninterruptibly().channel();
+		return ((InetSocketAddress) channel.localAddress()).getPort();
+	}
+
+	/**
+	 * Drop the connection of any request made after the given number of
+	 * responses, to simulate a download being interrupted
+	 *
+	 * @param responses
+	 */
+	void closeAfter(int responses)
+	{
+		remaining.set(responses);
+	}
+
+	/**
+	 * Drop the one connection which makes the request after the given
+	 * number of responses. Other connections are unaffected.
+	 *
+	 * @param responses
+	 */
+	void dropConnectionAfter(int responses)
+	{
+		dropAfter.set(responses);
+	}
+
+	/**
+	 * Close connections instead of answering their handshake
+	 */
+	void dropHandshakes()
+	{
+		dropHandshakes = true;
+	}
+
+	@Override
+	public void close()
+	{
+		if (channel != null)
+		{
+			channel.close().syncUninterruptibly();
+		}
+		group.shutdownGracefully();
+	}
+
+	private static int key(int index, int archive)
+	{
+		return index << 16 | archive;
+	}
+
+	/**
+	 * Archives are sent without the trailing revision
+	 */
+	private static byte[] stripRevision(byte[] data)
+	{
+		int compression = data[0] & 0xff;
+		int compressedLength = (data[1] & 0xff) << 24 | (data[2] & 0xff) << 16
+			| (data[3] & 0xff) << 8 | (data[4] & 0xff);
+		int length = 5 + compressedLength + (compression != CompressionType.NONE ? 4 : 0);
+
+		if (length == data.length)
+		{
+			return data;
+		}
+
+		byte[] stripped = new byte[length];
+		System.arraycopy(data, 0, stripped, 0, length);
+		return stripped;
+	}
+
+	private class RequestDecoder extends ByteToMessageDecoder
+	{
+		private boolean handshaken;
+
+		@Override
+		protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception
+		{
+			if (!handshaken)
+			{
+				// 1 byte handshake type, 4 byte revision
+				if (in.readableBytes() < 5)
+				{
+					return;
+				}
+
+				in.skipBytes(1);
+				int clientRevision = in.readInt();
+
+				if (dropHandshakes)
+				{
+					ctx.close();
+					return;
+				}
+
+				HandshakeResponsePacket response = new HandshakeResponsePacket();
+				response.setResponse(clientRevision == revision
+					? HandshakeResponseType.RESPONSE_OK
+					: HandshakeResponseType.RESPONSE_OUTDATED);
+				ctx.writeAndFlush(response);
+
+				handshaken = true;
+				return;
+			}
+
+			while (in.readableBytes() >= 4)
+			{
+				int opcode = in.readUnsignedByte();
+				int index = in.readUnsignedByte();
+				int archive = in.readUnsignedShort();
+
+				if (opcode != 0 && opcode != 1)
+				{
+					// encryption, logged in and logged out
+					continue;
+				}
+
+				ArchiveRequestPacket request = new ArchiveRequestPacket();
+				request.setPriority(opcode == 1);
+				request.setIndex(index);
+				request.setArchive(archive);
+				out.add(request);
+			}
+		}
+	}
+
+	private class RequestHandler extends SimpleChannelInboundHandler<ArchiveRequestPacket>
+	{
+		@Override
+		protected void channelRead0(ChannelHandlerContext ctx, ArchiveRequestPacket request) throws Exception
+		{
+			if (remaining.getAndDecrement() <= 0 || dropAfter.getAndDecrement() == 0)
+			{
+				ctx.close();
+				return;
+			}
+
+			byte[] data = archives.get(key(request.getIndex(), request.getArchive()));
+			if (data == null)
+			{
+				logger.warn("Request for missing archive {}/{}", request.getIndex(), request.getArchive());
+				return;
+			}
+
+			ArchiveResponsePacket response = new ArchiveResponsePacket();
+			response.setIndex(request.getIndex());
+			response.setArchive(request.getArchive());
+			response.setData(data);
+
+			if (latency > 0)
+			{
+				ctx.executor().schedule(() -> ctx.writeAndFlush(response), latency, TimeUnit.MILLISECONDS);
+			}
+			else
+			{
+				ctx.writeAndFlush(response);
+			}
+		}
+	}
+}
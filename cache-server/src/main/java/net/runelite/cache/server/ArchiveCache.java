@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.server;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Container;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.jagex.CompressionType;
+import net.runelite.cache.util.Crc32;
+
+/**
+ * Archive data as it is sent to clients. The index data is built up front
+ * from the store, and recently served archives are kept in memory up to
+ * a total size.
+ */
+public class ArchiveCache
+{
+	private final Store store;
+	private final Map<Integer, byte[]> indexes = new HashMap<>();
+	private final Cache<Integer, byte[]> archives;
+
+	public ArchiveCache(Store store, long maximumSize) throws IOException
+	{
+		this.store = store;
+		this.archives = CacheBuilder.newBuilder()
+			.maximumWeight(maximumSize)
+			.<Integer, byte[]>weigher((k, v) -> v.length)
+			.build();
+
+		List<Index> storeIndexes = store.getIndexes();
+		int maxIndexId = -1;
+		for (Index index : storeIndexes)
+		{
+			maxIndexId = Math.max(maxIndexId, index.getId());
+		}
+
+		// clients read this table by position, so the entry for an index is
+		// at its id, whatever order the storage added the indexes in. Missing
+		// ids are left zeroed.
+		ByteBuffer indexInfo = ByteBuffer.allocate((maxIndexId + 1) * 8);
+
+		for (Index index : storeIndexes)
+		{
+			Container container = new Container(index.getCompression(), -1); // index data revision is always -1
+			container.compress(index.toIndexData().writeIndexData(), null);
+			indexes.put(index.getId(), container.data);
+
+			Crc32 crc = new Crc32();
+			crc.update(container.data, 0, container.data.length);
+			indexInfo.putInt(index.getId() * 8, crc.getHash());
+			indexInfo.putInt(index.getId() * 8 + 4, index.getRevision());
+		}
+
+		Container container = new Container(CompressionType.NONE, -1);
+		container.compress(indexInfo.array(), null);
+		indexes.put(255, container.data);
+	}
+
+	/**
+	 * Get an archive if it is in memory
+	 *
+	 * @param index
+	 * @param archive
+	 * @return the archive data, or null if it has to be loaded
+	 */
+	public byte[] getIfPresent(int index, int archive)
+	{
+		if (index == 255)
+		{
+			return indexes.get(archive);
+		}
+		return archives.getIfPresent(key(index, archive));
+	}
+
+	/**
+	 * Load an archive from the storage. This may be called from multiple
+	 * threads at once.
+	 *
+	 * @param index
+	 * @param archive
+	 * @return the archive data, or null if there is no such archive
+	 * @throws IOException
+	 */
+	public byte[] load(int index, int archive) throws IOException
+	{
+		byte[] data = getIfPresent(index, archive);
+		if (data != null || index == 255)
+		{
+			return data;
+		}
+
+		Index i = store.findIndex(index);
+		Archive a = i != null ? i.getArchive(archive) : null;
+		if (a == null)
+		{
+			return null;
+		}
+
+		data = store.getStorage().loadArchive(a);
+		if (data == null)
+		{
+			return null;
+		}
+
+		data = stripRevision(data);
+		archives.put(key(index, archive), data);
+		return data;
+	}
+
+	private static int key(int index, int archive)
+	{
+		return index << 16 | archive;
+	}
+
+	/**
+	 * Archives are sent without the revision stored after the compressed
+	 * data
+	 */
+	static byte[] stripRevision(byte[] data)
+	{
+		int compression = data[0] & 0xff;
+		int compressedLength = (data[1] & 0xff) << 24 | (data[2] & 0xff) << 16
+			| (data[3] & 0xff) << 8 | (data[4] & 0xff);
+		// 1 byte compression type, 4 byte compressed size, and 4 byte decompressed size if compressed
+		int length = 5 + compressedLength + (compression != CompressionType.NONE ? 4 : 0);
+
+		if (length == data.length)
+		{
+			return data;
+		}
+
+		byte[] stripped = new byte[length];
+		System.arraycopy(data, 0, stripped, 0, length);
+		return stripped;
+	}
+}
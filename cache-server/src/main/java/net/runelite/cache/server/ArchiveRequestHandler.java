@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.server;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import net.runelite.protocol.api.update.ArchiveRequestPacket;
+import net.runelite.protocol.api.update.ArchiveResponsePacket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Queues archive requests for a connection and sends the responses while
+ * the connection is writable, priority requests first. Archives which are
+ * not in memory are loaded on the loader executor, one at a time per
+ * connection.
+ */
+public class ArchiveRequestHandler extends SimpleChannelInboundHandler<ArchiveRequestPacket>
+{
+	private static final Logger logger = LoggerFactory.getLogger(ArchiveRequestHandler.class);
+
+	private final ArchiveCache archiveCache;
+	private final Executor loader;
+	private final long latency;
+
+	// only used from the event loop
+	private final Queue<ArchiveRequestPacket> priority = new ArrayDeque<>();
+	private final Queue<ArchiveRequestPacket> normal = new ArrayDeque<>();
+	private boolean loading;
+
+	/**
+	 * @param archiveCache
+	 * @param loader executor to load archives from the storage on
+	 * @param latency delay before a request is handled, in milliseconds
+	 */
+	public ArchiveRequestHandler(ArchiveCache archiveCache, Executor loader, long latency)
+	{
+		this.archiveCache = archiveCache;
+		this.loader = loader;
+		this.latency = latency;
+	}
+
+	@Override
+	protected void channelRead0(ChannelHandlerContext ctx, ArchiveRequestPacket archiveRequest) throws Exception
+	{
+		if (latency > 0)
+		{
+			ctx.executor().schedule(() -> enqueue(ctx, archiveRequest), latency, TimeUnit.MILLISECONDS);
+		}
+		else
+		{
+			enqueue(ctx, archiveRequest);
+		}
+	}
+
+	@Override
+	public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception
+	{
+		if (ctx.channel().isWritable())
+		{
+			send(ctx);
+		}
+		ctx.fireChannelWritabilityChanged();
+	}
+
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception
+	{
+		priority.clear();
+		normal.clear();
+		ctx.fireChannelInactive();
+	}
+
+	private void enqueue(ChannelHandlerContext ctx, ArchiveRequestPacket archiveRequest)
+	{
+		if (!ctx.channel().isActive())
+		{
+			return;
+		}
+
+		(archiveRequest.isPriority() ? priority : normal).add(archiveRequest);
+		send(ctx);
+	}
+
+	private void send(ChannelHandlerContext ctx)
+	{
+		boolean written = false;
+
+		while (!loading && ctx.channel().isWritable())
+		{
+			ArchiveRequestPacket archiveRequest = priority.poll();
+			if (archiveRequest == null)
+			{
+				archiveRequest = normal.poll();
+				if (archiveRequest == null)
+				{
+					break;
+				}
+			}
+
+			int index = archiveRequest.getIndex();
+			int archive = archiveRequest.getArchive();
+
+			byte[] data = archiveCache.getIfPresent(index, archive);
+			if (data != null)
+			{
+				write(ctx, index, archive, data);
+				written = true;
+				continue;
+			}
+
+			loading = true;
+			loader.execute(() -> load(ctx, index, archive));
+		}
+
+		if (written)
+		{
+			ctx.flush();
+		}
+	}
+
+	private void load(ChannelHandlerContext ctx, int index, int archive)
+	{
+		byte[] data;
+		try
+		{
+			data = archiveCache.load(index, archive);
+		}
+		catch (IOException ex)
+		{
+			logger.warn("Unable to load archive {}/{}", index, archive, ex);
+			data = null;
+		}
+
+		byte[] loaded = data;
+		ctx.executor().execute(() ->
+		{
+			loading = false;
+
+			if (loaded == null)
+			{
+				logger.warn("Request for missing archive {}/{} from {}", index, archive, ctx.channel().remoteAddress());
+			}
+			else if (ctx.channel().isActive())
+			{
+				write(ctx, index, archive, loaded);
+				ctx.flush();
+			}
+
+			send(ctx);
+		});
+	}
+
+	private void write(ChannelHandlerContext ctx, int index, int archive, byte[] data)
+	{
+		ArchiveResponsePacket archiveResponse = new ArchiveResponsePacket();
+		archiveResponse.setIndex(index);
+		archiveResponse.setArchive(archive);
+		archiveResponse.setData(data);
+
+		logger.trace("Sending archive {}/{} to {}", index, archive, ctx.channel().remoteAddress());
+
+		ctx.write(archiveResponse);
+	}
+}
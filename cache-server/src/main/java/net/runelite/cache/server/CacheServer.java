@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.server;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.traffic.ChannelTrafficShapingHandler;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import net.runelite.cache.fs.Store;
+import net.runelite.protocol.handshake.HandshakeDecoder;
+import net.runelite.protocol.handshake.HandshakeResponseEncoder;
+import net.runelite.protocol.update.encoders.ArchiveResponseEncoder;
+import net.runelite.protocol.update.encoders.XorEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An update server serving the archives of a store, which can be embedded
+ * in tests. Responses can be delayed and connections limited to a
+ * bandwidth to simulate a remote server.
+ */
+public class CacheServer implements AutoCloseable
+{
+	private static final Logger logger = LoggerFactory.getLogger(CacheServer.class);
+
+	private static final int PORT = 43594;
+
+	private final Store store;
+	private final int revision;
+
+	private long latency; // ms
+	private long bandwidth; // bytes per second per connection, 0 for unlimited
+	private long hotCacheSize = 64 * 1024 * 1024;
+	private int loaderThreads = Runtime.getRuntime().availableProcessors();
+
+	private EventLoopGroup bossGroup;
+	private EventLoopGroup workerGroup;
+	private ExecutorService loader;
+	private Channel channel;
+
+	public CacheServer(Store store, int revision)
+	{
+		this.store = store;
+		this.revision = revision;
+	}
+
+	/**
+	 * @param latency delay before each request is handled, in milliseconds
+	 */
+	public void setLatency(long latency)
+	{
+		this.latency = latency;
+	}
+
+	/**
+	 * @param bandwidth maximum bytes per second sent on each connection,
+	 * or 0 for no limit
+	 */
+	public void setBandwidth(long bandwidth)
+	{
+		this.bandwidth = bandwidth;
+	}
+
+	/**
+	 * @param hotCacheSize maximum size of the archives kept in memory, in
+	 * bytes
+	 */
+	public void setHotCacheSize(long hotCacheSize)
+	{
+		this.hotCacheSize = hotCacheSize;
+	}
+
+	public void setLoaderThreads(int loaderThreads)
+	{
+		this.loaderThreads = loaderThreads;
+	}
+
+	/**
+	 * Start listening for clients
+	 *
+	 * @param port port to listen on, or 0 for any free port
+	 * @return the port listened on
+	 * @throws IOException
+	 */
+	public int start(int port) throws IOException
+	{
+		ArchiveCache archiveCache = new ArchiveCache(store, hotCacheSize);
+
+		bossGroup = new NioEventLoopGroup(1);
+		workerGroup = new NioEventLoopGroup();
+		loader = Executors.newFixedThreadPool(loaderThreads);
+
+		ServerBootstrap b = new ServerBootstrap();
+		b.group(bossGroup, workerGroup)
+			.channel(NioServerSocketChannel.class)
+			.childOption(ChannelOption.TCP_NODELAY, true)
+			.childHandler(new ChannelInitializer<SocketChannel>()
+			{
+				@Override
+				protected void initChannel(SocketChannel ch) throws Exception
+				{
+					ChannelPipeline p = ch.pipeline();
+
+					if (bandwidth > 0)
+					{
+						p.addLast(new ChannelTrafficShapingHandler(bandwidth, 0L));
+					}
+
+					// encoders go first so the handlers can write through them
+					p.addLast(
+						new XorEncoder(),
+						new HandshakeResponseEncoder(),
+						new ArchiveResponseEncoder()
+					);
+
+					p.addLast("decoder", new HandshakeDecoder());
+
+					p.addLast(
+						new HandshakeHandler(revision),
+						new EncryptionHandler(),
+						new ArchiveRequestHandler(archiveCache, loader, latency)
+					);
+				}
+			});
+
+		channel = b.bind(port).syncUninterruptibly().channel();
+		int boundPort = ((InetSocketAddress) channel.localAddress()).getPort();
+
+		logger.info("Serving revision {} on port {}", revision, boundPort);
+
+		return boundPort;
+	}
+
+	@Override
+	public void close()
+	{
+		if (channel != null)
+		{
+			channel.close().syncUninterruptibly();
+			channel = null;
+		}
+		if (workerGroup != null)
+		{
+			bossGroup.shutdownGracefully();
+			workerGroup.shutdownGracefully();
+			loader.shutdown();
+		}
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 2)
+		{
+			System.err.println("Usage: CacheServer <cache> <revision> [port]");
+			System.exit(-1);
+			return;
+		}
+
+		Store store = new Store(new File(args[0]));
+		store.load();
+
+		CacheServer server = new CacheServer(store, Integer.parseInt(args[1]));
+		server.start(args.length > 2 ? Integer.parseInt(args[2]) : PORT);
+	}
+}
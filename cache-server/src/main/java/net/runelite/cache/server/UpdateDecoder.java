@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.server;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import java.util.List;
+import net.runelite.protocol.api.update.ArchiveRequestPacket;
+import net.runelite.protocol.api.update.EncryptionPacket;
+import net.runelite.protocol.update.decoders.UpdateOpcodes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decodes the 4 byte packets clients send after the update handshake
+ */
+public class UpdateDecoder extends ByteToMessageDecoder
+{
+	private static final Logger logger = LoggerFactory.getLogger(UpdateDecoder.class);
+
+	@Override
+	protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception
+	{
+		while (in.readableBytes() >= 4)
+		{
+			int opcode = in.readUnsignedByte();
+
+			switch (opcode)
+			{
+				case UpdateOpcodes.ARCHIVE_REQUEST_LOW:
+				case UpdateOpcodes.ARCHIVE_REQUEST_HIGH:
+				{
+					ArchiveRequestPacket archiveRequest = new ArchiveRequestPacket();
+					archiveRequest.setPriority(opcode == UpdateOpcodes.ARCHIVE_REQUEST_HIGH);
+					archiveRequest.setIndex(in.readUnsignedByte());
+					archiveRequest.setArchive(in.readUnsignedShort());
+					out.add(archiveRequest);
+					break;
+				}
+				case UpdateOpcodes.ENCRYPTION:
+				{
+					EncryptionPacket encryptionPacket = new EncryptionPacket();
+					encryptionPacket.setKey(in.readByte());
+					in.skipBytes(2); // always 0
+					out.add(encryptionPacket);
+					break;
+				}
+				case UpdateOpcodes.CLIENT_LOGGED_IN:
+				case UpdateOpcodes.CLIENT_LOGGED_OUT:
+					in.skipBytes(3);
+					break;
+				default:
+					logger.warn("Unknown update opcode {} from {}", opcode, ctx.channel().remoteAddress());
+					in.skipBytes(in.readableBytes());
+					ctx.close();
+					return;
+			}
+		}
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import net.runelite.cache.client.CacheClient;
+import net.runelite.cache.client.DownloadStats;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.TestStores;
+import net.runelite.cache.fs.flat.FlatStorage;
+import net.runelite.protocol.api.login.HandshakeResponseType;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Drives many clients downloading the whole store at once
+ */
+public class CacheServerLoadTest
+{
+	private static final Logger logger = LoggerFactory.getLogger(CacheServerLoadTest.class);
+
+	private static final int REVISION = 42;
+	private static final int CLIENTS = 32;
+	private static final int CONNECTIONS = 2; // per client
+	private static final long LATENCY = 10; // ms
+	private static final long BANDWIDTH = 4 * 1024 * 1024; // per connection
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	@Ignore
+	public void loadTest() throws Exception
+	{
+		try (Store from = new Store(folder.newFolder()))
+		{
+			TestStores.populate(from, 8, 1000);
+			from.save();
+
+			try (CacheServer server = new CacheServer(from, REVISION))
+			{
+				server.setLatency(LATENCY);
+				server.setBandwidth(BANDWIDTH);
+				int port = server.start(0);
+
+				ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+				List<Future<DownloadStats>> futures = new ArrayList<>();
+
+				long start = System.nanoTime();
+				for (int i = 0; i < CLIENTS; ++i)
+				{
+					futures.add(executor.submit(() ->
+					{
+						// flat storage keeps archives in memory, so only the server is measured
+						try (Store to = new Store(new FlatStorage(folder.newFolder()));
+							CacheClient c = new CacheClient(to, "127.0.0.1", port, REVISION, CONNECTIONS))
+						{
+							c.connect();
+							Assert.assertEquals(HandshakeResponseType.RESPONSE_OK, c.handshake().get());
+							c.download();
+							return c.getStats();
+						}
+					}));
+				}
+
+				long bytes = 0, archives = 0;
+				for (Future<DownloadStats> future : futures)
+				{
+					DownloadStats stats = future.get();
+					bytes += stats.getBytes();
+					archives += stats.getCompleted();
+					logger.debug("Client finished: {}", stats);
+				}
+				long time = (System.nanoTime() - start) / 1_000_000L;
+
+				executor.shutdown();
+
+				logger.info("{} clients downloaded {} archives ({} bytes) in {}ms, {} KB/s",
+					CLIENTS, archives, bytes, time, time == 0 ? 0 : bytes / time * 1000L / 1024L);
+			}
+		}
+	}
+}
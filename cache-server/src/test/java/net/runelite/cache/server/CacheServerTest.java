@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.server;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import net.runelite.cache.StoreLocation;
+import net.runelite.cache.client.CacheClient;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Container;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.TestStores;
+import net.runelite.cache.fs.flat.FlatStorage;
+import net.runelite.cache.util.Crc32;
+import net.runelite.protocol.api.login.HandshakeResponseType;
+import net.runelite.protocol.api.update.ArchiveRequestPacket;
+import net.runelite.protocol.api.update.ArchiveResponsePacket;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CacheServerTest
+{
+	private static final int REVISION = 42;
+
+	@Rule
+	public TemporaryFolder folder = StoreLocation.getTemporaryFolder();
+
+	@Test
+	public void testDiskStorage() throws Exception
+	{
+		try (Store from = new Store(folder.newFolder()))
+		{
+			TestStores.populate(from, 3, 50);
+			from.save();
+
+			download(from);
+		}
+	}
+
+	@Test
+	public void testFlatStorage() throws Exception
+	{
+		File dir = folder.newFolder();
+		try (Store from = new Store(new FlatStorage(dir)))
+		{
+			TestStores.populate(from, 3, 50);
+			from.save();
+		}
+
+		try (Store from = new Store(new FlatStorage(dir)))
+		{
+			from.load();
+			download(from);
+		}
+	}
+
+	@Test
+	public void testOutdated() throws Exception
+	{
+		try (Store store = new Store(folder.newFolder());
+			CacheServer server = new CacheServer(store, REVISION))
+		{
+			int port = server.start(0);
+
+			try (CacheClient c = new CacheClient(store, "127.0.0.1", port, REVISION - 1, 1))
+			{
+				c.connect();
+				Assert.assertEquals(HandshakeResponseType.RESPONSE_OUTDATED, c.handshake().get());
+			}
+		}
+	}
+
+	@Test
+	public void testPriority() throws Exception
+	{
+		try (Store store = new Store(folder.newFolder()))
+		{
+			TestStores.populate(store, 1, 3);
+
+			Queue<Runnable> loads = new ArrayDeque<>();
+			EmbeddedChannel channel = new EmbeddedChannel(
+				new ArchiveRequestHandler(new ArchiveCache(store, 1024 * 1024), loads::add, 0));
+
+			channel.writeInbound(request(0, 0, false));
+			channel.writeInbound(request(0, 1, false));
+			channel.writeInbound(request(0, 2, true));
+
+			// only the first request is being loaded
+			Assert.assertEquals(1, loads.size());
+
+			Runnable load;
+			while ((load = loads.poll()) != null)
+			{
+				load.run();
+				channel.runPendingTasks();
+			}
+
+			int[] expected = {0, 2, 1};
+			for (int archive : expected)
+			{
+				ArchiveResponsePacket response = channel.readOutbound();
+				Assert.assertEquals(archive, response.getArchive());
+			}
+
+			// now that it is cached, an archive is sent immediately
+			channel.writeInbound(request(0, 1, false));
+			Assert.assertTrue(loads.isEmpty());
+			Assert.assertEquals(1, ((ArchiveResponsePacket) channel.readOutbound()).getArchive());
+		}
+	}
+
+	@Test
+	public void testIndexInfoOrder() throws Exception
+	{
+		try (Store store = new Store(folder.newFolder()))
+		{
+			// added out of order, and with no index 1
+			int[] ids = {3, 0, 2};
+			for (int id : ids)
+			{
+				Index index = store.addIndex(id);
+				index.setProtocol(6);
+				index.setRevision(100 + id);
+			}
+
+			ArchiveCache cache = new ArchiveCache(store, 1024 * 1024);
+			ByteBuffer indexInfo = ByteBuffer.wrap(Container.decompress(cache.getIfPresent(255, 255), null).data);
+			Assert.assertEquals(4 * 8, indexInfo.remaining());
+
+			for (int id : ids)
+			{
+				byte[] indexData = cache.getIfPresent(255, id);
+				Crc32 crc = new Crc32();
+				crc.update(indexData, 0, indexData.length);
+
+				Assert.assertEquals(crc.getHash(), indexInfo.getInt(id * 8));
+				Assert.assertEquals(100 + id, indexInfo.getInt(id * 8 + 4));
+			}
+
+			Assert.assertEquals(0, indexInfo.getInt(8));
+			Assert.assertEquals(0, indexInfo.getInt(12));
+		}
+	}
+
+	private void download(Store from) throws Exception
+	{
+		try (Store to = new Store(folder.newFolder());
+			CacheServer server = new CacheServer(from, REVISION))
+		{
+			server.setLatency(1);
+			server.setHotCacheSize(32 * 1024); // smaller than the store
+			int port = server.start(0);
+
+			try (CacheClient c = new CacheClient(to, "127.0.0.1", port, REVISION, 2))
+			{
+				c.connect();
+				Assert.assertEquals(HandshakeResponseType.RESPONSE_OK, c.handshake().get());
+
+				c.download();
+			}
+
+			for (Index index : from.getIndexes())
+			{
+				Index downloaded = to.findIndex(index.getId());
+				Assert.assertEquals(index.getArchives().size(), downloaded.getArchives().size());
+
+				for (Archive archive : index.getArchives())
+				{
+					Archive other = downloaded.getArchive(archive.getArchiveId());
+					Assert.assertArrayEquals(
+						archive.decompress(from.getStorage().loadArchive(archive)),
+						other.decompress(to.getStorage().loadArchive(other)));
+				}
+			}
+		}
+	}
+
+	private static ArchiveRequestPacket request(int index, int archive, boolean priority)
+	{
+		ArchiveRequestPacket archiveRequest = new ArchiveRequestPacket();
+		archiveRequest.setIndex(index);
+		archiveRequest.setArchive(archive);
+		archiveRequest.setPriority(priority);
+		return archiveRequest;
+	}
+}
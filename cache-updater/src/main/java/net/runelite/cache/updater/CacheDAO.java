@@ -25,7 +25,10 @@
 package net.runelite.cache.updater;
 
 import java.time.Instant;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import net.runelite.cache.index.FileData;
 import net.runelite.cache.updater.beans.ArchiveEntry;
 import net.runelite.cache.updater.beans.CacheEntry;
 import net.runelite.cache.updater.beans.IndexEntry;
@@ -35,9 +38,13 @@ import org.sql2o.ResultSetIterable;
 
 class CacheDAO
 {
+	// rows sent per executeBatch, with rewriteBatchedStatements the driver
+	// turns each batch into multi-row inserts
+	private static final int BATCH_SIZE = 1000;
+
 	// cache prepared statements for high volume queries
 	private Query associateArchive;
-	private Query findArchive, insertArchive;
+	private Query insertArchive;
 	private Query associateFile;
 
 	public CacheEntry findMostRecent(Connection con)
@@ -63,6 +70,32 @@ class CacheDAO
 			.executeAndFetchLazy(ArchiveEntry.class);
 	}
 
+	/**
+	 * Find every archive which has been associated to an index with the given
+	 * index id, in any cache. This is used to look up existing archives in
+	 * memory instead of issuing one query per archive.
+	 *
+	 * @param con
+	 * @param indexId
+	 * @return
+	 */
+	public List<ArchiveEntry> findArchivesForIndexId(Connection con, int indexId)
+	{
+		return con.createQuery("select distinct archive.id, archive.archiveId, archive.nameHash,"
+			+ " archive.crc, archive.revision, archive.hash from archive"
+			+ " join index_archive on index_archive.archive = archive.id"
+			+ " join `index` on index.id = index_archive.index"
+			+ " where index.indexId = :indexId")
+			.addParameter("indexId", indexId)
+			.executeAndFetch(ArchiveEntry.class);
+	}
+
+	public List<byte[]> findArchiveHashes(Connection con)
+	{
+		return con.createQuery("select distinct hash from archive")
+			.executeScalarList(byte[].class);
+	}
+
 	public CacheEntry createCache(Connection con, int revision, Instant date)
 	{
 		int cacheId = con.createQuery("insert into cache (revision, date) values (:revision, :date)")
@@ -96,82 +129,121 @@ class CacheDAO
 		return entry;
 	}
 
-	public void associateArchiveToIndex(Connection con, ArchiveEntry archive, IndexEntry index)
+	/**
+	 * Insert the given archives, and set their ids to the generated keys.
+	 *
+	 * @param con
+	 * @param archives
+	 */
+	public void createArchives(Connection con, List<ArchiveEntry> archives)
 	{
-		if (associateArchive == null)
+		if (insertArchive == null)
 		{
-			associateArchive = con.createQuery("insert into index_archive (`index`, archive) values (:index, :archive)");
+			insertArchive = con.createQuery("insert into archive (archiveId, nameHash, crc, revision, hash) values "
+				+ "(:archiveId, :nameHash, :crc, :revision, :hash)");
 		}
-		associateArchive
-			.addParameter("index", index.getId())
-			.addParameter("archive", archive.getId())
-			.executeUpdate();
-	}
 
-	public ArchiveEntry findArchive(Connection con, IndexEntry index,
-		int archiveId, int nameHash, int crc, int revision)
-	{
-		if (findArchive == null)
+		for (int start = 0; start < archives.size(); start += BATCH_SIZE)
 		{
-			findArchive = con.createQuery("select distinct archive.id, archive.archiveId, archive.nameHash,"
-				+ " archive.crc, archive.revision, archive.hash from archive "
-				+ " join index_archive on index_archive.archive = archive.id"
-				+ " join `index` on index.id = index_archive.index"
-				+ " where archive.archiveId = :archiveId"
-				+ " and archive.nameHash = :nameHash"
-				+ " and archive.crc = :crc"
-				+ " and archive.revision = :revision"
-				+ " and index.indexId = :indexId");
+			List<ArchiveEntry> batch = archives.subList(start, Math.min(start + BATCH_SIZE, archives.size()));
+
+			for (ArchiveEntry archive : batch)
+			{
+				insertArchive
+					.addParameter("archiveId", archive.getArchiveId())
+					.addParameter("nameHash", archive.getNameHash())
+					.addParameter("crc", archive.getCrc())
+					.addParameter("revision", archive.getRevision())
+					.addParameter("hash", archive.getHash())
+					.addToBatch();
+			}
+
+			List<Integer> keys = insertArchive.executeBatch()
+				.getKeys(Integer.class);
+			if (keys.size() != batch.size())
+			{
+				throw new IllegalStateException("Driver returned " + keys.size() + " keys for batch of " + batch.size() + " archives");
+			}
+
+			Iterator<Integer> it = keys.iterator();
+			for (ArchiveEntry archive : batch)
+			{
+				archive.setId(it.next());
+			}
 		}
-
-		ArchiveEntry entry = findArchive
-			.addParameter("archiveId", archiveId)
-			.addParameter("nameHash", nameHash)
-			.addParameter("crc", crc)
-			.addParameter("revision", revision)
-			.addParameter("indexId", index.getIndexId())
-			.executeAndFetchFirst(ArchiveEntry.class);
-		return entry;
 	}
 
-	public ArchiveEntry createArchive(Connection con, IndexEntry index,
-		int archiveId, int nameHash, int crc, int revision, byte[] hash)
+	/**
+	 * Insert the files of each archive. The archives must have already been
+	 * created.
+	 *
+	 * @param con
+	 * @param archives
+	 * @param fileData file data of each archive, in the same order as archives
+	 */
+	public void associateFilesToArchives(Connection con, List<ArchiveEntry> archives, List<FileData[]> fileData)
 	{
-		if (insertArchive == null)
+		if (associateFile == null)
 		{
-			insertArchive = con.createQuery("insert into archive (archiveId, nameHash, crc, revision, hash) values "
-				+ "(:archiveId, :nameHash, :crc, :revision, :hash)");
+			associateFile = con.createQuery("insert into file (archive, fileId, nameHash) values (:archive, :fileId, :nameHash)");
 		}
 
-		int id = insertArchive
-			.addParameter("archiveId", archiveId)
-			.addParameter("nameHash", nameHash)
-			.addParameter("crc", crc)
-			.addParameter("revision", revision)
-			.addParameter("hash", hash)
-			.executeUpdate()
-			.getKey(int.class);
+		int count = 0;
+		for (int i = 0; i < archives.size(); ++i)
+		{
+			ArchiveEntry archive = archives.get(i);
+			for (FileData file : fileData.get(i))
+			{
+				associateFile
+					.addParameter("archive", archive.getId())
+					.addParameter("fileId", file.getId())
+					.addParameter("nameHash", file.getNameHash())
+					.addToBatch();
+
+				if (++count % BATCH_SIZE == 0)
+				{
+					associateFile.executeBatch();
+				}
+			}
+		}
 
-		ArchiveEntry entry = new ArchiveEntry();
-		entry.setId(id);
-		entry.setArchiveId(archiveId);
-		entry.setNameHash(nameHash);
-		entry.setCrc(crc);
-		entry.setRevision(revision);
-		entry.setHash(hash);
-		return entry;
+		if (count % BATCH_SIZE != 0)
+		{
+			associateFile.executeBatch();
+		}
 	}
 
-	public void associateFileToArchive(Connection con, ArchiveEntry archive, int fileId, int nameHash)
+	/**
+	 * Associate each of the archives to the index.
+	 *
+	 * @param con
+	 * @param archives
+	 * @param index
+	 */
+	public void associateArchivesToIndex(Connection con, Collection<ArchiveEntry> archives, IndexEntry index)
 	{
-		if (associateFile == null)
+		if (associateArchive == null)
 		{
-			associateFile = con.createQuery("insert into file (archive, fileId, nameHash) values (:archive, :fileId, :nameHash)");
+			associateArchive = con.createQuery("insert into index_archive (`index`, archive) values (:index, :archive)");
+		}
+
+		int count = 0;
+		for (ArchiveEntry archive : archives)
+		{
+			associateArchive
+				.addParameter("index", index.getId())
+				.addParameter("archive", archive.getId())
+				.addToBatch();
+
+			if (++count % BATCH_SIZE == 0)
+			{
+				associateArchive.executeBatch();
+			}
+		}
+
+		if (count % BATCH_SIZE != 0)
+		{
+			associateArchive.executeBatch();
 		}
-		associateFile
-			.addParameter("archive", archive.getId())
-			.addParameter("fileId", fileId)
-			.addParameter("nameHash", nameHash)
-			.executeUpdate();
 	}
 }
@@ -25,7 +25,11 @@
 package net.runelite.cache.updater;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import lombok.Value;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Storage;
@@ -34,11 +38,15 @@ import net.runelite.cache.index.FileData;
 import net.runelite.cache.updater.beans.ArchiveEntry;
 import net.runelite.cache.updater.beans.CacheEntry;
 import net.runelite.cache.updater.beans.IndexEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.sql2o.Connection;
 import org.sql2o.ResultSetIterable;
 
 public class CacheStorage implements Storage
 {
+	private static final Logger logger = LoggerFactory.getLogger(CacheStorage.class);
+
 	private CacheEntry cacheEntry;
 	private final CacheDAO cacheDao;
 	private final Connection con;
@@ -108,24 +116,43 @@ public class CacheStorage implements Storage
 		{
 			IndexEntry entry = cacheDao.createIndex(con, cacheEntry, index.getId(), index.getCrc(), index.getRevision());
 
+			// look up all known archives of this index up front, instead of a query per archive
+			Map<ArchiveKey, ArchiveEntry> existing = new HashMap<>();
+			for (ArchiveEntry archiveEntry : cacheDao.findArchivesForIndexId(con, index.getId()))
+			{
+				existing.putIfAbsent(new ArchiveKey(archiveEntry.getArchiveId(), archiveEntry.getNameHash(),
+					archiveEntry.getCrc(), archiveEntry.getRevision()), archiveEntry);
+			}
+
+			List<ArchiveEntry> archiveEntries = new ArrayList<>(index.getArchives().size());
+			List<ArchiveEntry> created = new ArrayList<>();
+			List<FileData[]> createdFiles = new ArrayList<>();
+
 			for (Archive archive : index.getArchives())
 			{
-				ArchiveEntry archiveEntry = cacheDao.findArchive(con, entry, archive.getArchiveId(),
-					archive.getNameHash(), archive.getCrc(), archive.getRevision());
+				ArchiveEntry archiveEntry = existing.get(new ArchiveKey(archive.getArchiveId(), archive.getNameHash(),
+					archive.getCrc(), archive.getRevision()));
 				if (archiveEntry == null)
 				{
-					byte[] hash = archive.getHash();
-					archiveEntry = cacheDao.createArchive(con, entry, archive.getArchiveId(),
-						archive.getNameHash(), archive.getCrc(), archive.getRevision(), hash);
-
-					for (FileData file : archive.getFileData())
-					{
-						cacheDao.associateFileToArchive(con, archiveEntry, file.getId(), file.getNameHash());
-					}
+					archiveEntry = new ArchiveEntry();
+					archiveEntry.setArchiveId(archive.getArchiveId());
+					archiveEntry.setNameHash(archive.getNameHash());
+					archiveEntry.setCrc(archive.getCrc());
+					archiveEntry.setRevision(archive.getRevision());
+					archiveEntry.setHash(archive.getHash());
+
+					created.add(archiveEntry);
+					createdFiles.add(archive.getFileData());
 				}
 
-				cacheDao.associateArchiveToIndex(con, archiveEntry, entry);
+				archiveEntries.add(archiveEntry);
 			}
+
+			cacheDao.createArchives(con, created);
+			cacheDao.associateFilesToArchives(con, created, createdFiles);
+			cacheDao.associateArchivesToIndex(con, archiveEntries, entry);
+
+			logger.debug("Saved index {}: {} archives, {} new", index.getId(), archiveEntries.size(), created.size());
 		}
 	}
 
@@ -141,4 +168,12 @@ public class CacheStorage implements Storage
 		throw new UnsupportedOperationException();
 	}
 
+	@Value
+	private static class ArchiveKey
+	{
+		private final int archiveId;
+		private final int nameHash;
+		private final int crc;
+		private final int revision;
+	}
 }
@@ -30,12 +30,8 @@ import io.minio.errors.InvalidPortException;
 import java.io.IOException;
 import java.time.Instant;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 import net.runelite.cache.client.CacheClient;
 import net.runelite.cache.client.IndexInfo;
-import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.updater.beans.CacheEntry;
 import net.runelite.cache.updater.beans.IndexEntry;
@@ -57,6 +53,9 @@ public class CacheUpdater implements CommandLineRunner
 {
 	private static final Logger logger = LoggerFactory.getLogger(CacheUpdater.class);
 
+	private static final int UPLOAD_THREADS = 8;
+	private static final int MAX_PENDING_UPLOADS = 64;
+
 	private final Sql2o sql2o;
 	private final MinioClient minioClient;
 
@@ -92,44 +91,50 @@ public class CacheUpdater implements CommandLineRunner
 			Store store = new Store(storage);
 			store.load();
 
-			ExecutorService executor = Executors.newSingleThreadExecutor();
+			CacheUploader uploader = new CacheUploader(minioClient, minioBucket, UPLOAD_THREADS, MAX_PENDING_UPLOADS);
+			for (byte[] hash : cacheDao.findArchiveHashes(con))
+			{
+				uploader.addKnownHash(hash);
+			}
 
-			CacheClient client = new CacheClient(store, rsVersion,
-				(Archive archive, byte[] data) -> executor.submit(new CacheUploader(minioClient, minioBucket, archive, data)));
+			try
+			{
+				CacheClient client = new CacheClient(store, rsVersion, uploader);
+				// uploads block the client once enough are queued
+				client.setMaxPendingArchives(MAX_PENDING_UPLOADS);
 
-			client.connect();
-			HandshakeResponseType result = client.handshake().join();
+				client.connect();
+				HandshakeResponseType result = client.handshake().join();
 
-			if (result != HandshakeResponseType.RESPONSE_OK)
-			{
-				logger.warn("Out of date!");
-				return;
-			}
+				if (result != HandshakeResponseType.RESPONSE_OK)
+				{
+					logger.warn("Out of date!");
+					return;
+				}
 
-			List<IndexInfo> indexes = client.requestIndexes();
-			List<IndexEntry> entries = cacheDao.findIndexesForCache(con, cache);
+				List<IndexInfo> indexes = client.requestIndexes();
+				List<IndexEntry> entries = cacheDao.findIndexesForCache(con, cache);
 
-			if (!checkOutOfDate(indexes, entries))
+				if (!checkOutOfDate(indexes, entries))
+				{
+					logger.info("All up to date.");
+					return;
+				}
+
+				client.download();
+			}
+			finally
 			{
-				logger.info("All up to date.");
-				return;
+				// ensure objects are added to the store before they become
+				// visible in the database, this also sets the archive hashes
+				uploader.close();
 			}
 
-			client.download();
-
 			CacheEntry newCache = created ? cache : cacheDao.createCache(con, rsVersion, Instant.now());
 
 			storage.setCacheEntry(newCache);
 			store.save();
 
-			// ensure objects are added to the store before they become
-			// visible in the database
-			executor.shutdown();
-			while (!executor.awaitTermination(1, TimeUnit.SECONDS))
-			{
-				logger.debug("Waiting for termination of executor...");
-			}
-
 			// commit database
 			con.commit();
 		}
@@ -24,6 +24,7 @@
  */
 package net.runelite.cache.updater;
 
+import com.google.common.hash.HashCode;
 import com.google.common.hash.Hashing;
 import com.google.common.io.BaseEncoding;
 import io.minio.MinioClient;
@@ -35,50 +36,165 @@ import io.minio.errors.InvalidBucketNameException;
 import io.minio.errors.NoResponseException;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.runelite.cache.client.DownloadWatcher;
 import net.runelite.cache.fs.Archive;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xmlpull.v1.XmlPullParserException;
 
-public class CacheUploader implements Runnable
+/**
+ * Uploads downloaded archives to the object store, named by the sha256 of
+ * their data. Hashing and uploading is done on a pool of worker threads.
+ * At most maxPending archives are queued or uploading at once, beyond that
+ * {@link #downloadComplete(Archive, byte[])} blocks until one finishes.
+ */
+public class CacheUploader implements DownloadWatcher, AutoCloseable
 {
 	private static final Logger logger = LoggerFactory.getLogger(CacheUploader.class);
 
 	private final MinioClient minioClient;
 	private final String minioBucket;
-	private final Archive archive;
-	private final byte[] data;
+	private final int maxPending;
+	private final Semaphore pending;
+	private final ExecutorService executor;
+
+	// hashes which are already in the store
+	private final Set<HashCode> known = ConcurrentHashMap.newKeySet();
+	// uploads in progress, completed with whether the data is now in the store
+	private final ConcurrentMap<HashCode, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
 
-	public CacheUploader(MinioClient minioClient, String minioBucket, Archive archive, byte[] data)
+	private final AtomicInteger uploaded = new AtomicInteger();
+	private final AtomicInteger skipped = new AtomicInteger();
+	private final AtomicInteger existing = new AtomicInteger();
+	private final AtomicInteger failed = new AtomicInteger();
+
+	public CacheUploader(MinioClient minioClient, String minioBucket, int threads, int maxPending)
 	{
 		this.minioClient = minioClient;
 		this.minioBucket = minioBucket;
-		this.archive = archive;
-		this.data = data;
+		this.maxPending = maxPending;
+		this.pending = new Semaphore(maxPending);
+		this.executor = Executors.newFixedThreadPool(threads);
+	}
+
+	/**
+	 * Mark a hash as already being in the store, so archives with it
+	 * are not checked for or uploaded.
+	 *
+	 * @param hash
+	 */
+	public void addKnownHash(byte[] hash)
+	{
+		known.add(HashCode.fromBytes(hash));
 	}
 
 	@Override
-	public void run()
+	public void downloadComplete(Archive archive, byte[] data)
 	{
-		byte[] hash = Hashing.sha256().hashBytes(data).asBytes();
-		String hashStr = BaseEncoding.base16().encode(hash);
+		pending.acquireUninterruptibly();
+
+		try
+		{
+			executor.execute(() ->
+			{
+				try
+				{
+					upload(archive, data);
+				}
+				finally
+				{
+					pending.release();
+				}
+			});
+		}
+		catch (RejectedExecutionException ex)
+		{
+			pending.release();
+			throw ex;
+		}
+	}
+
+	private void upload(Archive archive, byte[] data)
+	{
+		HashCode hashCode = Hashing.sha256().hashBytes(data);
+		byte[] hash = hashCode.asBytes();
 
 		archive.setHash(hash);
 
-		String path = new StringBuilder()
-			.append(hashStr, 0, 2)
-			.append('/')
-			.append(hashStr.substring(2))
-			.toString();
+		for (;;)
+		{
+			if (known.contains(hashCode))
+			{
+				skipped.incrementAndGet();
+				return;
+			}
+
+			CompletableFuture<Boolean> future = new CompletableFuture<>();
+			CompletableFuture<Boolean> other = inFlight.putIfAbsent(hashCode, future);
+			if (other == null)
+			{
+				boolean stored = false;
+				try
+				{
+					if (known.contains(hashCode))
+					{
+						// another upload of it finished since the check above
+						stored = true;
+						skipped.incrementAndGet();
+						return;
+					}
+
+					stored = store(hashCode, data);
+				}
+				finally
+				{
+					inFlight.remove(hashCode);
+					future.complete(stored);
+				}
+				return;
+			}
+
+			// the same data is being uploaded for another archive, if that
+			// fails try again with this one
+			if (other.join())
+			{
+				skipped.incrementAndGet();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Store data in the object store if it is not already there.
+	 *
+	 * @param hashCode
+	 * @param data
+	 * @return whether the data is now in the store
+	 */
+	private boolean store(HashCode hashCode, byte[] data)
+	{
+		String path = getPath(hashCode.asBytes());
 
 		try
 		{
-			try (InputStream in = minioClient.getObject(minioBucket, path))
+			try
 			{
-				return; // already exists
+				minioClient.statObject(minioBucket, path);
+				existing.incrementAndGet();
+				known.add(hashCode);
+				return true; // already exists
 			}
 			catch (ErrorResponseException ex)
 			{
@@ -86,11 +202,63 @@ public class CacheUploader implements Runnable
 			}
 
 			minioClient.putObject(minioBucket, path, new ByteArrayInputStream(data), data.length, "binary/octet-stream");
+			uploaded.incrementAndGet();
+			known.add(hashCode);
+			return true;
 		}
 		catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidArgumentException | InvalidBucketNameException | NoResponseException | IOException | InvalidKeyException | NoSuchAlgorithmException | XmlPullParserException ex)
 		{
+			failed.incrementAndGet();
 			logger.warn("unable to upload data to store", ex);
+			return false;
 		}
 	}
 
+	static String getPath(byte[] hash)
+	{
+		String hashStr = BaseEncoding.base16().encode(hash);
+		return new StringBuilder()
+			.append(hashStr, 0, 2)
+			.append('/')
+			.append(hashStr.substring(2))
+			.toString();
+	}
+
+	/**
+	 * Wait for all queued archives to be uploaded, and stop the workers.
+	 *
+	 * @throws InterruptedException
+	 */
+	@Override
+	public void close() throws InterruptedException
+	{
+		pending.acquire(maxPending);
+		pending.release(maxPending);
+
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.MINUTES);
+
+		logger.info("Uploaded {} archives ({} already in store, {} duplicate or known, {} failed)",
+			uploaded.get(), existing.get(), skipped.get(), failed.get());
+	}
+
+	public int getUploaded()
+	{
+		return uploaded.get();
+	}
+
+	public int getSkipped()
+	{
+		return skipped.get();
+	}
+
+	public int getExisting()
+	{
+		return existing.get();
+	}
+
+	public int getFailed()
+	{
+		return failed.get();
+	}
 }
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.updater;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.index.FileData;
+import net.runelite.cache.updater.beans.CacheEntry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sql2o.Connection;
+import org.sql2o.Sql2o;
+import org.sql2o.converters.Converter;
+import org.sql2o.quirks.NoQuirks;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class CacheStorageTest
+{
+	private static final Logger logger = LoggerFactory.getLogger(CacheStorageTest.class);
+
+	private static final int INDEXES = 4;
+	private static final int ARCHIVES = 2500;
+	private static final int FILES = 3;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Connection con;
+	private final CacheDAO cacheDao = new CacheDAO();
+
+	@Before
+	public void before()
+	{
+		Map<Class, Converter> converters = new HashMap<>();
+		converters.put(Instant.class, new InstantConverter());
+		Sql2o sql2o = new Sql2o("jdbc:h2:mem:;MODE=MySQL", null, null, new NoQuirks(converters));
+
+		// a private in-memory database lives as long as this connection
+		con = sql2o.beginTransaction();
+		con.createQuery("runscript from 'classpath:schema-h2.sql'")
+			.executeUpdate();
+	}
+
+	@After
+	public void after()
+	{
+		con.close();
+	}
+
+	@Test
+	public void testSave() throws IOException
+	{
+		try (Store store = new Store(folder.getRoot()))
+		{
+			populate(store);
+
+			CacheEntry cache = cacheDao.createCache(con, 1, Instant.now());
+			long start = System.nanoTime();
+			new CacheStorage(cache, cacheDao, con).save(store);
+			logger.info("Saved {} archives in {}ms", INDEXES * ARCHIVES, (System.nanoTime() - start) / 1_000_000L);
+
+			assertEquals(INDEXES, count("index"));
+			assertEquals(INDEXES * ARCHIVES, count("archive"));
+			assertEquals(INDEXES * ARCHIVES * FILES, count("file"));
+			assertEquals(INDEXES * ARCHIVES, count("index_archive"));
+
+			// a new cache with a few changed archives only adds those archives
+			Index index = store.getIndexes().get(1);
+			for (int i = 0; i < 10; ++i)
+			{
+				Archive archive = index.getArchive(i * 7);
+				archive.setRevision(archive.getRevision() + 1);
+			}
+
+			CacheEntry cache2 = cacheDao.createCache(con, 2, Instant.now());
+			start = System.nanoTime();
+			new CacheStorage(cache2, cacheDao, con).save(store);
+			logger.info("Saved {} archives, 10 changed, in {}ms", INDEXES * ARCHIVES, (System.nanoTime() - start) / 1_000_000L);
+
+			assertEquals(INDEXES * 2, count("index"));
+			assertEquals(INDEXES * ARCHIVES + 10, count("archive"));
+			assertEquals((INDEXES * ARCHIVES + 10) * FILES, count("file"));
+			assertEquals(INDEXES * ARCHIVES * 2, count("index_archive"));
+
+			// and both caches load back what was saved
+			try (Store loaded = new Store(new CacheStorage(cache2, cacheDao, con)))
+			{
+				loaded.load();
+
+				assertEquals(INDEXES, loaded.getIndexes().size());
+				for (Index expected : store.getIndexes())
+				{
+					Index actual = loaded.findIndex(expected.getId());
+					assertNotNull(actual);
+					assertEquals(ARCHIVES, actual.getArchives().size());
+
+					for (Archive archive : expected.getArchives())
+					{
+						Archive other = actual.getArchive(archive.getArchiveId());
+						assertNotNull(other);
+						assertEquals(archive.getCrc(), other.getCrc());
+						assertEquals(archive.getRevision(), other.getRevision());
+						assertEquals(archive.getNameHash(), other.getNameHash());
+					}
+				}
+			}
+
+			try (Store loaded = new Store(new CacheStorage(cache, cacheDao, con)))
+			{
+				loaded.load();
+				assertEquals(1, loaded.findIndex(1).getArchive(0).getRevision());
+			}
+		}
+	}
+
+	private int count(String table)
+	{
+		return con.createQuery("select count(*) from `" + table + "`")
+			.executeScalar(Integer.class);
+	}
+
+	private static void populate(Store store) throws IOException
+	{
+		for (int i = 0; i < INDEXES; ++i)
+		{
+			Index index = store.addIndex(i);
+			index.setRevision(1);
+			index.setCrc(i);
+
+			for (int j = 0; j < ARCHIVES; ++j)
+			{
+				Archive archive = index.addArchive(j);
+				archive.setNameHash(j * 31);
+				archive.setCrc(i * 7919 + j);
+				archive.setRevision(1);
+
+				byte[] hash = new byte[32];
+				hash[0] = (byte) i;
+				hash[1] = (byte) j;
+				archive.setHash(hash);
+
+				FileData[] fileData = new FileData[FILES];
+				for (int k = 0; k < FILES; ++k)
+				{
+					fileData[k] = new FileData();
+					fileData[k].setId(k);
+					fileData[k].setNameHash(k * 13);
+				}
+				archive.setFileData(fileData);
+			}
+		}
+	}
+}
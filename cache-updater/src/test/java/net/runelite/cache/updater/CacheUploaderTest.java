@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.updater;
+
+import com.google.common.hash.Hashing;
+import io.minio.MinioClient;
+import java.util.ArrayList;
+import java.util.List;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CacheUploaderTest
+{
+	private static final String BUCKET = "runelite";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testUpload() throws Exception
+	{
+		byte[][] contents = new byte[150][];
+		for (int i = 0; i < contents.length; ++i)
+		{
+			contents[i] = ("archive contents " + i).getBytes();
+		}
+
+		try (LocalObjectStore objectStore = new LocalObjectStore(10);
+			Store store = new Store(folder.getRoot()))
+		{
+			MinioClient minioClient = new MinioClient(objectStore.getEndpoint());
+			CacheUploader uploader = new CacheUploader(minioClient, BUCKET, 8, 32);
+
+			// 0-19 are known from the database, 20-29 are only in the object store
+			for (int i = 0; i < 30; ++i)
+			{
+				byte[] hash = Hashing.sha256().hashBytes(contents[i]).asBytes();
+				objectStore.put(BUCKET, CacheUploader.getPath(hash), contents[i]);
+				if (i < 20)
+				{
+					uploader.addKnownHash(hash);
+				}
+			}
+
+			// 0-49 are used by two archives each
+			Index index = store.addIndex(0);
+			List<Archive> archives = new ArrayList<>();
+			for (int i = 0; i < 200; ++i)
+			{
+				Archive archive = index.addArchive(i);
+				archives.add(archive);
+				uploader.downloadComplete(archive, contents[i % contents.length]);
+			}
+
+			uploader.close();
+
+			assertEquals(0, uploader.getFailed());
+			assertEquals(120, uploader.getUploaded());
+			assertEquals(10, uploader.getExisting());
+			assertEquals(70, uploader.getSkipped());
+
+			assertEquals(130, objectStore.getStats());
+			assertEquals(120, objectStore.getPuts());
+			assertEquals(150, objectStore.size());
+			assertTrue(objectStore.getMaxActive() > 1);
+
+			for (Archive archive : archives)
+			{
+				byte[] data = contents[archive.getArchiveId() % contents.length];
+				byte[] hash = Hashing.sha256().hashBytes(data).asBytes();
+				assertArrayEquals(hash, archive.getHash());
+				assertArrayEquals(data, objectStore.get(BUCKET, CacheUploader.getPath(hash)));
+			}
+		}
+	}
+
+	@Test
+	public void testMaxPending() throws Exception
+	{
+		try (LocalObjectStore objectStore = new LocalObjectStore(20);
+			Store store = new Store(folder.getRoot()))
+		{
+			MinioClient minioClient = new MinioClient(objectStore.getEndpoint());
+			CacheUploader uploader = new CacheUploader(minioClient, BUCKET, 8, 2);
+
+			Index index = store.addIndex(0);
+			for (int i = 0; i < 20; ++i)
+			{
+				uploader.downloadComplete(index.addArchive(i), ("archive " + i).getBytes());
+			}
+
+			uploader.close();
+
+			assertEquals(20, uploader.getUploaded());
+			assertTrue(objectStore.getMaxActive() <= 2);
+		}
+	}
+
+	@Test
+	public void testDuplicateAfterFailure() throws Exception
+	{
+		byte[] data = "archive contents".getBytes();
+		byte[] hash = Hashing.sha256().hashBytes(data).asBytes();
+
+		try (LocalObjectStore objectStore = new LocalObjectStore(50);
+			Store store = new Store(folder.getRoot()))
+		{
+			MinioClient minioClient = new MinioClient(objectStore.getEndpoint());
+			CacheUploader uploader = new CacheUploader(minioClient, BUCKET, 4, 4);
+
+			// the first upload fails while the second archive with the same
+			// data is waiting on it
+			objectStore.failPuts(1);
+
+			Index index = store.addIndex(0);
+			uploader.downloadComplete(index.addArchive(0), data);
+			uploader.downloadComplete(index.addArchive(1), data);
+
+			uploader.close();
+
+			assertEquals(1, uploader.getFailed());
+			assertEquals(1, uploader.getUploaded());
+			assertEquals(0, uploader.getSkipped());
+			assertArrayEquals(data, objectStore.get(BUCKET, CacheUploader.getPath(hash)));
+		}
+	}
+}
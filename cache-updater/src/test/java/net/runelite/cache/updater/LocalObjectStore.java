@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.updater;
+
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A minimal stand-in for an S3 compatible object store, supporting the
+ * stat and put requests made by the uploader. Requests are not
+ * authenticated, so clients should be anonymous.
+ */
+class LocalObjectStore implements AutoCloseable
+{
+	private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US);
+
+	private final HttpServer server;
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private final int latency;
+
+	private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+	private final AtomicInteger stats = new AtomicInteger();
+	private final AtomicInteger puts = new AtomicInteger();
+	private final AtomicInteger active = new AtomicInteger();
+	private final AtomicInteger maxActive = new AtomicInteger();
+	private final AtomicInteger failPuts = new AtomicInteger();
+
+	/**
+	 * @param latency milliseconds to wait before responding to each request
+	 * @throws IOException
+	 */
+	LocalObjectStore(int latency) throws IOException
+	{
+		this.latency = latency;
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", this::handle);
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	String getEndpoint()
+	{
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	/**
+	 * @param bucket
+	 * @param name
+	 * @return the contents of the object, or null if it doesn't exist
+	 */
+	byte[] get(String bucket, String name)
+	{
+		return objects.get("/" + bucket + "/" + name);
+	}
+
+	void put(String bucket, String name, byte[] data)
+	{
+		objects.put("/" + bucket + "/" + name, data);
+	}
+
+	/**
+	 * Fail the next put requests with an internal error
+	 *
+	 * @param count
+	 */
+	void failPuts(int count)
+	{
+		failPuts.set(count);
+	}
+
+	int size()
+	{
+		return objects.size();
+	}
+
+	int getStats()
+	{
+		return stats.get();
+	}
+
+	int getPuts()
+	{
+		return puts.get();
+	}
+
+	int getMaxActive()
+	{
+		return maxActive.get();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException
+	{
+		int count = active.incrementAndGet();
+		maxActive.accumulateAndGet(count, Math::max);
+
+		try
+		{
+			if (latency > 0)
+			{
+				Thread.sleep(latency);
+			}
+
+			String path = exchange.getRequestURI().getPath();
+			switch (exchange.getRequestMethod())
+			{
+				case "HEAD":
+				{
+					stats.incrementAndGet();
+					byte[] data = objects.get(path);
+					if (data == null)
+					{
+						exchange.sendResponseHeaders(404, -1);
+						break;
+					}
+
+					exchange.getResponseHeaders().set("Content-Length", Integer.toString(data.length));
+					exchange.getResponseHeaders().set("Content-Type", "binary/octet-stream");
+					exchange.getResponseHeaders().set("ETag", "\"" + Integer.toHexString(path.hashCode()) + "\"");
+					exchange.getResponseHeaders().set("Last-Modified", HTTP_DATE.format(ZonedDateTime.now(ZoneOffset.UTC)));
+					exchange.sendResponseHeaders(200, -1);
+					break;
+				}
+				case "PUT":
+				{
+					puts.incrementAndGet();
+					try (InputStream in = exchange.getRequestBody())
+					{
+						byte[] data = ByteStreams.toByteArray(in);
+						if (failPuts.getAndDecrement() > 0)
+						{
+							byte[] error = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?><Error><Code>InternalError</Code>"
+								+ "<Message>We encountered an internal error. Please try again.</Message>"
+								+ "<Resource>" + path + "</Resource><RequestId>0</RequestId></Error>").getBytes(StandardCharsets.UTF_8);
+							exchange.getResponseHeaders().set("Content-Type", "application/xml");
+							exchange.sendResponseHeaders(500, error.length);
+							exchange.getResponseBody().write(error);
+							break;
+						}
+						objects.put(path, data);
+					}
+
+					exchange.getResponseHeaders().set("ETag", "\"" + Integer.toHexString(path.hashCode()) + "\"");
+					exchange.sendResponseHeaders(200, -1);
+					break;
+				}
+				default:
+					exchange.sendResponseHeaders(405, -1);
+					break;
+			}
+		}
+		catch (InterruptedException ex)
+		{
+			exchange.sendResponseHeaders(500, -1);
+		}
+		finally
+		{
+			active.decrementAndGet();
+			exchange.close();
+		}
+	}
+
+	@Override
+	public void close()
+	{
+		server.stop(0);
+		executor.shutdownNow();
+	}
+}
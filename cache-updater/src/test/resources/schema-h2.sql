@@ -0,0 +1,51 @@
+-- Subset of schema.sql accepted by H2 in MySQL mode
+
+CREATE TABLE `cache` (
+  `id` int(11) NOT NULL AUTO_INCREMENT,
+  `revision` int(11) NOT NULL,
+  `date` timestamp NOT NULL DEFAULT current_timestamp(),
+  PRIMARY KEY (`id`)
+);
+
+CREATE TABLE `index` (
+  `id` int(11) NOT NULL AUTO_INCREMENT,
+  `cache` int(11) NOT NULL,
+  `indexId` int(11) NOT NULL,
+  `crc` int(11) NOT NULL,
+  `revision` int(11) NOT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `indexId` (`cache`,`indexId`,`revision`,`crc`),
+  FOREIGN KEY (`cache`) REFERENCES `cache` (`id`)
+);
+
+CREATE TABLE `archive` (
+  `id` int(11) NOT NULL AUTO_INCREMENT,
+  `archiveId` int(11) NOT NULL,
+  `nameHash` int(11) NOT NULL,
+  `crc` int(11) NOT NULL,
+  `revision` int(11) NOT NULL,
+  `hash` binary(32) NOT NULL,
+  PRIMARY KEY (`id`),
+  KEY `archive_revision` (`archiveId`,`revision`)
+);
+
+CREATE TABLE `file` (
+  `id` int(11) NOT NULL AUTO_INCREMENT,
+  `archive` int(11) NOT NULL,
+  `fileId` int(11) NOT NULL,
+  `nameHash` int(11) NOT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `archive_file` (`archive`,`fileId`),
+  FOREIGN KEY (`archive`) REFERENCES `archive` (`id`)
+);
+
+CREATE TABLE `index_archive` (
+  `id` int(11) NOT NULL AUTO_INCREMENT,
+  `index` int(11) NOT NULL,
+  `archive` int(11) NOT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `idx_index_archive` (`index`,`archive`),
+  KEY `archive` (`archive`),
+  FOREIGN KEY (`index`) REFERENCES `index` (`id`),
+  FOREIGN KEY (`archive`) REFERENCES `archive` (`id`)
+);
@@ -28,14 +28,10 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import net.runelite.cache.definitions.AreaDefinition;
 import net.runelite.cache.definitions.loaders.AreaLoader;
-import net.runelite.cache.fs.Archive;
-import net.runelite.cache.fs.ArchiveFiles;
-import net.runelite.cache.fs.FSFile;
-import net.runelite.cache.fs.Index;
-import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
 
 public class AreaManager
@@ -50,18 +46,16 @@ public class AreaManager
 
 	public void load() throws IOException
 	{
-		Storage storage = store.getStorage();
-		Index index = store.getIndex(IndexType.CONFIGS);
-		Archive archive = index.getArchive(ConfigType.AREA.getId());
-
-		byte[] archiveData = storage.loadArchive(archive);
-		ArchiveFiles files = archive.getFiles(archiveData);
+		load(null);
+	}
 
-		for (FSFile file : files.getFiles())
+	public void load(ParallelLoader parallelLoader) throws IOException
+	{
+		List<AreaDefinition> defs = Definitions.decode(store, ConfigType.AREA, parallelLoader,
+			f -> new AreaLoader().load(f.getContents(), f.getFileId()));
+		for (AreaDefinition def : defs)
 		{
-			AreaLoader loader = new AreaLoader();
-			AreaDefinition area = loader.load(file.getContents(), file.getFileId());
-			areas.put(area.id, area);
+			areas.put(def.id, def);
 		}
 	}
 
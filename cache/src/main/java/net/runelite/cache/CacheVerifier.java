@@ -0,0 +1,422 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Container;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Storage;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.jagex.CompressionType;
+import net.runelite.cache.fs.jagex.DiskStorage;
+import net.runelite.cache.fs.jagex.IndexEntry;
+import net.runelite.cache.index.FileData;
+import net.runelite.cache.util.Crc32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checks every archive of a store for corruption. Each archive is read, its
+ * crc and revision are checked against the index, it is decompressed, and
+ * its file table is checked against the files of the archive. Archives are
+ * verified in parallel on a {@link ParallelLoader}.
+ */
+public class CacheVerifier
+{
+	private static final Logger logger = LoggerFactory.getLogger(CacheVerifier.class);
+
+	public enum ProblemType
+	{
+		MISSING,
+		CRC_MISMATCH,
+		REVISION_MISMATCH,
+		DECOMPRESSION_FAILED,
+		FILE_MISMATCH
+	}
+
+	public static class Problem
+	{
+		private final int indexId;
+		private final int archiveId;
+		private final ProblemType type;
+		private final String message;
+		private final int sector; // first sector of the archive, or -1
+		private final int length;
+
+		Problem(int indexId, int archiveId, ProblemType type, String message, int sector, int length)
+		{
+			this.indexId = indexId;
+			this.archiveId = archiveId;
+			this.type = type;
+			this.message = message;
+			this.sector = sector;
+			this.length = length;
+		}
+
+		@Override
+		public String toString()
+		{
+			return "Problem{" + "archive=" + indexId + "/" + archiveId + ", type=" + type + ", message=" + message
+				+ ", sector=" + sector + ", length=" + length + '}';
+		}
+
+		public int getIndexId()
+		{
+			return indexId;
+		}
+
+		public int getArchiveId()
+		{
+			return archiveId;
+		}
+
+		public ProblemType getType()
+		{
+			return type;
+		}
+
+		public String getMessage()
+		{
+			return message;
+		}
+
+		public int getSector()
+		{
+			return sector;
+		}
+
+		public int getLength()
+		{
+			return length;
+		}
+	}
+
+	public static class Result
+	{
+		private final int archives;
+		private final int unverified;
+		private final List<Problem> problems;
+
+		Result(int archives, int unverified, List<Problem> problems)
+		{
+			this.archives = archives;
+			this.unverified = unverified;
+			this.problems = problems;
+		}
+
+		@Override
+		public String toString()
+		{
+			return "Result{" + "archives=" + archives + ", unverified=" + unverified + ", problems=" + problems.size() + '}';
+		}
+
+		/**
+		 * @return the number of archives checked
+		 */
+		public int getArchives()
+		{
+			return archives;
+		}
+
+		/**
+		 * @return the number of encrypted archives which could only have
+		 * their crc checked, because there are no keys for them
+		 */
+		public int getUnverified()
+		{
+			return unverified;
+		}
+
+		public List<Problem> getProblems()
+		{
+			return problems;
+		}
+
+		public boolean isOk()
+		{
+			return problems.isEmpty();
+		}
+	}
+
+	// returned for archives which are encrypted with an unknown key
+	private static final Problem UNVERIFIED = new Problem(-1, -1, null, null, -1, -1);
+
+	private final Store store;
+	private Function<Archive, int[]> keys = archive -> null;
+
+	public CacheVerifier(Store store)
+	{
+		this.store = store;
+	}
+
+	/**
+	 * Set the source of xtea keys for encrypted archives. Encrypted archives
+	 * without keys have only their crc and revision checked.
+	 *
+	 * @param keys
+	 */
+	public void setKeys(Function<Archive, int[]> keys)
+	{
+		this.keys = keys;
+	}
+
+	/**
+	 * Verify every archive of the store, which must be loaded
+	 *
+	 * @param parallelLoader
+	 * @return
+	 * @throws IOException
+	 */
+	public Result verify(ParallelLoader parallelLoader) throws IOException
+	{
+		List<Archive> archives = new ArrayList<>();
+		for (Index index : store.getIndexes())
+		{
+			archives.addAll(index.getArchives());
+		}
+
+		List<Problem> results = parallelLoader.map(archives, this::verify);
+
+		List<Problem> problems = new ArrayList<>();
+		int unverified = 0;
+		for (Problem problem : results)
+		{
+			if (problem == UNVERIFIED)
+			{
+				++unverified;
+			}
+			else if (problem != null)
+			{
+				problems.add(problem);
+			}
+		}
+
+		return new Result(archives.size(), unverified, problems);
+	}
+
+	/**
+	 * Verify one archive
+	 *
+	 * @param archive
+	 * @return the problem with the archive, or null if there is none
+	 */
+	Problem verify(Archive archive)
+	{
+		Storage storage = store.getStorage();
+		int indexId = archive.getIndex().getId();
+		int archiveId = archive.getArchiveId();
+
+		int sector = -1;
+		byte[] data;
+		try
+		{
+			if (storage instanceof DiskStorage)
+			{
+				IndexEntry entry = ((DiskStorage) storage).findEntry(archive);
+				if (entry == null)
+				{
+					return new Problem(indexId, archiveId, ProblemType.MISSING, "no index entry", -1, -1);
+				}
+				sector = entry.getSector();
+			}
+
+			data = storage.loadArchive(archive);
+		}
+		catch (IOException ex)
+		{
+			return new Problem(indexId, archiveId, ProblemType.MISSING, "unable to read data: " + ex.getMessage(), sector, -1);
+		}
+
+		if (data == null)
+		{
+			return new Problem(indexId, archiveId, ProblemType.MISSING, "unable to read data", sector, -1);
+		}
+
+		if (data.length < 5)
+		{
+			return new Problem(indexId, archiveId, ProblemType.CRC_MISMATCH, "truncated header", sector, data.length);
+		}
+
+		int compression = data[0] & 0xff;
+		int compressedLength = ((data[1] & 0xff) << 24) | ((data[2] & 0xff) << 16) | ((data[3] & 0xff) << 8) | (data[4] & 0xff);
+		// don't crc the appended revision, if it is there
+		int length = 5 + compressedLength + (compression != CompressionType.NONE ? 4 : 0);
+		if (compressedLength < 0 || length > data.length)
+		{
+			return new Problem(indexId, archiveId, ProblemType.CRC_MISMATCH,
+				"truncated data, expected " + length + " bytes", sector, data.length);
+		}
+
+		Crc32 crc32 = new Crc32();
+		crc32.update(data, 0, length);
+		int crc = crc32.getHash();
+		if (crc != archive.getCrc())
+		{
+			return new Problem(indexId, archiveId, ProblemType.CRC_MISMATCH,
+				"crc " + crc + " != " + archive.getCrc(), sector, data.length);
+		}
+
+		if (data.length - length >= 2)
+		{
+			int revision = ((data[length] & 0xff) << 8) | (data[length + 1] & 0xff);
+			if (revision != (archive.getRevision() & 0xffff))
+			{
+				return new Problem(indexId, archiveId, ProblemType.REVISION_MISMATCH,
+					"revision " + revision + " != " + archive.getRevision(), sector, data.length);
+			}
+		}
+
+		int[] xteaKeys = keys.apply(archive);
+		Container container;
+		try
+		{
+			container = Container.decompress(data, xteaKeys);
+		}
+		catch (IOException | RuntimeException ex)
+		{
+			container = null;
+		}
+
+		if (container == null)
+		{
+			if (xteaKeys == null && indexId == IndexType.MAPS.getNumber())
+			{
+				// most likely encrypted, and the crc has already been checked
+				return UNVERIFIED;
+			}
+
+			return new Problem(indexId, archiveId, ProblemType.DECOMPRESSION_FAILED,
+				xteaKeys != null ? "unable to decrypt or decompress" : "unable to decompress", sector, data.length);
+		}
+
+		String fileProblem = checkFiles(archive.getFileData(), container.data);
+		if (fileProblem != null)
+		{
+			return new Problem(indexId, archiveId, ProblemType.FILE_MISMATCH, fileProblem, sector, data.length);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Check the file table at the end of the decompressed data of an
+	 * archive matches its files
+	 *
+	 * @param files
+	 * @param data
+	 * @return a description of the problem, or null
+	 */
+	private static String checkFiles(FileData[] files, byte[] data)
+	{
+		if (files == null || files.length == 0)
+		{
+			return "no files";
+		}
+
+		if (files.length == 1)
+		{
+			return null;
+		}
+
+		if (data.length == 0)
+		{
+			return "no file table";
+		}
+
+		int chunks = data[data.length - 1] & 0xff;
+		long tableLength = 1L + (long) chunks * files.length * 4;
+		if (tableLength > data.length)
+		{
+			return "file table of " + chunks + " chunks for " + files.length + " files is larger than the archive";
+		}
+
+		int offset = data.length - (int) tableLength;
+		long total = 0;
+		for (int chunk = 0; chunk < chunks; ++chunk)
+		{
+			int chunkSize = 0;
+			for (int file = 0; file < files.length; ++file)
+			{
+				int delta = ((data[offset] & 0xff) << 24) | ((data[offset + 1] & 0xff) << 16) | ((data[offset + 2] & 0xff) << 8) | (data[offset + 3] & 0xff);
+				offset += 4;
+
+				chunkSize += delta;
+				if (chunkSize < 0)
+				{
+					return "negative size for file " + files[file].getId();
+				}
+				total += chunkSize;
+			}
+		}
+
+		if (total != data.length - tableLength)
+		{
+			return "files total " + total + " bytes, but the archive has " + (data.length - tableLength);
+		}
+
+		return null;
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 1)
+		{
+			System.err.println("Usage: CacheVerifier <cache> [cache...]");
+			System.exit(-1);
+			return;
+		}
+
+		boolean ok = true;
+		try (ParallelLoader parallelLoader = new ParallelLoader())
+		{
+			for (String folder : args)
+			{
+				long start = System.currentTimeMillis();
+
+				Result result;
+				try (Store store = new Store(new DiskStorage(new File(folder), true)))
+				{
+					store.load();
+					result = new CacheVerifier(store).verify(parallelLoader);
+				}
+
+				for (Problem problem : result.getProblems())
+				{
+					logger.warn("{}: {}", folder, problem);
+				}
+
+				logger.info("Verified {}: {} in {}ms", folder, result, System.currentTimeMillis() - start);
+				ok &= result.isOk();
+			}
+		}
+
+		System.exit(ok ? 0 : 1);
+	}
+}
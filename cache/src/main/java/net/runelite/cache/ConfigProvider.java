@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import com.google.common.cache.CacheStats;
+import java.io.IOException;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.ArchiveFileIndex;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Storage;
+import net.runelite.cache.fs.Store;
+
+/**
+ * Provides the definitions of a config archive without decoding all of
+ * them up front. Loading only locates the files within the archive; each
+ * definition is decoded when it is first requested, and kept in a
+ * {@link DefinitionCache}.
+ *
+ * @param <T>
+ */
+public class ConfigProvider<T>
+{
+	@FunctionalInterface
+	public interface Decoder<T>
+	{
+		T decode(int id, byte[] data);
+	}
+
+	public static final int DEFAULT_CACHE_SIZE = 1024;
+
+	private final Store store;
+	private final ConfigType configType;
+	private final Decoder<T> decoder;
+	private final DefinitionCache<T> cache;
+
+	private volatile ArchiveFileIndex files;
+
+	public ConfigProvider(Store store, ConfigType configType, Decoder<T> decoder, int cacheSize)
+	{
+		this.store = store;
+		this.configType = configType;
+		this.decoder = decoder;
+		this.cache = new DefinitionCache<>(cacheSize, this::decode);
+	}
+
+	public void load() throws IOException
+	{
+		Storage storage = store.getStorage();
+		Index index = store.getIndex(IndexType.CONFIGS);
+		Archive archive = index.getArchive(configType.getId());
+
+		byte[] archiveData = storage.loadArchive(archive);
+		files = archive.getFileIndex(archiveData);
+		cache.clear();
+	}
+
+	private T decode(int id)
+	{
+		byte[] contents = files.getContents(id);
+		return contents != null ? decoder.decode(id, contents) : null;
+	}
+
+	/**
+	 * @param id
+	 * @return the definition, or null if there is none
+	 */
+	public T get(int id)
+	{
+		if (files == null)
+		{
+			throw new IllegalStateException("not loaded");
+		}
+
+		try
+		{
+			return cache.get(id);
+		}
+		catch (IOException ex)
+		{
+			// decode doesn't do any io
+			throw new AssertionError(ex);
+		}
+	}
+
+	/**
+	 * @return the ids of all definitions in the archive, in ascending order
+	 */
+	public int[] getIds()
+	{
+		return files.getFileIds();
+	}
+
+	public CacheStats getStats()
+	{
+		return cache.getStats();
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.io.IOException;
+
+/**
+ * A size bounded cache of decoded definitions, which evicts the least
+ * recently used definitions first. Definitions are decoded on first access.
+ *
+ * @param <T>
+ */
+public class DefinitionCache<T>
+{
+	@FunctionalInterface
+	public interface Loader<T>
+	{
+		/**
+		 * @param id
+		 * @return the definition, or null if there is none
+		 * @throws IOException
+		 */
+		T load(int id) throws IOException;
+	}
+
+	private final Loader<T> loader;
+	private final Cache<Integer, T> cache;
+
+	public DefinitionCache(int maximumSize, Loader<T> loader)
+	{
+		this.loader = loader;
+		this.cache = CacheBuilder.newBuilder()
+			.maximumSize(maximumSize)
+			.recordStats()
+			.build();
+	}
+
+	public T get(int id) throws IOException
+	{
+		T def = cache.getIfPresent(id);
+		if (def != null)
+		{
+			return def;
+		}
+
+		// two threads may decode the same definition, which is harmless
+		def = loader.load(id);
+		if (def != null)
+		{
+			cache.put(id, def);
+		}
+		return def;
+	}
+
+	public long size()
+	{
+		return cache.size();
+	}
+
+	public void clear()
+	{
+		cache.invalidateAll();
+	}
+
+	/**
+	 * @return the hit and miss counts of the cache
+	 */
+	public CacheStats getStats()
+	{
+		return cache.stats();
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.ArchiveFiles;
+import net.runelite.cache.fs.FSFile;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Storage;
+import net.runelite.cache.fs.Store;
+
+/**
+ * Loading shared by the managers. Each takes an optional parallel loader,
+ * and does the work on the calling thread if it is null.
+ */
+final class Definitions
+{
+	private Definitions()
+	{
+	}
+
+	/**
+	 * Decode each file of a config archive
+	 *
+	 * @param store
+	 * @param configType
+	 * @param parallelLoader loader to decode the files with, or null
+	 * @param decoder
+	 * @param <T>
+	 * @return the definitions, in file order
+	 * @throws IOException
+	 */
+	static <T> List<T> decode(Store store, ConfigType configType, ParallelLoader parallelLoader,
+		ParallelLoader.Task<FSFile, T> decoder) throws IOException
+	{
+		return decode(store, IndexType.CONFIGS, configType.getId(), parallelLoader, decoder);
+	}
+
+	/**
+	 * Decode each file of an archive
+	 *
+	 * @param store
+	 * @param indexType
+	 * @param archiveId
+	 * @param parallelLoader loader to decode the files with, or null
+	 * @param decoder
+	 * @param <T>
+	 * @return the definitions, in file order
+	 * @throws IOException
+	 */
+	static <T> List<T> decode(Store store, IndexType indexType, int archiveId, ParallelLoader parallelLoader,
+		ParallelLoader.Task<FSFile, T> decoder) throws IOException
+	{
+		Storage storage = store.getStorage();
+		Index index = store.getIndex(indexType);
+		Archive archive = index.getArchive(archiveId);
+
+		byte[] archiveData = storage.loadArchive(archive);
+		ArchiveFiles files = archive.getFiles(archiveData);
+
+		return map(parallelLoader, files.getFiles(), decoder);
+	}
+
+	/**
+	 * Apply task to each element of in
+	 *
+	 * @param parallelLoader loader to run the tasks on, or null
+	 * @param in
+	 * @param task
+	 * @param <T>
+	 * @param <R>
+	 * @return the results, in the same order as in
+	 * @throws IOException
+	 */
+	static <T, R> List<R> map(ParallelLoader parallelLoader, List<T> in, ParallelLoader.Task<T, R> task) throws IOException
+	{
+		if (parallelLoader != null)
+		{
+			return parallelLoader.map(in, task);
+		}
+
+		List<R> out = new ArrayList<>(in.size());
+		for (T t : in)
+		{
+			out.add(task.apply(t));
+		}
+		return out;
+	}
+}
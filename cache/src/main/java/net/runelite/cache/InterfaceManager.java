@@ -27,10 +27,10 @@ package net.runelite.cache;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.List;
 import net.runelite.cache.definitions.InterfaceDefinition;
 import net.runelite.cache.definitions.exporters.InterfaceExporter;
 import net.runelite.cache.definitions.loaders.InterfaceLoader;
-import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.ArchiveFiles;
 import net.runelite.cache.fs.FSFile;
 import net.runelite.cache.fs.Index;
@@ -50,6 +50,11 @@ public class InterfaceManager
 	}
 
 	public void load() throws IOException
+	{
+		load(null);
+	}
+
+	public void load(ParallelLoader parallelLoader) throws IOException
 	{
 		InterfaceLoader loader = new InterfaceLoader();
 
@@ -59,27 +64,27 @@ public class InterfaceManager
 		int max = index.getArchives().stream().mapToInt(a -> a.getArchiveId()).max().getAsInt();
 		interfaces = new InterfaceDefinition[max + 1][];
 
-		for (Archive archive : index.getArchives())
+		List<InterfaceDefinition[]> groups = Definitions.map(parallelLoader, index.getArchives(), archive ->
 		{
 			int archiveId = archive.getArchiveId();
 			byte[] archiveData = storage.loadArchive(archive);
 			ArchiveFiles files = archive.getFiles(archiveData);
 
-			InterfaceDefinition[] ifaces = interfaces[archiveId];
-			if (ifaces == null)
-			{
-				ifaces = interfaces[archiveId] = new InterfaceDefinition[archive.getFileData().length];
-			}
-
+			InterfaceDefinition[] ifaces = new InterfaceDefinition[archive.getFileData().length];
 			for (FSFile file : files.getFiles())
 			{
 				int fileId = file.getFileId();
 
 				int widgetId = (archiveId << 16) + fileId;
 
-				InterfaceDefinition iface = loader.load(widgetId, file.getContents());
-				ifaces[fileId] = iface;
+				ifaces[fileId] = loader.load(widgetId, file.getContents());
 			}
+			return ifaces;
+		});
+
+		for (int i = 0; i < groups.size(); ++i)
+		{
+			interfaces[index.getArchives().get(i).getArchiveId()] = groups.get(i);
 		}
 	}
 
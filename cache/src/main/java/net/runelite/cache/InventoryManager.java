@@ -30,11 +30,6 @@ import java.util.Collections;
 import java.util.List;
 import net.runelite.cache.definitions.InventoryDefinition;
 import net.runelite.cache.definitions.loaders.InventoryLoader;
-import net.runelite.cache.fs.Archive;
-import net.runelite.cache.fs.ArchiveFiles;
-import net.runelite.cache.fs.FSFile;
-import net.runelite.cache.fs.Index;
-import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
 
 public class InventoryManager
@@ -49,20 +44,14 @@ public class InventoryManager
 
 	public void load() throws IOException
 	{
-		InventoryLoader loader = new InventoryLoader();
-
-		Storage storage = store.getStorage();
-		Index index = store.getIndex(IndexType.CONFIGS);
-		Archive archive = index.getArchive(ConfigType.INV.getId());
-
-		byte[] archiveData = storage.loadArchive(archive);
-		ArchiveFiles files = archive.getFiles(archiveData);
+		load(null);
+	}
 
-		for (FSFile file : files.getFiles())
-		{
-			InventoryDefinition inv = loader.load(file.getFileId(), file.getContents());
-			inventories.add(inv);
-		}
+	public void load(ParallelLoader parallelLoader) throws IOException
+	{
+		InventoryLoader loader = new InventoryLoader();
+		inventories.addAll(Definitions.decode(store, ConfigType.INV, parallelLoader,
+			f -> loader.load(f.getFileId(), f.getContents())));
 	}
 
 	public List<InventoryDefinition> getInventories()
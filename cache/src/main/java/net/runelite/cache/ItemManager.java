@@ -29,16 +29,12 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import net.runelite.cache.definitions.ItemDefinition;
 import net.runelite.cache.definitions.exporters.ItemExporter;
 import net.runelite.cache.definitions.loaders.ItemLoader;
 import net.runelite.cache.definitions.providers.ItemProvider;
-import net.runelite.cache.fs.Archive;
-import net.runelite.cache.fs.ArchiveFiles;
-import net.runelite.cache.fs.FSFile;
-import net.runelite.cache.fs.Index;
-import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.util.IDClass;
 
@@ -54,19 +50,17 @@ public class ItemManager implements ItemProvider
 
 	public void load() throws IOException
 	{
-		ItemLoader loader = new ItemLoader();
-
-		Storage storage = store.getStorage();
-		Index index = store.getIndex(IndexType.CONFIGS);
-		Archive archive = index.getArchive(ConfigType.ITEM.getId());
-
-		byte[] archiveData = storage.loadArchive(archive);
-		ArchiveFiles files = archive.getFiles(archiveData);
+		load(null);
+	}
 
-		for (FSFile f : files.getFiles())
+	public void load(ParallelLoader parallelLoader) throws IOException
+	{
+		ItemLoader loader = new ItemLoader();
+		List<ItemDefinition> defs = Definitions.decode(store, ConfigType.ITEM, parallelLoader,
+			f -> loader.load(f.getFileId(), f.getContents()));
+		for (ItemDefinition def : defs)
 		{
-			ItemDefinition def = loader.load(f.getFileId(), f.getContents());
-			items.put(f.getFileId(), def);
+			items.put(def.id, def);
 		}
 	}
 
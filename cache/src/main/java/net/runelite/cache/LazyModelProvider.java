@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import com.google.common.cache.CacheStats;
+import java.io.IOException;
+import net.runelite.cache.definitions.ModelDefinition;
+import net.runelite.cache.definitions.loaders.ModelLoader;
+import net.runelite.cache.definitions.providers.ModelProvider;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Storage;
+import net.runelite.cache.fs.Store;
+
+/**
+ * Provides models on demand. The decompressed model data is cached rather
+ * than the decoded definitions, since callers such as the item sprite
+ * factory resize and recolor the definitions they are given.
+ */
+public class LazyModelProvider implements ModelProvider
+{
+	public static final int DEFAULT_CACHE_SIZE = 256;
+
+	private final Store store;
+	private final ModelLoader loader = new ModelLoader();
+	private final DefinitionCache<byte[]> cache;
+
+	public LazyModelProvider(Store store)
+	{
+		this(store, DEFAULT_CACHE_SIZE);
+	}
+
+	public LazyModelProvider(Store store, int cacheSize)
+	{
+		this.store = store;
+		this.cache = new DefinitionCache<>(cacheSize, this::load);
+	}
+
+	private byte[] load(int modelId) throws IOException
+	{
+		Storage storage = store.getStorage();
+		Index index = store.getIndex(IndexType.MODELS);
+		Archive archive = index.getArchive(modelId);
+		if (archive == null)
+		{
+			return null;
+		}
+
+		return archive.decompress(storage.loadArchive(archive));
+	}
+
+	@Override
+	public ModelDefinition provide(int modelId) throws IOException
+	{
+		byte[] data = cache.get(modelId);
+		return data != null ? loader.load(modelId, data) : null;
+	}
+
+	public CacheStats getStats()
+	{
+		return cache.getStats();
+	}
+}
@@ -27,10 +27,20 @@ package net.runelite.cache;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Image;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import javax.imageio.ImageIO;
 import lombok.Getter;
 import lombok.Setter;
 import net.runelite.cache.definitions.AreaDefinition;
@@ -53,6 +63,7 @@ import net.runelite.cache.region.Location;
 import net.runelite.cache.region.Region;
 import net.runelite.cache.region.RegionLoader;
 import net.runelite.cache.util.Djb2;
+import net.runelite.cache.util.KeyProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -64,6 +75,9 @@ public class MapImageDumper
 	private static final int MAPICON_MAX_WIDTH = 5; // scale minimap icons down to this size so they fit..
 	private static final int MAPICON_MAX_HEIGHT = 6;
 	private static final int BLEND = 5; // number of surrounding tiles for ground blending
+	private static final int TILE_SIZE = Region.X * MAP_SCALE; // pixels per side of a map tile
+	private static final int MAX_ZOOM = 8; // zoom level with one region per tile, 256 regions per side
+	private static final int MAX_REGION = 32768;
 
 	private static int[] colorPalette = new ColorPalette(0.9d, 0, 512).getColorPalette();
 
@@ -74,11 +88,14 @@ public class MapImageDumper
 	private final int doorColor = 238 + (int) (Math.random() * 20.0D) - 10 << 16;
 
 	private final Store store;
+	private final KeyProvider keyProvider;
 
 	private final Map<Integer, UnderlayDefinition> underlays = new HashMap<>();
 	private final Map<Integer, OverlayDefinition> overlays = new HashMap<>();
 	private final Map<Integer, Image> scaledMapIcons = new HashMap<>();
 
+	private final ThreadLocal<RenderBuffers> renderBuffers = ThreadLocal.withInitial(RenderBuffers::new);
+
 	private RegionLoader regionLoader;
 	private final AreaManager areas;
 	private final SpriteManager sprites;
@@ -93,9 +110,37 @@ public class MapImageDumper
 	@Setter
 	private boolean outlineRegions;
 
+	/**
+	 * Scratch buffers for rendering one region. Each rendering thread has its own.
+	 */
+	private static class RenderBuffers
+	{
+		private final int[][] map = new int[Region.X * MAP_SCALE][Region.Y * MAP_SCALE];
+		private final int[][] above = new int[Region.X * MAP_SCALE][Region.Y * MAP_SCALE];
+
+		private final int[] hues = new int[Region.X + BLEND * 2];
+		private final int[] sats = new int[Region.X + BLEND * 2];
+		private final int[] light = new int[Region.X + BLEND * 2];
+		private final int[] mul = new int[Region.X + BLEND * 2];
+		private final int[] num = new int[Region.X + BLEND * 2];
+
+		private final BufferedImage tile = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+	}
+
+	/**
+	 * Create a map image dumper using the xtea keys from the api
+	 *
+	 * @param store
+	 */
 	public MapImageDumper(Store store)
+	{
+		this(store, null);
+	}
+
+	public MapImageDumper(Store store, KeyProvider keyProvider)
 	{
 		this.store = store;
+		this.keyProvider = keyProvider;
 		this.areas = new AreaManager(store);
 		this.sprites = new SpriteManager(store);
 		objectManager = new ObjectManager(store);
@@ -151,22 +196,231 @@ public class MapImageDumper
 
 		BufferedImage image = new BufferedImage(pixelsX, pixelsY, BufferedImage.TYPE_INT_RGB);
 
+		drawRegion(image, region, z);
+
+		return image;
+	}
+
+	private void drawRegion(BufferedImage image, Region region, int z)
+	{
 		drawMap(image, 0, 0, z, region);
 		drawObjects(image, 0, 0, region, z);
 		drawMapIcons(image, 0, 0, region, z);
+	}
 
-		return image;
+	/**
+	 * Render the map as a pyramid of PNG tiles, written to outDir as
+	 * z/zoom/x/y.png. At zoom 8 each tile is one region, with x and y
+	 * counted from the north west corner of the world; each lower zoom
+	 * halves the resolution and is built from the four tiles beneath it.
+	 * Regions are rendered in parallel and each tile is written as soon as
+	 * it is done, so the whole map is never held in memory.
+	 *
+	 * @param outDir
+	 * @param z
+	 * @param parallelLoader
+	 * @throws IOException
+	 */
+	public void drawTiles(File outDir, int z, ParallelLoader parallelLoader) throws IOException
+	{
+		List<Integer> regionIds = new ArrayList<>();
+		for (Region region : regionLoader.getRegions())
+		{
+			regionIds.add(region.getRegionID());
+		}
+
+		drawTiles(outDir, z, parallelLoader, regionIds);
+	}
+
+	/**
+	 * Re-render the tiles of a previously drawn tile pyramid which are affected
+	 * by changes to the given regions. Ground colors blend across region
+	 * borders, so the neighbours of each changed region are redrawn too.
+	 * Tiles of regions which no longer exist are removed.
+	 *
+	 * @param outDir
+	 * @param z
+	 * @param parallelLoader
+	 * @param changedRegions
+	 * @throws IOException
+	 * @see #findChangedRegions(Store, Store)
+	 */
+	public void drawChangedTiles(File outDir, int z, ParallelLoader parallelLoader, Collection<Integer> changedRegions) throws IOException
+	{
+		Set<Integer> regionIds = new HashSet<>();
+		for (int regionId : changedRegions)
+		{
+			int regionX = regionId >> 8;
+			int regionY = regionId & 0xFF;
+
+			for (int x = Math.max(regionX - 1, 0); x <= Math.min(regionX + 1, 0xFF); ++x)
+			{
+				for (int y = Math.max(regionY - 1, 0); y <= Math.min(regionY + 1, 0xFF); ++y)
+				{
+					regionIds.add(x << 8 | y);
+				}
+			}
+		}
+
+		drawTiles(outDir, z, parallelLoader, regionIds);
+	}
+
+	private void drawTiles(File outDir, int z, ParallelLoader parallelLoader, Collection<Integer> regionIds) throws IOException
+	{
+		long start = System.currentTimeMillis();
+
+		// tiles are keyed by x << 8 | y within their zoom level, null if nothing was written or removed
+		List<Integer> drawn = parallelLoader.map(new ArrayList<>(regionIds), regionId ->
+		{
+			int regionX = regionId >> 8;
+			int regionY = regionId & 0xFF;
+			int tileY = 0xFF - regionY;
+
+			Region region = regionLoader.findRegionForWorldCoordinates(regionX * Region.X, regionY * Region.Y);
+			File file = tileFile(outDir, z, MAX_ZOOM, regionX, tileY);
+			if (region == null)
+			{
+				if (!file.delete())
+				{
+					return null;
+				}
+			}
+			else
+			{
+				RenderBuffers buffers = renderBuffers.get();
+				Arrays.fill(((DataBufferInt) buffers.tile.getRaster().getDataBuffer()).getData(), 0);
+				drawRegion(buffers.tile, region, z);
+				writeTile(buffers.tile, file);
+			}
+			return regionX << 8 | tileY;
+		});
+
+		Set<Integer> tiles = new HashSet<>(drawn);
+		tiles.remove(null);
+
+		logger.info("Drew {} region tiles for plane {} in {}ms", tiles.size(), z, System.currentTimeMillis() - start);
+
+		Set<Integer> children = tiles;
+		for (int zoom = MAX_ZOOM - 1; zoom >= 0; --zoom)
+		{
+			Set<Integer> parents = new HashSet<>();
+			for (int tile : children)
+			{
+				parents.add((tile >> 9) << 8 | (tile & 0xFF) >> 1);
+			}
+
+			final int parentZoom = zoom;
+			parallelLoader.map(new ArrayList<>(parents), tile ->
+			{
+				drawParentTile(outDir, z, parentZoom, tile >> 8, tile & 0xFF);
+				return null;
+			});
+
+			children = parents;
+		}
+
+		logger.info("Drew tile pyramid for plane {} in {}ms", z, System.currentTimeMillis() - start);
+	}
+
+	private static void drawParentTile(File outDir, int z, int zoom, int x, int y) throws IOException
+	{
+		BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+
+		boolean empty = true;
+		for (int i = 0; i < 2; ++i)
+		{
+			for (int j = 0; j < 2; ++j)
+			{
+				File childFile = tileFile(outDir, z, zoom + 1, x * 2 + i, y * 2 + j);
+				if (!childFile.exists())
+				{
+					continue;
+				}
+
+				BufferedImage child = ImageIO.read(childFile);
+				graphics.drawImage(child, i * TILE_SIZE / 2, j * TILE_SIZE / 2, TILE_SIZE / 2, TILE_SIZE / 2, null);
+				empty = false;
+			}
+		}
+
+		graphics.dispose();
+
+		File file = tileFile(outDir, z, zoom, x, y);
+		if (empty)
+		{
+			file.delete();
+		}
+		else
+		{
+			writeTile(image, file);
+		}
+	}
+
+	private static File tileFile(File outDir, int z, int zoom, int x, int y)
+	{
+		return new File(outDir, z + File.separator + zoom + File.separator + x + File.separator + y + ".png");
+	}
+
+	private static void writeTile(BufferedImage image, File file) throws IOException
+	{
+		file.getParentFile().mkdirs();
+		ImageIO.write(image, "png", file);
+	}
+
+	/**
+	 * Find the regions whose map or location archives differ between two
+	 * revisions of the cache
+	 *
+	 * @param from
+	 * @param to
+	 * @return the ids of the changed regions
+	 */
+	public static Set<Integer> findChangedRegions(Store from, Store to)
+	{
+		Index fromIndex = from.getIndex(IndexType.MAPS);
+		Index toIndex = to.getIndex(IndexType.MAPS);
+
+		Set<Integer> changed = new HashSet<>();
+		for (int i = 0; i < MAX_REGION; ++i)
+		{
+			int x = i >> 8;
+			int y = i & 0xFF;
+
+			String map = "m" + x + "_" + y;
+			String land = "l" + x + "_" + y;
+
+			if (isChanged(fromIndex.findArchiveByName(map), toIndex.findArchiveByName(map))
+				|| isChanged(fromIndex.findArchiveByName(land), toIndex.findArchiveByName(land)))
+			{
+				changed.add(i);
+			}
+		}
+		return changed;
+	}
+
+	private static boolean isChanged(Archive from, Archive to)
+	{
+		if (from == null || to == null)
+		{
+			return from != to;
+		}
+
+		return from.getCrc() != to.getCrc();
 	}
 
 	private void drawMap(BufferedImage image, int drawBaseX, int drawBaseY, int z, Region region)
 	{
-		int[][] map = new int[Region.X * MAP_SCALE][Region.Y * MAP_SCALE];
+		RenderBuffers buffers = renderBuffers.get();
+
+		int[][] map = buffers.map;
 		drawMap(map, region, z);
 
 		int[][] above = null;
 		if (z < 3)
 		{
-			above = new int[Region.X * MAP_SCALE][Region.Y * MAP_SCALE];
+			above = buffers.above;
 			drawMap(above, region, z + 1);
 		}
 
@@ -226,12 +480,23 @@ public class MapImageDumper
 		int baseX = region.getBaseX();
 		int baseY = region.getBaseY();
 
-		int len = Region.X + BLEND * 2;
-		int[] hues = new int[len];
-		int[] sats = new int[len];
-		int[] light = new int[len];
-		int[] mul = new int[len];
-		int[] num = new int[len];
+		RenderBuffers buffers = renderBuffers.get();
+		int[] hues = buffers.hues;
+		int[] sats = buffers.sats;
+		int[] light = buffers.light;
+		int[] mul = buffers.mul;
+		int[] num = buffers.num;
+
+		Arrays.fill(hues, 0);
+		Arrays.fill(sats, 0);
+		Arrays.fill(light, 0);
+		Arrays.fill(mul, 0);
+		Arrays.fill(num, 0);
+
+		for (int[] column : pixels)
+		{
+			Arrays.fill(column, 0);
+		}
 
 		boolean hasLeftRegion = regionLoader.findRegionForWorldCoordinates(baseX - 1, baseY) != null;
 		boolean hasRightRegion = regionLoader.findRegionForWorldCoordinates(baseX + Region.X, baseY) != null;
@@ -893,7 +1158,7 @@ public class MapImageDumper
 
 	private void loadRegions(Store store) throws IOException
 	{
-		regionLoader = new RegionLoader(store);
+		regionLoader = keyProvider == null ? new RegionLoader(store) : new RegionLoader(store, keyProvider);
 		regionLoader.loadRegions();
 		regionLoader.calculateBounds();
 
@@ -29,19 +29,16 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import net.runelite.cache.definitions.NpcDefinition;
 import net.runelite.cache.definitions.exporters.NpcExporter;
 import net.runelite.cache.definitions.loaders.NpcLoader;
-import net.runelite.cache.fs.Archive;
-import net.runelite.cache.fs.ArchiveFiles;
-import net.runelite.cache.fs.FSFile;
-import net.runelite.cache.fs.Index;
-import net.runelite.cache.fs.Storage;
+import net.runelite.cache.definitions.providers.NpcProvider;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.util.IDClass;
 
-public class NpcManager
+public class NpcManager implements NpcProvider
 {
 	private final Store store;
 	private final Map<Integer, NpcDefinition> npcs = new HashMap<>();
@@ -53,19 +50,17 @@ public class NpcManager
 
 	public void load() throws IOException
 	{
-		NpcLoader loader = new NpcLoader();
-
-		Storage storage = store.getStorage();
-		Index index = store.getIndex(IndexType.CONFIGS);
-		Archive archive = index.getArchive(ConfigType.NPC.getId());
-
-		byte[] archiveData = storage.loadArchive(archive);
-		ArchiveFiles files = archive.getFiles(archiveData);
+		load(null);
+	}
 
-		for (FSFile f : files.getFiles())
+	public void load(ParallelLoader parallelLoader) throws IOException
+	{
+		NpcLoader loader = new NpcLoader();
+		List<NpcDefinition> defs = Definitions.decode(store, ConfigType.NPC, parallelLoader,
+			f -> loader.load(f.getFileId(), f.getContents()));
+		for (NpcDefinition def : defs)
 		{
-			NpcDefinition npc = loader.load(f.getFileId(), f.getContents());
-			npcs.put(f.getFileId(), npc);
+			npcs.put(def.id, def);
 		}
 	}
 
@@ -108,4 +103,10 @@ public class NpcManager
 			}
 		}
 	}
+
+	@Override
+	public NpcDefinition provide(int npcId)
+	{
+		return get(npcId);
+	}
 }
@@ -29,19 +29,16 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import net.runelite.cache.definitions.ObjectDefinition;
 import net.runelite.cache.definitions.exporters.ObjectExporter;
 import net.runelite.cache.definitions.loaders.ObjectLoader;
-import net.runelite.cache.fs.Archive;
-import net.runelite.cache.fs.ArchiveFiles;
-import net.runelite.cache.fs.FSFile;
-import net.runelite.cache.fs.Index;
-import net.runelite.cache.fs.Storage;
+import net.runelite.cache.definitions.providers.ObjectProvider;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.util.IDClass;
 
-public class ObjectManager
+public class ObjectManager implements ObjectProvider
 {
 	private final Store store;
 	private final Map<Integer, ObjectDefinition> objects = new HashMap<>();
@@ -53,19 +50,17 @@ public class ObjectManager
 
 	public void load() throws IOException
 	{
-		ObjectLoader loader = new ObjectLoader();
-
-		Storage storage = store.getStorage();
-		Index index = store.getIndex(IndexType.CONFIGS);
-		Archive archive = index.getArchive(ConfigType.OBJECT.getId());
-
-		byte[] archiveData = storage.loadArchive(archive);
-		ArchiveFiles files = archive.getFiles(archiveData);
+		load(null);
+	}
 
-		for (FSFile f : files.getFiles())
+	public void load(ParallelLoader parallelLoader) throws IOException
+	{
+		ObjectLoader loader = new ObjectLoader();
+		List<ObjectDefinition> defs = Definitions.decode(store, ConfigType.OBJECT, parallelLoader,
+			f -> loader.load(f.getFileId(), f.getContents()));
+		for (ObjectDefinition def : defs)
 		{
-			ObjectDefinition def = loader.load(f.getFileId(), f.getContents());
-			objects.put(f.getFileId(), def);
+			objects.put(def.getId(), def);
 		}
 	}
 
@@ -113,4 +108,10 @@ public class ObjectManager
 			}
 		}
 	}
+
+	@Override
+	public ObjectDefinition provide(int objectId)
+	{
+		return getObject(objectId);
+	}
 }
@@ -28,15 +28,11 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import net.runelite.cache.definitions.OverlayDefinition;
 import net.runelite.cache.definitions.loaders.OverlayLoader;
 import net.runelite.cache.definitions.providers.OverlayProvider;
-import net.runelite.cache.fs.Archive;
-import net.runelite.cache.fs.ArchiveFiles;
-import net.runelite.cache.fs.FSFile;
-import net.runelite.cache.fs.Index;
-import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
 
 public class OverlayManager implements OverlayProvider
@@ -51,19 +47,16 @@ public class OverlayManager implements OverlayProvider
 
 	public void load() throws IOException
 	{
-		Storage storage = store.getStorage();
-		Index index = store.getIndex(IndexType.CONFIGS);
-		Archive archive = index.getArchive(ConfigType.OVERLAY.getId());
-
-		byte[] archiveData = storage.loadArchive(archive);
-		ArchiveFiles files = archive.getFiles(archiveData);
+		load(null);
+	}
 
-		for (FSFile file : files.getFiles())
+	public void load(ParallelLoader parallelLoader) throws IOException
+	{
+		List<OverlayDefinition> defs = Definitions.decode(store, ConfigType.OVERLAY, parallelLoader,
+			f -> new OverlayLoader().load(f.getFileId(), f.getContents()));
+		for (OverlayDefinition def : defs)
 		{
-			OverlayLoader loader = new OverlayLoader();
-			OverlayDefinition overlay = loader.load(file.getFileId(), file.getContents());
-
-			overlays.put(overlay.getId(), overlay);
+			overlays.put(def.getId(), def);
 		}
 	}
 
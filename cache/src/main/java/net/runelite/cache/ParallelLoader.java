@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.ArchiveFiles;
+import net.runelite.cache.fs.Storage;
+
+/**
+ * Runs archive loading and definition decoding on a fork-join pool. The
+ * managers accept one of these in their load methods to decode in parallel.
+ */
+public class ParallelLoader implements Closeable
+{
+	@FunctionalInterface
+	public interface Task<T, R>
+	{
+		R apply(T t) throws IOException;
+	}
+
+	private final ForkJoinPool pool;
+
+	public ParallelLoader()
+	{
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	public ParallelLoader(int parallelism)
+	{
+		this.pool = new ForkJoinPool(parallelism);
+	}
+
+	@Override
+	public void close()
+	{
+		pool.shutdown();
+	}
+
+	public int getParallelism()
+	{
+		return pool.getParallelism();
+	}
+
+	/**
+	 * Load and decompress the given archives concurrently
+	 *
+	 * @param storage
+	 * @param archives
+	 * @return the files of each archive, in the same order as archives
+	 * @throws IOException
+	 */
+	public List<ArchiveFiles> loadFiles(Storage storage, List<Archive> archives) throws IOException
+	{
+		return map(archives, archive -> archive.getFiles(storage.loadArchive(archive)));
+	}
+
+	/**
+	 * Apply task to each element of in, in parallel
+	 *
+	 * @param in
+	 * @param task
+	 * @param <T>
+	 * @param <R>
+	 * @return the results, in the same order as in
+	 * @throws IOException
+	 */
+	public <T, R> List<R> map(List<T> in, Task<T, R> task) throws IOException
+	{
+		try
+		{
+			return pool.submit(() -> in.parallelStream()
+				.map(t ->
+				{
+					try
+					{
+						return task.apply(t);
+					}
+					catch (IOException ex)
+					{
+						throw new UncheckedIOException(ex);
+					}
+				})
+				.collect(Collectors.toList()))
+				.get();
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+		catch (ExecutionException ex)
+		{
+			Throwable cause = ex.getCause();
+			if (cause instanceof UncheckedIOException)
+			{
+				throw ((UncheckedIOException) cause).getCause();
+			}
+			if (cause instanceof RuntimeException)
+			{
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error)
+			{
+				throw (Error) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.imageio.ImageIO;
+import lombok.Value;
+import net.runelite.cache.definitions.SpriteDefinition;
+
+/**
+ * Sprites packed into a small number of large images. Sprites are placed
+ * on shelves, tallest first, and a sprite larger than a page gets a page
+ * of its own.
+ */
+public class SpriteAtlas
+{
+	// keeps neighbouring sprites from bleeding into each other when sampled
+	private static final int PADDING = 1;
+
+	@Value
+	public static class Entry
+	{
+		private final int id;
+		private final int frame;
+		private final int page;
+		private final int x;
+		private final int y;
+		private final int width;
+		private final int height;
+	}
+
+	@Value
+	private static class AtlasIndex
+	{
+		private final int pages;
+		private final Collection<Entry> sprites;
+	}
+
+	private final List<BufferedImage> pages;
+	private final Map<Integer, Entry> entries;
+
+	private SpriteAtlas(List<BufferedImage> pages, Map<Integer, Entry> entries)
+	{
+		this.pages = pages;
+		this.entries = entries;
+	}
+
+	/**
+	 * Pack the given sprites into pages of at most pageSize by pageSize.
+	 * Sprites with no pixels are left out.
+	 *
+	 * @param sprites
+	 * @param pageSize
+	 * @return
+	 */
+	public static SpriteAtlas pack(Collection<SpriteDefinition> sprites, int pageSize)
+	{
+		List<SpriteDefinition> sorted = new ArrayList<>(sprites.size());
+		for (SpriteDefinition sprite : sprites)
+		{
+			if (sprite.getWidth() > 0 && sprite.getHeight() > 0)
+			{
+				sorted.add(sprite);
+			}
+		}
+		sorted.sort(Comparator.comparingInt(SpriteDefinition::getHeight)
+			.thenComparingInt(SpriteDefinition::getWidth)
+			.reversed());
+
+		List<Entry> placed = new ArrayList<>(sorted.size());
+		List<SpriteDefinition> placedSprites = new ArrayList<>(sorted.size());
+		List<SpriteDefinition> oversized = new ArrayList<>();
+		List<int[]> pageSizes = new ArrayList<>();
+		int[] current = null;
+		int x = 0, y = 0, shelfHeight = 0;
+
+		for (SpriteDefinition sprite : sorted)
+		{
+			int width = sprite.getWidth();
+			int height = sprite.getHeight();
+
+			if (width > pageSize || height > pageSize)
+			{
+				oversized.add(sprite);
+				continue;
+			}
+
+			if (current != null && x + width > pageSize)
+			{
+				x = 0;
+				y += shelfHeight + PADDING;
+				shelfHeight = 0;
+			}
+
+			if (current == null || y + height > pageSize)
+			{
+				current = new int[2];
+				pageSizes.add(current);
+				x = y = shelfHeight = 0;
+			}
+
+			placed.add(new Entry(sprite.getId(), sprite.getFrame(), pageSizes.size() - 1, x, y, width, height));
+			placedSprites.add(sprite);
+			current[0] = Math.max(current[0], x + width);
+			current[1] = Math.max(current[1], y + height);
+
+			x += width + PADDING;
+			shelfHeight = Math.max(shelfHeight, height);
+		}
+
+		for (SpriteDefinition sprite : oversized)
+		{
+			placed.add(new Entry(sprite.getId(), sprite.getFrame(), pageSizes.size(), 0, 0, sprite.getWidth(), sprite.getHeight()));
+			placedSprites.add(sprite);
+			pageSizes.add(new int[]{ sprite.getWidth(), sprite.getHeight() });
+		}
+
+		List<BufferedImage> pages = new ArrayList<>(pageSizes.size());
+		for (int[] size : pageSizes)
+		{
+			pages.add(new BufferedImage(size[0], size[1], BufferedImage.TYPE_INT_ARGB));
+		}
+
+		Map<Integer, Entry> entries = new HashMap<>(placed.size() * 2);
+		for (int i = 0; i < placed.size(); ++i)
+		{
+			Entry entry = placed.get(i);
+			SpriteDefinition sprite = placedSprites.get(i);
+			BufferedImage page = pages.get(entry.getPage());
+			int[] data = ((DataBufferInt) page.getRaster().getDataBuffer()).getData();
+			int[] pixels = sprite.getPixels();
+
+			for (int row = 0; row < entry.getHeight(); ++row)
+			{
+				System.arraycopy(pixels, row * entry.getWidth(),
+					data, (entry.getY() + row) * page.getWidth() + entry.getX(), entry.getWidth());
+			}
+
+			entries.put(SpriteManager.key(entry.getId(), entry.getFrame()), entry);
+		}
+
+		return new SpriteAtlas(pages, entries);
+	}
+
+	public List<BufferedImage> getPages()
+	{
+		return Collections.unmodifiableList(pages);
+	}
+
+	public Collection<Entry> getEntries()
+	{
+		return Collections.unmodifiableCollection(entries.values());
+	}
+
+	public Entry findEntry(int spriteId, int frameId)
+	{
+		return entries.get(SpriteManager.key(spriteId, frameId));
+	}
+
+	/**
+	 * Get the image of a sprite. The image shares its pixels with the atlas
+	 * page, so it must not be drawn on.
+	 *
+	 * @param spriteId
+	 * @param frameId
+	 * @return
+	 */
+	public BufferedImage getSpriteImage(int spriteId, int frameId)
+	{
+		Entry entry = findEntry(spriteId, frameId);
+		if (entry == null)
+		{
+			return null;
+		}
+
+		return pages.get(entry.getPage())
+			.getSubimage(entry.getX(), entry.getY(), entry.getWidth(), entry.getHeight());
+	}
+
+	/**
+	 * Write each page as atlas-n.png to the given directory, along with an
+	 * atlas.json index of where each sprite is
+	 *
+	 * @param outDir
+	 * @throws IOException
+	 */
+	public void write(File outDir) throws IOException
+	{
+		for (int i = 0; i < pages.size(); ++i)
+		{
+			ImageIO.write(pages.get(i), "png", new File(outDir, "atlas-" + i + ".png"));
+		}
+
+		Gson gson = new GsonBuilder().create();
+		try (FileWriter fw = new FileWriter(new File(outDir, "atlas.json")))
+		{
+			gson.toJson(new AtlasIndex(pages.size(), entries.values()), fw);
+		}
+	}
+}
@@ -24,18 +24,20 @@
  */
 package net.runelite.cache;
 
-import com.google.common.collect.LinkedListMultimap;
-import com.google.common.collect.Multimap;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import net.runelite.cache.definitions.SpriteDefinition;
 import net.runelite.cache.definitions.exporters.SpriteExporter;
 import net.runelite.cache.definitions.loaders.SpriteLoader;
 import net.runelite.cache.definitions.providers.SpriteProvider;
-import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
@@ -43,7 +45,9 @@ import net.runelite.cache.fs.Store;
 public class SpriteManager implements SpriteProvider
 {
 	private final Store store;
-	private final Multimap<Integer, SpriteDefinition> sprites = LinkedListMultimap.create();
+	// keyed by sprite id and frame, see key()
+	private final Map<Integer, SpriteDefinition> sprites = new LinkedHashMap<>();
+	private final ConcurrentMap<Integer, BufferedImage> images = new ConcurrentHashMap<>();
 
 	public SpriteManager(Store store)
 	{
@@ -51,20 +55,28 @@ public class SpriteManager implements SpriteProvider
 	}
 
 	public void load() throws IOException
+	{
+		load(null);
+	}
+
+	public void load(ParallelLoader parallelLoader) throws IOException
 	{
 		Storage storage = store.getStorage();
 		Index index = store.getIndex(IndexType.SPRITES);
 
-		for (Archive a : index.getArchives())
+		List<SpriteDefinition[]> defs = Definitions.map(parallelLoader, index.getArchives(), a ->
 		{
 			byte[] contents = a.decompress(storage.loadArchive(a));
 
 			SpriteLoader loader = new SpriteLoader();
-			SpriteDefinition[] defs = loader.load(a.getArchiveId(), contents);
+			return loader.load(a.getArchiveId(), contents);
+		});
 
-			for (SpriteDefinition sprite : defs)
+		for (SpriteDefinition[] archiveSprites : defs)
+		{
+			for (SpriteDefinition sprite : archiveSprites)
 			{
-				sprites.put(sprite.getId(), sprite);
+				sprites.put(key(sprite.getId(), sprite.getFrame()), sprite);
 			}
 		}
 	}
@@ -76,21 +88,47 @@ public class SpriteManager implements SpriteProvider
 
 	public SpriteDefinition findSprite(int spriteId, int frameId)
 	{
-		for (SpriteDefinition sprite : sprites.get(spriteId))
+		return sprites.get(key(spriteId, frameId));
+	}
+
+	/**
+	 * Get the image of a sprite. Images of loaded sprites are created once
+	 * and shared between callers, so they must not be drawn on.
+	 *
+	 * @param sprite
+	 * @return
+	 */
+	public BufferedImage getSpriteImage(SpriteDefinition sprite)
+	{
+		int key = key(sprite.getId(), sprite.getFrame());
+		if (sprites.get(key) != sprite)
 		{
-			if (sprite.getFrame() == frameId)
-			{
-				return sprite;
-			}
+			return new SpriteExporter(sprite).export();
 		}
-		return null;
+
+		return images.computeIfAbsent(key, k -> new SpriteExporter(sprite).export());
 	}
 
-	public BufferedImage getSpriteImage(SpriteDefinition sprite)
+	public BufferedImage getSpriteImage(int spriteId, int frameId)
+	{
+		SpriteDefinition sprite = findSprite(spriteId, frameId);
+		if (sprite == null)
+		{
+			return null;
+		}
+
+		return getSpriteImage(sprite);
+	}
+
+	/**
+	 * Pack every loaded sprite into atlas pages of at most the given size
+	 *
+	 * @param pageSize
+	 * @return
+	 */
+	public SpriteAtlas createAtlas(int pageSize)
 	{
-		BufferedImage image = new BufferedImage(sprite.getWidth(), sprite.getHeight(), BufferedImage.TYPE_INT_ARGB);
-		image.setRGB(0, 0, sprite.getWidth(), sprite.getHeight(), sprite.getPixels(), 0, sprite.getWidth());
-		return image;
+		return SpriteAtlas.pack(sprites.values(), pageSize);
 	}
 
 	public void export(File outDir) throws IOException
@@ -115,4 +153,9 @@ public class SpriteManager implements SpriteProvider
 	{
 		return findSprite(spriteId, frameId);
 	}
+
+	static int key(int spriteId, int frameId)
+	{
+		return spriteId << 16 | frameId;
+	}
 }
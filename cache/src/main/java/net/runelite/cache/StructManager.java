@@ -27,15 +27,11 @@ package net.runelite.cache;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import net.runelite.cache.definitions.StructDefinition;
 import net.runelite.cache.definitions.loaders.StructLoader;
 import net.runelite.cache.definitions.providers.StructProvider;
-import net.runelite.cache.fs.Archive;
-import net.runelite.cache.fs.ArchiveFiles;
-import net.runelite.cache.fs.FSFile;
-import net.runelite.cache.fs.Index;
-import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
 
 public class StructManager implements StructProvider
@@ -50,19 +46,17 @@ public class StructManager implements StructProvider
 
 	public void load() throws IOException
 	{
-		StructLoader loader = new StructLoader();
-
-		Storage storage = store.getStorage();
-		Index index = store.getIndex(IndexType.CONFIGS);
-		Archive archive = index.getArchive(ConfigType.STRUCT.getId());
-
-		byte[] archiveData = storage.loadArchive(archive);
-		ArchiveFiles files = archive.getFiles(archiveData);
+		load(null);
+	}
 
-		for (FSFile f : files.getFiles())
+	public void load(ParallelLoader parallelLoader) throws IOException
+	{
+		StructLoader loader = new StructLoader();
+		List<StructDefinition> defs = Definitions.decode(store, ConfigType.STRUCT, parallelLoader,
+			f -> loader.load(f.getFileId(), f.getContents()));
+		for (StructDefinition def : defs)
 		{
-			StructDefinition def = loader.load(f.getFileId(), f.getContents());
-			structs.put(f.getFileId(), def);
+			structs.put(def.id, def);
 		}
 	}
 
@@ -30,11 +30,6 @@ import java.util.List;
 import net.runelite.cache.definitions.TextureDefinition;
 import net.runelite.cache.definitions.loaders.TextureLoader;
 import net.runelite.cache.definitions.providers.TextureProvider;
-import net.runelite.cache.fs.Archive;
-import net.runelite.cache.fs.ArchiveFiles;
-import net.runelite.cache.fs.FSFile;
-import net.runelite.cache.fs.Index;
-import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
 
 public class TextureManager implements TextureProvider
@@ -49,20 +44,14 @@ public class TextureManager implements TextureProvider
 
 	public void load() throws IOException
 	{
-		Storage storage = store.getStorage();
-		Index index = store.getIndex(IndexType.TEXTURES);
-		Archive archive = index.getArchive(0);
-
-		byte[] archiveData = storage.loadArchive(archive);
-		ArchiveFiles files = archive.getFiles(archiveData);
+		load(null);
+	}
 
+	public void load(ParallelLoader parallelLoader) throws IOException
+	{
 		TextureLoader loader = new TextureLoader();
-
-		for (FSFile file : files.getFiles())
-		{
-			TextureDefinition texture = loader.load(file.getFileId(), file.getContents());
-			textures.add(texture);
-		}
+		textures.addAll(Definitions.decode(store, IndexType.TEXTURES, 0, parallelLoader,
+			f -> loader.load(f.getFileId(), f.getContents())));
 	}
 
 	public List<TextureDefinition> getTextures()
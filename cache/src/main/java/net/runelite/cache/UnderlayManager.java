@@ -28,15 +28,11 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import net.runelite.cache.definitions.UnderlayDefinition;
 import net.runelite.cache.definitions.loaders.UnderlayLoader;
 import net.runelite.cache.definitions.providers.UnderlayProvider;
-import net.runelite.cache.fs.Archive;
-import net.runelite.cache.fs.ArchiveFiles;
-import net.runelite.cache.fs.FSFile;
-import net.runelite.cache.fs.Index;
-import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
 
 public class UnderlayManager implements UnderlayProvider
@@ -51,19 +47,16 @@ public class UnderlayManager implements UnderlayProvider
 
 	public void load() throws IOException
 	{
-		Storage storage = store.getStorage();
-		Index index = store.getIndex(IndexType.CONFIGS);
-		Archive archive = index.getArchive(ConfigType.UNDERLAY.getId());
-
-		byte[] archiveData = storage.loadArchive(archive);
-		ArchiveFiles files = archive.getFiles(archiveData);
+		load(null);
+	}
 
-		for (FSFile file : files.getFiles())
+	public void load(ParallelLoader parallelLoader) throws IOException
+	{
+		List<UnderlayDefinition> defs = Definitions.decode(store, ConfigType.UNDERLAY, parallelLoader,
+			f -> new UnderlayLoader().load(f.getFileId(), f.getContents()));
+		for (UnderlayDefinition def : defs)
 		{
-			UnderlayLoader loader = new UnderlayLoader();
-			UnderlayDefinition underlay = loader.load(file.getFileId(), file.getContents());
-
-			underlays.put(underlay.getId(), underlay);
+			underlays.put(def.getId(), def);
 		}
 	}
 
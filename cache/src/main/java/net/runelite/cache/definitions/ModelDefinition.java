@@ -3,8 +3,6 @@ package net.runelite.cache.definitions;
 import java.util.Arrays;
 import lombok.Data;
 import net.runelite.cache.models.CircularAngle;
-import net.runelite.cache.models.FaceNormal;
-import net.runelite.cache.models.VertexNormal;
 
 @Data
 public class ModelDefinition
@@ -15,7 +13,12 @@ public class ModelDefinition
 	public int[] vertexPositionsX;
 	public int[] vertexPositionsY;
 	public int[] vertexPositionsZ;
-	public transient VertexNormal[] vertexNormals;
+	// computed by computeNormals(). The magnitude of a vertex normal is the
+	// number of face normals summed into it.
+	public transient int[] vertexNormalsX;
+	public transient int[] vertexNormalsY;
+	public transient int[] vertexNormalsZ;
+	public transient int[] vertexNormalsMagnitude;
 
 	public int faceCount;
 	public int[] faceVertexIndices1;
@@ -25,14 +28,18 @@ public class ModelDefinition
 	public short[] faceColors;
 	public byte[] faceRenderPriorities;
 	public byte[] faceRenderTypes;
-	public transient FaceNormal[] faceNormals;
+	// normals of flat shaded faces, null if there are none
+	public transient int[] faceNormalsX;
+	public transient int[] faceNormalsY;
+	public transient int[] faceNormalsZ;
 
 	public int textureTriangleCount;
 	public short[] textureTriangleVertexIndices1;
 	public short[] textureTriangleVertexIndices2;
 	public short[] textureTriangleVertexIndices3;
-	public transient float[][] faceTextureUCoordinates;
-	public transient float[][] faceTextureVCoordinates;
+	// computed by computeTextureUVCoordinates(), three per face
+	public transient float[] faceTextureUCoordinates;
+	public transient float[] faceTextureVCoordinates;
 	public short[] texturePrimaryColors;
 	public short[] faceTextures;
 	public byte[] textureCoordinates;
@@ -62,20 +69,17 @@ public class ModelDefinition
 
 	public void computeNormals()
 	{
-		if (this.vertexNormals != null)
+		if (this.vertexNormalsX != null)
 		{
 			return;
 		}
 
-		this.vertexNormals = new VertexNormal[this.vertexCount];
+		int[] normalsX = new int[this.vertexCount];
+		int[] normalsY = new int[this.vertexCount];
+		int[] normalsZ = new int[this.vertexCount];
+		int[] magnitudes = new int[this.vertexCount];
 
-		int var1;
-		for (var1 = 0; var1 < this.vertexCount; ++var1)
-		{
-			this.vertexNormals[var1] = new VertexNormal();
-		}
-
-		for (var1 = 0; var1 < this.faceCount; ++var1)
+		for (int var1 = 0; var1 < this.faceCount; ++var1)
 		{
 			int vertexA = this.faceVertexIndices1[var1];
 			int vertexB = this.faceVertexIndices2[var1];
@@ -123,37 +127,40 @@ public class ModelDefinition
 
 			if (var15 == 0)
 			{
-				VertexNormal var16 = this.vertexNormals[vertexA];
-				var16.x += var11;
-				var16.y += var12;
-				var16.z += var13;
-				++var16.magnitude;
-
-				var16 = this.vertexNormals[vertexB];
-				var16.x += var11;
-				var16.y += var12;
-				var16.z += var13;
-				++var16.magnitude;
-
-				var16 = this.vertexNormals[vertexC];
-				var16.x += var11;
-				var16.y += var12;
-				var16.z += var13;
-				++var16.magnitude;
+				normalsX[vertexA] += var11;
+				normalsY[vertexA] += var12;
+				normalsZ[vertexA] += var13;
+				++magnitudes[vertexA];
+
+				normalsX[vertexB] += var11;
+				normalsY[vertexB] += var12;
+				normalsZ[vertexB] += var13;
+				++magnitudes[vertexB];
+
+				normalsX[vertexC] += var11;
+				normalsY[vertexC] += var12;
+				normalsZ[vertexC] += var13;
+				++magnitudes[vertexC];
 			}
 			else if (var15 == 1)
 			{
-				if (this.faceNormals == null)
+				if (this.faceNormalsX == null)
 				{
-					this.faceNormals = new FaceNormal[this.faceCount];
+					this.faceNormalsX = new int[this.faceCount];
+					this.faceNormalsY = new int[this.faceCount];
+					this.faceNormalsZ = new int[this.faceCount];
 				}
 
-				FaceNormal var17 = this.faceNormals[var1] = new FaceNormal();
-				var17.x = var11;
-				var17.y = var12;
-				var17.z = var13;
+				this.faceNormalsX[var1] = var11;
+				this.faceNormalsY[var1] = var12;
+				this.faceNormalsZ[var1] = var13;
 			}
 		}
+
+		this.vertexNormalsY = normalsY;
+		this.vertexNormalsZ = normalsZ;
+		this.vertexNormalsMagnitude = magnitudes;
+		this.vertexNormalsX = normalsX;
 	}
 
 	/**
@@ -162,8 +169,13 @@ public class ModelDefinition
 	 */
 	public void computeTextureUVCoordinates()
 	{
-		this.faceTextureUCoordinates = new float[faceCount][];
-		this.faceTextureVCoordinates = new float[faceCount][];
+		if (this.faceTextureUCoordinates != null)
+		{
+			return;
+		}
+
+		float[] u = new float[faceCount * 3];
+		float[] v = new float[faceCount * 3];
 
 		for (int i = 0; i < faceCount; i++)
 		{
@@ -189,19 +201,18 @@ public class ModelDefinition
 
 			if (textureIdx != -1)
 			{
-				float[] u = new float[3];
-				float[] v = new float[3];
+				int uv = i * 3;
 
 				if (textureCoordinate == -1)
 				{
-					u[0] = 0.0F;
-					v[0] = 1.0F;
+					u[uv] = 0.0F;
+					v[uv] = 1.0F;
 
-					u[1] = 1.0F;
-					v[1] = 1.0F;
+					u[uv + 1] = 1.0F;
+					v[uv + 1] = 1.0F;
 
-					u[2] = 0.0F;
-					v[2] = 0.0F;
+					u[uv + 2] = 0.0F;
+					v[uv + 2] = 0.0F;
 				}
 				else
 				{
@@ -251,25 +262,25 @@ public class ModelDefinition
 						float f_902_ = f_885_ * f_898_ - f_886_ * f_897_;
 						float f_903_ = 1.0F / (f_900_ * f_882_ + f_901_ * f_883_ + f_902_ * f_884_);
 
-						u[0] = (f_900_ * f_888_ + f_901_ * f_889_ + f_902_ * f_890_) * f_903_;
-						u[1] = (f_900_ * f_891_ + f_901_ * f_892_ + f_902_ * f_893_) * f_903_;
-						u[2] = (f_900_ * f_894_ + f_901_ * f_895_ + f_902_ * f_896_) * f_903_;
+						u[uv] = (f_900_ * f_888_ + f_901_ * f_889_ + f_902_ * f_890_) * f_903_;
+						u[uv + 1] = (f_900_ * f_891_ + f_901_ * f_892_ + f_902_ * f_893_) * f_903_;
+						u[uv + 2] = (f_900_ * f_894_ + f_901_ * f_895_ + f_902_ * f_896_) * f_903_;
 
 						f_900_ = f_883_ * f_899_ - f_884_ * f_898_;
 						f_901_ = f_884_ * f_897_ - f_882_ * f_899_;
 						f_902_ = f_882_ * f_898_ - f_883_ * f_897_;
 						f_903_ = 1.0F / (f_900_ * f_885_ + f_901_ * f_886_ + f_902_ * f_887_);
 
-						v[0] = (f_900_ * f_888_ + f_901_ * f_889_ + f_902_ * f_890_) * f_903_;
-						v[1] = (f_900_ * f_891_ + f_901_ * f_892_ + f_902_ * f_893_) * f_903_;
-						v[2] = (f_900_ * f_894_ + f_901_ * f_895_ + f_902_ * f_896_) * f_903_;
+						v[uv] = (f_900_ * f_888_ + f_901_ * f_889_ + f_902_ * f_890_) * f_903_;
+						v[uv + 1] = (f_900_ * f_891_ + f_901_ * f_892_ + f_902_ * f_893_) * f_903_;
+						v[uv + 2] = (f_900_ * f_894_ + f_901_ * f_895_ + f_902_ * f_896_) * f_903_;
 					}
 				}
-
-				this.faceTextureUCoordinates[i] = u;
-				this.faceTextureVCoordinates[i] = v;
 			}
 		}
+
+		this.faceTextureVCoordinates = v;
+		this.faceTextureUCoordinates = u;
 	}
 
 	public void computeAnimationTables()
@@ -562,8 +573,8 @@ public class ModelDefinition
 
 	private void reset()
 	{
-		vertexNormals = null;
-		faceNormals = null;
+		vertexNormalsX = vertexNormalsY = vertexNormalsZ = vertexNormalsMagnitude = null;
+		faceNormalsX = faceNormalsY = faceNormalsZ = null;
 		faceTextureUCoordinates = faceTextureVCoordinates = null;
 	}
 
@@ -25,6 +25,7 @@
 package net.runelite.cache.definitions.exporters;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.File;
 import java.io.IOException;
 import javax.imageio.ImageIO;
@@ -42,7 +43,9 @@ public class SpriteExporter
 	public BufferedImage export()
 	{
 		BufferedImage bi = new BufferedImage(sprite.getWidth(), sprite.getHeight(), BufferedImage.TYPE_INT_ARGB);
-		bi.setRGB(0, 0, sprite.getWidth(), sprite.getHeight(), sprite.getPixels(), 0, sprite.getWidth());
+		// the pixels are already packed argb, so copy them straight into the raster
+		int[] data = ((DataBufferInt) bi.getRaster().getDataBuffer()).getData();
+		System.arraycopy(sprite.getPixels(), 0, data, 0, data.length);
 		return bi;
 	}
 
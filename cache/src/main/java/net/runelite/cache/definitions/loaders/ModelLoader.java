@@ -19,8 +19,7 @@ public class ModelLoader
 			this.load2(def, b);
 		}
 
-		def.computeNormals();
-		def.computeTextureUVCoordinates();
+		// normals and texture coordinates are computed when first needed
 		def.computeAnimationTables();
 
 		return def;
@@ -157,6 +157,31 @@ public class Archive
 		return files;
 	}
 
+	public ArchiveFileIndex getFileIndex(byte[] data) throws IOException
+	{
+		return getFileIndex(data, null);
+	}
+
+	/**
+	 * Decompress the archive and locate its files without copying them out
+	 *
+	 * @param data
+	 * @param keys
+	 * @return
+	 * @throws IOException
+	 */
+	public ArchiveFileIndex getFileIndex(byte[] data, int[] keys) throws IOException
+	{
+		byte[] decompressedData = decompress(data, keys);
+
+		int[] fileIds = new int[fileData.length];
+		for (int i = 0; i < fileData.length; ++i)
+		{
+			fileIds[i] = fileData[i].getId();
+		}
+		return new ArchiveFileIndex(fileIds, decompressedData);
+	}
+
 	public int getArchiveId()
 	{
 		return archiveId;
@@ -169,7 +194,11 @@ public class Archive
 
 	public void setNameHash(int nameHash)
 	{
-		this.nameHash = nameHash;
+		if (this.nameHash != nameHash)
+		{
+			this.nameHash = nameHash;
+			index.invalidateNames();
+		}
 	}
 
 	public int getCrc()
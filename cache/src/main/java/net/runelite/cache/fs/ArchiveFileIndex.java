@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs;
+
+import java.util.Arrays;
+import net.runelite.cache.io.InputStream;
+
+/**
+ * The locations of the files packed in decompressed archive data. Files are
+ * only copied out of the archive data when their contents are requested.
+ */
+public class ArchiveFileIndex
+{
+	private final byte[] data;
+	private final int chunks;
+
+	// file ids in ascending order, and the position of each in the archive
+	private final int[] fileIds;
+	private final int[] slots;
+
+	// the offset and size of each chunk of each file, by slot
+	private final int[] chunkOffsets;
+	private final int[] chunkSizes;
+	private final int[] fileSizes;
+
+	/**
+	 * @param fileIds the ids of the files in the archive, in the order they
+	 * are packed
+	 * @param data the decompressed archive data
+	 */
+	public ArchiveFileIndex(int[] fileIds, byte[] data)
+	{
+		int filesCount = fileIds.length;
+		assert filesCount > 0;
+
+		this.data = data;
+
+		long[] sorted = new long[filesCount];
+		for (int i = 0; i < filesCount; ++i)
+		{
+			sorted[i] = (long) fileIds[i] << 32 | i;
+		}
+		Arrays.sort(sorted);
+
+		this.fileIds = new int[filesCount];
+		this.slots = new int[filesCount];
+		for (int i = 0; i < filesCount; ++i)
+		{
+			this.fileIds[i] = (int) (sorted[i] >>> 32);
+			this.slots[i] = (int) sorted[i];
+
+			if (i > 0 && this.fileIds[i] == this.fileIds[i - 1])
+			{
+				throw new IllegalStateException("duplicate file ids");
+			}
+		}
+
+		fileSizes = new int[filesCount];
+
+		if (filesCount == 1)
+		{
+			chunks = 1;
+			chunkOffsets = new int[]{ 0 };
+			chunkSizes = new int[]{ data.length };
+			fileSizes[0] = data.length;
+			return;
+		}
+
+		InputStream stream = new InputStream(data);
+		stream.setOffset(stream.getLength() - 1);
+		chunks = stream.readUnsignedByte();
+
+		// -1 for chunks count + one int per file slot per chunk
+		stream.setOffset(stream.getLength() - 1 - chunks * filesCount * 4);
+		chunkOffsets = new int[filesCount * chunks];
+		chunkSizes = new int[filesCount * chunks];
+
+		// the file data is at the beginning of the stream
+		int offset = 0;
+		for (int chunk = 0; chunk < chunks; ++chunk)
+		{
+			int chunkSize = 0;
+
+			for (int slot = 0; slot < filesCount; ++slot)
+			{
+				int delta = stream.readInt();
+				chunkSize += delta; // size of this chunk
+
+				chunkOffsets[slot * chunks + chunk] = offset;
+				chunkSizes[slot * chunks + chunk] = chunkSize;
+				fileSizes[slot] += chunkSize;
+
+				offset += chunkSize;
+			}
+		}
+	}
+
+	/**
+	 * @return the number of files in the archive
+	 */
+	public int size()
+	{
+		return fileIds.length;
+	}
+
+	/**
+	 * @return the file ids, in ascending order
+	 */
+	public int[] getFileIds()
+	{
+		return fileIds.clone();
+	}
+
+	public boolean contains(int fileId)
+	{
+		return Arrays.binarySearch(fileIds, fileId) >= 0;
+	}
+
+	/**
+	 * Get the contents of a file. For an archive with a single file this is
+	 * the archive data itself, otherwise it is a new copy.
+	 *
+	 * @param fileId
+	 * @return the contents, or null if there is no such file
+	 */
+	public byte[] getContents(int fileId)
+	{
+		int idx = Arrays.binarySearch(fileIds, fileId);
+		if (idx < 0)
+		{
+			return null;
+		}
+
+		return getContentsOfSlot(slots[idx]);
+	}
+
+	/**
+	 * Get the contents of a file by its position in the archive
+	 *
+	 * @param slot
+	 * @return
+	 */
+	byte[] getContentsOfSlot(int slot)
+	{
+		if (fileIds.length == 1)
+		{
+			return data;
+		}
+
+		if (chunks == 1)
+		{
+			int offset = chunkOffsets[slot];
+			return Arrays.copyOfRange(data, offset, offset + chunkSizes[slot]);
+		}
+
+		byte[] contents = new byte[fileSizes[slot]];
+		int pos = 0;
+		for (int chunk = 0; chunk < chunks; ++chunk)
+		{
+			int size = chunkSizes[slot * chunks + chunk];
+			System.arraycopy(data, chunkOffsets[slot * chunks + chunk], contents, pos, size);
+			pos += size;
+		}
+		return contents;
+	}
+}
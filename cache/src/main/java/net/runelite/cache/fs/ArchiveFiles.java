@@ -31,7 +31,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import net.runelite.cache.io.InputStream;
 import net.runelite.cache.io.OutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -112,58 +111,17 @@ public class ArchiveFiles
 		}
 
 		int filesCount = this.getFiles().size();
-
-		InputStream stream = new InputStream(data);
-		stream.setOffset(stream.getLength() - 1);
-		int chunks = stream.readUnsignedByte();
-
-		// -1 for chunks count + one int per file slot per chunk
-		stream.setOffset(stream.getLength() - 1 - chunks * filesCount * 4);
-		int[][] chunkSizes = new int[filesCount][chunks];
-		int[] filesSize = new int[filesCount];
-
-		for (int chunk = 0; chunk < chunks; ++chunk)
-		{
-			int chunkSize = 0;
-
-			for (int id = 0; id < filesCount; ++id)
-			{
-				int delta = stream.readInt();
-				chunkSize += delta; // size of this chunk
-
-				chunkSizes[id][chunk] = chunkSize; // store size of chunk
-
-				filesSize[id] += chunkSize; // add chunk size to file size
-			}
-		}
-
-		byte[][] fileContents = new byte[filesCount][];
-		int[] fileOffsets = new int[filesCount];
-
+		int[] fileIds = new int[filesCount];
 		for (int i = 0; i < filesCount; ++i)
 		{
-			fileContents[i] = new byte[filesSize[i]];
-		}
-
-		// the file data is at the beginning of the stream
-		stream.setOffset(0);
-
-		for (int chunk = 0; chunk < chunks; ++chunk)
-		{
-			for (int id = 0; id < filesCount; ++id)
-			{
-				int chunkSize = chunkSizes[id][chunk];
-
-				stream.readBytes(fileContents[id], fileOffsets[id], chunkSize);
-
-				fileOffsets[id] += chunkSize;
-			}
+			fileIds[i] = this.getFiles().get(i).getFileId();
 		}
 
+		ArchiveFileIndex index = new ArchiveFileIndex(fileIds, data);
 		for (int i = 0; i < filesCount; ++i)
 		{
 			FSFile f = this.getFiles().get(i);
-			f.setContents(fileContents[i]);
+			f.setContents(index.getContentsOfSlot(i));
 		}
 	}
 
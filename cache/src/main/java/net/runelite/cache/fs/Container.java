@@ -27,6 +27,7 @@ package net.runelite.cache.fs;
 import static com.google.common.primitives.Bytes.concat;
 import com.google.common.primitives.Ints;
 import java.io.IOException;
+import java.util.Arrays;
 import net.runelite.cache.fs.jagex.CompressionType;
 import net.runelite.cache.io.InputStream;
 import net.runelite.cache.io.OutputStream;
@@ -41,6 +42,13 @@ public class Container
 {
 	private static final Logger logger = LoggerFactory.getLogger(Container.class);
 
+	/**
+	 * Largest decompressed size accepted from a container header. Real
+	 * archives are a few megabytes at most, so anything larger is corrupt
+	 * data or data decrypted with the wrong keys.
+	 */
+	public static final int MAX_DECOMPRESSED_LENGTH = 32 * 1024 * 1024;
+
 	public byte[] data;
 	public int compression; // compression
 	public int revision;
@@ -114,7 +122,8 @@ public class Container
 				stream.readBytes(encryptedData, 0, compressedLength);
 
 				crc32.update(encryptedData, 0, compressedLength);
-				byte[] decryptedData = decrypt(encryptedData, encryptedData.length, keys);
+				decrypt(encryptedData, encryptedData.length, keys);
+				byte[] decryptedData = encryptedData;
 
 				if (stream.remaining() >= 2)
 				{
@@ -132,7 +141,8 @@ public class Container
 				stream.readBytes(encryptedData);
 
 				crc32.update(encryptedData, 0, encryptedData.length);
-				byte[] decryptedData = decrypt(encryptedData, encryptedData.length, keys);
+				decrypt(encryptedData, encryptedData.length, keys);
+				byte[] decryptedData = encryptedData;
 
 				if (stream.remaining() >= 2)
 				{
@@ -160,7 +170,8 @@ public class Container
 				stream.readBytes(encryptedData);
 
 				crc32.update(encryptedData, 0, encryptedData.length);
-				byte[] decryptedData = decrypt(encryptedData, encryptedData.length, keys);
+				decrypt(encryptedData, encryptedData.length, keys);
+				byte[] decryptedData = encryptedData;
 
 				if (stream.remaining() >= 2)
 				{
@@ -192,15 +203,106 @@ public class Container
 		return container;
 	}
 
-	private static byte[] decrypt(byte[] data, int length, int[] keys)
+	/**
+	 * Decompress the container held in b[offset, offset + length), without
+	 * copying the compressed data. The data is decompressed straight into an
+	 * array of the decompressed size given in the header.
+	 * <p>
+	 * If keys are given the data is decrypted in place, so the contents of b
+	 * are modified.
+	 *
+	 * @param b
+	 * @param offset
+	 * @param length
+	 * @param keys
+	 * @return
+	 * @throws IOException
+	 */
+	public static Container decompressInPlace(byte[] b, int offset, int length, int[] keys) throws IOException
+	{
+		if (length < 5)
+		{
+			throw new RuntimeException("Invalid data");
+		}
+
+		int compression = b[offset] & 0xFF;
+		int compressedLength = Ints.fromBytes(b[offset + 1], b[offset + 2], b[offset + 3], b[offset + 4]);
+		if (compressedLength < 0 || compressedLength > 1000000)
+		{
+			throw new RuntimeException("Invalid data");
+		}
+
+		// the compressed data, including the decompressed length if compressed
+		int payloadOffset = offset + 5;
+		int payloadLength = compression == CompressionType.NONE ? compressedLength : compressedLength + 4;
+		if (5 + payloadLength > length)
+		{
+			throw new RuntimeException("Invalid data");
+		}
+
+		Crc32 crc32 = new Crc32();
+		crc32.update(b, offset, 5 + payloadLength);
+
+		int revision = -1;
+		if (length - 5 - payloadLength >= 2)
+		{
+			int pos = payloadOffset + payloadLength;
+			revision = (b[pos] & 0xFF) << 8 | (b[pos + 1] & 0xFF);
+		}
+
+		if (keys != null)
+		{
+			Xtea xtea = new Xtea(keys);
+			xtea.decrypt(b, payloadOffset, payloadLength);
+		}
+
+		byte[] data;
+		switch (compression)
+		{
+			case CompressionType.NONE:
+				data = Arrays.copyOfRange(b, payloadOffset, payloadOffset + payloadLength);
+				break;
+			case CompressionType.BZ2:
+			{
+				data = new byte[readDecompressedLength(b, payloadOffset)];
+				BZip2.decompress(b, payloadOffset + 4, compressedLength, data);
+				break;
+			}
+			case CompressionType.GZ:
+			{
+				data = new byte[readDecompressedLength(b, payloadOffset)];
+				GZip.decompress(b, payloadOffset + 4, compressedLength, data);
+				break;
+			}
+			default:
+				throw new RuntimeException("Unknown decompression type");
+		}
+
+		Container container = new Container(compression, revision);
+		container.data = data;
+		container.crc = crc32.getHash();
+		return container;
+	}
+
+	private static int readDecompressedLength(byte[] b, int offset) throws IOException
+	{
+		int decompressedLength = Ints.fromBytes(b[offset], b[offset + 1], b[offset + 2], b[offset + 3]);
+		if (decompressedLength < 0 || decompressedLength > MAX_DECOMPRESSED_LENGTH)
+		{
+			throw new IOException("Invalid decompressed length " + decompressedLength);
+		}
+		return decompressedLength;
+	}
+
+	private static void decrypt(byte[] data, int length, int[] keys)
 	{
 		if (keys == null)
 		{
-			return data;
+			return;
 		}
 
 		Xtea xtea = new Xtea(keys);
-		return xtea.decrypt(data, length);
+		xtea.decrypt(data, 0, length);
 	}
 
 	private static byte[] encrypt(byte[] data, int length, int[] keys)
@@ -25,7 +25,10 @@
 package net.runelite.cache.fs;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import net.runelite.cache.index.ArchiveData;
 import net.runelite.cache.index.FileData;
@@ -47,6 +50,8 @@ public class Index
 	private int compression; // compression method of this index's data in 255
 
 	private final List<Archive> archives = new ArrayList<>();
+	private Archive[] archivesById = new Archive[0];
+	private volatile Map<Integer, Archive> archivesByName; // built on first lookup
 
 	public Index(int id)
 	{
@@ -154,32 +159,65 @@ public class Index
 	{
 		Archive archive = new Archive(this, id);
 		this.archives.add(archive);
+
+		if (id >= archivesById.length)
+		{
+			archivesById = Arrays.copyOf(archivesById, Math.max(id + 1, archivesById.length * 2));
+		}
+		if (archivesById[id] == null)
+		{
+			archivesById[id] = archive;
+		}
+
+		archivesByName = null;
 		return archive;
 	}
 
+	public void removeArchive(Archive archive)
+	{
+		assert archive.getIndex() == this;
+		archives.removeIf(a -> a == archive);
+
+		int id = archive.getArchiveId();
+		if (id < archivesById.length && archivesById[id] == archive)
+		{
+			archivesById[id] = null;
+		}
+
+		archivesByName = null;
+	}
+
 	public Archive getArchive(int id)
 	{
-		for (Archive a : archives)
+		if (id < 0 || id >= archivesById.length)
 		{
-			if (a.getArchiveId() == id)
-			{
-				return a;
-			}
+			return null;
 		}
-		return null;
+		return archivesById[id];
 	}
 
 	public Archive findArchiveByName(String name)
 	{
-		int hash = Djb2.hash(name);
-		for (Archive a : archives)
+		Map<Integer, Archive> byName = archivesByName;
+		if (byName == null)
 		{
-			if (a.getNameHash() == hash)
+			byName = new HashMap<>(archives.size() * 2);
+			for (Archive a : archives)
 			{
-				return a;
+				byName.putIfAbsent(a.getNameHash(), a);
 			}
+			archivesByName = byName;
 		}
-		return null;
+
+		return byName.get(Djb2.hash(name));
+	}
+
+	/**
+	 * Called when the name hash of one of this index's archives changes
+	 */
+	void invalidateNames()
+	{
+		archivesByName = null;
 	}
 
 	public IndexData toIndexData()
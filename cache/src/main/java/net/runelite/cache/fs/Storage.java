@@ -37,6 +37,14 @@ public interface Storage extends AutoCloseable
 
 	void save(Store store) throws IOException;
 
+	/**
+	 * Load the compressed data of an archive. This may be called from
+	 * multiple threads at once.
+	 *
+	 * @param archive
+	 * @return
+	 * @throws IOException
+	 */
 	byte[] loadArchive(Archive archive) throws IOException;
 
 	void saveArchive(Archive archive, byte[] data) throws IOException;
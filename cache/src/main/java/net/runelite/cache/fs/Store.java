@@ -29,6 +29,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import net.runelite.cache.IndexType;
@@ -42,6 +43,7 @@ public final class Store implements Closeable
 
 	private final Storage storage;
 	private final List<Index> indexes = new ArrayList<>();
+	private Index[] indexesById = new Index[0];
 
 	public Store(File folder) throws IOException
 	{
@@ -96,17 +98,20 @@ public final class Store implements Closeable
 
 	public final Index addIndex(int id) throws FileNotFoundException
 	{
-		for (Index i : indexes)
+		if (findIndex(id) != null)
 		{
-			if (i.getId() == id)
-			{
-				throw new IllegalArgumentException("index " + id + " already exists");
-			}
+			throw new IllegalArgumentException("index " + id + " already exists");
 		}
 
 		Index index = new Index(id);
 		this.indexes.add(index);
 
+		if (id >= indexesById.length)
+		{
+			indexesById = Arrays.copyOf(indexesById, id + 1);
+		}
+		indexesById[id] = index;
+
 		return index;
 	}
 
@@ -114,6 +119,7 @@ public final class Store implements Closeable
 	{
 		assert indexes.contains(index);
 		indexes.remove(index);
+		indexesById[index.getId()] = null;
 	}
 
 	public void load() throws IOException
@@ -138,13 +144,10 @@ public final class Store implements Closeable
 
 	public Index findIndex(int id)
 	{
-		for (Index i : indexes)
+		if (id < 0 || id >= indexesById.length)
 		{
-			if (i.getId() == id)
-			{
-				return i;
-			}
+			return null;
 		}
-		return null;
+		return indexesById[id];
 	}
 }
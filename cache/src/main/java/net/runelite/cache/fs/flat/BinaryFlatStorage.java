@@ -0,0 +1,382 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Storage;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.index.FileData;
+
+/**
+ * A binary companion to {@link FlatStorage}. Each index is stored in a
+ * single file holding a header, the raw archive contents, and an archive
+ * table. Only the header and table are read on load; archive contents are
+ * read from disk with positional reads when they are requested.
+ * <p>
+ * File layout:
+ * <pre>
+ * header:   magic, version, protocol, revision, compression, crc, named,
+ *           archive count, table offset
+ * contents: the contents of each archive, back to back in table order
+ * table:    per archive id, name hash, revision, crc, compression, hash,
+ *           contents length (-1 if none), file count, and file ids and name
+ *           hashes
+ * </pre>
+ */
+public class BinaryFlatStorage implements Storage
+{
+	protected static final String EXTENSION = ".flatbin";
+	private static final String TMP_SUFFIX = ".tmp";
+
+	private static final int MAGIC = 0x464c4243; // FLBC
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 4 + 1 + 4 + 4 + 1 + 4 + 1 + 4 + 8;
+
+	private final File directory;
+	private final Map<Integer, FileChannel> channels = new HashMap<>();
+	private final Map<Long, Location> locations = new HashMap<>();
+	private final Map<Long, byte[]> pending = new ConcurrentHashMap<>();
+
+	private static class Location
+	{
+		private final long offset;
+		private final int length;
+
+		private Location(long offset, int length)
+		{
+			this.offset = offset;
+			this.length = length;
+		}
+	}
+
+	public BinaryFlatStorage(File directory)
+	{
+		this.directory = directory;
+	}
+
+	@Override
+	public void init(Store store) throws IOException
+	{
+		String[] idxs = directory.list((dir, name) -> name.endsWith(EXTENSION));
+		if (idxs == null)
+		{
+			return;
+		}
+
+		for (String idx : idxs)
+		{
+			int id = Integer.parseInt(idx.substring(0, idx.length() - EXTENSION.length()));
+			store.addIndex(id);
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		for (FileChannel channel : channels.values())
+		{
+			channel.close();
+		}
+		channels.clear();
+		locations.clear();
+	}
+
+	@Override
+	public void load(Store store) throws IOException
+	{
+		for (Index idx : store.getIndexes())
+		{
+			open(idx, true);
+		}
+	}
+
+	/**
+	 * Open the file of an index and read its archive table
+	 *
+	 * @param idx
+	 * @param populate whether to set up the index and add its archives, or
+	 * only record where the archive contents are
+	 * @throws IOException
+	 */
+	private void open(Index idx, boolean populate) throws IOException
+	{
+		File file = new File(directory, idx.getId() + EXTENSION);
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		channels.put(idx.getId(), channel);
+
+		try
+		{
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			read(channel, header, 0);
+
+			if (header.getInt() != MAGIC)
+			{
+				throw new IOException("not a binary flatcache");
+			}
+
+			int version = header.get() & 0xff;
+			if (version != VERSION)
+			{
+				throw new IOException("unsupported binary flatcache version " + version);
+			}
+
+			int protocol = header.getInt();
+			int revision = header.getInt();
+			int compression = header.get() & 0xff;
+			int crc = header.getInt();
+			boolean named = header.get() != 0;
+			int archiveCount = header.getInt();
+			long tableOffset = header.getLong();
+
+			if (populate)
+			{
+				idx.setProtocol(protocol);
+				idx.setRevision(revision);
+				idx.setCompression(compression);
+				idx.setCrc(crc);
+				idx.setNamed(named);
+			}
+
+			ByteBuffer table = ByteBuffer.allocate((int) (channel.size() - tableOffset));
+			read(channel, table, tableOffset);
+
+			long offset = HEADER_SIZE;
+			for (int i = 0; i < archiveCount; ++i)
+			{
+				int id = table.getInt();
+				int nameHash = table.getInt();
+				int archiveRevision = table.getInt();
+				int archiveCrc = table.getInt();
+				int archiveCompression = table.get() & 0xff;
+
+				byte[] hash = null;
+				int hashLength = table.get() & 0xff;
+				if (hashLength > 0)
+				{
+					hash = new byte[hashLength];
+					table.get(hash);
+				}
+
+				int length = table.getInt();
+				if (length != -1)
+				{
+					locations.put((long) idx.getId() << 32 | id, new Location(offset, length));
+					offset += length;
+				}
+
+				int fileCount = table.getInt();
+				FileData[] fileData = new FileData[fileCount];
+				for (int j = 0; j < fileCount; ++j)
+				{
+					FileData fd = new FileData();
+					fd.setId(table.getInt());
+					fd.setNameHash(table.getInt());
+					fileData[j] = fd;
+				}
+
+				if (populate)
+				{
+					Archive archive = idx.addArchive(id);
+					archive.setNameHash(nameHash);
+					archive.setRevision(archiveRevision);
+					archive.setCrc(archiveCrc);
+					archive.setCompression(archiveCompression);
+					archive.setHash(hash);
+					archive.setFileData(fileData);
+				}
+			}
+		}
+		catch (RuntimeException ex)
+		{
+			throw new IOException("error reading binary flatcache " + file, ex);
+		}
+	}
+
+	@Override
+	public void save(Store store) throws IOException
+	{
+		store.getIndexes().sort(Comparator.comparing(Index::getId));
+		for (Index idx : store.getIndexes())
+		{
+			File tmp = new File(directory, idx.getId() + EXTENSION + TMP_SUFFIX);
+			try (FileChannel out = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+			{
+				write(store, idx, out);
+			}
+		}
+
+		// the old files may still be read from while saving, so only swap
+		// them out once every index has been written
+		close();
+		pending.clear();
+
+		for (Index idx : store.getIndexes())
+		{
+			File file = new File(directory, idx.getId() + EXTENSION);
+			File tmp = new File(directory, idx.getId() + EXTENSION + TMP_SUFFIX);
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			open(idx, false);
+		}
+	}
+
+	private void write(Store store, Index idx, FileChannel out) throws IOException
+	{
+		ByteArrayOutputStream tableBytes = new ByteArrayOutputStream();
+		DataOutputStream table = new DataOutputStream(tableBytes);
+
+		long offset = HEADER_SIZE;
+
+		idx.getArchives().sort(Comparator.comparing(Archive::getArchiveId));
+		for (Archive archive : idx.getArchives())
+		{
+			byte[] hash = archive.getHash();
+			FileData[] fileData = archive.getFileData();
+
+			table.writeInt(archive.getArchiveId());
+			table.writeInt(archive.getNameHash());
+			table.writeInt(archive.getRevision());
+			table.writeInt(archive.getCrc());
+			table.writeByte(archive.getCompression());
+
+			if (hash != null)
+			{
+				table.writeByte(hash.length);
+				table.write(hash);
+			}
+			else
+			{
+				table.writeByte(0);
+			}
+
+			byte[] contents = store.getStorage().loadArchive(archive);
+			if (contents != null)
+			{
+				write(out, ByteBuffer.wrap(contents), offset);
+				offset += contents.length;
+				table.writeInt(contents.length);
+			}
+			else
+			{
+				table.writeInt(-1);
+			}
+
+			if (fileData != null)
+			{
+				table.writeInt(fileData.length);
+				for (FileData fd : fileData)
+				{
+					table.writeInt(fd.getId());
+					table.writeInt(fd.getNameHash());
+				}
+			}
+			else
+			{
+				table.writeInt(0);
+			}
+		}
+
+		write(out, ByteBuffer.wrap(tableBytes.toByteArray()), offset);
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC);
+		header.put((byte) VERSION);
+		header.putInt(idx.getProtocol());
+		header.putInt(idx.getRevision());
+		header.put((byte) idx.getCompression());
+		header.putInt(idx.getCrc());
+		header.put((byte) (idx.isNamed() ? 1 : 0));
+		header.putInt(idx.getArchives().size());
+		header.putLong(offset);
+		header.flip();
+		write(out, header, 0);
+	}
+
+	@Override
+	public byte[] loadArchive(Archive archive) throws IOException
+	{
+		long key = (long) archive.getIndex().getId() << 32 | archive.getArchiveId();
+
+		byte[] data = pending.get(key);
+		if (data != null)
+		{
+			return data;
+		}
+
+		Location location = locations.get(key);
+		if (location == null)
+		{
+			return null;
+		}
+
+		FileChannel channel = channels.get(archive.getIndex().getId());
+		data = new byte[location.length];
+		read(channel, ByteBuffer.wrap(data), location.offset);
+		return data;
+	}
+
+	@Override
+	public void saveArchive(Archive archive, byte[] data) throws IOException
+	{
+		pending.put((long) archive.getIndex().getId() << 32 | archive.getArchiveId(), data);
+	}
+
+	private static void read(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			int n = channel.read(buffer, position);
+			if (n == -1)
+			{
+				throw new EOFException();
+			}
+			position += n;
+		}
+		buffer.flip();
+	}
+
+	private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			position += channel.write(buffer, position);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import java.io.File;
+import java.io.IOException;
+import net.runelite.cache.fs.Storage;
+import net.runelite.cache.fs.Store;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Converts caches between the text {@link FlatStorage} format and the
+ * {@link BinaryFlatStorage} format.
+ */
+public class FlatStorageConverter
+{
+	private static final Logger logger = LoggerFactory.getLogger(FlatStorageConverter.class);
+
+	/**
+	 * Convert a text flat cache to a binary flat cache
+	 *
+	 * @param from directory of the text flat cache
+	 * @param to directory to write the binary flat cache to
+	 * @throws IOException
+	 */
+	public static void toBinary(File from, File to) throws IOException
+	{
+		convert(new FlatStorage(from), new BinaryFlatStorage(to));
+	}
+
+	/**
+	 * Convert a binary flat cache to a text flat cache
+	 *
+	 * @param from directory of the binary flat cache
+	 * @param to directory to write the text flat cache to
+	 * @throws IOException
+	 */
+	public static void toText(File from, File to) throws IOException
+	{
+		convert(new BinaryFlatStorage(from), new FlatStorage(to));
+	}
+
+	private static void convert(Storage from, Storage to) throws IOException
+	{
+		try (Store store = new Store(from); Storage out = to)
+		{
+			store.load();
+			// the archive contents are read from the source storage as they are written
+			out.save(store);
+		}
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length != 3 || !("binary".equals(args[0]) || "text".equals(args[0])))
+		{
+			System.err.println("Usage: FlatStorageConverter <binary|text> <from> <to>");
+			System.exit(-1);
+			return;
+		}
+
+		File from = new File(args[1]);
+		File to = new File(args[2]);
+		to.mkdirs();
+
+		long start = System.currentTimeMillis();
+		if ("binary".equals(args[0]))
+		{
+			toBinary(from, to);
+		}
+		else
+		{
+			toText(from, to);
+		}
+		logger.info("Converted {} to {} in {}ms", from, to, System.currentTimeMillis() - start);
+	}
+}
@@ -30,6 +30,9 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.BitSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,11 +42,58 @@ public class DataFile implements Closeable
 
 	private static final int SECTOR_SIZE = 520;
 
+	/**
+	 * number of sectors in each mapped segment of the data file. Segments
+	 * are a whole number of sectors so a sector never spans two mappings.
+	 */
+	private static final int SECTORS_PER_SEGMENT = Integer.MAX_VALUE / SECTOR_SIZE;
+
 	private final RandomAccessFile dat;
+	private final MappedByteBuffer[] segments; // null unless read only
+	private final long mappedLength;
+
+	private final BitSet freeSectors = new BitSet(); // sectors which can be reused by writes
+	private int endSector; // first sector past the end of the file
 
 	public DataFile(File file) throws FileNotFoundException
 	{
 		this.dat = new RandomAccessFile(file, "rw");
+		this.segments = null;
+		this.mappedLength = 0L;
+	}
+
+	/**
+	 * Open a data file. If readOnly is set the file is memory mapped, and
+	 * reads are served directly from the mapping.
+	 *
+	 * @param file
+	 * @param readOnly
+	 * @throws IOException
+	 */
+	public DataFile(File file, boolean readOnly) throws IOException
+	{
+		if (!readOnly)
+		{
+			this.dat = new RandomAccessFile(file, "rw");
+			this.segments = null;
+			this.mappedLength = 0L;
+			return;
+		}
+
+		this.dat = new RandomAccessFile(file, "r");
+		this.mappedLength = dat.length();
+
+		long segmentSize = (long) SECTORS_PER_SEGMENT * SECTOR_SIZE;
+		int count = (int) ((mappedLength + segmentSize - 1) / segmentSize);
+		this.segments = new MappedByteBuffer[Math.max(count, 1)];
+
+		FileChannel channel = dat.getChannel();
+		for (int i = 0; i < segments.length; ++i)
+		{
+			long position = i * segmentSize;
+			long size = Math.min(segmentSize, mappedLength - position);
+			segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.max(size, 0L));
+		}
 	}
 
 	@Override
@@ -52,9 +102,20 @@ public class DataFile implements Closeable
 		dat.close();
 	}
 
+	public boolean isReadOnly()
+	{
+		return segments != null;
+	}
+
 	public void clear() throws IOException
 	{
+		if (isReadOnly())
+		{
+			throw new IOException("data file is read only");
+		}
+
 		dat.setLength(0L);
+		freeSectors.clear();
 	}
 
 	/**
@@ -68,9 +129,19 @@ public class DataFile implements Closeable
 	 */
 	public byte[] read(int indexId, int archiveId, int sector, int size) throws IOException
 	{
-		if (sector <= 0L || dat.length() / SECTOR_SIZE < (long) sector)
+		if (isReadOnly())
+		{
+			return readMapped(indexId, archiveId, sector, size);
+		}
+
+		// reads are positional, and do not touch the file pointer, so they
+		// can happen from many threads at once
+		FileChannel channel = dat.getChannel();
+		long length = channel.size();
+
+		if (sector <= 0L || length / SECTOR_SIZE < (long) sector)
 		{
-			logger.warn("bad read, dat length {}, requested sector {}", dat.length(), sector);
+			logger.warn("bad read, dat length {}, requested sector {}", length, sector);
 			return null;
 		}
 
@@ -87,7 +158,7 @@ public class DataFile implements Closeable
 				return null;
 			}
 
-			dat.seek(SECTOR_SIZE * sector);
+			long position = (long) SECTOR_SIZE * sector;
 
 			int dataBlockSize = size - readBytesCount;
 			byte headerSize;
@@ -102,7 +173,7 @@ public class DataFile implements Closeable
 					dataBlockSize = SECTOR_SIZE - headerSize;
 				}
 
-				int i = dat.read(readBuffer, 0, headerSize + dataBlockSize);
+				int i = read(channel, readBuffer, headerSize + dataBlockSize, position);
 				if (i != headerSize + dataBlockSize)
 				{
 					logger.warn("Short read when reading file data for {}/{}", indexId, archiveId);
@@ -127,7 +198,7 @@ public class DataFile implements Closeable
 					dataBlockSize = SECTOR_SIZE - headerSize;
 				}
 
-				int i = dat.read(readBuffer, 0, headerSize + dataBlockSize);
+				int i = read(channel, readBuffer, headerSize + dataBlockSize, position);
 				if (i != headerSize + dataBlockSize)
 				{
 					logger.warn("short read");
@@ -153,7 +224,7 @@ public class DataFile implements Closeable
 				return null;
 			}
 
-			if (nextSector < 0 || dat.length() / SECTOR_SIZE < (long) nextSector)
+			if (nextSector < 0 || length / SECTOR_SIZE < (long) nextSector)
 			{
 				logger.warn("Invalid next sector");
 				return null;
@@ -169,33 +240,200 @@ public class DataFile implements Closeable
 		return buffer.array();
 	}
 
+	private static int read(FileChannel channel, byte[] buffer, int length, long position) throws IOException
+	{
+		ByteBuffer buf = ByteBuffer.wrap(buffer, 0, length);
+		while (buf.hasRemaining())
+		{
+			int i = channel.read(buf, position + buf.position());
+			if (i == -1)
+			{
+				break;
+			}
+		}
+		return buf.position();
+	}
+
+	private byte[] readMapped(int indexId, int archiveId, int sector, int size)
+	{
+		long sectorCount = mappedLength / SECTOR_SIZE;
+		if (sector <= 0L || sectorCount < (long) sector)
+		{
+			logger.warn("bad read, dat length {}, requested sector {}", mappedLength, sector);
+			return null;
+		}
+
+		byte[] out = new byte[size];
+		int headerSize = archiveId > 0xFFFF ? 10 : 8;
+
+		// buffers are duplicated per read so concurrent reads don't share a position
+		ByteBuffer buffer = null;
+		int bufferSegment = -1;
+
+		for (int part = 0, readBytesCount = 0, nextSector;
+			size > readBytesCount;
+			sector = nextSector)
+		{
+			if (sector == 0)
+			{
+				logger.warn("Unexpected end of file");
+				return null;
+			}
+
+			int segment = sector / SECTORS_PER_SEGMENT;
+			if (segment >= segments.length)
+			{
+				logger.warn("Short read when reading file data for {}/{}", indexId, archiveId);
+				return null;
+			}
+
+			if (segment != bufferSegment)
+			{
+				buffer = segments[segment].duplicate();
+				bufferSegment = segment;
+			}
+
+			int position = (sector % SECTORS_PER_SEGMENT) * SECTOR_SIZE;
+
+			int dataBlockSize = size - readBytesCount;
+			if (dataBlockSize > SECTOR_SIZE - headerSize)
+			{
+				dataBlockSize = SECTOR_SIZE - headerSize;
+			}
+
+			if (position + headerSize + dataBlockSize > buffer.limit())
+			{
+				logger.warn("Short read when reading file data for {}/{}", indexId, archiveId);
+				return null;
+			}
+
+			int currentIndex;
+			int currentPart;
+			int currentArchive;
+			if (headerSize == 10)
+			{
+				currentArchive = buffer.getInt(position);
+				currentPart = buffer.getShort(position + 4) & 0xFFFF;
+				nextSector = ((buffer.get(position + 6) & 0xFF) << 16)
+					| ((buffer.get(position + 7) & 0xFF) << 8)
+					| (buffer.get(position + 8) & 0xFF);
+				currentIndex = buffer.get(position + 9) & 0xFF;
+			}
+			else
+			{
+				currentArchive = buffer.getShort(position) & 0xFFFF;
+				currentPart = buffer.getShort(position + 2) & 0xFFFF;
+				nextSector = ((buffer.get(position + 4) & 0xFF) << 16)
+					| ((buffer.get(position + 5) & 0xFF) << 8)
+					| (buffer.get(position + 6) & 0xFF);
+				currentIndex = buffer.get(position + 7) & 0xFF;
+			}
+
+			if (archiveId != currentArchive || currentPart != part || indexId != currentIndex)
+			{
+				logger.warn("data mismatch {} != {}, {} != {}, {} != {}",
+					archiveId, currentArchive,
+					part, currentPart,
+					indexId, currentIndex);
+				return null;
+			}
+
+			if (nextSector < 0 || sectorCount < (long) nextSector)
+			{
+				logger.warn("Invalid next sector");
+				return null;
+			}
+
+			buffer.position(position + headerSize);
+			buffer.get(out, readBytesCount, dataBlockSize);
+			readBytesCount += dataBlockSize;
+
+			++part;
+		}
+
+		return out;
+	}
+
 	public DataFileWriteResult write(int indexId, int archiveId, byte[] compressedData) throws IOException
 	{
+		return write(indexId, archiveId, compressedData, 0);
+	}
+
+	/**
+	 * Write an archive. If existingSector is the start of a sector chain
+	 * belonging to the same archive, the chain is overwritten in place
+	 * and extended if required, and any sectors left over at its end are
+	 * freed for reuse. Otherwise free sectors are reused before new sectors
+	 * are appended to the file.
+	 *
+	 * @param indexId index of the archive
+	 * @param archiveId archive id
+	 * @param compressedData data to write
+	 * @param existingSector the sector the archive currently starts at, or 0
+	 * @return
+	 * @throws IOException
+	 */
+	public synchronized DataFileWriteResult write(int indexId, int archiveId, byte[] compressedData, int existingSector) throws IOException
+	{
+		if (isReadOnly())
+		{
+			throw new IOException("data file is read only");
+		}
+
 		int sector;
 		int startSector;
 
 		byte[] writeBuffer = new byte[SECTOR_SIZE];
 		ByteBuffer data = ByteBuffer.wrap(compressedData);
 
-		sector = (int) ((dat.length() + (long) (SECTOR_SIZE - 1)) / (long) SECTOR_SIZE);
-		if (sector == 0)
+		endSector = (int) ((dat.length() + (long) (SECTOR_SIZE - 1)) / (long) SECTOR_SIZE);
+		if (endSector == 0)
 		{
-			sector = 1;
+			endSector = 1;
 		}
+
+		// the next sector of the old chain, or -1 if not overwriting
+		int oldNextSector = existingSector > 0
+			? readNextSector(indexId, archiveId, 0, existingSector)
+			: -1;
+		sector = oldNextSector != -1 ? existingSector : allocateSector();
 		startSector = sector;
 
 		for (int part = 0; data.hasRemaining(); ++part)
 		{
-			int nextSector = sector + 1; // we always just append sectors
+			int nextSector;
 			int dataToWrite;
+			int blockSize = 0xFFFF < archiveId ? 510 : 512;
 
-			if (0xFFFF < archiveId)
+			if (data.remaining() <= blockSize)
 			{
-				if (data.remaining() <= 510)
+				nextSector = 0;
+
+				if (oldNextSector > 0)
+				{
+					// the new data is shorter than the old chain
+					freeChain(indexId, archiveId, part + 1, oldNextSector);
+				}
+				oldNextSector = -1;
+			}
+			else if (oldNextSector > 0)
+			{
+				nextSector = oldNextSector;
+				oldNextSector = readNextSector(indexId, archiveId, part + 1, nextSector);
+				if (oldNextSector == -1)
 				{
-					nextSector = 0;
+					// the old chain is broken, stop following it
+					nextSector = allocateSector();
 				}
+			}
+			else
+			{
+				nextSector = allocateSector();
+				oldNextSector = -1;
+			}
 
+			if (0xFFFF < archiveId)
+			{
 				writeBuffer[0] = (byte) (archiveId >> 24);
 				writeBuffer[1] = (byte) (archiveId >> 16);
 				writeBuffer[2] = (byte) (archiveId >> 8);
@@ -206,22 +444,11 @@ public class DataFile implements Closeable
 				writeBuffer[7] = (byte) (nextSector >> 8);
 				writeBuffer[8] = (byte) nextSector;
 				writeBuffer[9] = (byte) indexId;
-				dat.seek(SECTOR_SIZE * sector);
+				dat.seek((long) SECTOR_SIZE * sector);
 				dat.write(writeBuffer, 0, 10);
-
-				dataToWrite = data.remaining();
-				if (dataToWrite > 510)
-				{
-					dataToWrite = 510;
-				}
 			}
 			else
 			{
-				if (data.remaining() <= 512)
-				{
-					nextSector = 0;
-				}
-
 				writeBuffer[0] = (byte) (archiveId >> 8);
 				writeBuffer[1] = (byte) archiveId;
 				writeBuffer[2] = (byte) (part >> 8);
@@ -230,16 +457,11 @@ public class DataFile implements Closeable
 				writeBuffer[5] = (byte) (nextSector >> 8);
 				writeBuffer[6] = (byte) nextSector;
 				writeBuffer[7] = (byte) indexId;
-				dat.seek(SECTOR_SIZE * sector);
+				dat.seek((long) SECTOR_SIZE * sector);
 				dat.write(writeBuffer, 0, 8);
-
-				dataToWrite = data.remaining();
-				if (dataToWrite > 512)
-				{
-					dataToWrite = 512;
-				}
 			}
 
+			dataToWrite = Math.min(data.remaining(), blockSize);
 			data.get(writeBuffer, 0, dataToWrite);
 			dat.write(writeBuffer, 0, dataToWrite);
 			sector = nextSector;
@@ -250,4 +472,105 @@ public class DataFile implements Closeable
 		res.compressedLength = compressedData.length;
 		return res;
 	}
+
+	/**
+	 * Mark a sector as unused so that it can be reused by a later write
+	 *
+	 * @param sector
+	 */
+	public synchronized void freeSector(int sector)
+	{
+		freeSectors.set(sector);
+	}
+
+	public synchronized int getFreeSectorCount()
+	{
+		return freeSectors.cardinality();
+	}
+
+	private int allocateSector()
+	{
+		int sector = freeSectors.nextSetBit(1);
+		if (sector != -1 && sector < endSector)
+		{
+			freeSectors.clear(sector);
+			return sector;
+		}
+
+		return endSector++;
+	}
+
+	/**
+	 * Free the rest of an old sector chain, starting at the given part
+	 */
+	private void freeChain(int indexId, int archiveId, int part, int sector) throws IOException
+	{
+		// bound the walk by the number of sectors, in case the chain loops
+		for (int i = 0; sector > 0 && i < endSector; ++i, ++part)
+		{
+			int next = readNextSector(indexId, archiveId, part, sector);
+			if (next == -1)
+			{
+				break;
+			}
+
+			freeSectors.set(sector);
+			sector = next;
+		}
+	}
+
+	/**
+	 * Read the header of a sector being overwritten
+	 *
+	 * @return the next sector in the chain, 0 if this is the last sector, or
+	 * -1 if the sector does not hold the given part of the archive
+	 */
+	private int readNextSector(int indexId, int archiveId, int part, int sector) throws IOException
+	{
+		int headerSize = archiveId > 0xFFFF ? 10 : 8;
+		long position = (long) SECTOR_SIZE * sector;
+
+		if (sector <= 0 || position + headerSize > dat.length() || freeSectors.get(sector))
+		{
+			return -1;
+		}
+
+		byte[] header = new byte[headerSize];
+		if (read(dat.getChannel(), header, headerSize, position) != headerSize)
+		{
+			return -1;
+		}
+
+		int currentArchive, currentPart, nextSector, currentIndex;
+		if (headerSize == 10)
+		{
+			currentArchive = ((header[0] & 0xFF) << 24)
+				| ((header[1] & 0xFF) << 16)
+				| ((header[2] & 0xFF) << 8)
+				| (header[3] & 0xFF);
+			currentPart = ((header[4] & 0xFF) << 8) | (header[5] & 0xFF);
+			nextSector = ((header[6] & 0xFF) << 16)
+				| ((header[7] & 0xFF) << 8)
+				| (header[8] & 0xFF);
+			currentIndex = header[9] & 0xFF;
+		}
+		else
+		{
+			currentArchive = ((header[0] & 0xFF) << 8)
+				| (header[1] & 0xFF);
+			currentPart = ((header[2] & 0xFF) << 8)
+				| (header[3] & 0xFF);
+			nextSector = ((header[4] & 0xFF) << 16)
+				| ((header[5] & 0xFF) << 8)
+				| (header[6] & 0xFF);
+			currentIndex = header[7] & 0xFF;
+		}
+
+		if (currentArchive != archiveId || currentPart != (part & 0xFFFF) || currentIndex != indexId)
+		{
+			return -1;
+		}
+
+		return nextSector;
+	}
 }
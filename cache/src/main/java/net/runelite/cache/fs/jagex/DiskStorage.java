@@ -26,10 +26,12 @@ package net.runelite.cache.fs.jagex;
 
 import com.google.common.primitives.Ints;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Container;
 import net.runelite.cache.fs.Index;
@@ -47,19 +49,40 @@ public class DiskStorage implements Storage
 
 	private static final String MAIN_FILE_CACHE_DAT = "main_file_cache.dat2";
 	private static final String MAIN_FILE_CACHE_IDX = "main_file_cache.idx";
+	private static final String TMP_SUFFIX = ".tmp";
 
 	private final File folder;
+	private final boolean readOnly;
 
 	private final DataFile data;
 	private final IndexFile index255;
-	private final List<IndexFile> indexFiles = new ArrayList<>();
+	private final List<IndexFile> indexFiles = new CopyOnWriteArrayList<>();
 
 	public DiskStorage(File folder) throws IOException
+	{
+		this(folder, false);
+	}
+
+	/**
+	 * Open the cache in the given folder. A read only storage memory maps
+	 * the data and index files, and can not be saved to.
+	 *
+	 * @param folder
+	 * @param readOnly
+	 * @throws IOException
+	 */
+	public DiskStorage(File folder, boolean readOnly) throws IOException
 	{
 		this.folder = folder;
+		this.readOnly = readOnly;
 
-		this.data = new DataFile(new File(folder, MAIN_FILE_CACHE_DAT));
-		this.index255 = new IndexFile(255, new File(folder, MAIN_FILE_CACHE_IDX + "255"));
+		this.data = new DataFile(new File(folder, MAIN_FILE_CACHE_DAT), readOnly);
+		this.index255 = new IndexFile(255, new File(folder, MAIN_FILE_CACHE_IDX + "255"), readOnly);
+	}
+
+	public boolean isReadOnly()
+	{
+		return readOnly;
 	}
 
 	@Override
@@ -85,7 +108,27 @@ public class DiskStorage implements Storage
 		}
 	}
 
-	private IndexFile getIndex(int i) throws FileNotFoundException
+	private IndexFile getIndex(int i) throws IOException
+	{
+		IndexFile indexFile = findIndex(i);
+		if (indexFile != null)
+		{
+			return indexFile;
+		}
+
+		synchronized (indexFiles)
+		{
+			indexFile = findIndex(i);
+			if (indexFile == null)
+			{
+				indexFile = new IndexFile(i, new File(folder, MAIN_FILE_CACHE_IDX + i), readOnly);
+				indexFiles.add(indexFile);
+			}
+			return indexFile;
+		}
+	}
+
+	private IndexFile findIndex(int i)
 	{
 		for (IndexFile indexFile : indexFiles)
 		{
@@ -94,10 +137,7 @@ public class DiskStorage implements Storage
 				return indexFile;
 			}
 		}
-
-		IndexFile indexFile = new IndexFile(i, new File(folder, MAIN_FILE_CACHE_IDX + i));
-		indexFiles.add(indexFile);
-		return indexFile;
+		return null;
 	}
 
 	@Override
@@ -171,6 +211,18 @@ public class DiskStorage implements Storage
 		return archiveData;
 	}
 
+	/**
+	 * Find where an archive is stored in the data file
+	 *
+	 * @param archive
+	 * @return the index entry of the archive, or null if it has none
+	 * @throws IOException
+	 */
+	public IndexEntry findEntry(Archive archive) throws IOException
+	{
+		return getIndex(archive.getIndex().getId()).read(archive.getArchiveId());
+	}
+
 	@Override
 	public void save(Store store) throws IOException
 	{
@@ -190,7 +242,9 @@ public class DiskStorage implements Storage
 		Container container = new Container(index.getCompression(), -1); // index data revision is always -1
 		container.compress(data, null);
 		byte[] compressedData = container.data;
-		DataFileWriteResult res = this.data.write(index255.getIndexFileId(), index.getId(), compressedData);
+		IndexEntry existing = index255.read(index.getId());
+		DataFileWriteResult res = this.data.write(index255.getIndexFileId(), index.getId(), compressedData,
+			existing != null ? existing.getSector() : 0);
 
 		index255.write(new IndexEntry(index255, index.getId(), res.sector, res.compressedLength));
 
@@ -206,7 +260,10 @@ public class DiskStorage implements Storage
 		IndexFile indexFile = getIndex(index.getId());
 		assert indexFile.getIndexFileId() == index.getId();
 
-		DataFileWriteResult res = data.write(index.getId(), a.getArchiveId(), archiveData);
+		// overwrite the archive in place if it already exists
+		IndexEntry existing = indexFile.read(a.getArchiveId());
+		DataFileWriteResult res = data.write(index.getId(), a.getArchiveId(), archiveData,
+			existing != null ? existing.getSector() : 0);
 		indexFile.write(new IndexEntry(indexFile, a.getArchiveId(), res.sector, res.compressedLength));
 
 		byte compression = archiveData[0];
@@ -226,4 +283,88 @@ public class DiskStorage implements Storage
 		logger.trace("Saved archive {}/{} at sector {}, compressed length {}",
 			index.getId(), a.getArchiveId(), res.sector, res.compressedLength);
 	}
+
+	/**
+	 * Rewrite the cache in the given folder so the archives of each index
+	 * are laid out in contiguous sectors, dropping any unused sectors. The
+	 * cache must not be open while it is being compacted.
+	 *
+	 * @param folder
+	 * @throws IOException
+	 */
+	public static void compact(File folder) throws IOException
+	{
+		File datFile = new File(folder, MAIN_FILE_CACHE_DAT);
+		File tmpDatFile = new File(folder, MAIN_FILE_CACHE_DAT + TMP_SUFFIX);
+		List<File> compacted = new ArrayList<>();
+
+		// the old files are not mapped, so they can be replaced once closed
+		try (DataFile oldData = new DataFile(datFile);
+			DataFile newData = new DataFile(tmpDatFile))
+		{
+			newData.clear();
+
+			File idx255 = new File(folder, MAIN_FILE_CACHE_IDX + "255");
+			int indexCount;
+			try (IndexFile index255 = new IndexFile(255, idx255))
+			{
+				indexCount = index255.getIndexCount();
+			}
+
+			compactIndex(oldData, newData, 255, idx255);
+			compacted.add(idx255);
+
+			for (int i = 0; i < indexCount; ++i)
+			{
+				File idx = new File(folder, MAIN_FILE_CACHE_IDX + i);
+				if (!idx.exists())
+				{
+					continue;
+				}
+
+				compactIndex(oldData, newData, i, idx);
+				compacted.add(idx);
+			}
+		}
+
+		Files.move(tmpDatFile.toPath(), datFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		for (File idx : compacted)
+		{
+			Files.move(new File(idx.getPath() + TMP_SUFFIX).toPath(), idx.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		logger.debug("Compacted cache in {}", folder);
+	}
+
+	private static void compactIndex(DataFile oldData, DataFile newData, int indexId, File file) throws IOException
+	{
+		try (IndexFile oldIndex = new IndexFile(indexId, file);
+			IndexFile newIndex = new IndexFile(indexId, new File(file.getPath() + TMP_SUFFIX)))
+		{
+			newIndex.clear();
+
+			for (int id = 0; id < oldIndex.getIndexCount(); ++id)
+			{
+				IndexEntry entry = oldIndex.read(id);
+				byte[] archiveData = entry != null
+					? oldData.read(indexId, id, entry.getSector(), entry.getLength())
+					: null;
+
+				if (archiveData == null)
+				{
+					if (entry != null)
+					{
+						logger.warn("Unable to read archive {}/{} while compacting, dropping it", indexId, id);
+					}
+
+					// keep the index file the same length
+					newIndex.write(new IndexEntry(newIndex, id, 0, 0));
+					continue;
+				}
+
+				DataFileWriteResult res = newData.write(indexId, id, archiveData);
+				newIndex.write(new IndexEntry(newIndex, id, res.sector, res.compressedLength));
+			}
+		}
+	}
 }
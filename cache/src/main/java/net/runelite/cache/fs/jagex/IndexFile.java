@@ -29,6 +29,9 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Objects;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,12 +46,39 @@ public class IndexFile implements Closeable
 	private final File file;
 	private final RandomAccessFile idx;
 	private final byte[] buffer = new byte[INDEX_ENTRY_LEN];
+	private final MappedByteBuffer mapped; // null unless read only
 
 	public IndexFile(int indexFileId, File file) throws FileNotFoundException
 	{
 		this.indexFileId = indexFileId;
 		this.file = file;
 		this.idx = new RandomAccessFile(file, "rw");
+		this.mapped = null;
+	}
+
+	/**
+	 * Open an index file. If readOnly is set the file is memory mapped,
+	 * and entries are read directly from the mapping.
+	 *
+	 * @param indexFileId
+	 * @param file
+	 * @param readOnly
+	 * @throws IOException
+	 */
+	public IndexFile(int indexFileId, File file, boolean readOnly) throws IOException
+	{
+		this.indexFileId = indexFileId;
+		this.file = file;
+		if (readOnly)
+		{
+			this.idx = new RandomAccessFile(file, "r");
+			this.mapped = idx.getChannel().map(FileChannel.MapMode.READ_ONLY, 0L, idx.length());
+		}
+		else
+		{
+			this.idx = new RandomAccessFile(file, "rw");
+			this.mapped = null;
+		}
 	}
 
 	@Override
@@ -59,6 +89,11 @@ public class IndexFile implements Closeable
 
 	public void clear() throws IOException
 	{
+		if (isReadOnly())
+		{
+			throw new IOException("index file is read only");
+		}
+
 		idx.setLength(0L);
 	}
 
@@ -94,8 +129,18 @@ public class IndexFile implements Closeable
 		return indexFileId;
 	}
 
+	public boolean isReadOnly()
+	{
+		return mapped != null;
+	}
+
 	public synchronized void write(IndexEntry entry) throws IOException
 	{
+		if (isReadOnly())
+		{
+			throw new IOException("index file is read only");
+		}
+
 		idx.seek(entry.getId() * INDEX_ENTRY_LEN);
 
 		buffer[0] = (byte) (entry.getLength() >> 16);
@@ -109,19 +154,55 @@ public class IndexFile implements Closeable
 		idx.write(buffer);
 	}
 
-	public synchronized IndexEntry read(int id) throws IOException
+	public IndexEntry read(int id) throws IOException
 	{
-		idx.seek(id * INDEX_ENTRY_LEN);
-		int i = idx.read(buffer);
+		if (isReadOnly())
+		{
+			return readMapped(id);
+		}
+
+		// positional read so this is safe to call concurrently
+		ByteBuffer buf = ByteBuffer.allocate(INDEX_ENTRY_LEN);
+		FileChannel channel = idx.getChannel();
+		while (buf.hasRemaining())
+		{
+			if (channel.read(buf, (long) id * INDEX_ENTRY_LEN + buf.position()) == -1)
+			{
+				break;
+			}
+		}
+
+		int i = buf.position();
 		if (i != INDEX_ENTRY_LEN)
 		{
 			logger.debug("short read for id {} on index {}: {}", id, indexFileId, i);
 			return null;
 		}
 
-		int length = ((buffer[0] & 0xFF) << 16) | ((buffer[1] & 0xFF) << 8) | (buffer[2] & 0xFF);
-		int sector = ((buffer[3] & 0xFF) << 16) | ((buffer[4] & 0xFF) << 8) | (buffer[5] & 0xFF);
+		byte[] data = buf.array();
+		int length = ((data[0] & 0xFF) << 16) | ((data[1] & 0xFF) << 8) | (data[2] & 0xFF);
+		int sector = ((data[3] & 0xFF) << 16) | ((data[4] & 0xFF) << 8) | (data[5] & 0xFF);
 
+		return toEntry(id, sector, length);
+	}
+
+	private IndexEntry readMapped(int id)
+	{
+		int position = id * INDEX_ENTRY_LEN;
+		if (id < 0 || position + INDEX_ENTRY_LEN > mapped.limit())
+		{
+			logger.debug("short read for id {} on index {}", id, indexFileId);
+			return null;
+		}
+
+		int length = ((mapped.get(position) & 0xFF) << 16) | ((mapped.get(position + 1) & 0xFF) << 8) | (mapped.get(position + 2) & 0xFF);
+		int sector = ((mapped.get(position + 3) & 0xFF) << 16) | ((mapped.get(position + 4) & 0xFF) << 8) | (mapped.get(position + 5) & 0xFF);
+
+		return toEntry(id, sector, length);
+	}
+
+	private IndexEntry toEntry(int id, int sector, int length)
+	{
 		if (length <= 0 || sector <= 0)
 		{
 			logger.debug("invalid length or sector {}/{}", length, sector);
@@ -131,8 +212,13 @@ public class IndexFile implements Closeable
 		return new IndexEntry(this, id, sector, length);
 	}
 
-	public synchronized int getIndexCount() throws IOException
+	public int getIndexCount() throws IOException
 	{
-		return (int) (idx.length() / INDEX_ENTRY_LEN);
+		if (isReadOnly())
+		{
+			return mapped.limit() / INDEX_ENTRY_LEN;
+		}
+
+		return (int) (idx.getChannel().size() / INDEX_ENTRY_LEN);
 	}
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.patch;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.runelite.cache.fs.Archive;
+
+/**
+ * The archives of one index which differ between two stores. Added and
+ * changed archives belong to the newer store, removed archives to the
+ * older one.
+ */
+public class IndexDiff
+{
+	private final int indexId;
+	private final boolean indexAdded;
+
+	private final List<Archive> addedArchives = new ArrayList<>();
+	private final List<Archive> changedArchives = new ArrayList<>();
+	private final List<Archive> removedArchives = new ArrayList<>();
+
+	IndexDiff(int indexId, boolean indexAdded)
+	{
+		this.indexId = indexId;
+		this.indexAdded = indexAdded;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "IndexDiff{" + "indexId=" + indexId + ", indexAdded=" + indexAdded
+			+ ", added=" + addedArchives.size() + ", changed=" + changedArchives.size() + ", removed=" + removedArchives.size() + '}';
+	}
+
+	public int getIndexId()
+	{
+		return indexId;
+	}
+
+	public boolean isIndexAdded()
+	{
+		return indexAdded;
+	}
+
+	public List<Archive> getAddedArchives()
+	{
+		return addedArchives;
+	}
+
+	public List<Archive> getChangedArchives()
+	{
+		return changedArchives;
+	}
+
+	public List<Archive> getRemovedArchives()
+	{
+		return removedArchives;
+	}
+
+	/**
+	 * @return whether this index only differs in its settings, or not at all
+	 */
+	public boolean isEmpty()
+	{
+		return addedArchives.isEmpty() && changedArchives.isEmpty() && removedArchives.isEmpty();
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.patch;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.index.FileData;
+
+/**
+ * The differences between two stores, found by comparing the crc, revision,
+ * name hash and files of each archive. The archive contents are not read.
+ */
+public class StoreDiff
+{
+	private final List<IndexDiff> indexes = new ArrayList<>();
+
+	StoreDiff()
+	{
+	}
+
+	/**
+	 * Compute the differences needed to go from one store to another.
+	 * Both stores must be loaded.
+	 * <p>
+	 * Every index of the older store must also be in the newer one. The
+	 * disk storage has an entry for every index id up to its index count,
+	 * so a removed index can't be saved.
+	 *
+	 * @param from
+	 * @param to
+	 * @return
+	 * @throws IllegalArgumentException if an index has been removed
+	 */
+	public static StoreDiff diff(Store from, Store to)
+	{
+		StoreDiff diff = new StoreDiff();
+
+		for (Index fromIndex : from.getIndexes())
+		{
+			if (to.findIndex(fromIndex.getId()) == null)
+			{
+				throw new IllegalArgumentException("index " + fromIndex.getId() + " has been removed, which isn't supported");
+			}
+		}
+
+		for (Index toIndex : to.getIndexes())
+		{
+			Index fromIndex = from.findIndex(toIndex.getId());
+			IndexDiff indexDiff = new IndexDiff(toIndex.getId(), fromIndex == null);
+
+			for (Archive archive : toIndex.getArchives())
+			{
+				Archive existing = fromIndex != null ? fromIndex.getArchive(archive.getArchiveId()) : null;
+				if (existing == null)
+				{
+					indexDiff.getAddedArchives().add(archive);
+				}
+				else if (!isSame(existing, archive))
+				{
+					indexDiff.getChangedArchives().add(archive);
+				}
+			}
+
+			if (fromIndex != null)
+			{
+				for (Archive archive : fromIndex.getArchives())
+				{
+					if (toIndex.getArchive(archive.getArchiveId()) == null)
+					{
+						indexDiff.getRemovedArchives().add(archive);
+					}
+				}
+			}
+
+			if (fromIndex == null || !indexDiff.isEmpty() || !isSame(fromIndex, toIndex))
+			{
+				diff.indexes.add(indexDiff);
+			}
+		}
+
+		diff.indexes.sort((i1, i2) -> Integer.compare(i1.getIndexId(), i2.getIndexId()));
+		return diff;
+	}
+
+	static boolean isSame(Index i1, Index i2)
+	{
+		return i1.getRevision() == i2.getRevision()
+			&& i1.getProtocol() == i2.getProtocol()
+			&& i1.isNamed() == i2.isNamed();
+	}
+
+	static boolean isSame(Archive a1, Archive a2)
+	{
+		return a1.getCrc() == a2.getCrc()
+			&& a1.getRevision() == a2.getRevision()
+			&& a1.getNameHash() == a2.getNameHash()
+			&& isSame(a1.getFileData(), a2.getFileData());
+	}
+
+	private static boolean isSame(FileData[] f1, FileData[] f2)
+	{
+		if (f1 == null || f2 == null)
+		{
+			return f1 == f2;
+		}
+
+		if (f1.length != f2.length)
+		{
+			return false;
+		}
+
+		for (int i = 0; i < f1.length; ++i)
+		{
+			if (f1[i].getId() != f2[i].getId() || f1[i].getNameHash() != f2[i].getNameHash())
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public String toString()
+	{
+		int added = 0, changed = 0, removed = 0;
+		for (IndexDiff indexDiff : indexes)
+		{
+			added += indexDiff.getAddedArchives().size();
+			changed += indexDiff.getChangedArchives().size();
+			removed += indexDiff.getRemovedArchives().size();
+		}
+		return "StoreDiff{" + "indexes=" + indexes.size() + ", added=" + added + ", changed=" + changed + ", removed=" + removed + '}';
+	}
+
+	/**
+	 * @return the indexes which differ, in order of id
+	 */
+	public List<IndexDiff> getIndexes()
+	{
+		return indexes;
+	}
+
+	public IndexDiff findIndex(int id)
+	{
+		for (IndexDiff indexDiff : indexes)
+		{
+			if (indexDiff.getIndexId() == id)
+			{
+				return indexDiff;
+			}
+		}
+		return null;
+	}
+
+	public boolean isEmpty()
+	{
+		return indexes.isEmpty();
+	}
+}
@@ -0,0 +1,477 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.patch;
+
+import com.google.common.primitives.Ints;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Comparator;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Storage;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.flat.BinaryFlatStorage;
+import net.runelite.cache.fs.flat.FlatStorage;
+import net.runelite.cache.fs.jagex.CompressionType;
+import net.runelite.cache.fs.jagex.DiskStorage;
+import net.runelite.cache.index.FileData;
+import net.runelite.cache.util.Crc32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the differences between two stores to a patch file, and applies
+ * patch files to a store in place. A patch contains the new settings of
+ * each changed index, and the metadata and compressed contents of each
+ * added or changed archive. Archives which are the same in both stores are
+ * not included.
+ * <p>
+ * A patch records the revision of each index and the crc of each archive it
+ * replaces, and is only applied if the store matches them.
+ */
+public class StorePatch
+{
+	private static final Logger logger = LoggerFactory.getLogger(StorePatch.class);
+
+	private static final int MAGIC = 0x524c4350; // RLCP
+	private static final int VERSION = 1;
+
+	private static final int INDEX_CHANGED = 0;
+	private static final int INDEX_ADDED = 1;
+
+	/**
+	 * Write a patch which turns one store into another.
+	 *
+	 * @param from
+	 * @param to
+	 * @param file
+	 * @return the differences written to the patch
+	 * @throws IOException
+	 */
+	public static StoreDiff write(Store from, Store to, File file) throws IOException
+	{
+		try (OutputStream out = new FileOutputStream(file))
+		{
+			return write(from, to, out);
+		}
+	}
+
+	public static StoreDiff write(Store from, Store to, OutputStream os) throws IOException
+	{
+		StoreDiff diff = StoreDiff.diff(from, to);
+		Storage storage = to.getStorage();
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os));
+		out.writeInt(MAGIC);
+		out.writeByte(VERSION);
+		out.writeInt(diff.getIndexes().size());
+
+		for (IndexDiff indexDiff : diff.getIndexes())
+		{
+			Index fromIndex = from.findIndex(indexDiff.getIndexId());
+			Index toIndex = to.findIndex(indexDiff.getIndexId());
+
+			out.writeByte(indexDiff.getIndexId());
+			if (indexDiff.isIndexAdded())
+			{
+				out.writeByte(INDEX_ADDED);
+			}
+			else
+			{
+				out.writeByte(INDEX_CHANGED);
+				out.writeInt(fromIndex.getRevision());
+			}
+
+			out.writeByte(toIndex.getProtocol());
+			out.writeBoolean(toIndex.isNamed());
+			out.writeInt(toIndex.getRevision());
+			out.writeByte(toIndex.getCompression());
+
+			out.writeInt(indexDiff.getRemovedArchives().size());
+			for (Archive archive : indexDiff.getRemovedArchives())
+			{
+				out.writeInt(archive.getArchiveId());
+				out.writeInt(archive.getCrc());
+			}
+
+			out.writeInt(indexDiff.getAddedArchives().size() + indexDiff.getChangedArchives().size());
+			for (Archive archive : indexDiff.getAddedArchives())
+			{
+				writeArchive(out, storage, archive, null);
+			}
+			for (Archive archive : indexDiff.getChangedArchives())
+			{
+				writeArchive(out, storage, archive, fromIndex.getArchive(archive.getArchiveId()));
+			}
+		}
+
+		out.flush();
+
+		logger.debug("Wrote patch: {}", diff);
+		return diff;
+	}
+
+	private static void writeArchive(DataOutputStream out, Storage storage, Archive archive, Archive base) throws IOException
+	{
+		out.writeBoolean(base != null);
+		out.writeInt(archive.getArchiveId());
+		if (base != null)
+		{
+			out.writeInt(base.getCrc());
+		}
+
+		out.writeInt(archive.getNameHash());
+		out.writeInt(archive.getRevision());
+		out.writeInt(archive.getCrc());
+
+		byte[] hash = archive.getHash();
+		out.writeByte(hash != null ? hash.length : 0);
+		if (hash != null)
+		{
+			out.write(hash);
+		}
+
+		FileData[] files = archive.getFileData();
+		out.writeInt(files.length);
+		for (FileData file : files)
+		{
+			out.writeInt(file.getId());
+			out.writeInt(file.getNameHash());
+		}
+
+		byte[] data = storage.loadArchive(archive);
+		if (data == null || data.length == 0)
+		{
+			throw new IOException("archive " + archive.getIndex().getId() + "/" + archive.getArchiveId() + " has no data");
+		}
+
+		out.writeInt(data.length);
+		out.write(data);
+	}
+
+	/**
+	 * Apply a patch to a loaded store, and save it. The whole patch is
+	 * checked against the store before anything is changed.
+	 *
+	 * @param file
+	 * @param store
+	 * @return the differences applied to the store
+	 * @throws IOException if the patch is invalid or doesn't apply to the store
+	 */
+	public static StoreDiff apply(File file, Store store) throws IOException
+	{
+		try (InputStream in = new FileInputStream(file))
+		{
+			read(in, store, false);
+		}
+
+		StoreDiff diff;
+		try (InputStream in = new FileInputStream(file))
+		{
+			diff = read(in, store, true);
+		}
+
+		store.save();
+
+		logger.debug("Applied patch: {}", diff);
+		return diff;
+	}
+
+	private static StoreDiff read(InputStream is, Store store, boolean apply) throws IOException
+	{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(is));
+		if (in.readInt() != MAGIC)
+		{
+			throw new IOException("not a patch file");
+		}
+
+		int version = in.readUnsignedByte();
+		if (version != VERSION)
+		{
+			throw new IOException("unsupported patch version " + version);
+		}
+
+		StoreDiff diff = new StoreDiff();
+		Storage storage = store.getStorage();
+
+		int indexCount = in.readInt();
+		for (int i = 0; i < indexCount; ++i)
+		{
+			int indexId = in.readUnsignedByte();
+			int type = in.readUnsignedByte();
+			Index index = store.findIndex(indexId);
+
+			if (type != INDEX_ADDED && type != INDEX_CHANGED)
+			{
+				throw new IOException("unknown change type " + type + " for index " + indexId);
+			}
+
+			if (type == INDEX_ADDED)
+			{
+				if (index != null)
+				{
+					throw new IOException("patch adds index " + indexId + " which already exists");
+				}
+			}
+			else
+			{
+				int baseRevision = in.readInt();
+				if (index == null || index.getRevision() != baseRevision)
+				{
+					throw new IOException("patch is for revision " + baseRevision + " of index " + indexId
+						+ ", but the store has " + (index == null ? "no index" : "revision " + index.getRevision()));
+				}
+			}
+
+			IndexDiff indexDiff = new IndexDiff(indexId, type == INDEX_ADDED);
+			diff.getIndexes().add(indexDiff);
+
+			int protocol = in.readUnsignedByte();
+			boolean named = in.readBoolean();
+			int revision = in.readInt();
+			int compression = in.readUnsignedByte();
+
+			if (apply)
+			{
+				if (index == null)
+				{
+					index = store.addIndex(indexId);
+				}
+
+				index.setProtocol(protocol);
+				index.setNamed(named);
+				index.setRevision(revision);
+				index.setCompression(compression);
+			}
+
+			int removedCount = in.readInt();
+			for (int j = 0; j < removedCount; ++j)
+			{
+				int archiveId = in.readInt();
+				int baseCrc = in.readInt();
+
+				Archive archive = index != null ? index.getArchive(archiveId) : null;
+				checkBase(indexId, archiveId, archive, baseCrc);
+
+				if (apply)
+				{
+					index.removeArchive(archive);
+					indexDiff.getRemovedArchives().add(archive);
+				}
+			}
+
+			int archiveCount = in.readInt();
+			for (int j = 0; j < archiveCount; ++j)
+			{
+				readArchive(in, storage, index, indexId, indexDiff, apply);
+			}
+
+			if (apply)
+			{
+				// index data is written in order of archive id
+				index.getArchives().sort(Comparator.comparing(Archive::getArchiveId));
+			}
+		}
+
+		return diff;
+	}
+
+	private static void readArchive(DataInputStream in, Storage storage, Index index, int indexId, IndexDiff indexDiff, boolean apply) throws IOException
+	{
+		boolean changed = in.readBoolean();
+		int archiveId = in.readInt();
+		Archive archive = index != null ? index.getArchive(archiveId) : null;
+
+		if (changed)
+		{
+			checkBase(indexId, archiveId, archive, in.readInt());
+		}
+		else if (archive != null)
+		{
+			throw new IOException("patch adds archive " + indexId + "/" + archiveId + " which already exists");
+		}
+
+		int nameHash = in.readInt();
+		int revision = in.readInt();
+		int crc = in.readInt();
+
+		byte[] hash = null;
+		int hashLength = in.readUnsignedByte();
+		if (hashLength > 0)
+		{
+			hash = new byte[hashLength];
+			in.readFully(hash);
+		}
+
+		FileData[] files = new FileData[in.readInt()];
+		for (int i = 0; i < files.length; ++i)
+		{
+			FileData file = files[i] = new FileData();
+			file.setId(in.readInt());
+			file.setNameHash(in.readInt());
+		}
+
+		int length = in.readInt();
+		if (length <= 0)
+		{
+			throw new IOException("archive " + indexId + "/" + archiveId + " has no data in the patch");
+		}
+
+		byte[] data = new byte[length];
+		in.readFully(data);
+
+		int dataCrc = crc(data);
+		if (dataCrc != crc)
+		{
+			throw new IOException("archive " + indexId + "/" + archiveId + " data in the patch has crc " + dataCrc + ", expected " + crc);
+		}
+
+		if (!apply)
+		{
+			return;
+		}
+
+		if (archive == null)
+		{
+			archive = index.addArchive(archiveId);
+			indexDiff.getAddedArchives().add(archive);
+		}
+		else
+		{
+			indexDiff.getChangedArchives().add(archive);
+		}
+
+		archive.setNameHash(nameHash);
+		archive.setRevision(revision);
+		archive.setHash(hash);
+		archive.setFileData(files);
+
+		archive.setCompression(data[0]);
+		storage.saveArchive(archive, data);
+		archive.setCrc(crc);
+	}
+
+	/**
+	 * Compute the crc of archive data, excluding the revision appended to
+	 * the container.
+	 *
+	 * @param data
+	 * @return
+	 * @throws IOException if the data is truncated
+	 */
+	private static int crc(byte[] data) throws IOException
+	{
+		if (data.length < 5)
+		{
+			throw new IOException("truncated archive data");
+		}
+
+		int compression = data[0] & 0xff;
+		int compressedLength = Ints.fromBytes(data[1], data[2], data[3], data[4]);
+		int length = 5 + compressedLength + (compression != CompressionType.NONE ? 4 : 0);
+		if (compressedLength < 0 || length > data.length)
+		{
+			throw new IOException("truncated archive data, expected " + length + " bytes but have " + data.length);
+		}
+
+		Crc32 crc32 = new Crc32();
+		crc32.update(data, 0, length);
+		return crc32.getHash();
+	}
+
+	private static void checkBase(int indexId, int archiveId, Archive archive, int baseCrc) throws IOException
+	{
+		if (archive == null)
+		{
+			throw new IOException("patch changes archive " + indexId + "/" + archiveId + " which doesn't exist");
+		}
+
+		if (archive.getCrc() != baseCrc)
+		{
+			throw new IOException("patch changes archive " + indexId + "/" + archiveId
+				+ " with crc " + baseCrc + ", but the store has crc " + archive.getCrc());
+		}
+	}
+
+	private static Store openStore(File folder) throws IOException
+	{
+		String[] flat = folder.list((dir, name) -> name.endsWith(".flatcache"));
+		String[] binary = folder.list((dir, name) -> name.endsWith(".flatbin"));
+
+		Storage storage;
+		if (flat != null && flat.length > 0)
+		{
+			storage = new FlatStorage(folder);
+		}
+		else if (binary != null && binary.length > 0)
+		{
+			storage = new BinaryFlatStorage(folder);
+		}
+		else
+		{
+			storage = new DiskStorage(folder);
+		}
+
+		Store store = new Store(storage);
+		store.load();
+		return store;
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length == 4 && "diff".equals(args[0]))
+		{
+			try (Store from = openStore(new File(args[1]));
+				Store to = openStore(new File(args[2])))
+			{
+				File patch = new File(args[3]);
+				StoreDiff diff = write(from, to, patch);
+				logger.info("Wrote {} to {} ({} bytes)", diff, patch, patch.length());
+			}
+		}
+		else if (args.length == 3 && "apply".equals(args[0]))
+		{
+			try (Store store = openStore(new File(args[1])))
+			{
+				StoreDiff diff = apply(new File(args[2]), store);
+				logger.info("Applied {}", diff);
+			}
+		}
+		else
+		{
+			System.err.println("Usage: StorePatch diff <from> <to> <patch>");
+			System.err.println("       StorePatch apply <cache> <patch>");
+			System.exit(-1);
+		}
+	}
+}
@@ -32,24 +32,37 @@ import net.runelite.cache.definitions.providers.ItemProvider;
 import net.runelite.cache.definitions.providers.ModelProvider;
 import net.runelite.cache.definitions.providers.SpriteProvider;
 import net.runelite.cache.definitions.providers.TextureProvider;
-import net.runelite.cache.models.FaceNormal;
-import net.runelite.cache.models.VertexNormal;
 
 public class ItemSpriteFactory
 {
+	static final double BRIGHTNESS = 0.6d;
+
+	@FunctionalInterface
+	interface ModelSource
+	{
+		Model getModel(ItemDefinition item) throws IOException;
+	}
+
 	public static final BufferedImage createSprite(ItemProvider itemProvider, ModelProvider modelProvider,
 		SpriteProvider spriteProvider, TextureProvider textureProvider,
 		int itemId, int quantity, int border, int shadowColor,
 		boolean noted) throws IOException
 	{
-		SpritePixels spritePixels = createSpritePixels(itemProvider, modelProvider, spriteProvider, textureProvider,
+		RSTextureProvider rsTextureProvider = new RSTextureProvider(textureProvider, spriteProvider);
+		Graphics3D graphics = new Graphics3D(rsTextureProvider);
+		graphics.setBrightness(BRIGHTNESS);
+
+		SpritePixels spritePixels = createSpritePixels(itemProvider, item -> getModel(modelProvider, item), graphics,
 			itemId, quantity, border, shadowColor, noted);
 		return spritePixels == null ? null : spritePixels.toBufferedImage();
 	}
 
-	private static final SpritePixels createSpritePixels(ItemProvider itemProvider, ModelProvider modelProvider,
-		SpriteProvider spriteProvider, TextureProvider textureProvider,
-		int itemId, int quantity, int border, int shadowColor,
+	/**
+	 * Render an item with the given rasterizer, which is reused for any
+	 * other items drawn into the sprite, such as the note for noted items
+	 */
+	static final SpritePixels createSpritePixels(ItemProvider itemProvider, ModelSource modelSource,
+		Graphics3D graphics, int itemId, int quantity, int border, int shadowColor,
 		boolean noted) throws IOException
 	{
 		ItemDefinition item = itemProvider.provide(itemId);
@@ -77,7 +90,7 @@ public class ItemSpriteFactory
 			item.updateNote(itemProvider.provide(item.notedTemplate), itemProvider.provide(item.notedID));
 		}
 
-		Model itemModel = getModel(modelProvider, item);
+		Model itemModel = modelSource.getModel(item);
 		if (itemModel == null)
 		{
 			return null;
@@ -86,7 +99,7 @@ public class ItemSpriteFactory
 		SpritePixels auxSpritePixels = null;
 		if (item.notedTemplate != -1)
 		{
-			auxSpritePixels = createSpritePixels(itemProvider, modelProvider, spriteProvider, textureProvider,
+			auxSpritePixels = createSpritePixels(itemProvider, modelSource, graphics,
 				item.notedID, 10, 1, 0, true);
 			if (auxSpritePixels == null)
 			{
@@ -95,7 +108,7 @@ public class ItemSpriteFactory
 		}
 		else if (item.boughtTemplateId != -1)
 		{
-			auxSpritePixels = createSpritePixels(itemProvider, modelProvider, spriteProvider, textureProvider,
+			auxSpritePixels = createSpritePixels(itemProvider, modelSource, graphics,
 				item.boughtId, quantity, border, shadowColor, false);
 			if (auxSpritePixels == null)
 			{
@@ -104,7 +117,7 @@ public class ItemSpriteFactory
 		}
 		else if (item.placeholderTemplateId != -1)
 		{
-			auxSpritePixels = createSpritePixels(itemProvider, modelProvider, spriteProvider, textureProvider,
+			auxSpritePixels = createSpritePixels(itemProvider, modelSource, graphics,
 				item.placeholderId, quantity, 0, 0, false);
 			if (auxSpritePixels == null)
 			{
@@ -112,11 +125,7 @@ public class ItemSpriteFactory
 			}
 		}
 
-		RSTextureProvider rsTextureProvider = new RSTextureProvider(textureProvider, spriteProvider);
-
 		SpritePixels spritePixels = new SpritePixels(36, 32);
-		Graphics3D graphics = new Graphics3D(rsTextureProvider);
-		graphics.setBrightness(0.6d);
 		graphics.setRasterBuffer(spritePixels.pixels, 36, 32);
 		graphics.reset();
 		graphics.setRasterClipping();
@@ -183,7 +192,7 @@ public class ItemSpriteFactory
 		return spritePixels;
 	}
 
-	private static Model getModel(ModelProvider modelProvider, ItemDefinition item) throws IOException
+	static Model getModel(ModelProvider modelProvider, ItemDefinition item) throws IOException
 	{
 		Model itemModel;
 		ModelDefinition inventoryModel = modelProvider.provide(item.inventoryModel);
@@ -328,17 +337,15 @@ public class ItemSpriteFactory
 				faceType = 2;
 			}
 
-			VertexNormal vertexNormal;
+			int vertex;
 			int tmp;
-			FaceNormal faceNormal;
 			if (faceTexture == -1)
 			{
 				if (faceType != 0)
 				{
 					if (faceType == 1)
 					{
-						faceNormal = def.faceNormals[faceIdx];
-						tmp = (y * faceNormal.y + z * faceNormal.z + x * faceNormal.x) / (var7 / 2 + var7) + ambient;
+						tmp = (y * def.faceNormalsY[faceIdx] + z * def.faceNormalsZ[faceIdx] + x * def.faceNormalsX[faceIdx]) / (var7 / 2 + var7) + ambient;
 						litModel.field1856[faceIdx] = method2608(def.faceColors[faceIdx] & '\uffff', tmp);
 						litModel.field1823[faceIdx] = -1;
 					}
@@ -355,17 +362,17 @@ public class ItemSpriteFactory
 				else
 				{
 					int var15 = def.faceColors[faceIdx] & '\uffff';
-					vertexNormal = def.vertexNormals[def.faceVertexIndices1[faceIdx]];
+					vertex = def.faceVertexIndices1[faceIdx];
 
-					tmp = (y * vertexNormal.y + z * vertexNormal.z + x * vertexNormal.x) / (var7 * vertexNormal.magnitude) + ambient;
+					tmp = (y * def.vertexNormalsY[vertex] + z * def.vertexNormalsZ[vertex] + x * def.vertexNormalsX[vertex]) / (var7 * def.vertexNormalsMagnitude[vertex]) + ambient;
 					litModel.field1856[faceIdx] = method2608(var15, tmp);
-					vertexNormal = def.vertexNormals[def.faceVertexIndices2[faceIdx]];
+					vertex = def.faceVertexIndices2[faceIdx];
 
-					tmp = (y * vertexNormal.y + z * vertexNormal.z + x * vertexNormal.x) / (var7 * vertexNormal.magnitude) + ambient;
+					tmp = (y * def.vertexNormalsY[vertex] + z * def.vertexNormalsZ[vertex] + x * def.vertexNormalsX[vertex]) / (var7 * def.vertexNormalsMagnitude[vertex]) + ambient;
 					litModel.field1854[faceIdx] = method2608(var15, tmp);
-					vertexNormal = def.vertexNormals[def.faceVertexIndices3[faceIdx]];
+					vertex = def.faceVertexIndices3[faceIdx];
 
-					tmp = (y * vertexNormal.y + z * vertexNormal.z + x * vertexNormal.x) / (var7 * vertexNormal.magnitude) + ambient;
+					tmp = (y * def.vertexNormalsY[vertex] + z * def.vertexNormalsZ[vertex] + x * def.vertexNormalsX[vertex]) / (var7 * def.vertexNormalsMagnitude[vertex]) + ambient;
 					litModel.field1823[faceIdx] = method2608(var15, tmp);
 				}
 			}
@@ -373,8 +380,7 @@ public class ItemSpriteFactory
 			{
 				if (faceType == 1)
 				{
-					faceNormal = def.faceNormals[faceIdx];
-					tmp = (y * faceNormal.y + z * faceNormal.z + x * faceNormal.x) / (var7 / 2 + var7) + ambient;
+					tmp = (y * def.faceNormalsY[faceIdx] + z * def.faceNormalsZ[faceIdx] + x * def.faceNormalsX[faceIdx]) / (var7 / 2 + var7) + ambient;
 					litModel.field1856[faceIdx] = bound2to126(tmp);
 					litModel.field1823[faceIdx] = -1;
 				}
@@ -385,17 +391,17 @@ public class ItemSpriteFactory
 			}
 			else
 			{
-				vertexNormal = def.vertexNormals[def.faceVertexIndices1[faceIdx]];
+				vertex = def.faceVertexIndices1[faceIdx];
 
-				tmp = (y * vertexNormal.y + z * vertexNormal.z + x * vertexNormal.x) / (var7 * vertexNormal.magnitude) + ambient;
+				tmp = (y * def.vertexNormalsY[vertex] + z * def.vertexNormalsZ[vertex] + x * def.vertexNormalsX[vertex]) / (var7 * def.vertexNormalsMagnitude[vertex]) + ambient;
 				litModel.field1856[faceIdx] = bound2to126(tmp);
-				vertexNormal = def.vertexNormals[def.faceVertexIndices2[faceIdx]];
+				vertex = def.faceVertexIndices2[faceIdx];
 
-				tmp = (y * vertexNormal.y + z * vertexNormal.z + x * vertexNormal.x) / (var7 * vertexNormal.magnitude) + ambient;
+				tmp = (y * def.vertexNormalsY[vertex] + z * def.vertexNormalsZ[vertex] + x * def.vertexNormalsX[vertex]) / (var7 * def.vertexNormalsMagnitude[vertex]) + ambient;
 				litModel.field1854[faceIdx] = bound2to126(tmp);
-				vertexNormal = def.vertexNormals[def.faceVertexIndices3[faceIdx]];
+				vertex = def.faceVertexIndices3[faceIdx];
 
-				tmp = (y * vertexNormal.y + z * vertexNormal.z + x * vertexNormal.x) / (var7 * vertexNormal.magnitude) + ambient;
+				tmp = (y * def.vertexNormalsY[vertex] + z * def.vertexNormalsZ[vertex] + x * def.vertexNormalsX[vertex]) / (var7 * def.vertexNormalsMagnitude[vertex]) + ambient;
 				litModel.field1823[faceIdx] = bound2to126(tmp);
 			}
 		}
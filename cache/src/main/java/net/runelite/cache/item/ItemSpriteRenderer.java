@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.item;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.imageio.ImageIO;
+import lombok.Value;
+import net.runelite.cache.ParallelLoader;
+import net.runelite.cache.SpriteAtlas;
+import net.runelite.cache.definitions.ItemDefinition;
+import net.runelite.cache.definitions.SpriteDefinition;
+import net.runelite.cache.definitions.providers.ItemProvider;
+import net.runelite.cache.definitions.providers.ModelProvider;
+import net.runelite.cache.definitions.providers.SpriteProvider;
+import net.runelite.cache.definitions.providers.TextureProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Renders item sprites in bulk. Each thread renders with its own
+ * rasterizer, and lit models are shared between items which use the same
+ * model with the same recolors, retextures, resizing and lighting.
+ * <p>
+ * The providers must be safe to use from several threads, and the model
+ * provider must return a new definition on each call, as definitions are
+ * modified when they are lit.
+ */
+public class ItemSpriteRenderer
+{
+	private static final Logger logger = LoggerFactory.getLogger(ItemSpriteRenderer.class);
+
+	public static final int WIDTH = 36;
+	public static final int HEIGHT = 32;
+
+	private static final int MODEL_CACHE_SIZE = 4096;
+
+	@Value
+	private static class ModelKey
+	{
+		private final int modelId;
+		private final int resizeX, resizeY, resizeZ;
+		private final short[] colorFind, colorReplace;
+		private final short[] textureFind, textureReplace;
+		private final int ambient, contrast;
+
+		ModelKey(ItemDefinition item)
+		{
+			modelId = item.inventoryModel;
+			resizeX = item.resizeX;
+			resizeY = item.resizeY;
+			resizeZ = item.resizeZ;
+			colorFind = item.colorFind;
+			colorReplace = item.colorReplace;
+			textureFind = item.textureFind;
+			textureReplace = item.textureReplace;
+			ambient = item.ambient;
+			contrast = item.contrast;
+		}
+	}
+
+	private final ItemProvider itemProvider;
+	private final ModelProvider modelProvider;
+	private final RSTextureProvider textureProvider;
+	private final int[] colorPalette;
+	private final ThreadLocal<Graphics3D> graphics;
+
+	// a missing model is cached as a model with no vertices
+	private final Cache<ModelKey, Model> models = CacheBuilder.newBuilder()
+		.maximumSize(MODEL_CACHE_SIZE)
+		.recordStats()
+		.build();
+
+	public ItemSpriteRenderer(ItemProvider itemProvider, ModelProvider modelProvider,
+		SpriteProvider spriteProvider, TextureProvider textureProvider)
+	{
+		this.itemProvider = itemProvider;
+		this.modelProvider = modelProvider;
+		this.textureProvider = new RSTextureProvider(textureProvider, spriteProvider);
+		this.textureProvider.loadTextures();
+
+		Graphics3D g = new Graphics3D(this.textureProvider);
+		g.setBrightness(ItemSpriteFactory.BRIGHTNESS);
+		this.colorPalette = g.colorPalette;
+
+		this.graphics = ThreadLocal.withInitial(() ->
+		{
+			Graphics3D graphics = new Graphics3D(this.textureProvider);
+			graphics.colorPalette = colorPalette;
+			return graphics;
+		});
+	}
+
+	/**
+	 * Render a single item sprite. This may be called from several threads.
+	 *
+	 * @param itemId
+	 * @param quantity
+	 * @param border
+	 * @param shadowColor
+	 * @param noted
+	 * @return the sprite, or null if the item has no model
+	 * @throws IOException
+	 */
+	public BufferedImage render(int itemId, int quantity, int border, int shadowColor, boolean noted) throws IOException
+	{
+		SpritePixels spritePixels = ItemSpriteFactory.createSpritePixels(itemProvider, this::getModel, graphics.get(),
+			itemId, quantity, border, shadowColor, noted);
+		return spritePixels == null ? null : spritePixels.toBufferedImage();
+	}
+
+	private Model getModel(ItemDefinition item) throws IOException
+	{
+		ModelKey key = new ModelKey(item);
+		Model model = models.getIfPresent(key);
+		if (model == null)
+		{
+			model = ItemSpriteFactory.getModel(modelProvider, item);
+			if (model == null)
+			{
+				model = new Model();
+			}
+			else
+			{
+				// computes the bounds now, so rendering doesn't modify the model
+				model.calculateBoundsCylinder();
+			}
+			models.put(key, model);
+		}
+		return model.verticesCount > 0 ? model : null;
+	}
+
+	/**
+	 * Render the sprites of the given items in parallel, and write each to
+	 * {@code <id>.png} in the given folder
+	 *
+	 * @param parallelLoader
+	 * @param itemIds
+	 * @param border
+	 * @param shadowColor
+	 * @param outDir
+	 * @return the number of sprites written
+	 * @throws IOException
+	 */
+	public int writeSprites(ParallelLoader parallelLoader, List<Integer> itemIds, int border, int shadowColor, File outDir) throws IOException
+	{
+		outDir.mkdirs();
+
+		List<Boolean> written = parallelLoader.map(itemIds, itemId ->
+		{
+			BufferedImage image = renderOrNull(itemId, border, shadowColor);
+			if (image == null)
+			{
+				return false;
+			}
+
+			ImageIO.write(image, "png", new File(outDir, itemId + ".png"));
+			return true;
+		});
+
+		int count = 0;
+		for (boolean w : written)
+		{
+			if (w)
+			{
+				++count;
+			}
+		}
+
+		logStats(count);
+		return count;
+	}
+
+	/**
+	 * Render the sprites of the given items in parallel, and pack them into
+	 * a sprite atlas, which is written to the given folder. The sprites are
+	 * in the atlas with the item id as their id, and frame 0.
+	 *
+	 * @param parallelLoader
+	 * @param itemIds
+	 * @param border
+	 * @param shadowColor
+	 * @param pageSize
+	 * @param outDir
+	 * @return the atlas
+	 * @throws IOException
+	 * @see SpriteAtlas#write(File)
+	 */
+	public SpriteAtlas writeAtlas(ParallelLoader parallelLoader, List<Integer> itemIds, int border, int shadowColor,
+		int pageSize, File outDir) throws IOException
+	{
+		List<BufferedImage> images = parallelLoader.map(itemIds, itemId -> renderOrNull(itemId, border, shadowColor));
+
+		List<SpriteDefinition> sprites = new ArrayList<>(itemIds.size());
+		for (int i = 0; i < itemIds.size(); ++i)
+		{
+			BufferedImage image = images.get(i);
+			if (image == null)
+			{
+				continue;
+			}
+
+			SpriteDefinition sprite = new SpriteDefinition();
+			sprite.setId(itemIds.get(i));
+			sprite.setWidth(image.getWidth());
+			sprite.setHeight(image.getHeight());
+			sprite.setMaxWidth(image.getWidth());
+			sprite.setMaxHeight(image.getHeight());
+			sprite.setPixels(image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
+			sprites.add(sprite);
+		}
+
+		SpriteAtlas atlas = SpriteAtlas.pack(sprites, pageSize);
+
+		outDir.mkdirs();
+		atlas.write(outDir);
+
+		logStats(sprites.size());
+		return atlas;
+	}
+
+	private BufferedImage renderOrNull(int itemId, int border, int shadowColor)
+	{
+		try
+		{
+			return render(itemId, 1, border, shadowColor, false);
+		}
+		catch (Exception ex)
+		{
+			logger.warn("error rendering item {}", itemId, ex);
+			return null;
+		}
+	}
+
+	private void logStats(int count)
+	{
+		logger.info("Rendered {} item sprites, model cache {}", count, models.stats());
+	}
+}
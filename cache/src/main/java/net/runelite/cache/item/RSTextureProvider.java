@@ -64,6 +64,18 @@ public class RSTextureProvider
 		}
 	}
 
+	/**
+	 * Generate the pixels of every texture up front. Textures are otherwise
+	 * generated on first use, which isn't safe to do from several threads.
+	 */
+	public void loadTextures()
+	{
+		for (int i = 0; i < textures.length; ++i)
+		{
+			load(i);
+		}
+	}
+
 	public int[] load(int var1)
 	{
 		TextureDefinition var2 = this.textures[var1];
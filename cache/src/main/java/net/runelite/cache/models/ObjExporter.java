@@ -25,15 +25,19 @@
 package net.runelite.cache.models;
 
 import java.awt.Color;
-import java.io.PrintWriter;
+import java.io.IOException;
+import java.io.Writer;
 import net.runelite.cache.TextureManager;
 import net.runelite.cache.definitions.ModelDefinition;
 import net.runelite.cache.definitions.TextureDefinition;
 
 public class ObjExporter
 {
+	private static final String NEWLINE = System.lineSeparator();
+
 	private final TextureManager textureManager;
 	private final ModelDefinition model;
+	private final StringBuilder line = new StringBuilder(64);
 
 	public ObjExporter(TextureManager textureManager, ModelDefinition model)
 	{
@@ -41,38 +45,55 @@ public class ObjExporter
 		this.model = model;
 	}
 
-	public void export(PrintWriter objWriter, PrintWriter mtlWriter)
+	/**
+	 * Write the model to the given writers a line at a time, without
+	 * building either file in memory first
+	 *
+	 * @param objWriter
+	 * @param mtlWriter
+	 * @throws IOException
+	 */
+	public void export(Writer objWriter, Writer mtlWriter) throws IOException
 	{
 		model.computeNormals();
-		model.computeTextureUVCoordinates();
 
-		objWriter.println("mtllib " + model.id + ".mtl");
+		line().append("mtllib ").append(model.id).append(".mtl");
+		flush(objWriter);
 
-		objWriter.println("o runescapemodel");
+		line().append("o runescapemodel");
+		flush(objWriter);
 
 		for (int i = 0; i < model.vertexCount; ++i)
 		{
-			objWriter.println("v " + model.vertexPositionsX[i] + " "
-				+ model.vertexPositionsY[i] * -1 + " "
-				+ model.vertexPositionsZ[i] * -1);
+			line().append("v ").append(model.vertexPositionsX[i])
+				.append(' ').append(model.vertexPositionsY[i] * -1)
+				.append(' ').append(model.vertexPositionsZ[i] * -1);
+			flush(objWriter);
 		}
 
 		if (model.faceTextures != null)
 		{
-			float[][] u = model.faceTextureUCoordinates;
-			float[][] v = model.faceTextureVCoordinates;
+			model.computeTextureUVCoordinates();
+
+			float[] u = model.faceTextureUCoordinates;
+			float[] v = model.faceTextureVCoordinates;
 
-			for (int i = 0; i < model.faceCount; ++i)
+			for (int i = 0; i < model.faceCount * 3; ++i)
 			{
-				objWriter.println("vt " + u[i][0] + " " + v[i][0]);
-				objWriter.println("vt " + u[i][1] + " " + v[i][1]);
-				objWriter.println("vt " + u[i][2] + " " + v[i][2]);
+				line().append("vt ").append(u[i]).append(' ').append(v[i]);
+				flush(objWriter);
 			}
 		}
 
-		for (VertexNormal normal : model.vertexNormals)
+		int[] normalsX = model.vertexNormalsX;
+		int[] normalsY = model.vertexNormalsY;
+		int[] normalsZ = model.vertexNormalsZ;
+		for (int i = 0; i < model.vertexCount; ++i)
 		{
-			objWriter.println("vn " + normal.x + " " + normal.y + " " + normal.z);
+			line().append("vn ").append(normalsX[i])
+				.append(' ').append(normalsY[i])
+				.append(' ').append(normalsZ[i]);
+			flush(objWriter);
 		}
 
 		for (int i = 0; i < model.faceCount; ++i)
@@ -81,20 +102,22 @@ public class ObjExporter
 			int y = model.faceVertexIndices2[i] + 1;
 			int z = model.faceVertexIndices3[i] + 1;
 
-			objWriter.println("usemtl m" + i);
+			line().append("usemtl m").append(i);
+			flush(objWriter);
 			if (model.faceTextures != null)
 			{
-				objWriter.println("f "
-					+ x + "/" + (i * 3 + 1) + " "
-					+ y + "/" + (i * 3 + 2) + " "
-					+ z + "/" + (i * 3 + 3));
-
+				line().append("f ")
+					.append(x).append('/').append(i * 3 + 1).append(' ')
+					.append(y).append('/').append(i * 3 + 2).append(' ')
+					.append(z).append('/').append(i * 3 + 3);
 			}
 			else
 			{
-				objWriter.println("f " + x + " " + y + " " + z);
+				line().append("f ").append(x).append(' ').append(y).append(' ').append(z);
 			}
-			objWriter.println("");
+			flush(objWriter);
+			line();
+			flush(objWriter);
 		}
 
 		// Write material
@@ -107,7 +130,8 @@ public class ObjExporter
 				textureId = model.faceTextures[i];
 			}
 
-			mtlWriter.println("newmtl m" + i);
+			line().append("newmtl m").append(i);
+			flush(mtlWriter);
 
 			if (textureId == -1)
 			{
@@ -117,15 +141,16 @@ public class ObjExporter
 				double g = color.getGreen() / 255.0;
 				double b = color.getBlue() / 255.0;
 
-				mtlWriter.println("Kd " + r + " " + g + " " + b);
+				line().append("Kd ").append(r).append(' ').append(g).append(' ').append(b);
 			}
 			else
 			{
 				TextureDefinition texture = textureManager.findTexture(textureId);
 				assert texture != null;
 
-				mtlWriter.println("map_Kd sprite/" + texture.getFileIds()[0] + "-0.png");
+				line().append("map_Kd sprite/").append(texture.getFileIds()[0]).append("-0.png");
 			}
+			flush(mtlWriter);
 
 			int alpha = 0;
 
@@ -136,11 +161,24 @@ public class ObjExporter
 
 			if (alpha != 0)
 			{
-				mtlWriter.println("d " + (alpha / 255.0));
+				line().append("d ").append(alpha / 255.0);
+				flush(mtlWriter);
 			}
 		}
 	}
 
+	private StringBuilder line()
+	{
+		line.setLength(0);
+		return line;
+	}
+
+	private void flush(Writer writer) throws IOException
+	{
+		line.append(NEWLINE);
+		writer.append(line);
+	}
+
 	private static Color rs2hsbToColor(int hsb)
 	{
 		int decode_hue = (hsb >> 10) & 0x3f;
@@ -25,10 +25,14 @@
 package net.runelite.cache.region;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import net.runelite.cache.IndexType;
+import net.runelite.cache.ParallelLoader;
 import net.runelite.cache.definitions.LocationsDefinition;
 import net.runelite.cache.definitions.MapDefinition;
 import net.runelite.cache.definitions.loaders.LocationsLoader;
@@ -37,6 +41,8 @@ import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
+import net.runelite.cache.util.Djb2;
+import net.runelite.cache.util.KeyProvider;
 import net.runelite.cache.util.XteaKeyManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,35 +52,139 @@ public class RegionLoader
 	private static final Logger logger = LoggerFactory.getLogger(RegionLoader.class);
 
 	private static final int MAX_REGION = 32768;
+	// regions are indexed by (x << 8) | y, with x and y below 256
+	private static final int GRID_SIZE = 256;
+
+	// region ids by the name hash of their map and landscape archives
+	private static final Map<Integer, Integer> MAP_NAMES = new HashMap<>(MAX_REGION * 2);
+	private static final Map<Integer, Integer> LAND_NAMES = new HashMap<>(MAX_REGION * 2);
+
+	static
+	{
+		for (int i = 0; i < MAX_REGION; ++i)
+		{
+			int x = i >> 8;
+			int y = i & 0xFF;
+			MAP_NAMES.putIfAbsent(Djb2.hash("m" + x + "_" + y), i);
+			LAND_NAMES.putIfAbsent(Djb2.hash("l" + x + "_" + y), i);
+		}
+	}
 
 	private final Store store;
 	private final Index index;
-	private final XteaKeyManager keyManager;
+	private final KeyProvider keyProvider;
 
-	private final Map<Integer, Region> regions = new HashMap<>();
+	private final List<Region> regions = new ArrayList<>();
+	private final Region[] grid = new Region[GRID_SIZE * GRID_SIZE];
 	private Region lowestX = null, lowestY = null;
 	private Region highestX = null, highestY = null;
 
+	/**
+	 * Create a region loader using the keys from the api
+	 *
+	 * @param store
+	 */
 	public RegionLoader(Store store)
+	{
+		this(store, loadKeys());
+	}
+
+	public RegionLoader(Store store, KeyProvider keyProvider)
 	{
 		this.store = store;
-		index = store.getIndex(IndexType.MAPS);
-		keyManager = new XteaKeyManager();
+		this.index = store.getIndex(IndexType.MAPS);
+		this.keyProvider = keyProvider;
+	}
+
+	private static KeyProvider loadKeys()
+	{
+		XteaKeyManager keyManager = new XteaKeyManager();
 		keyManager.loadKeys();
+		return keyManager;
 	}
 
-	public void loadRegions() throws IOException
+	/**
+	 * Find the regions which have both a map and a landscape archive
+	 *
+	 * @return the ids of the regions, in ascending order
+	 */
+	public List<Integer> findRegionIds()
 	{
+		boolean[] hasMap = new boolean[MAX_REGION];
+		boolean[] hasLand = new boolean[MAX_REGION];
+
+		for (Archive archive : index.getArchives())
+		{
+			Integer region = MAP_NAMES.get(archive.getNameHash());
+			if (region != null)
+			{
+				hasMap[region] = true;
+				continue;
+			}
+
+			region = LAND_NAMES.get(archive.getNameHash());
+			if (region != null)
+			{
+				hasLand[region] = true;
+			}
+		}
+
+		List<Integer> ids = new ArrayList<>();
 		for (int i = 0; i < MAX_REGION; ++i)
 		{
-			Region region = this.loadRegionFromArchive(i);
+			assert hasMap[i] == hasLand[i];
+
+			if (hasMap[i] && hasLand[i])
+			{
+				ids.add(i);
+			}
+		}
+		return ids;
+	}
+
+	public void loadRegions() throws IOException
+	{
+		for (int id : findRegionIds())
+		{
+			Region region = this.loadRegionFromArchive(id);
+			if (region != null)
+			{
+				addRegion(region);
+			}
+		}
+	}
+
+	/**
+	 * Load and decode all regions in parallel
+	 *
+	 * @param parallelLoader
+	 * @throws IOException
+	 */
+	public void loadRegions(ParallelLoader parallelLoader) throws IOException
+	{
+		for (Region region : parallelLoader.map(findRegionIds(), this::loadRegionFromArchive))
+		{
 			if (region != null)
 			{
-				regions.put(i, region);
+				addRegion(region);
 			}
 		}
 	}
 
+	private void addRegion(Region region)
+	{
+		int id = region.getRegionID();
+		if (grid[id] == null)
+		{
+			regions.add(region);
+		}
+		else
+		{
+			regions.set(regions.indexOf(grid[id]), region);
+		}
+		grid[id] = region;
+	}
+
 	public Region loadRegionFromArchive(int i) throws IOException
 	{
 		int x = i >> 8;
@@ -98,27 +208,71 @@ public class RegionLoader
 		Region region = new Region(i);
 		region.loadTerrain(mapDef);
 
-		int[] keys = keyManager.getKeys(i);
-		if (keys != null)
+		data = decryptLocations(storage, land, i);
+		if (data != null)
 		{
-			try
-			{
-				data = land.decompress(storage.loadArchive(land), keys);
-				LocationsDefinition locDef = new LocationsLoader().load(x, y, data);
-				region.loadLocations(locDef);
-			}
-			catch (IOException ex)
+			LocationsDefinition locDef = new LocationsLoader().load(x, y, data);
+			region.loadLocations(locDef);
+		}
+
+		return region;
+	}
+
+	/**
+	 * Decrypt and decompress the landscape archives of the given regions in
+	 * parallel. Regions which have no landscape archive, no keys, or whose
+	 * keys do not decrypt the archive are left out of the result.
+	 *
+	 * @param parallelLoader
+	 * @param regionIds
+	 * @return the decrypted landscape data by region id
+	 * @throws IOException
+	 */
+	public Map<Integer, byte[]> decryptLocations(ParallelLoader parallelLoader, Collection<Integer> regionIds) throws IOException
+	{
+		Storage storage = store.getStorage();
+		List<Integer> ids = new ArrayList<>(regionIds);
+
+		List<byte[]> decrypted = parallelLoader.map(ids, regionId ->
+		{
+			Archive land = index.findArchiveByName("l" + (regionId >> 8) + "_" + (regionId & 0xFF));
+			return land == null ? null : decryptLocations(storage, land, regionId);
+		});
+
+		Map<Integer, byte[]> locations = new HashMap<>();
+		for (int i = 0; i < ids.size(); ++i)
+		{
+			byte[] data = decrypted.get(i);
+			if (data != null)
 			{
-				logger.debug("Can't decrypt region " + i, ex);
+				locations.put(ids.get(i), data);
 			}
 		}
+		return locations;
+	}
 
-		return region;
+	private byte[] decryptLocations(Storage storage, Archive land, int regionId) throws IOException
+	{
+		int[] keys = keyProvider.getKeys(regionId);
+		if (keys == null)
+		{
+			return null;
+		}
+
+		try
+		{
+			return land.decompress(storage.loadArchive(land), keys);
+		}
+		catch (IOException ex)
+		{
+			logger.debug("Can't decrypt region " + regionId, ex);
+			return null;
+		}
 	}
 
 	public void calculateBounds()
 	{
-		for (Region region : regions.values())
+		for (Region region : regions)
 		{
 			if (lowestX == null || region.getBaseX() < lowestX.getBaseX())
 			{
@@ -142,16 +296,54 @@ public class RegionLoader
 		}
 	}
 
+	/**
+	 * @return the loaded regions, in order of region id
+	 */
 	public Collection<Region> getRegions()
 	{
-		return regions.values();
+		return Collections.unmodifiableList(regions);
 	}
 
 	public Region findRegionForWorldCoordinates(int x, int y)
 	{
 		x >>>= 6;
 		y >>>= 6;
-		return regions.get((x << 8) | y);
+		if (x >= GRID_SIZE || y >= GRID_SIZE)
+		{
+			return null;
+		}
+		return grid[(x << 8) | y];
+	}
+
+	/**
+	 * Find the loaded regions overlapping a box of world coordinates
+	 *
+	 * @param minX
+	 * @param minY
+	 * @param maxX inclusive
+	 * @param maxY inclusive
+	 * @return
+	 */
+	public List<Region> findRegions(int minX, int minY, int maxX, int maxY)
+	{
+		int fromX = Math.max(minX, 0) >> 6;
+		int fromY = Math.max(minY, 0) >> 6;
+		int toX = Math.min(maxX >> 6, GRID_SIZE - 1);
+		int toY = Math.min(maxY >> 6, GRID_SIZE - 1);
+
+		List<Region> found = new ArrayList<>();
+		for (int x = fromX; x <= toX; ++x)
+		{
+			for (int y = fromY; y <= toY; ++y)
+			{
+				Region region = grid[(x << 8) | y];
+				if (region != null)
+				{
+					found.add(region);
+				}
+			}
+		}
+		return found;
 	}
 
 	public Region getLowestX()
@@ -29,6 +29,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.util.Arrays;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
@@ -83,4 +84,49 @@ public class BZip2
 
 		return os.toByteArray();
 	}
+
+	/**
+	 * Decompress bzip2 data without a header directly into out, which must be
+	 * exactly the size of the decompressed data.
+	 *
+	 * @param bytes
+	 * @param offset
+	 * @param len
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void decompress(byte[] bytes, int offset, int len, byte[] out) throws IOException
+	{
+		InputStream in = new SequenceInputStream(new ByteArrayInputStream(BZIP_HEADER),
+			new ByteArrayInputStream(bytes, offset, len));
+
+		int read = 0;
+		try (InputStream is = new BZip2CompressorInputStream(in))
+		{
+			while (read < out.length)
+			{
+				int i = is.read(out, read, out.length - read);
+				if (i == -1)
+				{
+					break;
+				}
+				read += i;
+			}
+
+			if (read == out.length && is.read() != -1)
+			{
+				throw new IOException("Decompressed data is longer than expected " + out.length);
+			}
+		}
+		catch (RuntimeException ex)
+		{
+			// the bzip2 decoder can fail with runtime exceptions on corrupt data
+			throw new IOException(ex);
+		}
+
+		if (read != out.length)
+		{
+			throw new IOException("Decompressed length mismatch: expected " + out.length + " was " + read);
+		}
+	}
 }
@@ -30,8 +30,10 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.zip.DataFormatException;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
 import org.apache.commons.compress.utils.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,6 +42,13 @@ public class GZip
 {
 	private static final Logger logger = LoggerFactory.getLogger(GZip.class);
 
+	private static final int FHCRC = 2;
+	private static final int FEXTRA = 4;
+	private static final int FNAME = 8;
+	private static final int FCOMMENT = 16;
+
+	private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+
 	public static byte[] compress(byte[] bytes) throws IOException
 	{
 		InputStream is = new ByteArrayInputStream(bytes);
@@ -64,4 +73,91 @@ public class GZip
 
 		return os.toByteArray();
 	}
+
+	/**
+	 * Decompress a gzip stream directly into out, which must be exactly the
+	 * size of the decompressed data. The inflater is reused per thread.
+	 *
+	 * @param bytes
+	 * @param offset
+	 * @param len
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void decompress(byte[] bytes, int offset, int len, byte[] out) throws IOException
+	{
+		int end = offset + len;
+		if (len < 10 || (bytes[offset] & 0xFF) != 0x1F || (bytes[offset + 1] & 0xFF) != 0x8B || bytes[offset + 2] != 8)
+		{
+			throw new IOException("Not in GZIP format");
+		}
+
+		int flags = bytes[offset + 3] & 0xFF;
+		int pos = offset + 10;
+		if ((flags & FEXTRA) != 0)
+		{
+			if (pos + 2 > end)
+			{
+				throw new IOException("Truncated GZIP header");
+			}
+			pos += 2 + ((bytes[pos] & 0xFF) | (bytes[pos + 1] & 0xFF) << 8);
+		}
+		if ((flags & FNAME) != 0)
+		{
+			pos = skipString(bytes, pos, end);
+		}
+		if ((flags & FCOMMENT) != 0)
+		{
+			pos = skipString(bytes, pos, end);
+		}
+		if ((flags & FHCRC) != 0)
+		{
+			pos += 2;
+		}
+		if (pos > end)
+		{
+			throw new IOException("Truncated GZIP header");
+		}
+
+		Inflater inflater = INFLATER.get();
+		inflater.reset();
+		inflater.setInput(bytes, pos, end - pos);
+
+		try
+		{
+			int read = 0;
+			while (read < out.length)
+			{
+				int i = inflater.inflate(out, read, out.length - read);
+				if (i == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()))
+				{
+					break;
+				}
+				read += i;
+			}
+
+			if (read == out.length && !inflater.finished() && inflater.inflate(new byte[1]) > 0)
+			{
+				throw new IOException("Decompressed data is longer than expected " + out.length);
+			}
+
+			if (read != out.length)
+			{
+				throw new IOException("Decompressed length mismatch: expected " + out.length + " was " + read);
+			}
+		}
+		catch (DataFormatException ex)
+		{
+			throw new IOException(ex);
+		}
+	}
+
+	private static int skipString(byte[] bytes, int pos, int end)
+	{
+		while (pos < end && bytes[pos] != 0)
+		{
+			++pos;
+		}
+		return pos + 1;
+	}
 }
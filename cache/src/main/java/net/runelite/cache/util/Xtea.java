@@ -24,8 +24,9 @@
  */
 package net.runelite.cache.util;
 
-import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
 
 public class Xtea
 {
@@ -40,15 +41,50 @@ public class Xtea
 		this.key = key;
 	}
 
+	/**
+	 * Encrypt the first len bytes of data into a new array of length len.
+	 * Trailing bytes which do not fill a block are copied as is.
+	 *
+	 * @param data
+	 * @param len
+	 * @return
+	 */
 	public byte[] encrypt(byte[] data, int len)
 	{
-		ByteBuf buf = Unpooled.wrappedBuffer(data, 0, len);
-		ByteBuf out = Unpooled.buffer(len);
+		byte[] out = Arrays.copyOf(data, len);
+		encrypt(out, 0, len);
+		return out;
+	}
+
+	/**
+	 * Decrypt the first len bytes of data into a new array of length len.
+	 * Trailing bytes which do not fill a block are copied as is.
+	 *
+	 * @param data
+	 * @param len
+	 * @return
+	 */
+	public byte[] decrypt(byte[] data, int len)
+	{
+		byte[] out = Arrays.copyOf(data, len);
+		decrypt(out, 0, len);
+		return out;
+	}
+
+	/**
+	 * Encrypt len bytes of data starting at offset, in place
+	 *
+	 * @param data
+	 * @param offset
+	 * @param len
+	 */
+	public void encrypt(byte[] data, int offset, int len)
+	{
 		int numBlocks = len / 8;
-		for (int block = 0; block < numBlocks; ++block)
+		for (int block = 0, pos = offset; block < numBlocks; ++block, pos += 8)
 		{
-			int v0 = buf.readInt();
-			int v1 = buf.readInt();
+			int v0 = getInt(data, pos);
+			int v1 = getInt(data, pos + 4);
 			int sum = 0;
 			for (int i = 0; i < ROUNDS; ++i)
 			{
@@ -56,22 +92,93 @@ public class Xtea
 				sum += GOLDEN_RATIO;
 				v1 += (((v0 << 4) ^ (v0 >>> 5)) + v0) ^ (sum + key[(sum >>> 11) & 3]);
 			}
-			out.writeInt(v0);
-			out.writeInt(v1);
+			putInt(data, pos, v0);
+			putInt(data, pos + 4, v1);
 		}
-		out.writeBytes(buf);
-		return out.array();
 	}
 
-	public byte[] decrypt(byte[] data, int len)
+	/**
+	 * Decrypt len bytes of data starting at offset, in place
+	 *
+	 * @param data
+	 * @param offset
+	 * @param len
+	 */
+	public void decrypt(byte[] data, int offset, int len)
+	{
+		int numBlocks = len / 8;
+		for (int block = 0, pos = offset; block < numBlocks; ++block, pos += 8)
+		{
+			int v0 = getInt(data, pos);
+			int v1 = getInt(data, pos + 4);
+			int sum = GOLDEN_RATIO * ROUNDS;
+			for (int i = 0; i < ROUNDS; ++i)
+			{
+				v1 -= (((v0 << 4) ^ (v0 >>> 5)) + v0) ^ (sum + key[(sum >>> 11) & 3]);
+				sum -= GOLDEN_RATIO;
+				v0 -= (((v1 << 4) ^ (v1 >>> 5)) + v1) ^ (sum + key[sum & 3]);
+			}
+			putInt(data, pos, v0);
+			putInt(data, pos + 4, v1);
+		}
+	}
+
+	/**
+	 * Encrypt len bytes of buf starting at the absolute offset, in place.
+	 * The position, limit and byte order of buf are not changed.
+	 *
+	 * @param buf
+	 * @param offset
+	 * @param len
+	 */
+	public void encrypt(ByteBuffer buf, int offset, int len)
+	{
+		if (buf.hasArray())
+		{
+			encrypt(buf.array(), buf.arrayOffset() + offset, len);
+			return;
+		}
+
+		boolean swap = buf.order() != ByteOrder.BIG_ENDIAN;
+		int numBlocks = len / 8;
+		for (int block = 0, pos = offset; block < numBlocks; ++block, pos += 8)
+		{
+			int v0 = getInt(buf, pos, swap);
+			int v1 = getInt(buf, pos + 4, swap);
+			int sum = 0;
+			for (int i = 0; i < ROUNDS; ++i)
+			{
+				v0 += (((v1 << 4) ^ (v1 >>> 5)) + v1) ^ (sum + key[sum & 3]);
+				sum += GOLDEN_RATIO;
+				v1 += (((v0 << 4) ^ (v0 >>> 5)) + v0) ^ (sum + key[(sum >>> 11) & 3]);
+			}
+			putInt(buf, pos, v0, swap);
+			putInt(buf, pos + 4, v1, swap);
+		}
+	}
+
+	/**
+	 * Decrypt len bytes of buf starting at the absolute offset, in place.
+	 * The position, limit and byte order of buf are not changed.
+	 *
+	 * @param buf
+	 * @param offset
+	 * @param len
+	 */
+	public void decrypt(ByteBuffer buf, int offset, int len)
 	{
-		ByteBuf buf = Unpooled.wrappedBuffer(data, 0, len);
-		ByteBuf out = Unpooled.buffer(len);
+		if (buf.hasArray())
+		{
+			decrypt(buf.array(), buf.arrayOffset() + offset, len);
+			return;
+		}
+
+		boolean swap = buf.order() != ByteOrder.BIG_ENDIAN;
 		int numBlocks = len / 8;
-		for (int block = 0; block < numBlocks; ++block)
+		for (int block = 0, pos = offset; block < numBlocks; ++block, pos += 8)
 		{
-			int v0 = buf.readInt();
-			int v1 = buf.readInt();
+			int v0 = getInt(buf, pos, swap);
+			int v1 = getInt(buf, pos + 4, swap);
 			int sum = GOLDEN_RATIO * ROUNDS;
 			for (int i = 0; i < ROUNDS; ++i)
 			{
@@ -79,10 +186,35 @@ public class Xtea
 				sum -= GOLDEN_RATIO;
 				v0 -= (((v1 << 4) ^ (v1 >>> 5)) + v1) ^ (sum + key[sum & 3]);
 			}
-			out.writeInt(v0);
-			out.writeInt(v1);
+			putInt(buf, pos, v0, swap);
+			putInt(buf, pos + 4, v1, swap);
 		}
-		out.writeBytes(buf);
-		return out.array();
+	}
+
+	private static int getInt(ByteBuffer buf, int pos, boolean swap)
+	{
+		int value = buf.getInt(pos);
+		return swap ? Integer.reverseBytes(value) : value;
+	}
+
+	private static void putInt(ByteBuffer buf, int pos, int value, boolean swap)
+	{
+		buf.putInt(pos, swap ? Integer.reverseBytes(value) : value);
+	}
+
+	private static int getInt(byte[] data, int pos)
+	{
+		return ((data[pos] & 0xFF) << 24)
+			| ((data[pos + 1] & 0xFF) << 16)
+			| ((data[pos + 2] & 0xFF) << 8)
+			| (data[pos + 3] & 0xFF);
+	}
+
+	private static void putInt(byte[] data, int pos, int value)
+	{
+		data[pos] = (byte) (value >> 24);
+		data[pos + 1] = (byte) (value >> 16);
+		data[pos + 2] = (byte) (value >> 8);
+		data[pos + 3] = (byte) value;
 	}
 }
@@ -24,15 +24,24 @@
  */
 package net.runelite.cache.util;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import net.runelite.http.api.xtea.XteaClient;
 import net.runelite.http.api.xtea.XteaKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class XteaKeyManager
+public class XteaKeyManager implements KeyProvider
 {
 	private static final Logger logger = LoggerFactory.getLogger(XteaKeyManager.class);
 
@@ -59,6 +68,52 @@ public class XteaKeyManager
 		logger.info("Loaded {} keys", keys.size());
 	}
 
+	/**
+	 * Load keys from a file, in the same json format as the xtea endpoint
+	 * of the api serves
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	public void loadKeys(File file) throws IOException
+	{
+		try (InputStream in = new FileInputStream(file))
+		{
+			loadKeys(in);
+		}
+	}
+
+	public void loadKeys(InputStream in) throws IOException
+	{
+		List<XteaKey> xteaKeys;
+		try
+		{
+			// CHECKSTYLE:OFF
+			xteaKeys = new Gson().fromJson(new InputStreamReader(in, StandardCharsets.UTF_8), new TypeToken<List<XteaKey>>() { }.getType());
+			// CHECKSTYLE:ON
+		}
+		catch (JsonParseException ex)
+		{
+			throw new IOException(ex);
+		}
+
+		if (xteaKeys != null)
+		{
+			for (XteaKey key : xteaKeys)
+			{
+				keys.put(key.getRegion(), key.getKeys());
+			}
+		}
+
+		logger.info("Loaded {} keys", keys.size());
+	}
+
+	public void addKeys(int region, int[] keys)
+	{
+		this.keys.put(region, keys);
+	}
+
+	@Override
 	public int[] getKeys(int region)
 	{
 		return keys.get(region);
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.ArchiveFiles;
+import net.runelite.cache.fs.FSFile;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.TestStores;
+import net.runelite.cache.fs.jagex.CompressionType;
+import net.runelite.cache.fs.jagex.DiskStorage;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CacheVerifierTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testVerify() throws IOException
+	{
+		File root = folder.newFolder();
+		int corruptSector;
+
+		try (Store store = new Store(root))
+		{
+			Index index = store.addIndex(0);
+			for (int i = 0; i < 20; ++i)
+			{
+				addArchive(store, index, i, i % 2 == 0 ? 1 : 3, 1, 1);
+			}
+
+			// corrupted on disk
+			addArchive(store, index, 20, 1, 1, 1);
+			// revision in the index doesn't match the container
+			addArchive(store, index, 21, 1, 3, 3).setRevision(4);
+			// packed with fewer files than the index has
+			Archive archive = addArchive(store, index, 22, 2, 1, 1);
+			archive.setFileData(TestStores.fileData(3));
+			// never written
+			index.addArchive(23).setFileData(TestStores.fileData(1));
+			// not a valid gzip stream
+			addRawArchive(store, index, 24, CompressionType.GZ);
+
+			for (int i = 1; i < 5; ++i)
+			{
+				store.addIndex(i);
+			}
+
+			Index maps = store.addIndex(IndexType.MAPS.getNumber());
+			// encrypted, with no keys
+			addRawArchive(store, maps, 0, CompressionType.GZ);
+			addArchive(store, maps, 1, 1, 1, 1);
+
+			store.save();
+
+			corruptSector = ((DiskStorage) store.getStorage()).findEntry(index.getArchive(20)).getSector();
+		}
+
+		try (RandomAccessFile dat = new RandomAccessFile(new File(root, "main_file_cache.dat2"), "rw"))
+		{
+			// past the 8 byte sector header and the 5 byte container header
+			long position = corruptSector * 520L + 8 + 5 + 10;
+			dat.seek(position);
+			int b = dat.read();
+			dat.seek(position);
+			dat.write(b ^ 0xff);
+		}
+
+		try (Store store = new Store(root);
+			ParallelLoader parallelLoader = new ParallelLoader(4))
+		{
+			store.load();
+
+			CacheVerifier.Result result = new CacheVerifier(store).verify(parallelLoader);
+			assertEquals(27, result.getArchives());
+			assertEquals(1, result.getUnverified());
+
+			Map<Integer, CacheVerifier.Problem> problems = new HashMap<>();
+			for (CacheVerifier.Problem problem : result.getProblems())
+			{
+				assertEquals(0, problem.getIndexId());
+				problems.put(problem.getArchiveId(), problem);
+			}
+
+			assertEquals(5, problems.size());
+			assertEquals(CacheVerifier.ProblemType.CRC_MISMATCH, problems.get(20).getType());
+			assertEquals(corruptSector, problems.get(20).getSector());
+			assertEquals(CacheVerifier.ProblemType.REVISION_MISMATCH, problems.get(21).getType());
+			assertEquals(CacheVerifier.ProblemType.FILE_MISMATCH, problems.get(22).getType());
+			assertEquals(CacheVerifier.ProblemType.MISSING, problems.get(23).getType());
+			assertEquals(CacheVerifier.ProblemType.DECOMPRESSION_FAILED, problems.get(24).getType());
+			assertTrue(problems.get(24).getSector() > 0);
+		}
+	}
+
+	private static Archive addArchive(Store store, Index index, int id, int files, int revision, int containerRevision) throws IOException
+	{
+		Archive archive = index.addArchive(id);
+		archive.setRevision(revision);
+		archive.setFileData(TestStores.fileData(files));
+
+		ArchiveFiles archiveFiles = new ArchiveFiles();
+		for (int i = 0; i < files; ++i)
+		{
+			FSFile file = new FSFile(i);
+			byte[] contents = new byte[100 + id * 10 + i];
+			for (int j = 0; j < contents.length; ++j)
+			{
+				contents[j] = (byte) (j * 7 + id + i);
+			}
+			file.setContents(contents);
+			archiveFiles.addFile(file);
+		}
+
+		TestStores.saveArchive(store, archive, CompressionType.GZ, containerRevision, null, archiveFiles.saveContents());
+		return archive;
+	}
+
+	private static void addRawArchive(Store store, Index index, int id, int compression) throws IOException
+	{
+		Archive archive = index.addArchive(id);
+		archive.setFileData(TestStores.fileData(1));
+
+		byte[] data = new byte[5 + 64 + 4];
+		data[0] = (byte) compression;
+		data[4] = 64;
+		for (int i = 5; i < data.length; ++i)
+		{
+			data[i] = (byte) (i * 31);
+		}
+		store.getStorage().saveArchive(archive, data);
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.ArchiveFiles;
+import net.runelite.cache.fs.Container;
+import net.runelite.cache.fs.FSFile;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.jagex.CompressionType;
+import net.runelite.cache.index.FileData;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ConfigProviderTest
+{
+	private static final int COUNT = 100;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testProvide() throws IOException
+	{
+		File root = folder.newFolder();
+
+		try (Store store = new Store(root))
+		{
+			for (int i = 0; i < IndexType.CONFIGS.getNumber(); ++i)
+			{
+				store.addIndex(i);
+			}
+
+			Index configs = store.addIndex(IndexType.CONFIGS.getNumber());
+			Archive archive = configs.addArchive(ConfigType.ITEM.getId());
+
+			ArchiveFiles files = new ArchiveFiles();
+			FileData[] fileData = new FileData[COUNT];
+			for (int i = 0; i < COUNT; ++i)
+			{
+				FSFile file = new FSFile(i);
+				file.setContents(("item " + i).getBytes(StandardCharsets.UTF_8));
+				files.addFile(file);
+
+				fileData[i] = new FileData();
+				fileData[i].setId(i);
+			}
+			archive.setFileData(fileData);
+
+			Container container = new Container(CompressionType.GZ, -1);
+			container.compress(files.saveContents(), null);
+			store.getStorage().saveArchive(archive, container.data);
+			store.save();
+		}
+
+		try (Store store = new Store(root))
+		{
+			store.load();
+
+			ConfigProvider<String> provider = new ConfigProvider<>(store, ConfigType.ITEM,
+				(id, data) -> new String(data, StandardCharsets.UTF_8), 10);
+			provider.load();
+
+			assertEquals(COUNT, provider.getIds().length);
+			assertEquals(0, provider.getStats().requestCount());
+
+			String def = provider.get(42);
+			assertEquals("item 42", def);
+			assertSame(def, provider.get(42));
+			assertEquals(1, provider.getStats().hitCount());
+			assertEquals(1, provider.getStats().missCount());
+
+			for (int i = 0; i < COUNT; ++i)
+			{
+				assertEquals("item " + i, provider.get(i));
+			}
+
+			// the most recently used definition is kept, but the cache is
+			// bounded, so the first ones have been evicted
+			long misses = provider.getStats().missCount();
+			provider.get(COUNT - 1);
+			assertEquals(misses, provider.getStats().missCount());
+			assertEquals("item 0", provider.get(0));
+			assertEquals(misses + 1, provider.getStats().missCount());
+
+			assertNull(provider.get(COUNT));
+			assertArrayEquals(new int[]{ 0, 1, 2 }, Arrays.copyOf(provider.getIds(), 3));
+		}
+	}
+}
@@ -27,10 +27,26 @@ package net.runelite.cache;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.imageio.ImageIO;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.TestStores;
 import net.runelite.cache.region.Region;
 import net.runelite.cache.region.RegionLoader;
+import net.runelite.cache.util.Djb2;
+import net.runelite.cache.util.XteaKeyManager;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
@@ -97,4 +113,174 @@ public class MapImageDumperTest
 			}
 		}
 	}
+
+	@Test
+	@Ignore
+	public void dumpTiles() throws IOException
+	{
+		File base = StoreLocation.LOCATION,
+			outDir = folder.newFolder();
+
+		try (Store store = new Store(base);
+			ParallelLoader parallelLoader = new ParallelLoader())
+		{
+			store.load();
+
+			MapImageDumper dumper = new MapImageDumper(store);
+			dumper.load();
+
+			for (int i = 0; i < Region.Z; ++i)
+			{
+				dumper.drawTiles(outDir, i, parallelLoader);
+			}
+			logger.info("Wrote tiles to {}", outDir);
+		}
+	}
+
+	@Test
+	public void testDrawTiles() throws IOException
+	{
+		File outDir = folder.newFolder();
+
+		try (Store store = new Store(folder.newFolder());
+			ParallelLoader parallelLoader = new ParallelLoader(4))
+		{
+			// 53,51 borders 52,50, the others are further away
+			createMapStore(store, new int[][]{ { 50, 50 }, { 50, 51 }, { 52, 50 }, { 53, 51 } });
+
+			MapImageDumper dumper = new MapImageDumper(store, new XteaKeyManager());
+			dumper.load();
+			dumper.drawTiles(outDir, 0, parallelLoader);
+
+			// tiles are z/zoom/x/y, y counts down from the north so region y 50 is tile y 205
+			Set<String> expected = new HashSet<>(Arrays.asList(
+				"0/8/50/205", "0/8/50/204", "0/8/52/205", "0/8/53/204",
+				"0/7/25/102", "0/7/26/102",
+				"0/6/12/51", "0/6/13/51",
+				"0/5/6/25", "0/4/3/12", "0/3/1/6", "0/2/0/3", "0/1/0/1", "0/0/0/0"
+			));
+			assertEquals(expected, tiles(outDir));
+
+			// the underlay covers the whole region
+			BufferedImage tile = ImageIO.read(new File(outDir, "0/8/50/205.png"));
+			assertEquals(256, tile.getWidth());
+			assertNotEquals(0, tile.getRGB(128, 128) & 0xFFFFFF);
+
+			// replace every tile with a 1x1 image, so rewritten tiles can be told apart
+			BufferedImage stale = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+			for (String name : expected)
+			{
+				ImageIO.write(stale, "png", new File(outDir, name + ".png"));
+			}
+
+			dumper.drawChangedTiles(outDir, 0, parallelLoader, Collections.singleton(52 << 8 | 50));
+
+			Set<String> rewritten = new HashSet<>();
+			for (String name : tiles(outDir))
+			{
+				if (ImageIO.read(new File(outDir, name + ".png")).getWidth() > 1)
+				{
+					rewritten.add(name);
+				}
+			}
+
+			assertEquals(expected, tiles(outDir));
+			assertEquals(new HashSet<>(Arrays.asList(
+				"0/8/52/205", "0/8/53/204",
+				"0/7/26/102", "0/6/13/51",
+				"0/5/6/25", "0/4/3/12", "0/3/1/6", "0/2/0/3", "0/1/0/1", "0/0/0/0"
+			)), rewritten);
+		}
+	}
+
+	@Test
+	public void testFindChangedRegions() throws IOException
+	{
+		try (Store from = new Store(folder.newFolder());
+			Store to = new Store(folder.newFolder()))
+		{
+			Index fromIndex = from.addIndex(IndexType.MAPS.getNumber());
+			Index toIndex = to.addIndex(IndexType.MAPS.getNumber());
+
+			// 50,50 is unchanged, 50,51 has new locations, 50,52 is new, 50,53 is removed
+			addArchive(fromIndex, 0, "m50_50", 1);
+			addArchive(fromIndex, 1, "l50_50", 2);
+			addArchive(fromIndex, 2, "m50_51", 3);
+			addArchive(fromIndex, 3, "l50_51", 4);
+			addArchive(fromIndex, 6, "m50_53", 7);
+			addArchive(fromIndex, 7, "l50_53", 8);
+
+			addArchive(toIndex, 0, "m50_50", 1);
+			addArchive(toIndex, 1, "l50_50", 2);
+			addArchive(toIndex, 2, "m50_51", 3);
+			addArchive(toIndex, 3, "l50_51", 40);
+			addArchive(toIndex, 4, "m50_52", 5);
+			addArchive(toIndex, 5, "l50_52", 6);
+
+			Set<Integer> changed = MapImageDumper.findChangedRegions(from, to);
+			assertEquals(3, changed.size());
+			assertTrue(changed.contains(50 << 8 | 51));
+			assertTrue(changed.contains(50 << 8 | 52));
+			assertTrue(changed.contains(50 << 8 | 53));
+		}
+	}
+
+	/**
+	 * Add the indexes and archives the dumper loads, with one underlay and
+	 * regions whose ground is covered by it
+	 */
+	private static void createMapStore(Store store, int[][] regions) throws IOException
+	{
+		for (int i = 0; i <= IndexType.TEXTURES.getNumber(); ++i)
+		{
+			store.addIndex(i);
+		}
+
+		Index configs = store.getIndex(IndexType.CONFIGS);
+		TestStores.addArchive(store, configs, ConfigType.UNDERLAY.getId(), 1, new byte[]{ 1, 0x40, (byte) 0x80, 0x20, 0 });
+		TestStores.addArchive(store, configs, ConfigType.OVERLAY.getId(), 1, new byte[1]);
+		TestStores.addArchive(store, configs, ConfigType.OBJECT.getId(), 1, new byte[1]);
+		TestStores.addArchive(store, configs, ConfigType.AREA.getId(), 1, new byte[1]);
+		TestStores.addArchive(store, store.getIndex(IndexType.TEXTURES), 0, 1, new byte[16]);
+
+		// each tile of the bottom plane uses underlay 1 followed by the end of its attributes,
+		// the tiles of the other planes are empty
+		byte[] map = new byte[(2 + Region.Z - 1) * Region.X * Region.Y];
+		for (int i = 0; i < Region.X * Region.Y; ++i)
+		{
+			map[i * 2] = 81 + 1;
+		}
+
+		Index maps = store.getIndex(IndexType.MAPS);
+		int archiveId = 0;
+		for (int[] region : regions)
+		{
+			String name = region[0] + "_" + region[1];
+			TestStores.addArchive(store, maps, archiveId++, 1, map).setNameHash(Djb2.hash("m" + name));
+			// there are no keys for the landscapes, so they aren't loaded
+			TestStores.addArchive(store, maps, archiveId++, 1, new byte[1]).setNameHash(Djb2.hash("l" + name));
+		}
+	}
+
+	/**
+	 * @param outDir
+	 * @return the tiles under outDir, as z/zoom/x/y
+	 */
+	private static Set<String> tiles(File outDir) throws IOException
+	{
+		Path root = outDir.toPath();
+		try (Stream<Path> paths = Files.walk(root))
+		{
+			return paths.filter(Files::isRegularFile)
+				.map(p -> root.relativize(p).toString().replace(File.separatorChar, '/').replace(".png", ""))
+				.collect(Collectors.toSet());
+		}
+	}
+
+	private static void addArchive(Index index, int id, String name, int crc)
+	{
+		Archive archive = index.addArchive(id);
+		archive.setNameHash(Djb2.hash(name));
+		archive.setCrc(crc);
+	}
 }
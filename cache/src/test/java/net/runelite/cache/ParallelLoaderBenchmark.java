@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import java.io.IOException;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.jagex.DiskStorage;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ParallelLoaderBenchmark
+{
+	private static final Logger logger = LoggerFactory.getLogger(ParallelLoaderBenchmark.class);
+
+	private static final int ITERATIONS = 5;
+
+	@FunctionalInterface
+	private interface Load
+	{
+		void load(Store store, ParallelLoader parallelLoader) throws IOException;
+	}
+
+	@Test
+	@Ignore
+	public void benchmark() throws IOException
+	{
+		try (Store store = new Store(new DiskStorage(StoreLocation.LOCATION, true)))
+		{
+			store.load();
+
+			for (int parallelism = 1; parallelism <= Runtime.getRuntime().availableProcessors(); parallelism *= 2)
+			{
+				try (ParallelLoader parallelLoader = new ParallelLoader(parallelism))
+				{
+					logger.info("parallelism {}:", parallelism);
+					time("items", store, parallelLoader, (s, l) -> new ItemManager(s).load(), (s, l) -> new ItemManager(s).load(l));
+					time("objects", store, parallelLoader, (s, l) -> new ObjectManager(s).load(), (s, l) -> new ObjectManager(s).load(l));
+					time("npcs", store, parallelLoader, (s, l) -> new NpcManager(s).load(), (s, l) -> new NpcManager(s).load(l));
+					time("sprites", store, parallelLoader, (s, l) -> new SpriteManager(s).load(), (s, l) -> new SpriteManager(s).load(l));
+					time("interfaces", store, parallelLoader, (s, l) -> new InterfaceManager(s).load(), (s, l) -> new InterfaceManager(s).load(l));
+				}
+			}
+		}
+	}
+
+	private static void time(String name, Store store, ParallelLoader parallelLoader, Load single, Load parallel) throws IOException
+	{
+		// warmup
+		single.load(store, parallelLoader);
+		parallel.load(store, parallelLoader);
+
+		long singleTime = 0, parallelTime = 0;
+		for (int i = 0; i < ITERATIONS; ++i)
+		{
+			long start = System.nanoTime();
+			single.load(store, parallelLoader);
+			long end = System.nanoTime();
+			singleTime += end - start;
+
+			start = System.nanoTime();
+			parallel.load(store, parallelLoader);
+			end = System.nanoTime();
+			parallelTime += end - start;
+		}
+
+		logger.info("{}: single threaded {}ms, parallel {}ms", name,
+			singleTime / ITERATIONS / 1_000_000L, parallelTime / ITERATIONS / 1_000_000L);
+	}
+}
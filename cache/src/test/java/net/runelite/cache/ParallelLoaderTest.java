@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import net.runelite.cache.definitions.ItemDefinition;
+import net.runelite.cache.definitions.NpcDefinition;
+import net.runelite.cache.definitions.ObjectDefinition;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.jagex.DiskStorage;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelLoaderTest
+{
+	@Test
+	public void testLoad() throws IOException
+	{
+		try (Store store = new Store(new DiskStorage(StoreLocation.LOCATION, true));
+			ParallelLoader parallelLoader = new ParallelLoader(4))
+		{
+			store.load();
+
+			ItemManager items = new ItemManager(store);
+			items.load();
+			ItemManager parallelItems = new ItemManager(store);
+			parallelItems.load(parallelLoader);
+
+			Assert.assertEquals(items.getItems().size(), parallelItems.getItems().size());
+			for (ItemDefinition def : items.getItems())
+			{
+				Assert.assertEquals(def, parallelItems.getItem(def.id));
+			}
+
+			ObjectManager objects = new ObjectManager(store);
+			objects.load();
+			ObjectManager parallelObjects = new ObjectManager(store);
+			parallelObjects.load(parallelLoader);
+
+			Assert.assertEquals(objects.getObjects().size(), parallelObjects.getObjects().size());
+			for (ObjectDefinition def : objects.getObjects())
+			{
+				Assert.assertEquals(def, parallelObjects.getObject(def.getId()));
+			}
+
+			NpcManager npcs = new NpcManager(store);
+			npcs.load();
+			NpcManager parallelNpcs = new NpcManager(store);
+			parallelNpcs.load(parallelLoader);
+
+			Assert.assertEquals(npcs.getNpcs().size(), parallelNpcs.getNpcs().size());
+			for (NpcDefinition def : npcs.getNpcs())
+			{
+				Assert.assertEquals(def, parallelNpcs.get(def.id));
+			}
+
+			SpriteManager sprites = new SpriteManager(store);
+			sprites.load();
+			SpriteManager parallelSprites = new SpriteManager(store);
+			parallelSprites.load(parallelLoader);
+
+			Assert.assertEquals(new ArrayList<>(sprites.getSprites()), new ArrayList<>(parallelSprites.getSprites()));
+
+			InterfaceManager interfaces = new InterfaceManager(store);
+			interfaces.load();
+			InterfaceManager parallelInterfaces = new InterfaceManager(store);
+			parallelInterfaces.load(parallelLoader);
+
+			Assert.assertArrayEquals(interfaces.getInterfaces(), parallelInterfaces.getInterfaces());
+		}
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import net.runelite.cache.definitions.SpriteDefinition;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class SpriteAtlasTest
+{
+	private static SpriteDefinition sprite(int id, int frame, int width, int height)
+	{
+		SpriteDefinition sprite = new SpriteDefinition();
+		sprite.setId(id);
+		sprite.setFrame(frame);
+		sprite.setWidth(width);
+		sprite.setHeight(height);
+
+		int[] pixels = new int[width * height];
+		for (int i = 0; i < pixels.length; ++i)
+		{
+			pixels[i] = 0xFF000000 | id << 16 | frame << 8 | i & 0xFF;
+		}
+		sprite.setPixels(pixels);
+		return sprite;
+	}
+
+	@Test
+	public void testPack()
+	{
+		List<SpriteDefinition> sprites = new ArrayList<>();
+		for (int i = 0; i < 40; ++i)
+		{
+			sprites.add(sprite(i, i % 3, 5 + i % 7, 4 + i % 5));
+		}
+		sprites.add(sprite(100, 0, 80, 10)); // larger than a page
+		sprites.add(sprite(101, 0, 0, 0)); // no pixels
+
+		SpriteAtlas atlas = SpriteAtlas.pack(sprites, 32);
+
+		assertNull(atlas.findEntry(101, 0));
+		assertEquals(41, atlas.getEntries().size());
+		assertTrue(atlas.getPages().size() > 2);
+
+		SpriteAtlas.Entry big = atlas.findEntry(100, 0);
+		BufferedImage bigPage = atlas.getPages().get(big.getPage());
+		assertEquals(80, bigPage.getWidth());
+		assertEquals(10, bigPage.getHeight());
+
+		for (SpriteDefinition sprite : sprites)
+		{
+			if (sprite.getWidth() == 0)
+			{
+				continue;
+			}
+
+			SpriteAtlas.Entry entry = atlas.findEntry(sprite.getId(), sprite.getFrame());
+			assertNotNull(entry);
+
+			BufferedImage page = atlas.getPages().get(entry.getPage());
+			assertTrue(entry.getX() + entry.getWidth() <= page.getWidth());
+			assertTrue(entry.getY() + entry.getHeight() <= page.getHeight());
+
+			// sprites on the same page don't overlap
+			for (SpriteAtlas.Entry other : atlas.getEntries())
+			{
+				if (other == entry || other.getPage() != entry.getPage())
+				{
+					continue;
+				}
+
+				assertFalse(entry.getX() < other.getX() + other.getWidth() && other.getX() < entry.getX() + entry.getWidth()
+					&& entry.getY() < other.getY() + other.getHeight() && other.getY() < entry.getY() + entry.getHeight());
+			}
+
+			BufferedImage image = atlas.getSpriteImage(sprite.getId(), sprite.getFrame());
+			int[] pixels = image.getRGB(0, 0, sprite.getWidth(), sprite.getHeight(), null, 0, sprite.getWidth());
+			assertEquals(sprite.getPixels().length, pixels.length);
+			for (int i = 0; i < pixels.length; ++i)
+			{
+				assertEquals(sprite.getPixels()[i], pixels[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ArchiveFileIndexTest
+{
+	@Test
+	public void testSingleChunk()
+	{
+		ArchiveFiles files = new ArchiveFiles();
+		int[] ids = { 0, 5, 2, 7 };
+		for (int id : ids)
+		{
+			FSFile file = new FSFile(id);
+			file.setContents(contents(id, 10 + id));
+			files.addFile(file);
+		}
+
+		ArchiveFileIndex index = new ArchiveFileIndex(ids, files.saveContents());
+		assertEquals(4, index.size());
+		assertArrayEquals(new int[]{ 0, 2, 5, 7 }, index.getFileIds());
+		for (int id : ids)
+		{
+			assertTrue(index.contains(id));
+			assertArrayEquals(contents(id, 10 + id), index.getContents(id));
+		}
+		assertFalse(index.contains(1));
+		assertNull(index.getContents(1));
+	}
+
+	@Test
+	public void testMultipleChunks() throws IOException
+	{
+		// file 3 is split 4 + 2 bytes, file 9 is split 1 + 5 bytes
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bout);
+		out.write(new byte[]{ 1, 2, 3, 4 });
+		out.write(new byte[]{ 10 });
+		out.write(new byte[]{ 5, 6 });
+		out.write(new byte[]{ 11, 12, 13, 14, 15 });
+		// chunk sizes are delta encoded within each chunk
+		out.writeInt(4);
+		out.writeInt(1 - 4);
+		out.writeInt(2);
+		out.writeInt(5 - 2);
+		out.writeByte(2);
+
+		byte[] data = bout.toByteArray();
+		int[] ids = { 3, 9 };
+
+		ArchiveFileIndex index = new ArchiveFileIndex(ids, data);
+		assertArrayEquals(new byte[]{ 1, 2, 3, 4, 5, 6 }, index.getContents(3));
+		assertArrayEquals(new byte[]{ 10, 11, 12, 13, 14, 15 }, index.getContents(9));
+
+		ArchiveFiles files = new ArchiveFiles();
+		files.addFile(new FSFile(3));
+		files.addFile(new FSFile(9));
+		files.loadContents(data);
+		assertArrayEquals(index.getContents(3), files.findFile(3).getContents());
+		assertArrayEquals(index.getContents(9), files.findFile(9).getContents());
+	}
+
+	private static byte[] contents(int id, int length)
+	{
+		byte[] b = new byte[length];
+		for (int i = 0; i < length; ++i)
+		{
+			b[i] = (byte) (id * 31 + i);
+		}
+		return b;
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import net.runelite.cache.IndexType;
+import net.runelite.cache.StoreLocation;
+import net.runelite.cache.fs.jagex.DiskStorage;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ContainerBenchmark
+{
+	private static final Logger logger = LoggerFactory.getLogger(ContainerBenchmark.class);
+
+	@Test
+	@Ignore
+	public void benchmarkAllocations() throws IOException
+	{
+		List<byte[]> archives = new ArrayList<>();
+		try (Store store = new Store(new DiskStorage(StoreLocation.LOCATION, true)))
+		{
+			store.load();
+
+			for (Index index : store.getIndexes())
+			{
+				// skip the map index, as the landscape archives are encrypted
+				if (index.getId() == IndexType.MAPS.getNumber())
+				{
+					continue;
+				}
+
+				for (Archive archive : index.getArchives())
+				{
+					byte[] data = store.getStorage().loadArchive(archive);
+					if (data != null)
+					{
+						archives.add(data);
+					}
+				}
+			}
+		}
+
+		com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+
+		// warmup
+		decompressAll(archives);
+		decompressInPlaceAll(archives);
+
+		long before = threadMXBean.getThreadAllocatedBytes(threadId);
+		long start = System.nanoTime();
+		decompressAll(archives);
+		long time = System.nanoTime() - start;
+		long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+
+		before = threadMXBean.getThreadAllocatedBytes(threadId);
+		start = System.nanoTime();
+		decompressInPlaceAll(archives);
+		long timeInPlace = System.nanoTime() - start;
+		long allocatedInPlace = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+
+		logger.info("{} archives: decompress {} bytes/archive in {}ms, decompressInPlace {} bytes/archive in {}ms",
+			archives.size(),
+			allocated / archives.size(), time / 1_000_000L,
+			allocatedInPlace / archives.size(), timeInPlace / 1_000_000L);
+	}
+
+	private static void decompressAll(List<byte[]> archives) throws IOException
+	{
+		for (byte[] data : archives)
+		{
+			Container.decompress(data, null);
+		}
+	}
+
+	private static void decompressInPlaceAll(List<byte[]> archives) throws IOException
+	{
+		// decompressing in place only modifies encrypted archives
+		for (byte[] data : archives)
+		{
+			Container.decompressInPlace(data, 0, data.length, null);
+		}
+	}
+}
@@ -26,8 +26,12 @@ package net.runelite.cache.fs;
 
 import java.io.IOException;
 import java.util.Random;
+import static net.runelite.cache.fs.jagex.CompressionType.BZ2;
 import static net.runelite.cache.fs.jagex.CompressionType.GZ;
+import static net.runelite.cache.fs.jagex.CompressionType.NONE;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
 import org.junit.Test;
 
 public class ContainerTest
@@ -52,4 +56,69 @@ public class ContainerTest
 		assertArrayEquals(data, container.data);
 	}
 
+	@Test
+	public void testDecompressInPlace() throws IOException
+	{
+		int[] keys = new int[]
+		{
+			4, 8, 15, 16
+		};
+		Random random = new Random(42L);
+		byte[] data = new byte[1024];
+		random.nextBytes(data);
+
+		for (int compression : new int[]{NONE, BZ2, GZ})
+		{
+			Container container = new Container(compression, 42);
+			container.compress(data, keys);
+			byte[] compressedData = container.data;
+
+			Container expected = Container.decompress(compressedData, keys);
+
+			// decompress from the middle of a larger buffer
+			byte[] buffer = new byte[compressedData.length + 16];
+			System.arraycopy(compressedData, 0, buffer, 8, compressedData.length);
+
+			container = Container.decompressInPlace(buffer, 8, compressedData.length, keys);
+			assertArrayEquals(data, container.data);
+			assertEquals(expected.crc, container.crc);
+			assertEquals(42, container.revision);
+			assertEquals(compression, container.compression);
+		}
+	}
+
+	@Test
+	public void testDecompressInPlaceBadLength() throws IOException
+	{
+		Random random = new Random(42L);
+		byte[] data = new byte[1024];
+		random.nextBytes(data);
+
+		for (int compression : new int[]{BZ2, GZ})
+		{
+			Container container = new Container(compression, -1);
+			container.compress(data, null);
+
+			int[] lengths = {-1, Integer.MAX_VALUE, data.length - 1, data.length + 1};
+			for (int length : lengths)
+			{
+				byte[] compressedData = container.data.clone();
+				// the decompressed length follows the compression type and compressed length
+				compressedData[5] = (byte) (length >>> 24);
+				compressedData[6] = (byte) (length >>> 16);
+				compressedData[7] = (byte) (length >>> 8);
+				compressedData[8] = (byte) length;
+
+				try
+				{
+					Container.decompressInPlace(compressedData, 0, compressedData.length, null);
+					fail("decompressed with length " + length);
+				}
+				catch (IOException ex)
+				{
+					// expected
+				}
+			}
+		}
+	}
 }
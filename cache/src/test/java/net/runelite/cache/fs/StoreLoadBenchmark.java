@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs;
+
+import java.io.IOException;
+import net.runelite.cache.IndexType;
+import net.runelite.cache.StoreLocation;
+import net.runelite.cache.fs.jagex.DiskStorage;
+import net.runelite.cache.util.Djb2;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class StoreLoadBenchmark
+{
+	private static final Logger logger = LoggerFactory.getLogger(StoreLoadBenchmark.class);
+
+	private static final int ITERATIONS = 20;
+
+	@Test
+	@Ignore
+	public void benchmarkLoad() throws IOException
+	{
+		long load = 0, lookup = 0, lookupLinear = 0;
+
+		for (int i = 0; i < ITERATIONS + 1; ++i)
+		{
+			try (Store store = new Store(new DiskStorage(StoreLocation.LOCATION, true)))
+			{
+				long start = System.nanoTime();
+				store.load();
+				long loaded = System.nanoTime();
+				int found = lookupAll(store);
+				long looked = System.nanoTime();
+				int foundLinear = lookupAllLinear(store);
+				long lookedLinear = System.nanoTime();
+
+				assert found == foundLinear;
+
+				// first iteration is warmup
+				if (i > 0)
+				{
+					load += loaded - start;
+					lookup += looked - loaded;
+					lookupLinear += lookedLinear - looked;
+				}
+			}
+		}
+
+		logger.info("load: {}us, lookups: {}us, lookups with linear scan: {}us",
+			load / ITERATIONS / 1000L, lookup / ITERATIONS / 1000L, lookupLinear / ITERATIONS / 1000L);
+	}
+
+	/**
+	 * Look up every archive by id, and every region by name, like the loaders do
+	 */
+	private static int lookupAll(Store store)
+	{
+		int found = 0;
+		for (Index index : store.getIndexes())
+		{
+			for (Archive archive : index.getArchives())
+			{
+				if (index.getArchive(archive.getArchiveId()) == archive)
+				{
+					++found;
+				}
+			}
+		}
+
+		Index maps = store.getIndex(IndexType.MAPS);
+		for (int x = 0; x < 256; ++x)
+		{
+			for (int y = 0; y < 256; ++y)
+			{
+				if (maps.findArchiveByName("m" + x + "_" + y) != null)
+				{
+					++found;
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * The same lookups done by scanning the archive list, which is how they
+	 * were done before the index kept its lookup tables
+	 */
+	private static int lookupAllLinear(Store store)
+	{
+		int found = 0;
+		for (Index index : store.getIndexes())
+		{
+			for (Archive archive : index.getArchives())
+			{
+				for (Archive a : index.getArchives())
+				{
+					if (a.getArchiveId() == archive.getArchiveId())
+					{
+						if (a == archive)
+						{
+							++found;
+						}
+						break;
+					}
+				}
+			}
+		}
+
+		Index maps = store.getIndex(IndexType.MAPS);
+		for (int x = 0; x < 256; ++x)
+		{
+			for (int y = 0; y < 256; ++y)
+			{
+				int hash = Djb2.hash("m" + x + "_" + y);
+				for (Archive a : maps.getArchives())
+				{
+					if (a.getNameHash() == hash)
+					{
+						++found;
+						break;
+					}
+				}
+			}
+		}
+		return found;
+	}
+}
@@ -29,6 +29,7 @@ import java.io.IOException;
 import java.util.Random;
 import net.runelite.cache.StoreLocation;
 import net.runelite.cache.index.FileData;
+import net.runelite.cache.util.Djb2;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
@@ -148,4 +149,37 @@ public class StoreTest
 			}
 		}
 	}
+
+	@Test
+	public void testLookup() throws IOException
+	{
+		try (Store store = new Store(folder.newFolder()))
+		{
+			Index index = store.addIndex(5);
+			Assert.assertSame(index, store.findIndex(5));
+			Assert.assertNull(store.findIndex(4));
+			Assert.assertNull(store.findIndex(255));
+
+			Archive archive = index.addArchive(1000);
+			Archive archive2 = index.addArchive(3);
+			Assert.assertSame(archive, index.getArchive(1000));
+			Assert.assertSame(archive2, index.getArchive(3));
+			Assert.assertNull(index.getArchive(4));
+			Assert.assertNull(index.getArchive(1001));
+
+			// iteration order is insertion order
+			Assert.assertSame(archive, index.getArchives().get(0));
+			Assert.assertSame(archive2, index.getArchives().get(1));
+
+			archive.setNameHash(Djb2.hash("m50_50"));
+			Assert.assertSame(archive, index.findArchiveByName("m50_50"));
+			Assert.assertNull(index.findArchiveByName("l50_50"));
+
+			archive2.setNameHash(Djb2.hash("l50_50"));
+			Assert.assertSame(archive2, index.findArchiveByName("l50_50"));
+
+			store.removeIndex(index);
+			Assert.assertNull(store.findIndex(5));
+		}
+	}
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs;
+
+import java.io.IOException;
+import net.runelite.cache.fs.jagex.CompressionType;
+import net.runelite.cache.index.FileData;
+
+/**
+ * Builds small stores in code, for tests which shouldn't need a cache
+ */
+public class TestStores
+{
+	/**
+	 * Add indexes 0 to indexes - 1 to the store, each with the given number
+	 * of single file archives. Archives are a few kb each, so responses for
+	 * them span several chunks, and alternate between gzip and no
+	 * compression.
+	 *
+	 * @param store
+	 * @param indexes
+	 * @param archives
+	 * @throws IOException
+	 */
+	public static void populate(Store store, int indexes, int archives) throws IOException
+	{
+		for (int i = 0; i < indexes; ++i)
+		{
+			Index index = store.addIndex(i);
+			index.setProtocol(6);
+			index.setRevision(1);
+
+			for (int j = 0; j < archives; ++j)
+			{
+				Archive archive = index.addArchive(j);
+				archive.setRevision(1);
+				archive.setFileData(fileData(1));
+
+				byte[] contents = new byte[1024 + j * 64];
+				for (int k = 0; k < contents.length; ++k)
+				{
+					contents[k] = (byte) (k * 31 + i * 7 + j);
+				}
+
+				saveArchive(store, archive, j % 2 == 0 ? CompressionType.GZ : CompressionType.NONE, 1, null, contents);
+			}
+		}
+	}
+
+	/**
+	 * Add an archive with a single file to the index, or replace the
+	 * contents of the archive if it already exists. The contents are gzip
+	 * compressed.
+	 *
+	 * @param store
+	 * @param index
+	 * @param archiveId
+	 * @param revision
+	 * @param contents
+	 * @return the archive
+	 * @throws IOException
+	 */
+	public static Archive addArchive(Store store, Index index, int archiveId, int revision, byte[] contents) throws IOException
+	{
+		Archive archive = index.getArchive(archiveId);
+		if (archive == null)
+		{
+			archive = index.addArchive(archiveId);
+		}
+
+		archive.setRevision(revision);
+		archive.setFileData(fileData(1));
+
+		saveArchive(store, archive, CompressionType.GZ, revision, null, contents);
+		return archive;
+	}
+
+	/**
+	 * Compress the contents into a container and save it as the data of the
+	 * archive, setting the archive's compression and crc
+	 *
+	 * @param store
+	 * @param archive
+	 * @param compression
+	 * @param revision revision appended to the container, or -1 for none
+	 * @param keys xtea keys to encrypt the container with, or null
+	 * @param contents
+	 * @throws IOException
+	 */
+	public static void saveArchive(Store store, Archive archive, int compression, int revision, int[] keys, byte[] contents) throws IOException
+	{
+		Container container = new Container(compression, revision);
+		container.compress(contents, keys);
+
+		archive.setCompression(compression);
+		archive.setCrc(Container.decompress(container.data, keys).crc);
+		store.getStorage().saveArchive(archive, container.data);
+	}
+
+	/**
+	 * @param count
+	 * @return file data for files 0 to count - 1
+	 */
+	public static FileData[] fileData(int count)
+	{
+		FileData[] fileData = new FileData[count];
+		for (int i = 0; i < count; ++i)
+		{
+			fileData[i] = new FileData();
+			fileData[i].setId(i);
+		}
+		return fileData;
+	}
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import java.io.File;
+import java.nio.file.Files;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Container;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.index.FileData;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BinaryFlatStorageTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testSaveArchive() throws Exception
+	{
+		File file = folder.newFolder();
+		try (Store store = new Store(new BinaryFlatStorage(file)))
+		{
+			populate(store);
+			store.save();
+		}
+
+		try (Store store = new Store(new BinaryFlatStorage(file)))
+		{
+			store.load();
+			verify(store);
+
+			// overwrite an archive and save over the open files
+			Index index = store.findIndex(1);
+			Archive archive = index.getArchive(0);
+			save(store, archive, "test2", 7);
+			store.save();
+
+			assertArrayEquals("test2".getBytes(), archive.decompress(store.getStorage().loadArchive(archive)));
+		}
+
+		try (Store store = new Store(new BinaryFlatStorage(file)))
+		{
+			store.load();
+			Archive archive = store.findIndex(1).getArchive(0);
+			assertArrayEquals("test2".getBytes(), archive.decompress(store.getStorage().loadArchive(archive)));
+		}
+	}
+
+	@Test
+	public void testConvert() throws Exception
+	{
+		File text = folder.newFolder();
+		File binary = folder.newFolder();
+		File text2 = folder.newFolder();
+
+		try (Store store = new Store(new FlatStorage(text)))
+		{
+			populate(store);
+			store.save();
+		}
+
+		FlatStorageConverter.toBinary(text, binary);
+
+		try (Store store = new Store(new BinaryFlatStorage(binary)))
+		{
+			store.load();
+			verify(store);
+		}
+
+		FlatStorageConverter.toText(binary, text2);
+
+		for (String name : text.list())
+		{
+			assertArrayEquals(Files.readAllBytes(new File(text, name).toPath()),
+				Files.readAllBytes(new File(text2, name).toPath()));
+		}
+	}
+
+	private static void populate(Store store) throws Exception
+	{
+		for (int i = 0; i < 2; ++i)
+		{
+			Index index = store.addIndex(i);
+			index.setProtocol(6);
+			index.setRevision(10 + i);
+			index.setNamed(true);
+
+			for (int j = 0; j < 3; ++j)
+			{
+				Archive archive = index.addArchive(j);
+				archive.setNameHash(j * 31);
+				archive.setRevision(j);
+
+				FileData[] fileData = new FileData[j + 1];
+				for (int k = 0; k < fileData.length; ++k)
+				{
+					fileData[k] = new FileData();
+					fileData[k].setId(k);
+					fileData[k].setNameHash(k * 7);
+				}
+				archive.setFileData(fileData);
+
+				if (j == 2)
+				{
+					// no contents
+					continue;
+				}
+
+				save(store, archive, "test" + i + j, j);
+			}
+		}
+	}
+
+	private static void verify(Store store) throws Exception
+	{
+		assertEquals(2, store.getIndexes().size());
+		for (int i = 0; i < 2; ++i)
+		{
+			Index index = store.findIndex(i);
+			assertEquals(6, index.getProtocol());
+			assertEquals(10 + i, index.getRevision());
+			assertEquals(3, index.getArchives().size());
+
+			for (int j = 0; j < 3; ++j)
+			{
+				Archive archive = index.getArchive(j);
+				assertEquals(j * 31, archive.getNameHash());
+				assertEquals(j, archive.getRevision());
+				assertEquals(j + 1, archive.getFileData().length);
+				assertEquals(j * 7, archive.getFileData()[j].getNameHash());
+
+				byte[] contents = store.getStorage().loadArchive(archive);
+				if (j == 2)
+				{
+					assertNull(contents);
+				}
+				else
+				{
+					assertArrayEquals(("test" + i + j).getBytes(), archive.decompress(contents));
+				}
+			}
+		}
+	}
+
+	private static void save(Store store, Archive archive, String data, int revision) throws Exception
+	{
+		Container container = new Container(archive.getCompression(), revision);
+		container.compress(data.getBytes(), null);
+		archive.setRevision(revision);
+		archive.setCrc(Container.decompress(container.data, null).crc);
+		store.getStorage().saveArchive(archive, container.data);
+	}
+}
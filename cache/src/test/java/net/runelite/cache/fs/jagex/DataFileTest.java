@@ -167,4 +167,108 @@ public class DataFileTest
 		Assert.assertEquals("testtesttesttest1", str);
 		Assert.assertEquals(42, res2.revision);
 	}
+
+	@Test
+	public void testReadOnly() throws IOException
+	{
+		byte[] b = new byte[4096];
+		for (int i = 0; i < b.length; ++i)
+		{
+			b[i] = (byte) i;
+		}
+
+		File file = folder.newFile();
+
+		DataFileWriteResult res, res2;
+		try (DataFile df = new DataFile(file))
+		{
+			Container container = new Container(CompressionType.NONE, 0);
+			container.compress(b, null);
+			res = df.write(42, 3, container.data);
+
+			container = new Container(CompressionType.GZ, 0);
+			container.compress(b, null);
+			res2 = df.write(42, 0x1FFFF, container.data);
+		}
+
+		try (DataFile df = new DataFile(file, true))
+		{
+			byte[] compressedData = df.read(42, 3, res.sector, res.compressedLength);
+			Assert.assertArrayEquals(b, Container.decompress(compressedData, null).data);
+
+			compressedData = df.read(42, 0x1FFFF, res2.sector, res2.compressedLength);
+			Assert.assertArrayEquals(b, Container.decompress(compressedData, null).data);
+
+			// wrong archive id
+			Assert.assertNull(df.read(42, 4, res.sector, res.compressedLength));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testReadOnlyWrite() throws IOException
+	{
+		try (DataFile df = new DataFile(folder.newFile(), true))
+		{
+			df.write(42, 3, "test".getBytes());
+		}
+	}
+
+	@Test
+	public void testOverwrite() throws IOException
+	{
+		File file = folder.newFile();
+		byte[] small = new byte[100];
+		byte[] large = new byte[2000];
+		for (int i = 0; i < large.length; ++i)
+		{
+			large[i] = (byte) i;
+		}
+
+		try (DataFile df = new DataFile(file))
+		{
+			DataFileWriteResult res = df.write(42, 3, large);
+			DataFileWriteResult other = df.write(42, 4, small);
+			long length = file.length();
+
+			// shrinking in place frees the end of the chain
+			DataFileWriteResult res2 = df.write(42, 3, small, res.sector);
+			Assert.assertEquals(res.sector, res2.sector);
+			Assert.assertEquals(length, file.length());
+			Assert.assertEquals(3, df.getFreeSectorCount());
+			Assert.assertArrayEquals(small, df.read(42, 3, res2.sector, res2.compressedLength));
+
+			// growing again reuses the freed sectors
+			res2 = df.write(42, 3, large, res.sector);
+			Assert.assertEquals(res.sector, res2.sector);
+			Assert.assertEquals(length, file.length());
+			Assert.assertEquals(0, df.getFreeSectorCount());
+			Assert.assertArrayEquals(large, df.read(42, 3, res2.sector, res2.compressedLength));
+
+			// the sector doesn't belong to the archive, so it is not overwritten
+			res2 = df.write(42, 5, small, other.sector);
+			Assert.assertNotEquals(other.sector, res2.sector);
+			Assert.assertArrayEquals(small, df.read(42, 4, other.sector, other.compressedLength));
+			Assert.assertArrayEquals(small, df.read(42, 5, res2.sector, res2.compressedLength));
+		}
+	}
+
+	@Test
+	public void testFreeSectorReuse() throws IOException
+	{
+		File file = folder.newFile();
+		byte[] data = new byte[1500];
+
+		try (DataFile df = new DataFile(file))
+		{
+			DataFileWriteResult res = df.write(42, 3, data);
+
+			df.write(42, 3, new byte[10], res.sector);
+			Assert.assertEquals(2, df.getFreeSectorCount());
+
+			DataFileWriteResult res2 = df.write(42, 4, new byte[1000]);
+			Assert.assertEquals(res.sector + 1, res2.sector);
+			Assert.assertEquals(0, df.getFreeSectorCount());
+			Assert.assertArrayEquals(new byte[1000], df.read(42, 4, res2.sector, res2.compressedLength));
+		}
+	}
 }
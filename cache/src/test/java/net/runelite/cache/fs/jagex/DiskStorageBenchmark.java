@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.jagex;
+
+import java.io.IOException;
+import net.runelite.cache.StoreLocation;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Storage;
+import net.runelite.cache.fs.Store;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class DiskStorageBenchmark
+{
+	private static final Logger logger = LoggerFactory.getLogger(DiskStorageBenchmark.class);
+
+	private static final int ITERATIONS = 10;
+
+	@Test
+	@Ignore
+	public void benchmarkReadAll() throws IOException
+	{
+		// warm up both paths before timing
+		readAll(false);
+		readAll(true);
+
+		long plain = 0, mapped = 0;
+		for (int i = 0; i < ITERATIONS; ++i)
+		{
+			plain += readAll(false);
+			mapped += readAll(true);
+		}
+
+		logger.info("RandomAccessFile: {}ms/iteration, mapped: {}ms/iteration",
+			plain / ITERATIONS / 1_000_000L, mapped / ITERATIONS / 1_000_000L);
+	}
+
+	private static long readAll(boolean readOnly) throws IOException
+	{
+		try (Store store = new Store(new DiskStorage(StoreLocation.LOCATION, readOnly)))
+		{
+			store.load();
+
+			Storage storage = store.getStorage();
+			long bytes = 0;
+			long start = System.nanoTime();
+
+			for (Index index : store.getIndexes())
+			{
+				for (Archive archive : index.getArchives())
+				{
+					byte[] data = storage.loadArchive(archive);
+					if (data != null)
+					{
+						bytes += data.length;
+					}
+				}
+			}
+
+			long elapsed = System.nanoTime() - start;
+			logger.debug("Read {} bytes (read only: {}) in {}ms", bytes, readOnly, elapsed / 1_000_000L);
+			return elapsed;
+		}
+	}
+}
@@ -24,7 +24,18 @@
  */
 package net.runelite.cache.fs.jagex;
 
+import com.google.common.io.Files;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import net.runelite.cache.StoreLocation;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Container;
@@ -99,4 +110,131 @@ public class DiskStorageTest
 		}
 	}
 
+	@Test
+	public void testReadOnly() throws Exception
+	{
+		try (Store store = new Store(new DiskStorage(StoreLocation.LOCATION));
+			Store mappedStore = new Store(new DiskStorage(StoreLocation.LOCATION, true)))
+		{
+			store.load();
+			mappedStore.load();
+
+			assertEquals(store, mappedStore);
+
+			for (Index index : store.getIndexes())
+			{
+				Index mappedIndex = mappedStore.findIndex(index.getId());
+				for (Archive archive : index.getArchives())
+				{
+					Archive mappedArchive = mappedIndex.getArchive(archive.getArchiveId());
+
+					byte[] data = store.getStorage().loadArchive(archive);
+					byte[] mappedData = mappedStore.getStorage().loadArchive(mappedArchive);
+					assertArrayEquals(data, mappedData);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testConcurrentLoad() throws Exception
+	{
+		testConcurrentLoad(false);
+		testConcurrentLoad(true);
+	}
+
+	private void testConcurrentLoad(boolean readOnly) throws Exception
+	{
+		final int threads = 8;
+
+		try (Store store = new Store(new DiskStorage(StoreLocation.LOCATION, readOnly)))
+		{
+			store.load();
+
+			Map<Archive, byte[]> expected = new IdentityHashMap<>();
+			for (Index index : store.getIndexes())
+			{
+				for (Archive archive : index.getArchives())
+				{
+					expected.put(archive, store.getStorage().loadArchive(archive));
+				}
+			}
+
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			try
+			{
+				List<Future<?>> futures = new ArrayList<>();
+				for (int i = 0; i < threads; ++i)
+				{
+					List<Archive> archives = new ArrayList<>(expected.keySet());
+					Collections.shuffle(archives, new Random(i));
+
+					futures.add(executor.submit(() ->
+					{
+						for (Archive archive : archives)
+						{
+							byte[] data = store.getStorage().loadArchive(archive);
+							assertArrayEquals("archive " + archive.getIndex().getId() + "/" + archive.getArchiveId(),
+								expected.get(archive), data);
+						}
+						return null;
+					}));
+				}
+
+				for (Future<?> future : futures)
+				{
+					future.get();
+				}
+			}
+			finally
+			{
+				executor.shutdown();
+			}
+		}
+	}
+
+	@Test
+	public void testCompact() throws Exception
+	{
+		File file = folder.newFolder();
+		for (File f : StoreLocation.LOCATION.listFiles())
+		{
+			Files.copy(f, new File(file, f.getName()));
+		}
+
+		Map<Integer, byte[]> expected = new HashMap<>();
+		try (Store store = new Store(new DiskStorage(file)))
+		{
+			store.load();
+
+			for (Index index : store.getIndexes())
+			{
+				for (Archive archive : index.getArchives())
+				{
+					expected.put(index.getId() << 24 | archive.getArchiveId(), store.getStorage().loadArchive(archive));
+				}
+			}
+		}
+
+		long length = new File(file, "main_file_cache.dat2").length();
+		DiskStorage.compact(file);
+		assertTrue(new File(file, "main_file_cache.dat2").length() <= length);
+
+		try (Store store = new Store(new DiskStorage(file)))
+		{
+			store.load();
+
+			int count = 0;
+			for (Index index : store.getIndexes())
+			{
+				for (Archive archive : index.getArchives())
+				{
+					byte[] data = store.getStorage().loadArchive(archive);
+					assertArrayEquals(expected.get(index.getId() << 24 | archive.getArchiveId()), data);
+					++count;
+				}
+			}
+			assertEquals(expected.size(), count);
+		}
+	}
 }
@@ -0,0 +1,354 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.patch;
+
+import com.google.common.primitives.Bytes;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.TestStores;
+import net.runelite.cache.fs.flat.FlatStorage;
+import net.runelite.cache.index.FileData;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StorePatchTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testDiff() throws IOException
+	{
+		try (Store from = new Store(folder.newFolder());
+			Store to = new Store(folder.newFolder()))
+		{
+			populateBase(from);
+			populateBase(to);
+			modify(to);
+
+			StoreDiff diff = StoreDiff.diff(from, to);
+			assertEquals(2, diff.getIndexes().size());
+
+			IndexDiff index0 = diff.findIndex(0);
+			assertEquals(1, index0.getAddedArchives().size());
+			assertEquals(10, index0.getAddedArchives().get(0).getArchiveId());
+			assertEquals(2, index0.getChangedArchives().size());
+			assertEquals(3, index0.getChangedArchives().get(0).getArchiveId());
+			assertEquals(7, index0.getChangedArchives().get(1).getArchiveId());
+			assertEquals(1, index0.getRemovedArchives().size());
+			assertEquals(5, index0.getRemovedArchives().get(0).getArchiveId());
+
+			// index 1 is unchanged
+			assertNull(diff.findIndex(1));
+
+			IndexDiff index2 = diff.findIndex(2);
+			assertTrue(index2.isIndexAdded());
+			assertEquals(4, index2.getAddedArchives().size());
+
+			assertTrue(StoreDiff.diff(to, to).isEmpty());
+		}
+	}
+
+	@Test
+	public void testApplyDisk() throws IOException
+	{
+		File patch = folder.newFile();
+		File baseFolder = folder.newFolder();
+
+		try (Store from = new Store(baseFolder);
+			Store to = new Store(folder.newFolder()))
+		{
+			populateBase(from);
+			populateBase(to);
+			modify(to);
+			from.save();
+			to.save();
+
+			StorePatch.write(from, to, patch);
+		}
+
+		try (Store base = new Store(baseFolder))
+		{
+			base.load();
+			StoreDiff diff = StorePatch.apply(patch, base);
+			assertEquals(2, diff.getIndexes().size());
+			assertEquals(3, diff.findIndex(0).getAddedArchives().size() + diff.findIndex(0).getChangedArchives().size());
+		}
+
+		try (Store patched = new Store(baseFolder);
+			Store expected = new Store(folder.newFolder()))
+		{
+			patched.load();
+			populateBase(expected);
+			modify(expected);
+
+			assertSameStore(expected, patched);
+		}
+	}
+
+	@Test
+	public void testApplyFlat() throws IOException
+	{
+		File patch = folder.newFile();
+		File baseFolder = folder.newFolder();
+
+		try (Store from = new Store(new FlatStorage(baseFolder));
+			Store to = new Store(new FlatStorage(folder.newFolder())))
+		{
+			populateBase(from);
+			populateBase(to);
+			modify(to);
+			from.save();
+
+			StorePatch.write(from, to, patch);
+		}
+
+		try (Store base = new Store(new FlatStorage(baseFolder)))
+		{
+			base.load();
+			StorePatch.apply(patch, base);
+		}
+
+		try (Store patched = new Store(new FlatStorage(baseFolder));
+			Store expected = new Store(new FlatStorage(folder.newFolder())))
+		{
+			patched.load();
+			populateBase(expected);
+			modify(expected);
+
+			assertSameStore(expected, patched);
+		}
+	}
+
+	@Test
+	public void testMismatch() throws IOException
+	{
+		File patch = folder.newFile();
+
+		try (Store from = new Store(folder.newFolder());
+			Store to = new Store(folder.newFolder()))
+		{
+			populateBase(from);
+			populateBase(to);
+			modify(to);
+
+			StorePatch.write(from, to, patch);
+
+			// the patch has already been applied to the target store
+			try
+			{
+				StorePatch.apply(patch, to);
+				fail("patch applied twice");
+			}
+			catch (IOException ex)
+			{
+				// expected
+			}
+
+			// nothing was changed
+			Store expected = new Store(folder.newFolder());
+			populateBase(expected);
+			modify(expected);
+			assertSameStore(expected, to);
+		}
+	}
+
+	@Test
+	public void testCorruptData() throws IOException
+	{
+		File patch = folder.newFile();
+
+		try (Store from = new Store(folder.newFolder());
+			Store to = new Store(folder.newFolder()))
+		{
+			populateBase(from);
+			populateBase(to);
+			modify(to);
+
+			StorePatch.write(from, to, patch);
+
+			// corrupt the data of an added archive
+			byte[] data = to.getStorage().loadArchive(to.findIndex(2).getArchive(300));
+			byte[] contents = Files.readAllBytes(patch.toPath());
+			int offset = Bytes.indexOf(contents, data);
+			assertTrue(offset != -1);
+			contents[offset + 7] ^= 0xff;
+			Files.write(patch.toPath(), contents);
+
+			try
+			{
+				StorePatch.apply(patch, from);
+				fail("patch with corrupt data applied");
+			}
+			catch (IOException ex)
+			{
+				// expected
+			}
+
+			// nothing was changed
+			Store expected = new Store(folder.newFolder());
+			populateBase(expected);
+			assertSameStore(expected, from);
+		}
+	}
+
+	@Test
+	public void testRemovedIndex() throws IOException
+	{
+		File patch = folder.newFile();
+		File fromFolder = folder.newFolder();
+
+		try (Store from = new Store(fromFolder);
+			Store to = new Store(folder.newFolder()))
+		{
+			populateBase(from);
+			modify(from);
+			populateBase(to);
+			from.save();
+
+			try
+			{
+				StorePatch.write(from, to, patch);
+				fail("patch removes index 2");
+			}
+			catch (IllegalArgumentException ex)
+			{
+				// expected
+			}
+		}
+
+		// the store the index would have been removed from still has it after a reload
+		try (Store reloaded = new Store(fromFolder))
+		{
+			reloaded.load();
+			Index index = reloaded.findIndex(2);
+			assertNotNull(index);
+			assertEquals(4, index.getArchives().size());
+		}
+	}
+
+	@Test
+	public void testMissingData() throws IOException
+	{
+		try (Store from = new Store(folder.newFolder());
+			Store to = new Store(folder.newFolder()))
+		{
+			populateBase(from);
+			populateBase(to);
+
+			// an archive in the index with nothing in the storage
+			Archive archive = to.findIndex(0).addArchive(11);
+			archive.setFileData(new FileData[0]);
+
+			try
+			{
+				StorePatch.write(from, to, folder.newFile());
+				fail("patch written without archive data");
+			}
+			catch (IOException ex)
+			{
+				// expected
+			}
+		}
+	}
+
+	private static void assertSameStore(Store expected, Store actual) throws IOException
+	{
+		assertEquals(expected.getIndexes().size(), actual.getIndexes().size());
+
+		for (Index index : expected.getIndexes())
+		{
+			// flat storage doesn't keep the order of the indexes
+			Index actualIndex = actual.findIndex(index.getId());
+			assertEquals(index, actualIndex);
+			assertEquals(index.getProtocol(), actualIndex.getProtocol());
+
+			for (Archive archive : index.getArchives())
+			{
+				Archive actualArchive = actualIndex.getArchive(archive.getArchiveId());
+				assertNotNull(actualArchive);
+				assertEquals(archive.getCrc(), actualArchive.getCrc());
+				assertEquals(archive.getFileData().length, actualArchive.getFileData().length);
+
+				byte[] data = actual.getStorage().loadArchive(actualArchive);
+				assertArrayEquals(expected.getStorage().loadArchive(archive), data);
+			}
+		}
+	}
+
+	private static void populateBase(Store store) throws IOException
+	{
+		Index index = store.addIndex(0);
+		index.setRevision(1);
+		for (int i = 0; i < 10; ++i)
+		{
+			addArchive(store, index, i, "archive " + i, 1);
+		}
+
+		index = store.addIndex(1);
+		index.setRevision(5);
+		for (int i = 0; i < 3; ++i)
+		{
+			addArchive(store, index, i, "other archive " + i, 5);
+		}
+	}
+
+	private static void modify(Store store) throws IOException
+	{
+		Index index = store.findIndex(0);
+		index.setRevision(2);
+
+		// changed contents
+		addArchive(store, index, 3, "new archive 3", 2);
+		// changed files only
+		index.getArchive(7).getFileData()[0].setNameHash(42);
+		addArchive(store, index, 10, "archive 10", 2);
+		index.removeArchive(index.getArchive(5));
+
+		index = store.addIndex(2);
+		index.setProtocol(7);
+		index.setRevision(1);
+		for (int i = 0; i < 4; ++i)
+		{
+			addArchive(store, index, i * 100, "new index archive " + i, 1);
+		}
+	}
+
+	private static void addArchive(Store store, Index index, int id, String contents, int revision) throws IOException
+	{
+		TestStores.addArchive(store, index, id, revision, contents.getBytes()).setNameHash(id * 31);
+	}
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.item;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.imageio.ImageIO;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.cache.LazyItemProvider;
+import net.runelite.cache.LazyModelProvider;
+import net.runelite.cache.ParallelLoader;
+import net.runelite.cache.SpriteAtlas;
+import net.runelite.cache.SpriteManager;
+import net.runelite.cache.StoreLocation;
+import net.runelite.cache.TextureManager;
+import net.runelite.cache.definitions.ItemDefinition;
+import net.runelite.cache.definitions.TextureDefinition;
+import net.runelite.cache.definitions.providers.ItemProvider;
+import net.runelite.cache.definitions.providers.ModelProvider;
+import net.runelite.cache.definitions.providers.SpriteProvider;
+import net.runelite.cache.definitions.providers.TextureProvider;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.models.TestModels;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class ItemSpriteRendererTest
+{
+	@Rule
+	public TemporaryFolder folder = StoreLocation.getTemporaryFolder();
+
+	@Test
+	@Ignore
+	public void test() throws IOException
+	{
+		File base = StoreLocation.LOCATION,
+			outDir = folder.newFolder();
+
+		try (Store store = new Store(base);
+			ParallelLoader parallelLoader = new ParallelLoader())
+		{
+			store.load();
+
+			LazyItemProvider itemProvider = new LazyItemProvider(store);
+			itemProvider.load();
+
+			SpriteManager spriteManager = new SpriteManager(store);
+			spriteManager.load();
+
+			TextureManager textureManager = new TextureManager(store);
+			textureManager.load();
+
+			ItemSpriteRenderer renderer = new ItemSpriteRenderer(itemProvider, new LazyModelProvider(store),
+				spriteManager, textureManager);
+
+			List<Integer> itemIds = new ArrayList<>();
+			for (int id : itemProvider.getIds())
+			{
+				itemIds.add(id);
+			}
+
+			long start = System.currentTimeMillis();
+			int count = renderer.writeSprites(parallelLoader, itemIds, 1, 3153952, new File(outDir, "sprites"));
+			log.info("Dumped {} item images to {} in {}ms", count, outDir, System.currentTimeMillis() - start);
+
+			start = System.currentTimeMillis();
+			count = renderer.writeAtlas(parallelLoader, itemIds, 1, 3153952, 2048,
+				new File(outDir, "atlas")).getEntries().size();
+			log.info("Packed {} item images in {}ms", count, System.currentTimeMillis() - start);
+		}
+	}
+
+	@Test
+	public void testAtlas() throws IOException
+	{
+		File outDir = folder.newFolder();
+
+		// items 0-19 use models 0-2, item 20 uses a model which doesn't exist
+		Map<Integer, ItemDefinition> items = new HashMap<>();
+		for (int i = 0; i <= 20; ++i)
+		{
+			ItemDefinition item = new ItemDefinition(i);
+			item.inventoryModel = i < 20 ? i % 3 : 99;
+			item.xan2d = i * 100;
+			item.yan2d = i * 50;
+			item.zoom2d = 1000 + i * 20;
+			if (i % 4 == 0)
+			{
+				// the color of the first face
+				item.colorFind = new short[]{5 << 7 | 80};
+				item.colorReplace = new short[]{(short) 12345};
+			}
+			items.put(i, item);
+		}
+
+		ItemProvider itemProvider = items::get;
+		// returns a new model each time, as lighting modifies them
+		ModelProvider modelProvider = modelId -> modelId < 3 ? TestModels.octahedron(modelId, 60 + modelId * 30) : null;
+		SpriteProvider spriteProvider = (spriteId, frameId) -> null;
+		TextureProvider textureProvider = () -> new TextureDefinition[0];
+
+		List<Integer> itemIds = new ArrayList<>(items.keySet());
+
+		SpriteAtlas atlas;
+		try (ParallelLoader parallelLoader = new ParallelLoader(4))
+		{
+			ItemSpriteRenderer renderer = new ItemSpriteRenderer(itemProvider, modelProvider, spriteProvider, textureProvider);
+			atlas = renderer.writeAtlas(parallelLoader, itemIds, 1, 3153952, 128, outDir);
+		}
+
+		// 3 sprites fit across a page and 3 down, in the order of the items
+		JsonObject index;
+		try (Reader reader = new FileReader(new File(outDir, "atlas.json")))
+		{
+			index = new JsonParser().parse(reader).getAsJsonObject();
+		}
+		assertEquals(3, index.get("pages").getAsInt());
+
+		Map<Integer, JsonObject> entries = new HashMap<>();
+		for (JsonElement element : index.getAsJsonArray("sprites"))
+		{
+			JsonObject entry = element.getAsJsonObject();
+			entries.put(entry.get("id").getAsInt(), entry);
+		}
+		assertEquals(20, entries.size());
+		assertNull(entries.get(20));
+
+		List<BufferedImage> pages = new ArrayList<>();
+		for (int i = 0; i < 3; ++i)
+		{
+			pages.add(ImageIO.read(new File(outDir, "atlas-" + i + ".png")));
+		}
+
+		for (int i = 0; i < 20; ++i)
+		{
+			JsonObject entry = entries.get(i);
+			int page = entry.get("page").getAsInt();
+			int x = entry.get("x").getAsInt();
+			int y = entry.get("y").getAsInt();
+			assertEquals(i / 9, page);
+			assertEquals(i % 3 * (ItemSpriteRenderer.WIDTH + 1), x);
+			assertEquals(i % 9 / 3 * (ItemSpriteRenderer.HEIGHT + 1), y);
+			assertEquals(ItemSpriteRenderer.WIDTH, entry.get("width").getAsInt());
+			assertEquals(ItemSpriteRenderer.HEIGHT, entry.get("height").getAsInt());
+			assertEquals(atlas.findEntry(i, 0).getX(), x);
+
+			// the same sprite rendered on its own
+			BufferedImage expected = ItemSpriteFactory.createSprite(itemProvider, modelProvider, spriteProvider, textureProvider,
+				i, 1, 1, 3153952, false);
+			int[] expectedPixels = expected.getRGB(0, 0, ItemSpriteRenderer.WIDTH, ItemSpriteRenderer.HEIGHT, null, 0, ItemSpriteRenderer.WIDTH);
+			int[] pixels = pages.get(page).getRGB(x, y, ItemSpriteRenderer.WIDTH, ItemSpriteRenderer.HEIGHT, null, 0, ItemSpriteRenderer.WIDTH);
+			assertArrayEquals("item " + i, expectedPixels, pixels);
+			assertTrue("item " + i + " is empty", Arrays.stream(pixels).anyMatch(p -> p != 0));
+		}
+	}
+}
@@ -26,15 +26,24 @@ package net.runelite.cache.models;
 
 import java.io.File;
 import java.io.FileWriter;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 import net.runelite.cache.StoreLocation;
 import net.runelite.cache.TextureManager;
 import net.runelite.cache.definitions.ModelDefinition;
+import net.runelite.cache.definitions.TextureDefinition;
 import net.runelite.cache.definitions.loaders.ModelLoader;
 import net.runelite.cache.fs.Store;
 import org.junit.Ignore;
 import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
 public class ObjExporterTest
 {
@@ -60,4 +69,114 @@ public class ObjExporterTest
 			}
 		}
 	}
+
+	@Test
+	public void testExportUntextured() throws IOException
+	{
+		ModelDefinition model = TestModels.octahedron(1, 100);
+
+		StringWriter obj = new StringWriter();
+		StringWriter mtl = new StringWriter();
+		new ObjExporter(null, model).export(obj, mtl);
+
+		List<String> lines = lines(obj);
+		assertEquals("mtllib 1.mtl", lines.get(0));
+		assertEquals("o runescapemodel", lines.get(1));
+
+		// y and z are flipped
+		List<String> vertices = startingWith(lines, "v ");
+		assertEquals(6, vertices.size());
+		assertEquals("v 0 100 0", vertices.get(0));
+		assertEquals("v 100 0 0", vertices.get(1));
+		assertEquals("v 0 0 -100", vertices.get(2));
+
+		assertTrue(startingWith(lines, "vt ").isEmpty());
+
+		// the normal of the top vertex points straight up
+		List<String> normals = startingWith(lines, "vn ");
+		assertEquals(6, normals.size());
+		String[] top = normals.get(0).split(" ");
+		assertEquals("0", top[1]);
+		assertTrue(Integer.parseInt(top[2]) != 0);
+		assertEquals("0", top[3]);
+
+		List<String> faces = startingWith(lines, "f ");
+		assertEquals(8, faces.size());
+		assertEquals("f 1 2 3", faces.get(0));
+		assertEquals("f 6 3 2", faces.get(4));
+
+		List<String> materials = lines(mtl);
+		assertEquals(8, startingWith(materials, "newmtl ").size());
+		assertEquals(8, startingWith(materials, "Kd ").size());
+
+		// normals are computed again once the model is stretched
+		model.resize(256, 128, 128);
+
+		obj = new StringWriter();
+		new ObjExporter(null, model).export(obj, new StringWriter());
+
+		lines = lines(obj);
+		assertEquals("v 200 0 0", startingWith(lines, "v ").get(1));
+
+		List<String> stretchedNormals = startingWith(lines, "vn ");
+		assertEquals(6, stretchedNormals.size());
+		assertNotEquals(normals, stretchedNormals);
+	}
+
+	@Test
+	public void testExportTextured() throws IOException
+	{
+		TextureDefinition texture = new TextureDefinition();
+		texture.setId(5);
+		texture.setFileIds(new int[]{42});
+
+		TextureManager textureManager = new TextureManager(null);
+		textureManager.getTextures().add(texture);
+
+		ModelDefinition model = TestModels.texturedOctahedron(2, 100, 5);
+
+		StringWriter obj = new StringWriter();
+		StringWriter mtl = new StringWriter();
+		new ObjExporter(textureManager, model).export(obj, mtl);
+
+		List<String> lines = lines(obj);
+		assertEquals(6, startingWith(lines, "v ").size());
+		assertEquals(6, startingWith(lines, "vn ").size());
+
+		// three texture coordinates per face, the first face is the
+		// texture triangle itself
+		List<String> uvs = startingWith(lines, "vt ");
+		assertEquals(24, uvs.size());
+		assertUv(0, 0, uvs.get(0));
+		assertUv(1, 0, uvs.get(1));
+		assertUv(0, 1, uvs.get(2));
+
+		List<String> faces = startingWith(lines, "f ");
+		assertEquals(8, faces.size());
+		assertEquals("f 1/1 2/2 3/3", faces.get(0));
+		assertEquals("f 6/13 3/14 2/15", faces.get(4));
+
+		List<String> materials = lines(mtl);
+		assertEquals(4, startingWith(materials, "map_Kd sprite/42-0.png").size());
+		assertEquals(4, startingWith(materials, "Kd ").size());
+	}
+
+	private static void assertUv(float u, float v, String line)
+	{
+		String[] parts = line.split(" ");
+		assertEquals(line, u, Float.parseFloat(parts[1]), 0.0001f);
+		assertEquals(line, v, Float.parseFloat(parts[2]), 0.0001f);
+	}
+
+	private static List<String> lines(StringWriter writer)
+	{
+		return Arrays.asList(writer.toString().split(System.lineSeparator()));
+	}
+
+	private static List<String> startingWith(List<String> lines, String prefix)
+	{
+		return lines.stream()
+			.filter(l -> l.startsWith(prefix))
+			.collect(Collectors.toList());
+	}
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.models;
+
+import net.runelite.cache.definitions.ModelDefinition;
+
+/**
+ * Small models built in code, for tests which shouldn't need a cache
+ */
+public class TestModels
+{
+	/**
+	 * Create an untextured octahedron centered on the origin. Each face has
+	 * a different color.
+	 *
+	 * @param id
+	 * @param size distance from the origin to each vertex
+	 * @return
+	 */
+	public static ModelDefinition octahedron(int id, int size)
+	{
+		ModelDefinition model = new ModelDefinition();
+		model.id = id;
+
+		model.vertexCount = 6;
+		model.vertexPositionsX = new int[]{0, size, 0, -size, 0, 0};
+		model.vertexPositionsY = new int[]{-size, 0, 0, 0, 0, size};
+		model.vertexPositionsZ = new int[]{0, 0, size, 0, -size, 0};
+
+		model.faceCount = 8;
+		model.faceVertexIndices1 = new int[]{0, 0, 0, 0, 5, 5, 5, 5};
+		model.faceVertexIndices2 = new int[]{1, 2, 3, 4, 2, 3, 4, 1};
+		model.faceVertexIndices3 = new int[]{2, 3, 4, 1, 1, 2, 3, 4};
+
+		model.faceColors = new short[model.faceCount];
+		for (int i = 0; i < model.faceCount; ++i)
+		{
+			// hue, saturation and lightness
+			model.faceColors[i] = (short) (i * 7 << 10 | 5 << 7 | 80);
+		}
+		return model;
+	}
+
+	/**
+	 * Create an octahedron with its upper four faces textured, and its
+	 * lower four faces colored. The texture is mapped onto the first face
+	 * exactly, through a texture triangle on its vertices.
+	 *
+	 * @param id
+	 * @param size distance from the origin to each vertex
+	 * @param textureId
+	 * @return
+	 */
+	public static ModelDefinition texturedOctahedron(int id, int size, int textureId)
+	{
+		ModelDefinition model = octahedron(id, size);
+
+		model.faceTextures = new short[model.faceCount];
+		model.textureCoordinates = new byte[model.faceCount];
+		for (int i = 0; i < model.faceCount; ++i)
+		{
+			model.faceTextures[i] = (short) (i < 4 ? textureId : -1);
+			model.textureCoordinates[i] = (byte) (i < 4 ? 0 : -1);
+		}
+
+		model.textureTriangleCount = 1;
+		model.textureRenderTypes = new byte[]{0};
+		model.textureTriangleVertexIndices1 = new short[]{0};
+		model.textureTriangleVertexIndices2 = new short[]{1};
+		model.textureTriangleVertexIndices3 = new short[]{2};
+		return model;
+	}
+}
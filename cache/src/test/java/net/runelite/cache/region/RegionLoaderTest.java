@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.region;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import net.runelite.cache.IndexType;
+import net.runelite.cache.ParallelLoader;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.TestStores;
+import net.runelite.cache.fs.jagex.CompressionType;
+import net.runelite.cache.util.Djb2;
+import net.runelite.cache.util.XteaKeyManager;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class RegionLoaderTest
+{
+	private static final int[] KEYS = { 1, 2, 3, 4 };
+	private static final int[][] REGIONS = { { 50, 50 }, { 50, 51 }, { 51, 50 }, { 60, 60 } };
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File root;
+	private final XteaKeyManager keyManager = new XteaKeyManager();
+
+	@Before
+	public void before() throws IOException
+	{
+		root = folder.newFolder();
+
+		try (Store store = new Store(root))
+		{
+			for (int i = 0; i < IndexType.MAPS.getNumber(); ++i)
+			{
+				store.addIndex(i);
+			}
+
+			Index maps = store.addIndex(IndexType.MAPS.getNumber());
+			int archiveId = 0;
+			for (int[] region : REGIONS)
+			{
+				int x = region[0], y = region[1];
+				// an empty map is 4 planes of tiles with no attributes
+				addArchive(store, maps, archiveId++, "m" + x + "_" + y, new byte[4 * 64 * 64], null);
+				// a landscape with no locations
+				addArchive(store, maps, archiveId++, "l" + x + "_" + y, new byte[1], KEYS);
+
+				// the last region has no keys
+				if (region != REGIONS[REGIONS.length - 1])
+				{
+					keyManager.addKeys(x << 8 | y, KEYS);
+				}
+			}
+
+			store.save();
+		}
+	}
+
+	@Test
+	public void testLoadRegions() throws IOException
+	{
+		try (Store store = new Store(root);
+			ParallelLoader parallelLoader = new ParallelLoader(4))
+		{
+			store.load();
+
+			RegionLoader sequential = new RegionLoader(store, keyManager);
+			sequential.loadRegions();
+
+			RegionLoader parallel = new RegionLoader(store, keyManager);
+			parallel.loadRegions(parallelLoader);
+
+			List<Integer> expected = new ArrayList<>();
+			for (int[] region : REGIONS)
+			{
+				expected.add(region[0] << 8 | region[1]);
+			}
+
+			assertEquals(expected, parallel.findRegionIds());
+			assertEquals(expected, regionIds(sequential));
+			assertEquals(expected, regionIds(parallel));
+
+			parallel.calculateBounds();
+			assertEquals(50 << 6, parallel.getLowestX().getBaseX());
+			assertEquals(60 << 6, parallel.getHighestY().getBaseY());
+		}
+	}
+
+	@Test
+	public void testFindRegions() throws IOException
+	{
+		try (Store store = new Store(root))
+		{
+			store.load();
+
+			RegionLoader loader = new RegionLoader(store, keyManager);
+			loader.loadRegions();
+
+			Region region = loader.findRegionForWorldCoordinates((50 << 6) + 10, (51 << 6) + 63);
+			assertEquals(50 << 8 | 51, region.getRegionID());
+			assertSame(region, loader.findRegionForWorldCoordinates(50 << 6, 51 << 6));
+			assertNull(loader.findRegionForWorldCoordinates(51 << 6, 51 << 6));
+			assertNull(loader.findRegionForWorldCoordinates(256 << 6, 0));
+			assertNull(loader.findRegionForWorldCoordinates(-1, 0));
+
+			assertEquals(Arrays.asList(50 << 8 | 50, 50 << 8 | 51, 51 << 8 | 50),
+				regionIds(loader.findRegions(50 << 6, 50 << 6, (51 << 6) + 63, (51 << 6) + 63)));
+			assertEquals(Arrays.asList(50 << 8 | 50),
+				regionIds(loader.findRegions(-100, -100, (50 << 6) + 1, (50 << 6) + 1)));
+			assertEquals(4, loader.findRegions(0, 0, Integer.MAX_VALUE, Integer.MAX_VALUE).size());
+			assertEquals(0, loader.findRegions(0, 0, 100, 100).size());
+		}
+	}
+
+	@Test
+	public void testDecryptLocations() throws IOException
+	{
+		int valid = 50 << 8 | 50, validToo = 50 << 8 | 51, wrong = 51 << 8 | 50, missing = 60 << 8 | 60;
+		// not in the store at all
+		int absent = 70 << 8 | 70;
+
+		XteaKeyManager keys = new XteaKeyManager();
+		keys.addKeys(valid, KEYS);
+		keys.addKeys(validToo, KEYS);
+		keys.addKeys(wrong, new int[]{ 4, 3, 2, 1 });
+		keys.addKeys(absent, KEYS);
+
+		try (Store store = new Store(root);
+			ParallelLoader parallelLoader = new ParallelLoader(4))
+		{
+			store.load();
+
+			RegionLoader loader = new RegionLoader(store, keys);
+			Map<Integer, byte[]> locations = loader.decryptLocations(parallelLoader,
+				Arrays.asList(valid, validToo, wrong, missing, absent));
+
+			assertEquals(2, locations.size());
+			assertArrayEquals(new byte[1], locations.get(valid));
+			assertArrayEquals(new byte[1], locations.get(validToo));
+		}
+	}
+
+	@Test
+	public void testLoadKeyFile() throws IOException
+	{
+		File keyFile = folder.newFile();
+		try (FileWriter writer = new FileWriter(keyFile))
+		{
+			writer.write("[{\"region\":" + (50 << 8 | 50) + ",\"keys\":[1,2,3,4]}]");
+		}
+
+		XteaKeyManager fileKeys = new XteaKeyManager();
+		fileKeys.loadKeys(keyFile);
+
+		assertEquals(Arrays.toString(KEYS), Arrays.toString(fileKeys.getKeys(50 << 8 | 50)));
+		assertNull(fileKeys.getKeys(50 << 8 | 51));
+	}
+
+	private static List<Integer> regionIds(RegionLoader loader)
+	{
+		return regionIds(loader.getRegions());
+	}
+
+	private static List<Integer> regionIds(Iterable<Region> regions)
+	{
+		List<Integer> ids = new ArrayList<>();
+		for (Region region : regions)
+		{
+			ids.add(region.getRegionID());
+		}
+		return ids;
+	}
+
+	private static void addArchive(Store store, Index index, int id, String name, byte[] data, int[] keys) throws IOException
+	{
+		Archive archive = index.addArchive(id);
+		archive.setNameHash(Djb2.hash(name));
+		archive.setFileData(TestStores.fileData(1));
+		TestStores.saveArchive(store, archive, CompressionType.GZ, -1, keys, data);
+	}
+}
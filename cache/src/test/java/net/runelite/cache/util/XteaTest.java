@@ -24,7 +24,11 @@
  */
 package net.runelite.cache.util;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import org.junit.Test;
 
 public class XteaTest
@@ -52,4 +56,71 @@ public class XteaTest
 
 		assertArrayEquals(data, decData);
 	}
+
+	@Test
+	public void testInPlace()
+	{
+		byte[] data = "xxtesttesttest1xx".getBytes();
+
+		int[] key = new int[]
+		{
+			4, 8, 15, 16
+		};
+		byte[] encrypted = new byte[]
+		{
+			121, -18, 48, 64, 120, -42, -113, 77, 116, 101, 115, 116, 49
+		};
+
+		Xtea xtea = new Xtea(key);
+		xtea.encrypt(data, 2, 13);
+		assertArrayEquals(encrypted, Arrays.copyOfRange(data, 2, 15));
+		assertEquals('x', data[0]);
+		assertEquals('x', data[16]);
+
+		xtea.decrypt(data, 2, 13);
+		assertArrayEquals("xxtesttesttest1xx".getBytes(), data);
+	}
+
+	@Test
+	public void testByteBuffer()
+	{
+		byte[] data = "testtesttest1".getBytes();
+
+		int[] key = new int[]
+		{
+			4, 8, 15, 16
+		};
+		byte[] encrypted = new byte[]
+		{
+			121, -18, 48, 64, 120, -42, -113, 77, 116, 101, 115, 116, 49
+		};
+
+		Xtea xtea = new Xtea(key);
+		for (ByteBuffer buf : new ByteBuffer[]
+		{
+			ByteBuffer.allocate(data.length + 1),
+			ByteBuffer.allocateDirect(data.length + 1),
+			ByteBuffer.allocateDirect(data.length + 1).order(ByteOrder.LITTLE_ENDIAN)
+		})
+		{
+			buf.position(1);
+			buf.put(data);
+			buf.position(0);
+
+			xtea.encrypt(buf, 1, data.length);
+			assertEquals(0, buf.position());
+
+			byte[] encData = new byte[data.length];
+			buf.position(1);
+			buf.get(encData);
+			assertArrayEquals(encrypted, encData);
+
+			xtea.decrypt(buf, 1, data.length);
+
+			byte[] decData = new byte[data.length];
+			buf.position(1);
+			buf.get(decData);
+			assertArrayEquals(data, decData);
+		}
+	}
 }
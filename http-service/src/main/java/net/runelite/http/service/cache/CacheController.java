@@ -49,6 +49,7 @@ import net.runelite.cache.definitions.providers.ItemProvider;
 import net.runelite.cache.definitions.providers.ModelProvider;
 import net.runelite.cache.definitions.providers.SpriteProvider;
 import net.runelite.cache.definitions.providers.TextureProvider;
+import net.runelite.cache.fs.ArchiveFileIndex;
 import net.runelite.cache.fs.ArchiveFiles;
 import net.runelite.cache.fs.Container;
 import net.runelite.cache.fs.FSFile;
@@ -206,19 +207,19 @@ public class CacheController
 	{
 		ArchiveEntry archiveEntry = findConfig(ConfigType.ITEM);
 
-		ArchiveFiles archiveFiles = cacheService.getArchiveFiles(archiveEntry);
-		if (archiveFiles == null)
+		ArchiveFileIndex fileIndex = cacheService.getArchiveFileIndex(archiveEntry);
+		if (fileIndex == null)
 		{
 			throw new NotFoundException();
 		}
 
-		FSFile file = archiveFiles.findFile(itemId);
-		if (file == null)
+		byte[] contents = fileIndex.getContents(itemId);
+		if (contents == null)
 		{
 			throw new NotFoundException();
 		}
 
-		ItemDefinition itemdef = new ItemLoader().load(itemId, file.getContents());
+		ItemDefinition itemdef = new ItemLoader().load(itemId, contents);
 		return itemdef;
 	}
 
@@ -24,9 +24,12 @@
  */
 package net.runelite.http.service.cache;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Iterables;
 import com.google.common.io.BaseEncoding;
 import com.google.common.io.ByteStreams;
+import com.google.common.primitives.Ints;
 import io.minio.MinioClient;
 import io.minio.errors.ErrorResponseException;
 import io.minio.errors.InsufficientDataException;
@@ -48,6 +51,7 @@ import net.runelite.cache.ConfigType;
 import net.runelite.cache.IndexType;
 import net.runelite.cache.definitions.ItemDefinition;
 import net.runelite.cache.definitions.loaders.ItemLoader;
+import net.runelite.cache.fs.ArchiveFileIndex;
 import net.runelite.cache.fs.ArchiveFiles;
 import net.runelite.cache.fs.Container;
 import net.runelite.cache.fs.FSFile;
@@ -78,6 +82,11 @@ public class CacheService
 
 	private final MinioClient minioClient;
 
+	// archive rows are never modified, so cached indexes never go stale
+	private final Cache<Integer, ArchiveFileIndex> fileIndexCache = CacheBuilder.newBuilder()
+		.maximumSize(32L)
+		.build();
+
 	@Autowired
 	public CacheService(
 		@Value("${minio.endpoint}") String minioEndpoint,
@@ -129,21 +138,12 @@ public class CacheService
 		try (Connection con = sql2o.open();
 			ResultSetIterable<FileEntry> files = cacheDao.findFilesForArchive(con, archiveEntry))
 		{
-			byte[] archiveData = getArchive(archiveEntry);
-
-			if (archiveData == null)
-			{
-				return null;
-			}
-
-			Container result = Container.decompress(archiveData, null);
-			if (result == null)
+			byte[] decompressedData = getDecompressedArchive(archiveEntry);
+			if (decompressedData == null)
 			{
 				return null;
 			}
 
-			byte[] decompressedData = result.data;
-
 			ArchiveFiles archiveFiles = new ArchiveFiles();
 			for (FileEntry fileEntry : files)
 			{
@@ -156,6 +156,63 @@ public class CacheService
 		}
 	}
 
+	/**
+	 * Locate the files of an archive without splitting them out. Indexes
+	 * are kept for recently used archives, so looking up single files of
+	 * large archives, like the item configs, doesn't refetch the archive.
+	 *
+	 * @param archiveEntry
+	 * @return
+	 * @throws IOException
+	 */
+	public ArchiveFileIndex getArchiveFileIndex(ArchiveEntry archiveEntry) throws IOException
+	{
+		ArchiveFileIndex fileIndex = fileIndexCache.getIfPresent(archiveEntry.getId());
+		if (fileIndex != null)
+		{
+			return fileIndex;
+		}
+
+		CacheDAO cacheDao = new CacheDAO();
+		List<Integer> fileIds = new ArrayList<>();
+
+		try (Connection con = sql2o.open();
+			ResultSetIterable<FileEntry> files = cacheDao.findFilesForArchive(con, archiveEntry))
+		{
+			for (FileEntry fileEntry : files)
+			{
+				fileIds.add(fileEntry.getFileId());
+			}
+		}
+
+		byte[] decompressedData = getDecompressedArchive(archiveEntry);
+		if (decompressedData == null || fileIds.isEmpty())
+		{
+			return null;
+		}
+
+		fileIndex = new ArchiveFileIndex(Ints.toArray(fileIds), decompressedData);
+		fileIndexCache.put(archiveEntry.getId(), fileIndex);
+		return fileIndex;
+	}
+
+	private byte[] getDecompressedArchive(ArchiveEntry archiveEntry) throws IOException
+	{
+		byte[] archiveData = getArchive(archiveEntry);
+		if (archiveData == null)
+		{
+			return null;
+		}
+
+		Container result = Container.decompress(archiveData, null);
+		if (result == null)
+		{
+			return null;
+		}
+
+		return result.data;
+	}
+
 	public List<CacheEntry> listCaches()
 	{
 		try (Connection con = sql2o.open())
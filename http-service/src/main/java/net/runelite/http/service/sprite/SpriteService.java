@@ -24,12 +24,15 @@
  */
 package net.runelite.http.service.sprite;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import javax.imageio.ImageIO;
 import net.runelite.cache.IndexType;
 import net.runelite.cache.definitions.SpriteDefinition;
+import net.runelite.cache.definitions.exporters.SpriteExporter;
 import net.runelite.cache.definitions.loaders.SpriteLoader;
 import net.runelite.cache.fs.ArchiveFiles;
 import net.runelite.cache.fs.FSFile;
@@ -46,6 +49,11 @@ public class SpriteService
 	@Autowired
 	private CacheService cacheService;
 
+	// archive rows are never modified, so decoded sprites never go stale
+	private final Cache<Integer, SpriteDefinition[]> spriteCache = CacheBuilder.newBuilder()
+		.maximumSize(256L)
+		.build();
+
 	public SpriteDefinition getSprite(int spriteId, int frameId) throws IOException
 	{
 		CacheEntry cache = cacheService.findMostRecent();
@@ -66,21 +74,34 @@ public class SpriteService
 			return null;
 		}
 
-		ArchiveFiles files = cacheService.getArchiveFiles(archive);
-		if (files == null)
+		SpriteDefinition[] sprite = getSprites(archive);
+		if (sprite == null || frameId < 0 || frameId >= sprite.length)
 		{
 			return null;
 		}
 
-		FSFile file = files.getFiles().get(0);
-		byte[] contents = file.getContents();
-		SpriteDefinition[] sprite = new SpriteLoader().load(archive.getArchiveId(), contents);
-		if (frameId < 0 || frameId >= sprite.length)
+		return sprite[frameId];
+	}
+
+	private SpriteDefinition[] getSprites(ArchiveEntry archive) throws IOException
+	{
+		SpriteDefinition[] sprites = spriteCache.getIfPresent(archive.getId());
+		if (sprites != null)
+		{
+			return sprites;
+		}
+
+		ArchiveFiles files = cacheService.getArchiveFiles(archive);
+		if (files == null)
 		{
 			return null;
 		}
 
-		return sprite[frameId];
+		FSFile file = files.getFiles().get(0);
+		byte[] contents = file.getContents();
+		sprites = new SpriteLoader().load(archive.getArchiveId(), contents);
+		spriteCache.put(archive.getId(), sprites);
+		return sprites;
 	}
 
 	public BufferedImage getImage(int spriteId, int frameId) throws IOException
@@ -91,7 +112,7 @@ public class SpriteService
 			return null;
 		}
 
-		BufferedImage bufferedImage = getSpriteImage(sprite);
+		BufferedImage bufferedImage = new SpriteExporter(sprite).export();
 		return bufferedImage;
 	}
 
@@ -107,11 +128,4 @@ public class SpriteService
 		ImageIO.write(image, "png", bao);
 		return bao.toByteArray();
 	}
-
-	private BufferedImage getSpriteImage(SpriteDefinition sprite)
-	{
-		BufferedImage image = new BufferedImage(sprite.getWidth(), sprite.getHeight(), BufferedImage.TYPE_INT_ARGB);
-		image.setRGB(0, 0, sprite.getWidth(), sprite.getHeight(), sprite.getPixels(), 0, sprite.getWidth());
-		return image;
-	}
 }
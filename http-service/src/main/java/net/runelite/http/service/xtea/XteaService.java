@@ -229,11 +229,14 @@ public class XteaService
 
 		try
 		{
-			Container.decompress(data, keys);
+			// data is a fresh copy from the object store, so it can be decrypted in place
+			Container.decompressInPlace(data, 0, data.length, keys);
 			return true;
 		}
-		catch (IOException ex)
+		catch (IOException | RuntimeException ex)
 		{
+			// wrong keys decrypt to garbage, which can fail anywhere in decoding.
+			// The container caps the decompressed length before allocating it.
 			return false;
 		}
 	}
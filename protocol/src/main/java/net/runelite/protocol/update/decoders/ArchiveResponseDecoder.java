@@ -28,134 +28,149 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.DecoderException;
 import java.util.List;
 import net.runelite.cache.fs.jagex.CompressionType;
 import net.runelite.protocol.api.update.ArchiveResponsePacket;
+import net.runelite.protocol.update.ArchiveResponseBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Decodes archive responses as they arrive. The chunk markers are stripped
+ * while copying each read into a single buffer of the exact archive size,
+ * so partially received archives are not kept in the cumulation buffer.
+ */
 public class ArchiveResponseDecoder extends ByteToMessageDecoder
 {
 	private static final Logger logger = LoggerFactory.getLogger(ArchiveResponseDecoder.class);
 
 	private static final int CHUNK_SIZE = 512;
+	// the largest compressed size Container accepts
+	private static final int MAX_COMPRESSED_SIZE = 1000000;
 
-	@Override
-	public void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception
-	{
-		if (in.readableBytes() < 8)
-		{
-			return;
-		}
-
-		ByteBuf copy = in.slice();
-
-		int index = copy.readUnsignedByte();
-		int file = copy.readUnsignedShort();
-		// decompress() starts reading here
-		int compression = copy.readUnsignedByte();
-		int compressedFileSize = copy.readInt();
-
-		assert compression == CompressionType.NONE ||
-			compression == CompressionType.BZ2 ||
-			compression == CompressionType.GZ;
+	private final boolean emitBuffers;
 
-		int size = compressedFileSize
-			+ 5 // 1 byte compresion type, 4 byte compressed size
-			+ (compression != CompressionType.NONE ? 4 : 0); // compression has leading 4 byte decompressed length
+	// archive currently being read
+	private int index;
+	private int file;
+	private ByteBuf compressedData;
+	private int chunkPosition; // position within the current chunk
 
-		assert size > 0;
+	/**
+	 * Create a decoder which emits {@link ArchiveResponsePacket}s
+	 */
+	public ArchiveResponseDecoder()
+	{
+		this(false);
+	}
 
-		int breaks = calculateBreaks(size);
+	/**
+	 * @param emitBuffers whether to emit {@link ArchiveResponseBuffer}s
+	 * holding pooled buffers instead of copying the data to an
+	 * {@link ArchiveResponsePacket}. The receiver must release them.
+	 */
+	public ArchiveResponseDecoder(boolean emitBuffers)
+	{
+		this.emitBuffers = emitBuffers;
+	}
 
-		// 3 for index/file
-		if (size + 3 + breaks > in.readableBytes())
+	@Override
+	public void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception
+	{
+		while (true)
 		{
-			logger.trace("Index {} archive {}: Not enough data yet {} > {}", index, file, size + 3 + breaks, in.readableBytes());
-			return;
-		}
-
-		ByteBuf compressedData = Unpooled.buffer(size);
-
-		int totalRead = 3;
-		in.skipBytes(3); // skip index/file
+			if (compressedData == null)
+			{
+				if (in.readableBytes() < 8)
+				{
+					return;
+				}
+
+				index = in.readUnsignedByte();
+				file = in.readUnsignedShort();
+				// decompress() starts reading here, so leave these in the data
+				int compression = in.getUnsignedByte(in.readerIndex());
+				int compressedFileSize = in.getInt(in.readerIndex() + 1);
+
+				// the buffer is allocated before any of the data arrives, so don't trust the size
+				if (compressedFileSize < 0 || compressedFileSize > MAX_COMPRESSED_SIZE)
+				{
+					throw new DecoderException("Index " + index + " archive " + file + ": invalid compressed size " + compressedFileSize);
+				}
+
+				assert compression == CompressionType.NONE ||
+					compression == CompressionType.BZ2 ||
+					compression == CompressionType.GZ;
+
+				int size = compressedFileSize
+					+ 5 // 1 byte compresion type, 4 byte compressed size
+					+ (compression != CompressionType.NONE ? 4 : 0); // compression has leading 4 byte decompressed length
+
+				assert size > 0;
+
+				compressedData = emitBuffers
+					? ctx.alloc().buffer(size, size)
+					// the array is handed off as is, so it must be exactly sized
+					: Unpooled.wrappedBuffer(new byte[size]).clear();
+				chunkPosition = 3; // index/file
+			}
 
-		for (int i = 0; i < breaks + 1; ++i)
-		{
-			int bytesInBlock = CHUNK_SIZE - (totalRead % CHUNK_SIZE);
-			int bytesToRead = Math.min(bytesInBlock, size - compressedData.writerIndex());
+			while (compressedData.isWritable())
+			{
+				if (chunkPosition == CHUNK_SIZE)
+				{
+					if (!in.isReadable())
+					{
+						return;
+					}
+
+					int b = in.readUnsignedByte();
+					assert b == 0xff;
+					chunkPosition = 1;
+				}
+
+				int bytesToRead = Math.min(CHUNK_SIZE - chunkPosition,
+					Math.min(compressedData.writableBytes(), in.readableBytes()));
+				if (bytesToRead == 0)
+				{
+					logger.trace("Index {} archive {}: Not enough data yet, {}/{}", index, file,
+						compressedData.writerIndex(), compressedData.capacity());
+					return;
+				}
+
+				compressedData.writeBytes(in, bytesToRead);
+				chunkPosition += bytesToRead;
+			}
 
-			logger.trace("{}/{}: reading block {}/{}, read so far this block: {}, file status: {}/{}",
+			logger.trace("{}/{}: done downloading file, remaining buffer {}",
 				index, file,
-				(totalRead % CHUNK_SIZE), CHUNK_SIZE,
-				bytesInBlock,
-				compressedData.writerIndex(), size);
-
-			ByteBuf chunk = in.readBytes(bytesToRead);
-			compressedData.writeBytes(chunk);
-			chunk.release();
+				in.readableBytes());
 
-			totalRead += bytesToRead;
-
-			if (i < breaks)
+			if (emitBuffers)
 			{
-				assert compressedData.writerIndex() < size;
-				int b = in.readUnsignedByte();
-				++totalRead;
-				assert b == 0xff;
+				out.add(new ArchiveResponseBuffer(index, file, compressedData));
+			}
+			else
+			{
+				ArchiveResponsePacket archiveResponse = new ArchiveResponsePacket();
+				archiveResponse.setIndex(index);
+				archiveResponse.setArchive(file);
+				archiveResponse.setData(compressedData.array());
+				out.add(archiveResponse);
 			}
-		}
-
-		assert compressedData.writerIndex() == size;
-
-		logger.trace("{}/{}: done downloading file, remaining buffer {}",
-			index, file,
-			in.readableBytes());
-
-		ArchiveResponsePacket archiveResponse = new ArchiveResponsePacket();
-		archiveResponse.setIndex(index);
-		archiveResponse.setArchive(file);
-		archiveResponse.setData(compressedData.array());
-		out.add(archiveResponse);
 
-		compressedData.release();
+			compressedData = null;
+		}
 	}
 
-	/**
-	 * Calculate how many breaks there are in the file stream. There are
-	 * calculateBreaks()+1 total chunks in the file stream
-	 *
-	 * File contents are sent in 512 byte chunks, with the first byte of
-	 * each chunk except for the first one being 0xff.
-	 *
-	 * The first chunk has an 8 byte header (index, file, compression,
-	 * compressed size). So, the first chunk can contain 512 - 8 bytes of
-	 * the file, and each chunk after 511 bytes.
-	 *
-	 * The 'size' parameter has the compression type and size included in
-	 * it, since they haven't been read yet by the buffer stream, as
-	 * decompress() reads it, so we use 512 - 3 (because 8-5) = 3
-	 */
-	private static int calculateBreaks(int size)
+	@Override
+	protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception
 	{
-		int initialSize = CHUNK_SIZE - 3;
-		if (size <= initialSize)
+		if (compressedData != null)
 		{
-			return 0; // First in the initial chunk, no breaks
-		}
-		int left = size - initialSize;
-
-		if (left % (CHUNK_SIZE - 1) == 0)
-		{
-			return (left / (CHUNK_SIZE - 1));
-		}
-		else
-		{
-			// / 511 because 511 bytes of the file per chunk.
-			// + 1 if there is some left over, it still needs its
-			// own chunk
-			return (left / (CHUNK_SIZE - 1)) + 1;
+			compressedData.release();
+			compressedData = null;
 		}
 	}
-
 }
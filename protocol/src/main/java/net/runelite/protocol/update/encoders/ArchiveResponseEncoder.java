@@ -25,62 +25,104 @@
 package net.runelite.protocol.update.encoders;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.MessageToByteEncoder;
 import net.runelite.protocol.api.update.ArchiveResponsePacket;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Encodes archive responses. In a pipeline the response is written as a
+ * composite of slices of the archive data and the chunk markers, so the
+ * data is not copied.
+ */
 public class ArchiveResponseEncoder extends MessageToByteEncoder<ArchiveResponsePacket>
 {
 	private static final Logger logger = LoggerFactory.getLogger(ArchiveResponseEncoder.class);
 
 	private static final int CHUNK_SIZE = 512;
 
+	private static final ByteBuf CHUNK_MARKER = Unpooled.unreleasableBuffer(
+		Unpooled.wrappedBuffer(new byte[]{(byte) 0xff}));
+
+	@Override
+	public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception
+	{
+		if (msg instanceof ArchiveResponsePacket)
+		{
+			ctx.write(frame(ctx.alloc(), (ArchiveResponsePacket) msg), promise);
+			return;
+		}
+
+		super.write(ctx, msg, promise);
+	}
+
 	@Override
 	protected void encode(ChannelHandlerContext ctx, ArchiveResponsePacket archiveResponse, ByteBuf out) throws Exception
 	{
+		ByteBuf frame = frame(out.alloc(), archiveResponse);
+		try
+		{
+			out.writeBytes(frame);
+		}
+		finally
+		{
+			frame.release();
+		}
+	}
+
+	private static ByteBuf frame(ByteBufAllocator alloc, ArchiveResponsePacket archiveResponse)
+	{
+		byte[] data = archiveResponse.getData();
+
+		// the first chunk has the 3 byte header, and each chunk after
+		// starts with a marker
+		int breaks = data.length <= CHUNK_SIZE - 3 ? 0
+			: (data.length - (CHUNK_SIZE - 3) + CHUNK_SIZE - 2) / (CHUNK_SIZE - 1);
+
+		CompositeByteBuf frame = alloc.compositeBuffer(2 + breaks * 2);
+
 		// archive file header
 		// 1 byte index
 		// 2 byte archive
-		out.writeByte(archiveResponse.getIndex());
-		out.writeShort(archiveResponse.getArchive());
-
-		int pos = out.readableBytes();
+		ByteBuf header = alloc.buffer(3);
+		header.writeByte(archiveResponse.getIndex());
+		header.writeShort(archiveResponse.getArchive());
+		frame.addComponent(header);
 
 		// next is the compressed data which starts with compression
 		// type and length
-		ByteBuf file = Unpooled.wrappedBuffer(archiveResponse.getData());
-		// - 3 for the header
-		int chunkSize = Math.min(file.readableBytes(), CHUNK_SIZE - 3);
+		ByteBuf file = Unpooled.wrappedBuffer(data);
+		try
+		{
+			// - 3 for the header
+			int chunkSize = Math.min(file.readableBytes(), CHUNK_SIZE - 3);
+			frame.addComponent(file.readSlice(chunkSize).retain());
 
-		writeChunk(file.readBytes(chunkSize), out);
+			while (file.isReadable())
+			{
+				frame.addComponent(CHUNK_MARKER.duplicate());
 
-		while (file.isReadable())
+				chunkSize = Math.min(file.readableBytes(), CHUNK_SIZE - 1);
+				frame.addComponent(file.readSlice(chunkSize).retain());
+			}
+		}
+		finally
 		{
-			out.writeByte(0xff);
-
-			chunkSize = Math.min(file.readableBytes(), CHUNK_SIZE - 1);
-			writeChunk(file.readBytes(chunkSize), out);
+			file.release();
 		}
 
-		int size = out.readableBytes() - pos;
+		frame.writerIndex(frame.capacity());
+
 		logger.debug("Wrote index {} archive {} (size {}) in {} bytes",
 			archiveResponse.getIndex(), archiveResponse.getArchive(),
-			archiveResponse.getData().length, size);
-	}
+			data.length, frame.readableBytes());
 
-	private void writeChunk(ByteBuf chunk, ByteBuf out)
-	{
-		try
-		{
-			out.writeBytes(chunk);
-		}
-		finally
-		{
-			chunk.release();
-		}
+		return frame;
 	}
 
 }
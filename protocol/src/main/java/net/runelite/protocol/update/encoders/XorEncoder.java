@@ -42,19 +42,51 @@ public class XorEncoder extends MessageToByteEncoder<ByteBuf>
 		this.key = key;
 	}
 
+	@Override
+	public boolean acceptOutboundMessage(Object msg) throws Exception
+	{
+		// without a key, buffers are passed on as is instead of being copied
+		return key != 0 && super.acceptOutboundMessage(msg);
+	}
+
+	@Override
+	protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, ByteBuf msg, boolean preferDirect) throws Exception
+	{
+		int length = msg.readableBytes();
+		return preferDirect ? ctx.alloc().ioBuffer(length) : ctx.alloc().heapBuffer(length);
+	}
+
 	@Override
 	protected void encode(ChannelHandlerContext ctx, ByteBuf msg, ByteBuf out) throws Exception
 	{
+		int length = msg.readableBytes();
+
 		if (key == 0)
 		{
 			out.writeBytes(msg);
 			return;
 		}
 
-		while (msg.isReadable())
+		out.ensureWritable(length);
+
+		int readerIndex = msg.readerIndex();
+		int writerIndex = out.writerIndex();
+
+		// the key repeated in each byte, so the byte order doesn't matter
+		long wideKey = (key & 0xffL) * 0x0101010101010101L;
+
+		int i = 0;
+		for (; i + 8 <= length; i += 8)
 		{
-			out.writeByte(msg.readByte() ^ key);
+			out.setLong(writerIndex + i, msg.getLong(readerIndex + i) ^ wideKey);
 		}
+		for (; i < length; ++i)
+		{
+			out.setByte(writerIndex + i, msg.getByte(readerIndex + i) ^ key);
+		}
+
+		msg.readerIndex(readerIndex + length);
+		out.writerIndex(writerIndex + length);
 	}
 
 }
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2019, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.protocol.update.decoders;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.DecoderException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.runelite.cache.fs.Container;
+import net.runelite.cache.fs.jagex.CompressionType;
+import net.runelite.protocol.api.update.ArchiveResponsePacket;
+import net.runelite.protocol.update.ArchiveResponseBuffer;
+import net.runelite.protocol.update.encoders.ArchiveResponseEncoder;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ArchiveResponseDecoderTest
+{
+	private static final int[] SIZES = {1, 504, 505, 1000, 5000, 100_000};
+
+	@Test
+	public void testPartialReads() throws Exception
+	{
+		Random random = new Random(42L);
+		List<ArchiveResponsePacket> packets = createPackets(random);
+		ByteBuf encoded = encode(packets);
+
+		ArchiveResponseDecoder decoder = new ArchiveResponseDecoder();
+		List<Object> out = new ArrayList<>();
+
+		// feed the decoder like ByteToMessageDecoder does, a few bytes at a time
+		ByteBuf cumulation = Unpooled.buffer();
+		while (encoded.isReadable())
+		{
+			int length = Math.min(encoded.readableBytes(), 1 + random.nextInt(700));
+			cumulation.writeBytes(encoded, length);
+			decoder.decode(null, cumulation, out);
+			cumulation.discardReadBytes();
+		}
+
+		Assert.assertFalse(cumulation.isReadable());
+		Assert.assertEquals(packets.size(), out.size());
+
+		for (int i = 0; i < packets.size(); ++i)
+		{
+			ArchiveResponsePacket expected = packets.get(i);
+			ArchiveResponsePacket response = (ArchiveResponsePacket) out.get(i);
+
+			Assert.assertEquals(expected.getIndex(), response.getIndex());
+			Assert.assertEquals(expected.getArchive(), response.getArchive());
+			Assert.assertArrayEquals(expected.getData(), response.getData());
+		}
+	}
+
+	@Test
+	public void testBuffers() throws Exception
+	{
+		Random random = new Random(42L);
+		List<ArchiveResponsePacket> packets = createPackets(random);
+		ByteBuf encoded = encode(packets);
+
+		EmbeddedChannel channel = new EmbeddedChannel(new ArchiveResponseDecoder(true));
+		while (encoded.isReadable())
+		{
+			int length = Math.min(encoded.readableBytes(), 1 + random.nextInt(3000));
+			channel.writeInbound(encoded.readBytes(length));
+		}
+
+		for (ArchiveResponsePacket expected : packets)
+		{
+			ArchiveResponseBuffer response = channel.readInbound();
+			try
+			{
+				Assert.assertEquals(expected.getIndex(), response.getIndex());
+				Assert.assertEquals(expected.getArchive(), response.getArchive());
+
+				ByteBuf content = response.content();
+				Assert.assertEquals(expected.getData().length, content.capacity());
+
+				byte[] data = new byte[content.readableBytes()];
+				content.readBytes(data);
+				Assert.assertArrayEquals(expected.getData(), data);
+			}
+			finally
+			{
+				response.release();
+			}
+		}
+
+		Assert.assertNull(channel.readInbound());
+		Assert.assertFalse(channel.finish());
+	}
+
+	@Test(expected = DecoderException.class)
+	public void testOversized() throws Exception
+	{
+		ByteBuf in = Unpooled.buffer();
+		in.writeByte(2); // index
+		in.writeShort(1); // archive
+		in.writeByte(CompressionType.GZ);
+		in.writeInt(Integer.MAX_VALUE - 16); // compressed size
+
+		new ArchiveResponseDecoder().decode(null, in, new ArrayList<>());
+	}
+
+	private static List<ArchiveResponsePacket> createPackets(Random random) throws IOException
+	{
+		List<ArchiveResponsePacket> packets = new ArrayList<>();
+		for (int i = 0; i < SIZES.length; ++i)
+		{
+			byte[] data = new byte[SIZES[i]];
+			random.nextBytes(data);
+
+			Container container = new Container(i % 2 == 0 ? CompressionType.NONE : CompressionType.GZ, -1);
+			container.compress(data, null);
+
+			ArchiveResponsePacket archiveResponse = new ArchiveResponsePacket();
+			archiveResponse.setIndex(i);
+			archiveResponse.setArchive(1000 + i);
+			archiveResponse.setData(container.data);
+			packets.add(archiveResponse);
+		}
+		return packets;
+	}
+
+	private static ByteBuf encode(List<ArchiveResponsePacket> packets)
+	{
+		EmbeddedChannel channel = new EmbeddedChannel(new ArchiveResponseEncoder());
+		ByteBuf buf = Unpooled.buffer();
+		for (ArchiveResponsePacket packet : packets)
+		{
+			channel.writeOutbound(packet);
+
+			ByteBuf encoded = channel.readOutbound();
+			buf.writeBytes(encoded);
+			encoded.release();
+		}
+		return buf;
+	}
+}
@@ -26,6 +26,7 @@ package net.runelite.protocol.update.encoders;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
@@ -73,4 +74,30 @@ public class ArchiveResponseEncoderTest
 		Assert.assertArrayEquals(data, decompressedData);
 	}
 
+	@Test
+	public void testWrite() throws Exception
+	{
+		for (int size : new int[]{0, 509, 510, 1020, 1021, 5000})
+		{
+			byte[] data = new byte[size];
+			new Random(size).nextBytes(data);
+
+			ArchiveResponsePacket archiveResponse = new ArchiveResponsePacket();
+			archiveResponse.setIndex(255);
+			archiveResponse.setArchive(65535);
+			archiveResponse.setData(data);
+
+			ByteBuf expected = Unpooled.buffer();
+			new ArchiveResponseEncoder().encode(null, archiveResponse, expected);
+
+			// written through a pipeline, the response is a composite buffer
+			EmbeddedChannel channel = new EmbeddedChannel(new ArchiveResponseEncoder());
+			channel.writeOutbound(archiveResponse);
+			ByteBuf written = channel.readOutbound();
+
+			Assert.assertEquals(expected, written);
+			written.release();
+		}
+	}
+
 }
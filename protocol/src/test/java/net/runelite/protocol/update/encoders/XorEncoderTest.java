@@ -26,6 +26,7 @@ package net.runelite.protocol.update.encoders;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import java.util.Random;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -48,4 +49,24 @@ public class XorEncoderTest
 		Assert.assertEquals((Byte) (byte) 0xfe, (Byte) encoded);
 	}
 
+	@Test
+	public void testEncodeWide() throws Exception
+	{
+		// long enough for the 8 byte loop, with bytes left over
+		byte[] data = new byte[1003];
+		new Random(42L).nextBytes(data);
+
+		XorEncoder encoder = new XorEncoder();
+		encoder.setKey((byte) 0x9c);
+
+		ByteBuf out = Unpooled.buffer(1);
+		encoder.encode(null, Unpooled.wrappedBuffer(data, 3, 1000), out);
+
+		Assert.assertEquals(1000, out.readableBytes());
+		for (int i = 0; i < 1000; ++i)
+		{
+			Assert.assertEquals((byte) (data[3 + i] ^ 0x9c), out.readByte());
+		}
+	}
+
 }